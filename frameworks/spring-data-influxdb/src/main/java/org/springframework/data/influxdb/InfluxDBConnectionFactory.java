@@ -17,24 +17,52 @@ package org.springframework.data.influxdb;
 
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.OkHttpClient.Builder;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.influxdb.cluster.ClusterInfluxDB;
+import org.springframework.data.influxdb.cluster.InfluxEndpoint;
+import org.springframework.data.influxdb.metrics.InfluxDBMetrics;
+import org.springframework.data.influxdb.network.RequestEventReporter;
+import org.springframework.data.influxdb.network.AdaptiveGzipInterceptor;
+import org.springframework.data.influxdb.network.DeflaterPool;
+import org.springframework.data.influxdb.network.SamplingInterceptor;
+import org.springframework.data.influxdb.network.SharedHttpResources;
 import org.springframework.util.Assert;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
-public class InfluxDBConnectionFactory implements InitializingBean {
+public class InfluxDBConnectionFactory implements InitializingBean, DisposableBean {
     private static Logger logger = LoggerFactory.getLogger(InfluxDBConnectionFactory.class);
 
+    /**
+     * 创建和关闭连接时使用的锁，保证并发获取时只创建一个连接
+     */
+    private final Object lock = new Object();
+
     /**
      * InfluxDB的连接
      */
     private volatile InfluxDB connection;
 
+    /**
+     * 配置了多个节点时的集群连接
+     */
+    private volatile ClusterInfluxDB cluster;
+
+    /**
+     * 与InfluxDB的连接共用连接池和调度器的OkHttpClient
+     */
+    private volatile OkHttpClient httpClient;
+
     /**
      * InfluxDB的属性配置
      */
@@ -45,6 +73,31 @@ public class InfluxDBConnectionFactory implements InitializingBean {
      */
     private Interceptor networkInterceptor;
 
+    /**
+     * 请求采样的拦截器，开启请求采样时创建
+     */
+    private volatile SamplingInterceptor samplingInterceptor;
+
+    /**
+     * 写入请求的压缩拦截器，开启compression时创建
+     */
+    private volatile AdaptiveGzipInterceptor compressionInterceptor;
+
+    /**
+     * 处理采样的请求事件，默认打印汇总日志
+     */
+    private RequestEventReporter eventReporter;
+
+    /**
+     * 统计指标
+     */
+    private volatile InfluxDBMetrics metrics = InfluxDBMetrics.NOOP;
+
+    /**
+     * 是否已经销毁
+     */
+    private volatile boolean destroyed;
+
     public InfluxDBConnectionFactory() {
         // ~
     }
@@ -61,32 +114,234 @@ public class InfluxDBConnectionFactory implements InitializingBean {
     }
 
     public InfluxDB getConnection() {
+        final InfluxDB result = connection;
+        if (result != null) {
+            return result;
+        }
+        synchronized (lock) {
+            if (connection == null) {
+                connection = createConnection();
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * 创建连接，调用时需要持有锁
+     */
+    private InfluxDB createConnection() {
         Assert.notNull(getProperties(), "InfluxDBProperties are required");
-        if (connection == null) {
-            final Builder client = new OkHttpClient.Builder()
-                    .connectTimeout(properties.getConnectTimeout(), TimeUnit.SECONDS)
-                    .writeTimeout(properties.getWriteTimeout(), TimeUnit.SECONDS)
-                    .readTimeout(properties.getReadTimeout(), TimeUnit.SECONDS);
-
-            // 添加网络过滤器
-            if (networkInterceptor != null) {
-                client.addNetworkInterceptor(networkInterceptor);
+        Assert.state(!destroyed, "InfluxDBConnectionFactory has been destroyed");
+        final List<String> urls = getUrls();
+        if (urls.size() > 1) {
+            final InfluxDBProperties.Cluster config = properties.getCluster();
+            final List<InfluxEndpoint> endpoints = new ArrayList<>(urls.size());
+            for (String url : urls) {
+                endpoints.add(new InfluxEndpoint(url, connect(url)));
+            }
+            cluster = new ClusterInfluxDB(endpoints, config.getStrategy(),
+                    config.getRetries(), config.getHealthCheckInterval());
+            cluster.setMetrics(metrics);
+            logger.debug("Using InfluxDB '{}' on {} with {}", properties.getDatabase(), urls, config.getStrategy());
+            return cluster.getProxy();
+        }
+        return connect(urls.get(0));
+    }
+
+    /**
+     * 关闭当前的连接，下次调用{@link #getConnection()}时重新创建；OkHttpClient的连接池和调度器继续保留
+     */
+    public void close() {
+        synchronized (lock) {
+            final InfluxDB current = connection;
+            connection = null;
+            cluster = null;
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close InfluxDB connection", e);
+                }
             }
+        }
+    }
+
+    /**
+     * 关闭当前的连接并立即重新创建
+     *
+     * @return 返回新的连接
+     */
+    public InfluxDB reconnect() {
+        synchronized (lock) {
+            close();
+            return getConnection();
+        }
+    }
+
+    /**
+     * 创建单个节点的连接
+     */
+    private InfluxDB connect(final String url) {
+        // 基于共用的OkHttpClient创建，连接池和调度器与getHttpClient()相同
+        final Builder client = getHttpClient().newBuilder();
+
+        String username = properties.getUsername();
+        String password = properties.getPassword();
+
+        InfluxDB influxDB = InfluxDBFactory.connect(url, username, password, client);
+
+        logger.debug("Using InfluxDB '{}' on '{}'", properties.getDatabase(), url);
+
+        if (properties.isGzip() && !properties.getCompression().isEnabled()) {
+            logger.debug("Enabled gzip compression for HTTP requests");
+            influxDB.enableGzip();
+        }
+        return influxDB;
+    }
+
+    /**
+     * 获取配置的所有节点的连接路径，未配置cluster.urls时只有url
+     */
+    public List<String> getUrls() {
+        final List<String> urls = properties.getCluster().getUrls();
+        if (urls == null || urls.isEmpty()) {
+            Assert.hasText(properties.getUrl(), "InfluxDB url is required");
+            return Collections.singletonList(properties.getUrl());
+        }
+        return urls;
+    }
+
+    /**
+     * 选择一个节点的连接路径，用于直接发送HTTP请求；配置了多个节点时按负载均衡策略选择健康的节点
+     *
+     * @return 返回节点的连接路径
+     */
+    public String selectUrl() {
+        getConnection();
+        final ClusterInfluxDB cluster = this.cluster;
+        return cluster != null ? cluster.select(null).getUrl() : getUrls().get(0);
+    }
+
+    /**
+     * 获取集群连接，只配置了一个节点时返回null
+     *
+     * @return 返回集群连接
+     */
+    public ClusterInfluxDB getCluster() {
+        getConnection();
+        return cluster;
+    }
+
+    /**
+     * 获取所有节点的健康状态和延迟统计，只配置了一个节点时返回空集合
+     *
+     * @return 返回所有节点
+     */
+    public List<InfluxEndpoint> getEndpoints() {
+        final ClusterInfluxDB cluster = getCluster();
+        return cluster != null ? cluster.getEndpoints() : Collections.emptyList();
+    }
 
-            String url = properties.getUrl();
-            String username = properties.getUsername();
-            String password = properties.getPassword();
+    /**
+     * 获取OkHttpClient，用于直接发送HTTP请求(例如流式查询)
+     *
+     * @return 返回OkHttpClient
+     */
+    public OkHttpClient getHttpClient() {
+        final OkHttpClient result = httpClient;
+        if (result != null) {
+            return result;
+        }
+        synchronized (lock) {
+            if (httpClient == null) {
+                Assert.notNull(getProperties(), "InfluxDBProperties are required");
+                Assert.state(!destroyed, "InfluxDBConnectionFactory has been destroyed");
+                final Builder client = new OkHttpClient.Builder()
+                        .connectTimeout(properties.getConnectTimeout(), TimeUnit.SECONDS)
+                        .writeTimeout(properties.getWriteTimeout(), TimeUnit.SECONDS)
+                        .readTimeout(properties.getReadTimeout(), TimeUnit.SECONDS);
 
-            connection = InfluxDBFactory.connect(url, username, password, client);
+                // 连接池和调度器
+                final InfluxDBProperties.Http http = properties.getHttp();
+                if (http.isShared()) {
+                    client.connectionPool(SharedHttpResources.getConnectionPool(http))
+                            .dispatcher(SharedHttpResources.getDispatcher(http));
+                } else {
+                    client.connectionPool(SharedHttpResources.newConnectionPool(http))
+                            .dispatcher(SharedHttpResources.newDispatcher(http));
+                }
+                if (!http.isHttp2()) {
+                    client.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+                }
 
-            logger.debug("Using InfluxDB '{}' on '{}'", properties.getDatabase(), url);
+                // 按大小压缩写入请求，在网络过滤器之前执行；压缩后的请求体长度未知，采样时按实际发送的字节数记录
+                final InfluxDBProperties.Compression compression = properties.getCompression();
+                if (compression.isEnabled()) {
+                    compressionInterceptor = new AdaptiveGzipInterceptor(compression.getThreshold(),
+                            new DeflaterPool(compression.getLevel(), compression.getPoolSize()));
+                    client.addInterceptor(compressionInterceptor);
+                }
 
-            if (properties.isGzip()) {
-                logger.debug("Enabled gzip compression for HTTP requests");
-                connection.enableGzip();
+                // 添加网络过滤器
+                if (networkInterceptor != null) {
+                    client.addNetworkInterceptor(networkInterceptor);
+                }
+                final InfluxDBProperties.Sampling sampling = properties.getSampling();
+                if (sampling.isEnabled()) {
+                    samplingInterceptor = new SamplingInterceptor(sampling.getRate(), sampling.getBufferSize())
+                            .startReporter(eventReporter != null ? eventReporter : new SamplingInterceptor.LoggingReporter(),
+                                    sampling.getReportInterval());
+                    client.addNetworkInterceptor(samplingInterceptor);
+                }
+                httpClient = client.build();
             }
+            return httpClient;
+        }
+    }
+
+    /**
+     * 获取写入请求的压缩拦截器，可以查看压缩的请求数量和压缩率
+     *
+     * @return 未开启compression或者尚未创建OkHttpClient时返回null
+     */
+    public AdaptiveGzipInterceptor getCompressionInterceptor() {
+        return compressionInterceptor;
+    }
+
+    /**
+     * 获取请求采样的拦截器
+     *
+     * @return 未开启请求采样或者尚未创建OkHttpClient时返回null
+     */
+    public SamplingInterceptor getSamplingInterceptor() {
+        return samplingInterceptor;
+    }
+
+    /**
+     * 设置处理采样的请求事件的reporter，需要在创建OkHttpClient之前设置
+     *
+     * @param eventReporter 处理请求事件
+     */
+    public void setEventReporter(final RequestEventReporter eventReporter) {
+        this.eventReporter = eventReporter;
+    }
+
+    public InfluxDBMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 设置统计指标，同时注册连接池和调度器的指标
+     *
+     * @param metrics 统计指标，为null时不记录
+     */
+    public void setMetrics(final InfluxDBMetrics metrics) {
+        this.metrics = metrics != null ? metrics : InfluxDBMetrics.NOOP;
+        final ClusterInfluxDB current = this.cluster;
+        if (current != null) {
+            current.setMetrics(this.metrics);
         }
-        return connection;
+        this.metrics.bind(this);
     }
 
     /**
@@ -111,4 +366,34 @@ public class InfluxDBConnectionFactory implements InitializingBean {
     public void afterPropertiesSet() throws Exception {
         Assert.notNull(getProperties(), "InfluxDBProperties are required");
     }
+
+    /**
+     * 关闭连接，并关闭OkHttpClient的调度器线程池和连接池；共用的连接池和调度器不关闭
+     */
+    @Override
+    public void destroy() {
+        synchronized (lock) {
+            if (destroyed) {
+                return;
+            }
+            destroyed = true;
+            close();
+
+            final OkHttpClient client = httpClient;
+            httpClient = null;
+            final SamplingInterceptor sampling = samplingInterceptor;
+            if (sampling != null) {
+                sampling.close();
+            }
+            final AdaptiveGzipInterceptor compression = compressionInterceptor;
+            if (compression != null) {
+                compression.close();
+            }
+            if (client != null && (properties == null || !properties.getHttp().isShared())) {
+                client.dispatcher().cancelAll();
+                client.dispatcher().executorService().shutdown();
+                client.connectionPool().evictAll();
+            }
+        }
+    }
 }
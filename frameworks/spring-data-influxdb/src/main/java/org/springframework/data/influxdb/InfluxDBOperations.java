@@ -19,10 +19,16 @@ import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.springframework.data.influxdb.converter.PointConverterFactory;
+import org.springframework.data.influxdb.query.PipelineMetrics;
+import org.springframework.data.influxdb.query.PreparedInfluxQuery;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface InfluxDBOperations {
 
@@ -54,11 +60,59 @@ public interface InfluxDBOperations {
 
     /**
      * Write a set of measurements to the database.
+     * <p>
+     * 数据量较大时按条数和字节数拆分成多个请求并发写入，存在失败的请求时抛出{@link InfluxDBWriteException}
      *
      * @param payload the values to write to
      */
     <T> void write(final List<T> payload);
 
+    /**
+     * 以指定的写入选项写入数据，未指定的选项使用measurement上{@link org.springframework.data.influxdb.annotations.InfluxWriteOptions}注解的值
+     *
+     * @param payload the values to write to
+     * @param options 写入选项
+     * @return 返回写入结果，包括写入失败的请求体
+     */
+    <T> WriteResult write(final List<T> payload, final WriteOptions options);
+
+    /**
+     * 将bean直接序列化成Line Protocol并同步写入，不创建Point对象，也不经过异步批量写入的缓冲区
+     *
+     * @param payload the values to write to
+     */
+    <T> void writeRaw(final List<T> payload);
+
+    /**
+     * 写入多种类型的数据：按类型并行序列化，合并成尽量少的请求体并发写入
+     *
+     * @param payload the values to write to
+     * @return 返回写入结果，包括写入失败的请求体
+     */
+    WriteResult writeAll(final Collection<?> payload);
+
+    /**
+     * 以指定的写入选项写入多种类型的数据
+     *
+     * @param payload the values to write to
+     * @param options 写入选项
+     * @return 返回写入结果，包括写入失败的请求体
+     */
+    WriteResult writeAll(final Collection<?> payload, final WriteOptions options);
+
+    /**
+     * 异步写入数据，请求通过OkHttp的调度器发送，不占用调用线程
+     *
+     * @param payload the values to write to
+     * @return 返回写入结果，包括写入失败的请求体
+     */
+    <T> CompletableFuture<WriteResult> writeAsync(final List<T> payload);
+
+    /**
+     * 立即提交异步批量写入缓冲区中的数据，未开启异步批量写入时不做任何处理
+     */
+    void flush();
+
     /**
      * Executes a query against the database.
      *
@@ -95,6 +149,43 @@ public interface InfluxDBOperations {
      */
     <T> List<T> query(final Query query, final TimeUnit timeUnit, Class<T> type);
 
+    /**
+     * 执行预编译的查询，参数通过InfluxDB的params发送
+     *
+     * @param query      预编译的查询
+     * @param parameters 参数名和参数值
+     * @return 返回映射后的结果
+     */
+    <T> List<T> query(final PreparedInfluxQuery<T> query, Map<String, ?> parameters);
+
+    /**
+     * 执行预编译的查询，参数通过InfluxDB的params发送
+     *
+     * @param query         预编译的查询
+     * @param nameAndValues 依次为参数名和参数值
+     * @return 返回映射后的结果
+     */
+    <T> List<T> query(final PreparedInfluxQuery<T> query, Object... nameAndValues);
+
+    /**
+     * 异步查询，请求通过OkHttp的调度器发送，响应解析在异步线程池中执行
+     *
+     * @param query    the query to execute
+     * @param timeUnit the time unit to be used for the query
+     * @return 返回查询结果
+     */
+    CompletableFuture<QueryResult> queryAsync(final Query query, final TimeUnit timeUnit);
+
+    /**
+     * 异步查询并转换成bean，多个查询可以同时发出
+     *
+     * @param query    the query to execute
+     * @param timeUnit the time unit to be used for the query
+     * @param type     对象类型
+     * @return a List of time series data matching the query
+     */
+    <T> CompletableFuture<List<T>> queryAsync(final Query query, final TimeUnit timeUnit, Class<T> type);
+
     /**
      * Execute a streaming query against the database.
      *
@@ -114,6 +205,41 @@ public interface InfluxDBOperations {
      */
     <T> void query(final Query query, final int chunkSize, Class<T> type, final Consumer<List<T>> consumer);
 
+    /**
+     * 分块查询的流水线：网络读取、有界的预读队列、并行映射、按顺序消费
+     * <p>
+     * 预读的块数和映射线程数由spring.influxdb.pipeline配置，consumer收到的顺序与服务端返回的顺序一致
+     *
+     * @param query     the query to execute
+     * @param chunkSize 每一块的数据条数
+     * @param type      对象类型
+     * @param consumer  按顺序消费每一块映射后的数据
+     * @return 所有数据消费完毕后返回各个阶段的统计
+     */
+    <T> CompletableFuture<PipelineMetrics> queryPipeline(final Query query, final int chunkSize,
+                                                         Class<T> type, final Consumer<List<T>> consumer);
+
+    /**
+     * 流式查询：基于分块的HTTP响应逐块读取并映射，内存占用与结果集的大小无关
+     * <p>
+     * 返回的Stream需要在使用完毕后关闭(例如try-with-resources)，否则会占用连接
+     *
+     * @param query the query to execute
+     * @param type  对象类型
+     * @return 返回查询结果的Stream
+     */
+    <T> Stream<T> stream(final Query query, Class<T> type);
+
+    /**
+     * 流式查询：基于分块的HTTP响应逐块读取并映射，内存占用与结果集的大小无关
+     *
+     * @param query     the query to execute
+     * @param chunkSize 每一块的数据条数
+     * @param type      对象类型
+     * @return 返回查询结果的游标，使用完毕后需要关闭
+     */
+    <T> QueryCursor<T> cursor(final Query query, final int chunkSize, Class<T> type);
+
     /**
      * Ping the database.
      *
@@ -17,8 +17,14 @@ package org.springframework.data.influxdb;
 
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.data.influxdb.batch.BackpressurePolicy;
+import org.springframework.data.influxdb.cluster.LoadBalanceStrategy;
+import org.springframework.data.influxdb.converter.ConverterType;
 import org.springframework.validation.annotation.Validated;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 @Validated
 @ConfigurationProperties("spring.influxdb")
@@ -56,13 +62,57 @@ public class InfluxDBProperties {
      */
     private int writeTimeout = 10;
     /**
-     * gzip压缩
+     * gzip压缩，开启compression后不再生效
      */
     private boolean gzip = false;
     /**
      * 时间戳的字段名
      */
     private String timeFieldName = "time";
+    /**
+     * PointConverter的实现方式
+     */
+    private ConverterType converter = ConverterType.ACCESSOR;
+    /**
+     * 异步批量写入的配置
+     */
+    private final Batch batch = new Batch();
+    /**
+     * 多节点配置
+     */
+    private final Cluster cluster = new Cluster();
+    /**
+     * HTTP连接池和调度器配置
+     */
+    private final Http http = new Http();
+    /**
+     * 写入失败时的磁盘缓存配置
+     */
+    private final Spool spool = new Spool();
+    /**
+     * 同步写入配置
+     */
+    private final Write write = new Write();
+    /**
+     * 查询结果缓存配置
+     */
+    private final Cache cache = new Cache();
+    /**
+     * 分块查询的流水线配置
+     */
+    private final Pipeline pipeline = new Pipeline();
+    /**
+     * 网络请求采样配置
+     */
+    private final Sampling sampling = new Sampling();
+    /**
+     * 写入请求的压缩配置
+     */
+    private final Compression compression = new Compression();
+    /**
+     * 写入前的预聚合配置
+     */
+    private final Aggregation aggregation = new Aggregation();
 
     public String getUrl() {
         return url;
@@ -144,6 +194,54 @@ public class InfluxDBProperties {
         this.timeFieldName = timeFieldName;
     }
 
+    public ConverterType getConverter() {
+        return converter;
+    }
+
+    public void setConverter(ConverterType converter) {
+        this.converter = converter;
+    }
+
+    public Batch getBatch() {
+        return batch;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public Http getHttp() {
+        return http;
+    }
+
+    public Spool getSpool() {
+        return spool;
+    }
+
+    public Write getWrite() {
+        return write;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
     @Override
     public String toString() {
         return "InfluxDBProperties{" +
@@ -157,8 +255,709 @@ public class InfluxDBProperties {
                 ", writeTimeout=" + writeTimeout +
                 ", gzip=" + gzip +
                 ", timeFieldName=" + timeFieldName +
+                ", converter=" + converter +
+                ", batch=" + batch +
+                ", cluster=" + cluster +
+                ", http=" + http +
+                ", spool=" + spool +
+                ", write=" + write +
+                ", cache=" + cache +
+                ", pipeline=" + pipeline +
+                ", sampling=" + sampling +
+                ", compression=" + compression +
+                ", aggregation=" + aggregation +
                 '}';
     }
 
+    /**
+     * 异步批量写入：数据先进入有界缓冲区，按数量或时间由后台线程批量提交
+     */
+    public static class Batch {
+        /**
+         * 是否开启异步批量写入
+         */
+        private boolean enabled = false;
+        /**
+         * 每批提交的最大数据条数，缓冲区达到该数量时立即提交
+         */
+        private int actions = 1000;
+        /**
+         * 提交的最大间隔时间(毫秒)，超过该时间未满一批也会提交
+         */
+        private long flushInterval = 1000;
+        /**
+         * 缓冲区的容量
+         */
+        private int bufferLimit = 10000;
+        /**
+         * 同时进行提交的线程数
+         */
+        private int parallelism = 1;
+        /**
+         * 缓冲区已满时的处理策略
+         */
+        private BackpressurePolicy backpressure = BackpressurePolicy.BLOCK;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getActions() {
+            return actions;
+        }
+
+        public void setActions(int actions) {
+            this.actions = actions;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getBufferLimit() {
+            return bufferLimit;
+        }
+
+        public void setBufferLimit(int bufferLimit) {
+            this.bufferLimit = bufferLimit;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public BackpressurePolicy getBackpressure() {
+            return backpressure;
+        }
+
+        public void setBackpressure(BackpressurePolicy backpressure) {
+            this.backpressure = backpressure;
+        }
+
+        @Override
+        public String toString() {
+            return "Batch{" +
+                    "enabled=" + enabled +
+                    ", actions=" + actions +
+                    ", flushInterval=" + flushInterval +
+                    ", bufferLimit=" + bufferLimit +
+                    ", parallelism=" + parallelism +
+                    ", backpressure=" + backpressure +
+                    '}';
+        }
+    }
+
+    /**
+     * 多节点配置：配置了多个节点时，请求按负载均衡策略分发，失败的请求在其他节点上重试
+     */
+    public static class Cluster {
+        /**
+         * InfluxDB节点的连接路径，为空时只使用url
+         */
+        private List<String> urls = new ArrayList<>();
+        /**
+         * 负载均衡策略
+         */
+        private LoadBalanceStrategy strategy = LoadBalanceStrategy.ROUND_ROBIN;
+        /**
+         * 健康检查的间隔时间(毫秒)，小于等于0时不进行健康检查
+         */
+        private long healthCheckInterval = 10000;
+        /**
+         * 请求失败后在其他节点上重试的次数
+         */
+        private int retries = 1;
+
+        public List<String> getUrls() {
+            return urls;
+        }
+
+        public void setUrls(List<String> urls) {
+            this.urls = urls;
+        }
+
+        public LoadBalanceStrategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(LoadBalanceStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public long getHealthCheckInterval() {
+            return healthCheckInterval;
+        }
+
+        public void setHealthCheckInterval(long healthCheckInterval) {
+            this.healthCheckInterval = healthCheckInterval;
+        }
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public void setRetries(int retries) {
+            this.retries = retries;
+        }
+
+        @Override
+        public String toString() {
+            return "Cluster{" +
+                    "urls=" + urls +
+                    ", strategy=" + strategy +
+                    ", healthCheckInterval=" + healthCheckInterval +
+                    ", retries=" + retries +
+                    '}';
+        }
+    }
+
+    /**
+     * HTTP连接池和调度器配置，OkHttp默认每个节点最多5个并发请求，这里默认按高吞吐量配置
+     */
+    public static class Http {
+        /**
+         * 连接池最大空闲连接数
+         */
+        private int maxIdleConnections = 32;
+        /**
+         * 空闲连接的保持时间(秒)
+         */
+        private long keepAlive = 300;
+        /**
+         * 最大并发请求数
+         */
+        private int maxRequests = 256;
+        /**
+         * 每个节点的最大并发请求数
+         */
+        private int maxRequestsPerHost = 64;
+        /**
+         * 是否优先使用HTTP/2(仅https时通过ALPN协商)，关闭时只使用HTTP/1.1
+         */
+        private boolean http2 = true;
+        /**
+         * 调度器线程数，小于等于0时使用OkHttp默认的线程池
+         */
+        private int dispatcherThreads = 0;
+        /**
+         * 是否与其他连接工厂共用连接池和调度器
+         */
+        private boolean shared = false;
+
+        public int getMaxIdleConnections() {
+            return maxIdleConnections;
+        }
+
+        public void setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+        }
+
+        public long getKeepAlive() {
+            return keepAlive;
+        }
+
+        public void setKeepAlive(long keepAlive) {
+            this.keepAlive = keepAlive;
+        }
+
+        public int getMaxRequests() {
+            return maxRequests;
+        }
+
+        public void setMaxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+        }
+
+        public int getMaxRequestsPerHost() {
+            return maxRequestsPerHost;
+        }
+
+        public void setMaxRequestsPerHost(int maxRequestsPerHost) {
+            this.maxRequestsPerHost = maxRequestsPerHost;
+        }
+
+        public boolean isHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(boolean http2) {
+            this.http2 = http2;
+        }
+
+        public int getDispatcherThreads() {
+            return dispatcherThreads;
+        }
+
+        public void setDispatcherThreads(int dispatcherThreads) {
+            this.dispatcherThreads = dispatcherThreads;
+        }
+
+        public boolean isShared() {
+            return shared;
+        }
 
+        public void setShared(boolean shared) {
+            this.shared = shared;
+        }
+
+        @Override
+        public String toString() {
+            return "Http{" +
+                    "maxIdleConnections=" + maxIdleConnections +
+                    ", keepAlive=" + keepAlive +
+                    ", maxRequests=" + maxRequests +
+                    ", maxRequestsPerHost=" + maxRequestsPerHost +
+                    ", http2=" + http2 +
+                    ", dispatcherThreads=" + dispatcherThreads +
+                    ", shared=" + shared +
+                    '}';
+        }
+    }
+
+    /**
+     * 写入失败时的磁盘缓存：服务端不可用时数据先写入磁盘，恢复后由后台线程按顺序补发
+     */
+    public static class Spool {
+        /**
+         * 是否开启磁盘缓存
+         */
+        private boolean enabled = false;
+        /**
+         * 缓存目录
+         */
+        private String directory = System.getProperty("java.io.tmpdir") + "/influxdb-spool";
+        /**
+         * 分段文件大小(字节)
+         */
+        private int segmentSize = 16 * 1024 * 1024;
+        /**
+         * 最大占用的磁盘空间(字节)，超过时丢弃最旧的数据
+         */
+        private long maxDiskUsage = 512L * 1024 * 1024;
+        /**
+         * 检查服务端并补发数据的间隔时间(毫秒)
+         */
+        private long drainInterval = 5000;
+        /**
+         * 每条记录最多补发的次数，服务端持续返回5xx错误时超过后丢弃，网络错误不计入
+         */
+        private int maxAttempts = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public long getMaxDiskUsage() {
+            return maxDiskUsage;
+        }
+
+        public void setMaxDiskUsage(long maxDiskUsage) {
+            this.maxDiskUsage = maxDiskUsage;
+        }
+
+        public long getDrainInterval() {
+            return drainInterval;
+        }
+
+        public void setDrainInterval(long drainInterval) {
+            this.drainInterval = drainInterval;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        @Override
+        public String toString() {
+            return "Spool{" +
+                    "enabled=" + enabled +
+                    ", directory='" + directory + '\'' +
+                    ", segmentSize=" + segmentSize +
+                    ", maxDiskUsage=" + maxDiskUsage +
+                    ", drainInterval=" + drainInterval +
+                    ", maxAttempts=" + maxAttempts +
+                    '}';
+        }
+    }
+
+    /**
+     * 同步写入配置
+     */
+    public static class Write {
+        /**
+         * 每个请求体的最大数据条数，超过时拆分成多个请求
+         */
+        private int maxPoints = 5000;
+        /**
+         * 每个请求体UTF-8编码后的最大字节数，超过时拆分成多个请求
+         */
+        private int maxBytes = 4 * 1024 * 1024;
+        /**
+         * 拆分成多个请求时并发写入的线程数
+         */
+        private int concurrency = 4;
+
+        public int getMaxPoints() {
+            return maxPoints;
+        }
+
+        public void setMaxPoints(int maxPoints) {
+            this.maxPoints = maxPoints;
+        }
+
+        public int getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(int maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        @Override
+        public String toString() {
+            return "Write{" +
+                    "maxPoints=" + maxPoints +
+                    ", maxBytes=" + maxBytes +
+                    ", concurrency=" + concurrency +
+                    '}';
+        }
+    }
+
+    /**
+     * 查询结果缓存：只缓存SELECT查询，缓存时间由查询的时间范围决定
+     */
+    public static class Cache {
+        /**
+         * 是否开启查询结果缓存
+         */
+        private boolean enabled = false;
+        /**
+         * 最多缓存的查询结果数量
+         */
+        private int maxEntries = 1000;
+        /**
+         * 包含实时窗口(时间上限为now()或者没有上限)的查询结果的缓存时间(毫秒)
+         */
+        private long liveTtl = 5000;
+        /**
+         * 已经结束的历史窗口的查询结果的缓存时间(毫秒)
+         */
+        private long historicalTtl = 3600000;
+        /**
+         * 是否合并相同的并发查询(SELECT/SHOW)，与是否开启缓存无关；被共享的结果是不可修改的
+         */
+        private boolean coalesce = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getLiveTtl() {
+            return liveTtl;
+        }
+
+        public void setLiveTtl(long liveTtl) {
+            this.liveTtl = liveTtl;
+        }
+
+        public long getHistoricalTtl() {
+            return historicalTtl;
+        }
+
+        public void setHistoricalTtl(long historicalTtl) {
+            this.historicalTtl = historicalTtl;
+        }
+
+        public boolean isCoalesce() {
+            return coalesce;
+        }
+
+        public void setCoalesce(boolean coalesce) {
+            this.coalesce = coalesce;
+        }
+
+        @Override
+        public String toString() {
+            return "Cache{" +
+                    "enabled=" + enabled +
+                    ", maxEntries=" + maxEntries +
+                    ", liveTtl=" + liveTtl +
+                    ", historicalTtl=" + historicalTtl +
+                    ", coalesce=" + coalesce +
+                    '}';
+        }
+    }
+
+    /**
+     * 分块查询的流水线：网络读取、预读队列、并行映射、消费
+     */
+    public static class Pipeline {
+        /**
+         * 预读的块数，队列已满时暂停从网络读取
+         */
+        private int prefetch = 4;
+        /**
+         * 映射线程数，小于等于0时为CPU核数
+         */
+        private int workers = 0;
+
+        public int getPrefetch() {
+            return prefetch;
+        }
+
+        public void setPrefetch(int prefetch) {
+            this.prefetch = prefetch;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        @Override
+        public String toString() {
+            return "Pipeline{" +
+                    "prefetch=" + prefetch +
+                    ", workers=" + workers +
+                    '}';
+        }
+    }
+
+    /**
+     * 网络请求采样：按采样率记录请求的大小和耗时，由后台线程定期报告
+     */
+    public static class Sampling {
+        /**
+         * 是否开启请求采样
+         */
+        private boolean enabled = false;
+        /**
+         * 采样率，0~1
+         */
+        private double rate = 0.01;
+        /**
+         * 环形缓冲区的容量，超过后覆盖最早的事件
+         */
+        private int bufferSize = 1024;
+        /**
+         * 报告的间隔(毫秒)
+         */
+        private long reportInterval = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getRate() {
+            return rate;
+        }
+
+        public void setRate(double rate) {
+            this.rate = rate;
+        }
+
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public void setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        public long getReportInterval() {
+            return reportInterval;
+        }
+
+        public void setReportInterval(long reportInterval) {
+            this.reportInterval = reportInterval;
+        }
+
+        @Override
+        public String toString() {
+            return "Sampling{" +
+                    "enabled=" + enabled +
+                    ", rate=" + rate +
+                    ", bufferSize=" + bufferSize +
+                    ", reportInterval=" + reportInterval +
+                    '}';
+        }
+    }
+
+    /**
+     * 写入请求的压缩：请求体超过阈值时使用gzip压缩，Deflater从对象池中获取
+     */
+    public static class Compression {
+        /**
+         * 是否开启按大小压缩，开启后忽略gzip配置
+         */
+        private boolean enabled = false;
+        /**
+         * 压缩的最小字节数，小于该值的请求体不压缩
+         */
+        private long threshold = 1024;
+        /**
+         * 压缩级别，0~9，-1为默认级别；写入多为文本行协议，1已经有较好的压缩率
+         */
+        private int level = 1;
+        /**
+         * 对象池中最多保留的Deflater数量
+         */
+        private int poolSize = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(long threshold) {
+            this.threshold = threshold;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Compression{" +
+                    "enabled=" + enabled +
+                    ", threshold=" + threshold +
+                    ", level=" + level +
+                    ", poolSize=" + poolSize +
+                    '}';
+        }
+    }
+
+    /**
+     * 写入前的预聚合：注解了InfluxAggregate的measurement按时间窗口聚合后再写入
+     */
+    public static class Aggregation {
+        /**
+         * 是否开启预聚合
+         */
+        private boolean enabled = false;
+        /**
+         * 检查并提交结束窗口的间隔(毫秒)
+         */
+        private long flushInterval = 100;
+        /**
+         * 聚合值分段加锁的段数，取不小于该值的2的幂
+         */
+        private int stripes = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public int getStripes() {
+            return stripes;
+        }
+
+        public void setStripes(int stripes) {
+            this.stripes = stripes;
+        }
+
+        @Override
+        public String toString() {
+            return "Aggregation{" +
+                    "enabled=" + enabled +
+                    ", flushInterval=" + flushInterval +
+                    ", stripes=" + stripes +
+                    '}';
+        }
+    }
 }
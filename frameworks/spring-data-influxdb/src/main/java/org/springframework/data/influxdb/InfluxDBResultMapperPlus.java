@@ -9,13 +9,11 @@ import org.influxdb.dto.QueryResult;
 import java.lang.reflect.Field;
 import java.lang.reflect.TypeVariable;
 import java.time.Instant;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
-import java.util.Date;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -34,31 +32,43 @@ public class InfluxDBResultMapperPlus {
     private static final
     ConcurrentMap<String, ConcurrentMap<String, Field>> CLASS_FIELD_CACHE = new ConcurrentHashMap<>();
 
-    private static final int FRACTION_MIN_WIDTH = 0;
-    private static final int FRACTION_MAX_WIDTH = 9;
-    private static final boolean ADD_DECIMAL_POINT = true;
-
     /**
-     * When a query is executed without {@link TimeUnit}, InfluxDB returns the <tt>time</tt>
-     * column as an ISO8601 date.
+     * 映射计划缓存的默认容量
      */
-    private static final DateTimeFormatter ISO8601_FORMATTER = new DateTimeFormatterBuilder()
-            .appendPattern("yyyy-MM-dd'T'HH:mm:ss")
-            .appendFraction(ChronoField.NANO_OF_SECOND, FRACTION_MIN_WIDTH, FRACTION_MAX_WIDTH, ADD_DECIMAL_POINT)
-            .appendPattern("X")
-            .toFormatter();
+    public static final int DEFAULT_MAPPING_CACHE_SIZE = 256;
 
     /**
      * 时间戳字段
      */
     private String timestamp = "time";
 
+    /**
+     * (目标类型, 列名) -> 映射计划，按访问顺序淘汰最久未使用的计划
+     */
+    private final Map<MappingKey, SeriesMapping<?>> mappingCache;
+
+    public InfluxDBResultMapperPlus() {
+        this(DEFAULT_MAPPING_CACHE_SIZE);
+    }
+
+    public InfluxDBResultMapperPlus(final int mappingCacheSize) {
+        this.mappingCache = new LinkedHashMap<MappingKey, SeriesMapping<?>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MappingKey, SeriesMapping<?>> eldest) {
+                return size() > mappingCacheSize;
+            }
+        };
+    }
+
     public String getTimestamp() {
         return timestamp;
     }
 
     public void setTimestamp(String timestamp) {
         this.timestamp = timestamp;
+        synchronized (mappingCache) {
+            mappingCache.clear();
+        }
     }
 
     /**
@@ -83,6 +93,21 @@ public class InfluxDBResultMapperPlus {
         return this.toPOJO(queryResult, clazz, measurementName);
     }
 
+    /**
+     * 转换查询结果，数值类型的时间戳按查询时指定的epoch单位解析
+     *
+     * @param queryResult 查询结果
+     * @param clazz       目标类型
+     * @param precision   查询时指定的epoch单位，为null时按毫秒解析
+     * @return 返回转换后的对象
+     */
+    public <T> List<T> toPOJO(final QueryResult queryResult, final Class<T> clazz, final TimeUnit precision)
+            throws InfluxDBMapperException {
+        throwExceptionIfMissingAnnotation(clazz);
+        String measurementName = getMeasurementName(clazz);
+        return this.toPOJO(queryResult, clazz, measurementName, precision);
+    }
+
     /**
      * <p>
      * Process a {@link QueryResult} object returned by the InfluxDB client inspecting the internal
@@ -102,6 +127,20 @@ public class InfluxDBResultMapperPlus {
      */
     public <T> List<T> toPOJO(final QueryResult queryResult, final Class<T> clazz, final String measurementName)
             throws InfluxDBMapperException {
+        return toPOJO(queryResult, clazz, measurementName, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 转换查询结果中指定measurement的数据
+     *
+     * @param queryResult     查询结果
+     * @param clazz           目标类型
+     * @param measurementName measurement名称
+     * @param precision       查询时指定的epoch单位，为null时按毫秒解析
+     * @return 返回转换后的对象
+     */
+    public <T> List<T> toPOJO(final QueryResult queryResult, final Class<T> clazz, final String measurementName,
+                              final TimeUnit precision) throws InfluxDBMapperException {
 
         Objects.requireNonNull(measurementName, "measurementName");
         Objects.requireNonNull(queryResult, "queryResult");
@@ -110,13 +149,13 @@ public class InfluxDBResultMapperPlus {
         throwExceptionIfResultWithError(queryResult);
         cacheMeasurementClass(clazz);
 
-        List<T> result = new LinkedList<>();
+        List<T> result = new ArrayList<>();
 
         queryResult.getResults().stream()
                 .filter(qr -> (qr != null) && qr.getSeries() != null)
                 .forEach(qr -> qr.getSeries().stream()
                         .filter(qs -> qs.getName().equals(measurementName))
-                        .forEachOrdered(qs -> parseSeriesAs(qs, clazz, result)));
+                        .forEachOrdered(qs -> parseSeriesAs(qs, clazz, result, precision)));
 
         return result;
     }
@@ -175,60 +214,99 @@ public class InfluxDBResultMapperPlus {
     }
 
     protected <T> List<T> parseSeriesAs(final QueryResult.Series series, final Class<T> clazz, final List<T> result) {
-        int columnSize = series.getColumns().size();
-        ConcurrentMap<String, Field> colNameAndFieldMap = CLASS_FIELD_CACHE.get(clazz.getName());
-        try {
-            T object = null;
-            for (List<Object> row : series.getValues()) {
-                for (int i = 0; i < columnSize; i++) {
-                    Field correspondingField = colNameAndFieldMap.get(series.getColumns().get(i)/*InfluxDB columnName*/);
-                    if (correspondingField != null) {
-                        if (object == null) {
-                            object = clazz.newInstance();
-                        }
-
-                        // 设置时间戳
-                        if (timestamp.equals(correspondingField.getName())) {
-                            Object value = row.get(i);
-                            Date utcTimestamp = InfluxUtils.parseUTC(value.toString());
-                            if (utcTimestamp != null) {
-                                if (correspondingField.getGenericType() instanceof Date) {
-                                    value = utcTimestamp;
-                                } else {
-                                    value = utcTimestamp.getTime();
-                                }
-                                InfluxUtils.setFieldValue(object, correspondingField, value);
-                            }
-                            continue;
-                        }
-
-                        setFieldValue(object, correspondingField, row.get(i));
-                    }
-                }
-                // When the "GROUP BY" clause is used, "tags" are returned as Map<String,String> and
-                // accordingly with InfluxDB documentation
-                // https://docs.influxdata.com/influxdb/v1.2/concepts/glossary/#tag-value
-                // "tag" values are always String.
-                if (series.getTags() != null && !series.getTags().isEmpty()) {
-                    for (Entry<String, String> entry : series.getTags().entrySet()) {
-                        Field correspondingField = colNameAndFieldMap.get(entry.getKey()/*InfluxDB columnName*/);
-                        if (correspondingField != null) {
-                            // I don't think it is possible to reach here without a valid "object"
-                            setFieldValue(object, correspondingField, entry.getValue());
-                        }
-                    }
-                }
-                if (object != null) {
-                    result.add(object);
-                    object = null;
-                }
+        return parseSeriesAs(series, clazz, result, TimeUnit.MILLISECONDS);
+    }
+
+    protected <T> List<T> parseSeriesAs(final QueryResult.Series series, final Class<T> clazz, final List<T> result,
+                                        final TimeUnit precision) {
+        final List<List<Object>> values = series.getValues();
+        if (values == null || values.isEmpty()) {
+            return result;
+        }
+        final SeriesMapping<T> mapping = getMapping(clazz, series.getColumns(), precision);
+        final Map<String, String> tags = series.getTags();
+        for (List<Object> row : values) {
+            T object = mapping.mapRow(row, tags);
+            if (object != null) {
+                result.add(object);
             }
-        } catch (InstantiationException | IllegalAccessException e) {
-            throw new InfluxDBMapperException(e);
         }
         return result;
     }
 
+    /**
+     * 获取(目标类型, 列名)对应的映射计划，不存在时编译并缓存
+     *
+     * @param clazz   目标类型
+     * @param columns Series的列名
+     * @return 返回映射计划
+     */
+    public <T> SeriesMapping<T> getMapping(final Class<T> clazz, final List<String> columns) {
+        return getMapping(clazz, columns, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取(目标类型, 列名, 时间戳单位)对应的映射计划，不存在时编译并缓存
+     *
+     * @param clazz     目标类型
+     * @param columns   Series的列名
+     * @param precision 数值时间戳的单位，为null时按毫秒解析
+     * @return 返回映射计划
+     */
+    @SuppressWarnings("unchecked")
+    public <T> SeriesMapping<T> getMapping(final Class<T> clazz, final List<String> columns, final TimeUnit precision) {
+        final TimeUnit unit = precision != null ? precision : TimeUnit.MILLISECONDS;
+        final MappingKey key = new MappingKey(clazz, columns, unit);
+        synchronized (mappingCache) {
+            SeriesMapping<?> mapping = mappingCache.get(key);
+            if (mapping != null) {
+                return (SeriesMapping<T>) mapping;
+            }
+        }
+
+        cacheMeasurementClass(clazz);
+        final SeriesMapping<T> mapping = new SeriesMapping<>(
+                clazz, columns, CLASS_FIELD_CACHE.get(clazz.getName()), timestamp, unit);
+        synchronized (mappingCache) {
+            mappingCache.put(key, mapping);
+        }
+        return mapping;
+    }
+
+    /**
+     * 映射计划缓存的键
+     */
+    private static final class MappingKey {
+        private final Class<?> type;
+        private final String[] columns;
+        private final TimeUnit precision;
+        private final int hash;
+
+        MappingKey(Class<?> type, List<String> columns, TimeUnit precision) {
+            this.type = type;
+            this.columns = columns.toArray(new String[0]);
+            this.precision = precision;
+            this.hash = 31 * (31 * type.hashCode() + Arrays.hashCode(this.columns)) + precision.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MappingKey)) {
+                return false;
+            }
+            MappingKey that = (MappingKey) o;
+            return type == that.type && precision == that.precision && Arrays.equals(columns, that.columns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
     /**
      * InfluxDB client returns any number as Double.
      * See https://github.com/influxdata/influxdb-java/issues/153#issuecomment-259681987
@@ -287,7 +365,8 @@ public class InfluxDBResultMapperPlus {
         if (Instant.class.isAssignableFrom(fieldType)) {
             Instant instant;
             if (value instanceof String) {
-                instant = Instant.from(ISO8601_FORMATTER.parse(String.valueOf(value)));
+                long nanos = RFC3339Parser.parseNanos(String.valueOf(value));
+                instant = Instant.ofEpochSecond(Math.floorDiv(nanos, 1000_000_000L), Math.floorMod(nanos, 1000_000_000L));
             } else if (value instanceof Long) {
                 instant = Instant.ofEpochMilli((Long) value);
             } else if (value instanceof Double) {
@@ -16,23 +16,141 @@
 package org.springframework.data.influxdb;
 
 import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
 import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
 import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.influxdb.aggregate.PreAggregationBuffer;
+import org.springframework.data.influxdb.annotations.InfluxWriteOptions;
+import org.springframework.data.influxdb.batch.BatchWriteBuffer;
+import org.springframework.data.influxdb.cache.QueryCache;
+import org.springframework.data.influxdb.cache.QueryCoalescer;
+import org.springframework.data.influxdb.cache.QueryTtlPolicy;
+import org.springframework.data.influxdb.converter.DefaultPointConverter;
+import org.springframework.data.influxdb.converter.LineProtocolBatch;
+import org.springframework.data.influxdb.converter.LineProtocolEncoder;
+import org.springframework.data.influxdb.converter.LineProtocolWriter;
 import org.springframework.data.influxdb.converter.PointConverterFactory;
+import org.springframework.data.influxdb.metrics.InfluxDBMetrics;
+import org.springframework.data.influxdb.network.InfluxDBHttpClient;
+import org.springframework.data.influxdb.query.ChunkedQueryPipeline;
+import org.springframework.data.influxdb.query.InfluxQueryBuilder;
+import org.springframework.data.influxdb.query.PipelineMetrics;
+import org.springframework.data.influxdb.query.PreparedInfluxQuery;
+import org.springframework.data.influxdb.spool.DiskSpool;
+import org.springframework.data.influxdb.spool.SpoolDrainer;
+import org.springframework.data.influxdb.spool.SpoolRecord;
 import org.springframework.util.Assert;
 
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
-public class InfluxDBTemplate extends InfluxDBAccessor implements InfluxDBOperations {
+public class InfluxDBTemplate extends InfluxDBAccessor implements InfluxDBOperations, DisposableBean {
+
+    /**
+     * 超过该容量的StringBuilder不再复用，避免一次大批量写入后长期占用内存
+     */
+    private static final int MAX_REUSABLE_CAPACITY = 4 * 1024 * 1024;
+    /**
+     * 每个线程复用的Line Protocol缓冲区
+     */
+    private static final ThreadLocal<SoftReference<StringBuilder>> LINE_BUFFER = new ThreadLocal<>();
+    /**
+     * 流式查询默认每一块的数据条数
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 10000;
 
     private PointConverterFactory converterFactory;
 
+    /**
+     * 异步批量写入的缓冲区，未开启时为null
+     */
+    private volatile BatchWriteBuffer batchBuffer;
+
+    /**
+     * 写入前的预聚合缓冲区，未开启时为null
+     */
+    private volatile PreAggregationBuffer aggregationBuffer;
+
+    /**
+     * 写入失败时的磁盘缓存，未开启时为null
+     */
+    private volatile DiskSpool spool;
+
+    /**
+     * 补发磁盘缓存的后台任务
+     */
+    private volatile SpoolDrainer spoolDrainer;
+
+    /**
+     * 查询结果缓存，未开启时为null
+     */
+    private volatile QueryCache queryCache;
+    /**
+     * 合并相同的并发查询，未开启时为null
+     */
+    private volatile QueryCoalescer queryCoalescer;
+
+    /**
+     * 多种类型数据的Line Protocol序列化器
+     */
+    private volatile LineProtocolEncoder encoder;
+
+    /**
+     * 并发写入多个请求体的线程池
+     */
+    private volatile ExecutorService writeExecutor;
+    /**
+     * 分块查询流水线的映射线程池和阶段线程池，首次使用时创建
+     */
+    private volatile ExecutorService mappingExecutor;
+    private volatile ExecutorService pipelineExecutor;
+    /**
+     * 所有分块查询流水线的累计统计
+     */
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics();
+
+    /**
+     * measurement类型上注解的写入选项
+     */
+    private final Map<Class<?>, WriteOptions> typeOptions = new ConcurrentHashMap<>();
+
+    /**
+     * 异步方法中序列化和结果转换使用的线程池，避免占用OkHttp的IO线程
+     */
+    private Executor asyncExecutor = ForkJoinPool.commonPool();
+
+    /**
+     * 直接访问HTTP接口的客户端
+     */
+    private volatile InfluxDBHttpClient httpClient;
+
     public InfluxDBTemplate() {
         // ~
     }
@@ -52,6 +170,163 @@ public class InfluxDBTemplate extends InfluxDBAccessor implements InfluxDBOperat
     public void afterPropertiesSet() {
         super.afterPropertiesSet();
         Assert.notNull(converterFactory, "PointConverterFactory is required");
+
+        final InfluxDBProperties.Spool spoolConfig = getConnectionFactory().getProperties().getSpool();
+        if (spoolConfig.isEnabled() && spool == null) {
+            try {
+                this.spool = new DiskSpool(spoolConfig);
+            } catch (IOException e) {
+                throw new IllegalStateException("无法打开InfluxDB写入缓存目录: " + spoolConfig.getDirectory(), e);
+            }
+            this.spoolDrainer = new SpoolDrainer(spool, this::getConnection, spoolConfig.getDrainInterval(),
+                    spoolConfig.getMaxAttempts());
+            logger.debug("Enabled write spool: {}", spoolConfig);
+        }
+
+        final InfluxDBProperties.Cache cache = getConnectionFactory().getProperties().getCache();
+        if (cache.isEnabled() && queryCache == null) {
+            this.queryCache = new QueryCache(cache.getMaxEntries(),
+                    new QueryTtlPolicy(cache.getLiveTtl(), cache.getHistoricalTtl()));
+            logger.debug("Enabled query cache: {}", cache);
+        }
+        if (cache.isCoalesce() && queryCoalescer == null) {
+            this.queryCoalescer = new QueryCoalescer();
+        }
+
+        final InfluxDBProperties.Batch batch = getConnectionFactory().getProperties().getBatch();
+        if (batch.isEnabled() && batchBuffer == null) {
+            logger.debug("Enabled asynchronous batch writes: {}", batch);
+            this.batchBuffer = new BatchWriteBuffer(batch, this::writePoints);
+        }
+
+        final InfluxDBProperties.Aggregation aggregation = getConnectionFactory().getProperties().getAggregation();
+        if (aggregation.isEnabled() && aggregationBuffer == null) {
+            logger.debug("Enabled pre-aggregation: {}", aggregation);
+            this.aggregationBuffer = new PreAggregationBuffer(aggregation, converterFactory, this::writeAggregated);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // 先提交预聚合的数据，再关闭写入使用的缓冲区和线程池
+        final PreAggregationBuffer aggregation = this.aggregationBuffer;
+        if (aggregation != null) {
+            aggregation.close();
+        }
+        final BatchWriteBuffer buffer = this.batchBuffer;
+        if (buffer != null) {
+            buffer.close();
+        }
+        final ExecutorService executor = this.writeExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+        final ExecutorService mapping = this.mappingExecutor;
+        if (mapping != null) {
+            mapping.shutdown();
+        }
+        final ExecutorService pipeline = this.pipelineExecutor;
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+        final SpoolDrainer drainer = this.spoolDrainer;
+        if (drainer != null) {
+            drainer.close();
+        }
+        final DiskSpool spool = this.spool;
+        if (spool != null) {
+            spool.close();
+        }
+    }
+
+    /**
+     * 获取异步批量写入的缓冲区
+     *
+     * @return 未开启异步批量写入时返回null
+     */
+    public BatchWriteBuffer getBatchBuffer() {
+        return batchBuffer;
+    }
+
+    /**
+     * 获取写入前的预聚合缓冲区
+     *
+     * @return 未开启预聚合时返回null
+     */
+    public PreAggregationBuffer getAggregationBuffer() {
+        return aggregationBuffer;
+    }
+
+    /**
+     * 获取写入失败时的磁盘缓存
+     *
+     * @return 未开启磁盘缓存时返回null
+     */
+    public DiskSpool getSpool() {
+        return spool;
+    }
+
+    /**
+     * 获取补发磁盘缓存的后台任务
+     *
+     * @return 未开启磁盘缓存时返回null
+     */
+    public SpoolDrainer getSpoolDrainer() {
+        return spoolDrainer;
+    }
+
+    /**
+     * 获取查询结果缓存
+     *
+     * @return 未开启查询结果缓存时返回null
+     */
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    /**
+     * 获取并发查询合并器
+     *
+     * @return 未开启合并时返回null
+     */
+    public QueryCoalescer getQueryCoalescer() {
+        return queryCoalescer;
+    }
+
+    /**
+     * 写入数据后淘汰查询了这些measurement的缓存结果
+     *
+     * @param payload 写入的数据
+     */
+    protected void evictCache(final Collection<?> payload) {
+        final QueryCache cache = this.queryCache;
+        if (cache == null) {
+            return;
+        }
+        Class<?> lastType = null;
+        for (Object item : payload) {
+            if (item == null || item.getClass() == lastType) {
+                continue;
+            }
+            lastType = item.getClass();
+            final Object converter = converterFactory.getConverter(lastType);
+            cache.evict(converter instanceof DefaultPointConverter
+                    ? ((DefaultPointConverter<?>) converter).getMeasurement() : null);
+        }
+    }
+
+    /**
+     * 设置异步方法中序列化、结果转换和写入失败后写入磁盘缓存使用的线程池
+     *
+     * @param asyncExecutor 线程池
+     */
+    public void setAsyncExecutor(final Executor asyncExecutor) {
+        Assert.notNull(asyncExecutor, "asyncExecutor is required");
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
     }
 
     /**
@@ -91,7 +366,349 @@ public class InfluxDBTemplate extends InfluxDBAccessor implements InfluxDBOperat
             return;
         }
 
-        // 检查是否存在类型不一致的对象
+        checkSameType(payload);
+        writeAll(payload, null).throwIfFailed();
+    }
+
+    @Override
+    public <T> WriteResult write(final List<T> payload, final WriteOptions options) {
+        if (payload == null || payload.isEmpty()) {
+            return new WriteResult(0, 0, null);
+        }
+
+        checkSameType(payload);
+        return writeAll(payload, options);
+    }
+
+    @Override
+    public <T> void writeRaw(final List<T> payload) {
+        if (payload == null || payload.isEmpty()) {
+            return;
+        }
+
+        final Class<?> type = checkSameType(payload);
+        final WriteOptions options = getWriteOptions(type);
+        if (payload.size() > getEncoder().getMaxPoints()) {
+            // 数据量较大时拆分成多个请求并发写入
+            final WriteResult result = writeBatches(getEncoder().encode(payload, options.getPrecision()),
+                    options, measurementOf(payload));
+            evictCache(payload);
+            result.throwIfFailed();
+            return;
+        }
+        final LineProtocolWriter<T> writer = getEncoder().getWriter(type);
+        final TimeUnit precision = options.getPrecision() != null ? options.getPrecision()
+                : writer != null ? writer.getTimeUnit() : TimeUnit.NANOSECONDS;
+
+        final StringBuilder sb = acquireLineBuffer();
+        try {
+            final int written = writer != null
+                    ? writer.write(sb, payload, precision) : appendConverted(sb, payload, precision);
+            if (written > 0) {
+                writeLines(resolveDatabase(options), resolveRetentionPolicy(options), resolveConsistency(options),
+                        precision, sb.toString(), payload.size(), measurementOf(payload));
+            }
+        } finally {
+            releaseLineBuffer(sb);
+            evictCache(payload);
+        }
+    }
+
+    /**
+     * Point和自定义的转换器无法直接序列化，转换成Point后序列化
+     *
+     * @return 返回写入的数据条数
+     */
+    private <T> int appendConverted(final StringBuilder sb, final List<T> payload, final TimeUnit precision) {
+        for (T item : payload) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(converterFactory.convert(item).lineProtocol(precision));
+        }
+        return payload.size();
+    }
+
+    @Override
+    public WriteResult writeAll(final Collection<?> payload) {
+        return writeAll(payload, null);
+    }
+
+    @Override
+    public WriteResult writeAll(final Collection<?> payload, final WriteOptions options) {
+        if (payload == null || payload.isEmpty()) {
+            return new WriteResult(0, 0, null);
+        }
+
+        final Collection<?> direct = aggregate(payload, options);
+        final int aggregated = payload.size() - direct.size();
+        if (direct.isEmpty()) {
+            return new WriteResult(0, aggregated, null);
+        }
+        final Map<WriteOptions, List<Object>> groups = groupByOptions(direct, options);
+
+        final BatchWriteBuffer buffer = this.batchBuffer;
+        final List<WriteResult> results = new ArrayList<>(groups.size() + 1);
+        if (aggregated > 0) {
+            results.add(new WriteResult(0, aggregated, null));
+        }
+        for (Map.Entry<WriteOptions, List<Object>> entry : groups.entrySet()) {
+            final WriteOptions resolved = entry.getKey();
+            final List<Object> items = entry.getValue();
+            if (buffer != null && resolved.isDefault()) {
+                // 异步批量写入，只支持默认的写入选项
+                final List<Point> points = new ArrayList<>(items.size());
+                items.forEach(t -> points.add(converterFactory.convert(t)));
+                buffer.addAll(points);
+                results.add(new WriteResult(0, points.size(), null));
+            } else {
+                results.add(writeBatches(getEncoder().encode(items, resolved.getPrecision()),
+                        resolved, measurementOf(items)));
+            }
+        }
+        evictCache(direct);
+        return WriteResult.merge(results);
+    }
+
+    /**
+     * 将需要预聚合的数据放入预聚合缓冲区，调用时指定了写入选项的数据不聚合
+     *
+     * @param payload 数据
+     * @param options 调用时指定的写入选项，可以为null
+     * @return 返回需要直接写入的数据
+     */
+    private Collection<?> aggregate(final Collection<?> payload, final WriteOptions options) {
+        final PreAggregationBuffer aggregation = this.aggregationBuffer;
+        if (aggregation == null || options != null) {
+            return payload;
+        }
+        List<Object> rest = null;
+        int index = 0;
+        for (Object item : payload) {
+            if (item != null && aggregation.add(item)) {
+                if (rest == null) {
+                    // 第一条被聚合的数据之前的数据都需要直接写入
+                    rest = new ArrayList<>(payload.size());
+                    final Iterator<?> it = payload.iterator();
+                    for (int i = 0; i < index; i++) {
+                        rest.add(it.next());
+                    }
+                }
+            } else if (rest != null) {
+                rest.add(item);
+            }
+            index++;
+        }
+        return rest != null ? rest : payload;
+    }
+
+    /**
+     * 写入预聚合后的数据，使用类型上注解的写入选项
+     *
+     * @param type   measurement类型
+     * @param points 聚合后的数据，以及迟到的数据
+     */
+    protected void writeAggregated(final Class<?> type, final List<Point> points) {
+        final WriteOptions options = getWriteOptions(type);
+        final String database = resolveDatabase(options);
+        final String retentionPolicy = resolveRetentionPolicy(options);
+        final InfluxDB.ConsistencyLevel consistency = resolveConsistency(options);
+        // 聚合后的时间戳是毫秒对齐的窗口开始时间，迟到数据的时间戳也是毫秒
+        final TimeUnit precision = options.getPrecision() != null ? options.getPrecision() : TimeUnit.MILLISECONDS;
+        final BatchPoints ops = BatchPoints.database(database)
+                .retentionPolicy(retentionPolicy)
+                .consistency(consistency)
+                .precision(precision)
+                .build();
+        points.forEach(ops::point);
+        final String measurement = measurementOf(type);
+        try {
+            writeLines(database, retentionPolicy, consistency, precision, ops.lineProtocol(),
+                    points.size(), measurement);
+        } finally {
+            final QueryCache cache = this.queryCache;
+            if (cache != null) {
+                cache.evict(measurement);
+                final PreAggregationBuffer aggregation = this.aggregationBuffer;
+                final String late = aggregation != null ? aggregation.getLateMeasurement(type) : null;
+                if (late != null) {
+                    cache.evict(late);
+                }
+            }
+        }
+    }
+
+    /**
+     * 按最终的写入选项分组，不同选项的数据无法放入同一个请求
+     *
+     * @param payload 数据
+     * @param options 调用时指定的写入选项，可以为null
+     * @return 返回分组后的数据
+     */
+    Map<WriteOptions, List<Object>> groupByOptions(final Collection<?> payload, final WriteOptions options) {
+        final Map<WriteOptions, List<Object>> groups = new LinkedHashMap<>();
+        Class<?> lastType = null;
+        List<Object> group = null;
+        for (Object item : payload) {
+            if (item == null) {
+                throw new NullPointerException("无法插入Null值");
+            }
+            if (item.getClass() != lastType) {
+                lastType = item.getClass();
+                final WriteOptions resolved = options != null
+                        ? options.merge(getWriteOptions(lastType)) : getWriteOptions(lastType);
+                group = groups.computeIfAbsent(resolved, k -> new ArrayList<>());
+            }
+            group.add(item);
+        }
+        return groups;
+    }
+
+    /**
+     * 获取measurement类型上注解的写入选项
+     *
+     * @param type measurement类型
+     * @return 返回写入选项，没有注解时返回{@link WriteOptions#DEFAULT}
+     */
+    public WriteOptions getWriteOptions(final Class<?> type) {
+        return typeOptions.computeIfAbsent(type,
+                k -> WriteOptions.of(k.getAnnotation(InfluxWriteOptions.class)));
+    }
+
+    String resolveDatabase(final WriteOptions options) {
+        return options.getDatabase() != null ? options.getDatabase() : getDatabase();
+    }
+
+    String resolveRetentionPolicy(final WriteOptions options) {
+        return options.getRetentionPolicy() != null ? options.getRetentionPolicy() : getRetentionPolicy();
+    }
+
+    static InfluxDB.ConsistencyLevel resolveConsistency(final WriteOptions options) {
+        return options.getConsistency() != null ? options.getConsistency() : InfluxDB.ConsistencyLevel.ALL;
+    }
+
+    /**
+     * 写入多个请求体，多于一个时在线程池中并发写入
+     *
+     * @param batches 请求体
+     * @param options 写入选项
+     * @return 返回写入结果
+     */
+    protected WriteResult writeBatches(final List<LineProtocolBatch> batches, final WriteOptions options) {
+        return writeBatches(batches, options, InfluxDBMetrics.UNKNOWN);
+    }
+
+    private WriteResult writeBatches(final List<LineProtocolBatch> batches, final WriteOptions options,
+                                     final String measurement) {
+        final String database = resolveDatabase(options);
+        final String retentionPolicy = resolveRetentionPolicy(options);
+        final InfluxDB.ConsistencyLevel consistency = resolveConsistency(options);
+        final int concurrency = getConnectionFactory().getProperties().getWrite().getConcurrency();
+
+        int points = 0;
+        final List<WriteResult.Failure> failures = new ArrayList<>();
+        if (batches.size() <= 1 || concurrency <= 1) {
+            for (int i = 0; i < batches.size(); i++) {
+                final LineProtocolBatch batch = batches.get(i);
+                points += batch.getPoints();
+                try {
+                    writeLines(database, retentionPolicy, consistency, batch.getPrecision(), batch.getBody(),
+                            batch.getPoints(), measurement);
+                } catch (RuntimeException e) {
+                    failures.add(new WriteResult.Failure(i, batch, options, e));
+                }
+            }
+            return new WriteResult(batches.size(), points, failures);
+        }
+
+        final ExecutorService executor = getWriteExecutor(concurrency);
+        final List<Future<?>> futures = new ArrayList<>(batches.size());
+        for (LineProtocolBatch batch : batches) {
+            points += batch.getPoints();
+            futures.add(executor.submit(() -> writeLines(database, retentionPolicy, consistency,
+                    batch.getPrecision(), batch.getBody(), batch.getPoints(), measurement)));
+        }
+        boolean interrupted = false;
+        for (int i = 0; i < futures.size(); i++) {
+            final Future<?> future = futures.get(i);
+            try {
+                if (interrupted && !future.isDone()) {
+                    // 调用线程被中断，取消剩余的请求
+                    future.cancel(true);
+                    throw new InterruptedException();
+                }
+                future.get();
+            } catch (ExecutionException e) {
+                failures.add(new WriteResult.Failure(i, batches.get(i), options, e.getCause()));
+            } catch (InterruptedException | CancellationException e) {
+                interrupted = true;
+                future.cancel(true);
+                failures.add(new WriteResult.Failure(i, batches.get(i), options, e));
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return new WriteResult(batches.size(), points, failures);
+    }
+
+    private ExecutorService getMappingExecutor() {
+        if (mappingExecutor == null) {
+            synchronized (this) {
+                if (mappingExecutor == null) {
+                    final int workers = getConnectionFactory().getProperties().getPipeline().getWorkers();
+                    mappingExecutor = Executors.newFixedThreadPool(
+                            workers > 0 ? workers : Runtime.getRuntime().availableProcessors(),
+                            InfluxUtils.newThreadFactory("influxdb-mapping"));
+                }
+            }
+        }
+        return mappingExecutor;
+    }
+
+    private ExecutorService getPipelineExecutor() {
+        if (pipelineExecutor == null) {
+            synchronized (this) {
+                if (pipelineExecutor == null) {
+                    pipelineExecutor = Executors.newCachedThreadPool(InfluxUtils.newThreadFactory("influxdb-pipeline"));
+                }
+            }
+        }
+        return pipelineExecutor;
+    }
+
+    private ExecutorService getWriteExecutor(final int concurrency) {
+        if (writeExecutor == null) {
+            synchronized (this) {
+                if (writeExecutor == null) {
+                    writeExecutor = Executors.newFixedThreadPool(concurrency,
+                            InfluxUtils.newThreadFactory("influxdb-write"));
+                }
+            }
+        }
+        return writeExecutor;
+    }
+
+    /**
+     * 获取多种类型数据的Line Protocol序列化器
+     *
+     * @return 返回LineProtocolEncoder
+     */
+    public LineProtocolEncoder getEncoder() {
+        if (encoder == null) {
+            final InfluxDBProperties.Write write = getConnectionFactory().getProperties().getWrite();
+            encoder = new LineProtocolEncoder(converterFactory, write.getMaxPoints(), write.getMaxBytes());
+        }
+        return encoder;
+    }
+
+    /**
+     * 检查是否存在类型不一致的对象
+     *
+     * @param payload 数据
+     * @return 返回数据的类型
+     */
+    private static Class<?> checkSameType(final List<?> payload) {
         final Class<?> standard = payload.get(0).getClass();
         payload.forEach(t -> {
             if (t == null) {
@@ -101,7 +718,39 @@ public class InfluxDBTemplate extends InfluxDBAccessor implements InfluxDBOperat
                 throw new IllegalArgumentException("插入的数据中存在多种类型的对象!");
             }
         });
+        return standard;
+    }
+
+    /**
+     * 获取当前线程复用的StringBuilder
+     */
+    protected static StringBuilder acquireLineBuffer() {
+        SoftReference<StringBuilder> reference = LINE_BUFFER.get();
+        StringBuilder sb = reference != null ? reference.get() : null;
+        if (sb == null) {
+            sb = new StringBuilder(8192);
+            LINE_BUFFER.set(new SoftReference<>(sb));
+        }
+        sb.setLength(0);
+        return sb;
+    }
+
+    /**
+     * 归还当前线程复用的StringBuilder
+     */
+    protected static void releaseLineBuffer(StringBuilder sb) {
+        sb.setLength(0);
+        if (sb.capacity() > MAX_REUSABLE_CAPACITY) {
+            LINE_BUFFER.remove();
+        }
+    }
 
+    /**
+     * 同步写入Point
+     *
+     * @param points 数据
+     */
+    protected void writePoints(final List<Point> points) {
         final String database = getDatabase();
         final String retentionPolicy = getConnectionFactory()
                 .getProperties()
@@ -110,18 +759,236 @@ public class InfluxDBTemplate extends InfluxDBAccessor implements InfluxDBOperat
                 .retentionPolicy(retentionPolicy)
                 .consistency(InfluxDB.ConsistencyLevel.ALL)
                 .build();
-        payload.forEach(t -> ops.point(converterFactory.convert(t)));
-        getConnection().write(ops);
+        points.forEach(ops::point);
+        final String lines = ops.lineProtocol();
+        try {
+            writeLines(database, retentionPolicy, InfluxDB.ConsistencyLevel.ALL, ops.getPrecision(), lines,
+                    points.size(), InfluxDBMetrics.MULTIPLE);
+        } finally {
+            // 加入缓冲区时淘汰的缓存可能在提交之前又被查询填充
+            final QueryCache cache = this.queryCache;
+            if (cache != null) {
+                QueryCache.lineMeasurements(lines).forEach(cache::evict);
+            }
+        }
+    }
+
+    /**
+     * 同步写入Line Protocol数据；开启磁盘缓存时，可重试的失败写入磁盘缓存，由后台补发
+     *
+     * @param database        数据库
+     * @param retentionPolicy 存储策略
+     * @param precision       时间精度
+     * @param lines           Line Protocol数据
+     */
+    protected void writeLines(final String database, final String retentionPolicy,
+                              final TimeUnit precision, final String lines) {
+        writeLines(database, retentionPolicy, InfluxDB.ConsistencyLevel.ALL, precision, lines);
+    }
+
+    /**
+     * 以指定的一致性级别同步写入Line Protocol数据
+     *
+     * @param database        数据库
+     * @param retentionPolicy 存储策略
+     * @param consistency     一致性级别
+     * @param precision       时间精度
+     * @param lines           Line Protocol数据
+     */
+    protected void writeLines(final String database, final String retentionPolicy,
+                              final InfluxDB.ConsistencyLevel consistency,
+                              final TimeUnit precision, final String lines) {
+        final DiskSpool spool = this.spool;
+        final SpoolDrainer drainer = this.spoolDrainer;
+        if (spool != null && drainer != null && !drainer.isAvailable()
+                && spool.append(new SpoolRecord(database, retentionPolicy, consistency, precision, lines))) {
+            // 服务端不可用期间直接写入磁盘缓存，避免请求线程等待超时；恢复后即使仍有积压也直接写入
+            return;
+        }
+        try {
+            getConnection().write(database, retentionPolicy, consistency, precision, lines);
+        } catch (InfluxDBException e) {
+            if (!spool(e, database, retentionPolicy, consistency, precision, lines)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 写入Line Protocol数据并记录统计指标
+     */
+    private void writeLines(final String database, final String retentionPolicy,
+                            final InfluxDB.ConsistencyLevel consistency, final TimeUnit precision,
+                            final String lines, final int points, final String measurement) {
+        final InfluxDBMetrics metrics = getMetrics();
+        if (metrics == InfluxDBMetrics.NOOP) {
+            writeLines(database, retentionPolicy, consistency, precision, lines);
+            return;
+        }
+        final long start = System.nanoTime();
+        final int bytes = LineProtocolBatch.utf8Length(lines, 0, lines.length());
+        try {
+            writeLines(database, retentionPolicy, consistency, precision, lines);
+        } catch (RuntimeException e) {
+            metrics.recordWrite(database, measurement, points, bytes, System.nanoTime() - start, e);
+            throw e;
+        }
+        metrics.recordWrite(database, measurement, points, bytes, System.nanoTime() - start, null);
+    }
+
+    /**
+     * 网络错误或服务端临时错误导致写入失败时，将数据写入磁盘缓存
+     *
+     * @return 写入磁盘缓存成功时返回true
+     */
+    private boolean spool(final Throwable e, final String database, final String retentionPolicy,
+                          final InfluxDB.ConsistencyLevel consistency, final TimeUnit precision, final String lines) {
+        final DiskSpool spool = this.spool;
+        if (spool == null || !SpoolDrainer.isTransient(e)
+                || !spool.append(new SpoolRecord(database, retentionPolicy, consistency, precision, lines))) {
+            return false;
+        }
+        final SpoolDrainer drainer = this.spoolDrainer;
+        if (drainer != null) {
+            drainer.markUnavailable();
+        }
+        logger.warn("Write to InfluxDB failed, spooled to disk: {}", e.getMessage());
+        return true;
+    }
+
+    @Override
+    public <T> CompletableFuture<WriteResult> writeAsync(final List<T> payload) {
+        return writeAsync(payload, null);
+    }
+
+    /**
+     * 以指定的写入选项异步写入数据，请求通过OkHttp的调度器发送，序列化在{@link #getAsyncExecutor()}中执行
+     *
+     * @param payload 数据
+     * @param options 写入选项，可以为null
+     * @return 返回写入结果，包括写入失败的请求体
+     */
+    public <T> CompletableFuture<WriteResult> writeAsync(final List<T> payload, final WriteOptions options) {
+        if (payload == null || payload.isEmpty()) {
+            return CompletableFuture.completedFuture(new WriteResult(0, 0, null));
+        }
+        checkSameType(payload);
+        final Collection<?> items = aggregate(payload, options);
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(new WriteResult(0, payload.size(), null));
+        }
+
+        return CompletableFuture.supplyAsync(() -> groupByOptions(items, options), asyncExecutor)
+                .thenCompose(groups -> {
+                    final List<CompletableFuture<WriteResult>> futures = new ArrayList<>(groups.size());
+                    for (Map.Entry<WriteOptions, List<Object>> entry : groups.entrySet()) {
+                        final WriteOptions resolved = entry.getKey();
+                        futures.add(writeBatchesAsync(getEncoder().encode(entry.getValue(), resolved.getPrecision()),
+                                resolved, measurementOf(entry.getValue())));
+                    }
+                    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(v -> {
+                                final List<WriteResult> results = new ArrayList<>(futures.size());
+                                futures.forEach(f -> results.add(f.join()));
+                                evictCache(items);
+                                return WriteResult.merge(results);
+                            });
+                });
+    }
+
+    /**
+     * 异步写入多个请求体，所有请求同时交给OkHttp的调度器
+     */
+    private CompletableFuture<WriteResult> writeBatchesAsync(final List<LineProtocolBatch> batches,
+                                                             final WriteOptions options,
+                                                             final String measurement) {
+        final String database = resolveDatabase(options);
+        final String retentionPolicy = resolveRetentionPolicy(options);
+        final InfluxDB.ConsistencyLevel consistency = resolveConsistency(options);
+        final InfluxDBHttpClient client = getHttpClient();
+        final InfluxDBMetrics metrics = getMetrics();
+
+        int points = 0;
+        final List<CompletableFuture<WriteResult.Failure>> futures = new ArrayList<>(batches.size());
+        for (int i = 0; i < batches.size(); i++) {
+            final int index = i;
+            final LineProtocolBatch batch = batches.get(i);
+            points += batch.getPoints();
+            final long start = System.nanoTime();
+            futures.add(client.executeAsync(client.newWriteCall(
+                    database, retentionPolicy, consistency, batch.getPrecision(), batch.getBody()))
+                    .handleAsync((response, e) -> {
+                        // 写入磁盘缓存可能阻塞，不占用OkHttp的调度线程
+                        final Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        metrics.recordWrite(database, measurement, batch.getPoints(), batch.getBytes(),
+                                System.nanoTime() - start, cause);
+                        if (response != null) {
+                            response.close();
+                            return null;
+                        }
+                        if (spool(cause, database, retentionPolicy, consistency, batch.getPrecision(), batch.getBody())) {
+                            return null;
+                        }
+                        return new WriteResult.Failure(index, batch, options, cause);
+                    }, asyncExecutor));
+        }
+        final int total = points;
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    final List<WriteResult.Failure> failures = new ArrayList<>();
+                    for (CompletableFuture<WriteResult.Failure> future : futures) {
+                        final WriteResult.Failure failure = future.join();
+                        if (failure != null) {
+                            failures.add(failure);
+                        }
+                    }
+                    return new WriteResult(batches.size(), total, failures);
+                });
+    }
+
+    @Override
+    public void flush() {
+        final PreAggregationBuffer aggregation = this.aggregationBuffer;
+        if (aggregation != null) {
+            aggregation.flush();
+        }
+        final BatchWriteBuffer buffer = this.batchBuffer;
+        if (buffer != null) {
+            buffer.flush();
+        }
     }
 
     @Override
     public QueryResult query(final Query query) {
-        return getConnection().query(query);
+        return query(query, null, () -> getConnection().query(query));
     }
 
     @Override
     public QueryResult query(final Query query, final TimeUnit timeUnit) {
-        return getConnection().query(query, timeUnit);
+        return query(query, timeUnit, () -> getConnection().query(query, timeUnit));
+    }
+
+    /**
+     * 执行查询：先查缓存，未命中时合并相同的并发查询
+     */
+    private QueryResult query(final Query query, final TimeUnit timeUnit, final Supplier<QueryResult> request) {
+        final InfluxDBMetrics metrics = getMetrics();
+        final Supplier<QueryResult> loader = metrics == InfluxDBMetrics.NOOP ? request : () -> {
+            final long start = System.nanoTime();
+            try {
+                final QueryResult result = request.get();
+                recordQuery(metrics, query, start, result, null);
+                return result;
+            } catch (RuntimeException e) {
+                recordQuery(metrics, query, start, null, e);
+                throw e;
+            }
+        };
+        final QueryCoalescer coalescer = this.queryCoalescer;
+        final Supplier<QueryResult> coalesced = coalescer != null
+                ? () -> coalescer.query(query, timeUnit, loader) : loader;
+        final QueryCache cache = this.queryCache;
+        return cache != null ? cache.get(query, timeUnit, coalesced) : coalesced.get();
     }
 
     /**
@@ -135,7 +1002,136 @@ public class InfluxDBTemplate extends InfluxDBAccessor implements InfluxDBOperat
     @Override
     public <T> List<T> query(Query query, TimeUnit timeUnit, Class<T> type) {
         QueryResult result = this.query(query, timeUnit);
-        return converterFactory.mapperTo(result, type);
+        return mapTo(query.getDatabase(), result, type, timeUnit);
+    }
+
+    /**
+     * 记录查询请求的网络耗时
+     */
+    private static void recordQuery(final InfluxDBMetrics metrics, final Query query, final long start,
+                                    final QueryResult result, final Throwable error) {
+        final long nanos = System.nanoTime() - start;
+        Throwable failure = error;
+        if (failure == null && result != null && result.hasError()) {
+            failure = new InfluxDBException(result.getError());
+        }
+        metrics.recordQuery(query.getDatabase(), measurementOf(query), nanos, failure);
+    }
+
+    /**
+     * 将查询结果映射成对象，并记录映射的行数和耗时
+     *
+     * @param database 查询的数据库，用于统计指标
+     */
+    private <T> List<T> mapTo(final String database, final QueryResult result, final Class<T> type) {
+        return mapTo(database, result, type, null);
+    }
+
+    /**
+     * 将查询结果映射成对象，数值类型的时间戳按precision解析
+     *
+     * @param database  查询的数据库，用于统计指标
+     * @param precision 查询时指定的epoch单位，未指定时为null
+     */
+    private <T> List<T> mapTo(final String database, final QueryResult result, final Class<T> type,
+                              final TimeUnit precision) {
+        final InfluxDBMetrics metrics = getMetrics();
+        if (metrics == InfluxDBMetrics.NOOP) {
+            return mapperTo(result, type, precision);
+        }
+        final long start = System.nanoTime();
+        final List<T> list = mapperTo(result, type, precision);
+        metrics.recordMapping(database, measurementOf(type), list.size(), System.nanoTime() - start);
+        return list;
+    }
+
+    private <T> List<T> mapperTo(final QueryResult result, final Class<T> type, final TimeUnit precision) {
+        return precision != null
+                ? converterFactory.mapperTo(result, type, precision) : converterFactory.mapperTo(result, type);
+    }
+
+    /**
+     * 获取统计指标，由连接工厂统一配置
+     *
+     * @return 返回InfluxDBMetrics，未配置时不记录任何指标
+     */
+    public InfluxDBMetrics getMetrics() {
+        return getConnectionFactory().getMetrics();
+    }
+
+    /**
+     * 类型对应的measurement名称
+     */
+    private String measurementOf(final Class<?> type) {
+        final Object converter = converterFactory.getConverter(type);
+        return converter instanceof DefaultPointConverter
+                ? ((DefaultPointConverter<?>) converter).getMeasurement() : type.getSimpleName();
+    }
+
+    /**
+     * 数据对应的measurement名称，包含多种类型时为{@link InfluxDBMetrics#MULTIPLE}
+     */
+    private String measurementOf(final Collection<?> items) {
+        if (getMetrics() == InfluxDBMetrics.NOOP) {
+            return InfluxDBMetrics.UNKNOWN;
+        }
+        Class<?> type = null;
+        for (Object item : items) {
+            if (type == null) {
+                type = item.getClass();
+            } else if (item.getClass() != type) {
+                return InfluxDBMetrics.MULTIPLE;
+            }
+        }
+        return type != null ? measurementOf(type) : InfluxDBMetrics.UNKNOWN;
+    }
+
+    /**
+     * 查询语句中的measurement名称
+     */
+    private static String measurementOf(final Query query) {
+        final Set<String> measurements = QueryCache.measurements(query.getCommand());
+        if (measurements.size() > 1) {
+            return InfluxDBMetrics.MULTIPLE;
+        }
+        final String measurement = measurements.iterator().next();
+        return "*".equals(measurement) ? InfluxDBMetrics.UNKNOWN : measurement;
+    }
+
+    /**
+     * 根据bean的注解创建查询，默认使用当前的数据库和保留策略
+     *
+     * @param type bean类型
+     * @return 返回InfluxQueryBuilder
+     */
+    public <T> InfluxQueryBuilder<T> prepare(final Class<T> type) {
+        final Object converter = converterFactory.getConverter(type);
+        @SuppressWarnings("unchecked") final DefaultPointConverter<T> metadata = converter instanceof DefaultPointConverter
+                ? (DefaultPointConverter<T>) converter : new DefaultPointConverter<>(type);
+        return new InfluxQueryBuilder<>(metadata)
+                .database(getDatabase())
+                .retentionPolicy(getRetentionPolicy());
+    }
+
+    @Override
+    public <T> List<T> query(final PreparedInfluxQuery<T> query, final Map<String, ?> parameters) {
+        return query(query, query.bind(parameters));
+    }
+
+    @Override
+    public <T> List<T> query(final PreparedInfluxQuery<T> query, final Object... nameAndValues) {
+        return query(query, query.bind(nameAndValues));
+    }
+
+    /**
+     * 执行绑定了参数的查询，未指定epoch时返回RFC3339格式的时间
+     */
+    private <T> List<T> query(final PreparedInfluxQuery<T> prepared, final Query query) {
+        final TimeUnit epoch = prepared.getEpoch();
+        if (epoch == null) {
+            return mapTo(query.getDatabase(), query(query), prepared.getType());
+        }
+        return query(query, epoch, prepared.getType());
     }
 
     @Override
@@ -153,8 +1149,87 @@ public class InfluxDBTemplate extends InfluxDBAccessor implements InfluxDBOperat
      */
     @Override
     public <T> void query(Query query, int chunkSize, final Class<T> type, final Consumer<List<T>> consumer) {
-        this.query(query, chunkSize,
-                result -> consumer.accept(converterFactory.mapperTo(result, type)));
+        queryPipeline(query, chunkSize, type, consumer).whenComplete((metrics, e) -> {
+            final Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause != null && !(cause instanceof CancellationException)) {
+                logger.error("Chunked query failed: " + query.getCommand(), cause);
+            }
+        });
+    }
+
+    @Override
+    public <T> CompletableFuture<PipelineMetrics> queryPipeline(final Query query, final int chunkSize,
+                                                                final Class<T> type, final Consumer<List<T>> consumer) {
+        final InfluxDBProperties.Pipeline config = getConnectionFactory().getProperties().getPipeline();
+        final ExecutorService stageExecutor = getPipelineExecutor();
+        // 发送请求和读取响应头也在阶段线程池中执行，调用方不会阻塞
+        return CompletableFuture
+                .supplyAsync(() -> getHttpClient().chunkedQuery(query, chunkSize), stageExecutor)
+                .thenCompose(reader -> new ChunkedQueryPipeline<T>(reader,
+                        result -> mapTo(query.getDatabase(), result, type), consumer,
+                        config.getPrefetch(), getMappingExecutor(), stageExecutor).start())
+                .whenComplete((metrics, e) -> {
+                    if (metrics != null) {
+                        pipelineMetrics.add(metrics);
+                    }
+                });
+    }
+
+    /**
+     * 获取所有分块查询流水线的累计统计
+     *
+     * @return 返回各个阶段的吞吐量
+     */
+    public PipelineMetrics getPipelineMetrics() {
+        return pipelineMetrics;
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> queryAsync(final Query query, final TimeUnit timeUnit) {
+        final InfluxDBMetrics metrics = getMetrics();
+        final Supplier<CompletableFuture<QueryResult>> loader = () -> {
+            final long start = System.nanoTime();
+            final InfluxDBHttpClient client = getHttpClient();
+            final CompletableFuture<QueryResult> future = client
+                    .executeAsync(client.newQueryCall(query, timeUnit))
+                    .thenApplyAsync(InfluxDBHttpClient::readQueryResult, asyncExecutor);
+            if (metrics == InfluxDBMetrics.NOOP) {
+                return future;
+            }
+            return future.whenComplete((result, e) -> recordQuery(metrics, query, start, result,
+                    e instanceof CompletionException ? e.getCause() : e));
+        };
+        final QueryCoalescer coalescer = this.queryCoalescer;
+        return coalescer != null ? coalescer.queryAsync(query, timeUnit, loader) : loader.get();
+    }
+
+    @Override
+    public <T> CompletableFuture<List<T>> queryAsync(final Query query, final TimeUnit timeUnit, final Class<T> type) {
+        return queryAsync(query, timeUnit)
+                .thenApplyAsync(result -> mapTo(query.getDatabase(), result, type, timeUnit), asyncExecutor);
+    }
+
+    @Override
+    public <T> Stream<T> stream(final Query query, final Class<T> type) {
+        return cursor(query, DEFAULT_CHUNK_SIZE, type).stream();
+    }
+
+    @Override
+    public <T> QueryCursor<T> cursor(final Query query, final int chunkSize, final Class<T> type) {
+        return new QueryCursor<>(getHttpClient().chunkedQuery(query, chunkSize),
+                result -> mapTo(query.getDatabase(), result, type));
+    }
+
+    /**
+     * 获取直接访问HTTP接口的客户端
+     *
+     * @return 返回InfluxDBHttpClient
+     */
+    public InfluxDBHttpClient getHttpClient() {
+        if (httpClient == null) {
+            httpClient = new InfluxDBHttpClient(getConnectionFactory());
+        }
+        return httpClient;
     }
 
     @Deprecated
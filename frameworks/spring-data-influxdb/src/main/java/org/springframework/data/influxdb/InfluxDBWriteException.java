@@ -0,0 +1,28 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.InfluxDBException;
+
+/**
+ * 分块写入时部分请求体写入失败
+ */
+public class InfluxDBWriteException extends InfluxDBException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient WriteResult result;
+
+    public InfluxDBWriteException(final WriteResult result) {
+        super(result.getFailures().size() + " of " + result.getChunks() + " chunks failed to write ("
+                        + result.getFailedPoints() + " of " + result.getPoints() + " points): "
+                        + result.getFailures().get(0).getError().getMessage(),
+                result.getFailures().get(0).getError());
+        this.result = result;
+    }
+
+    /**
+     * 获取写入结果，包括失败的请求体；反序列化后为null
+     */
+    public WriteResult getResult() {
+        return result;
+    }
+}
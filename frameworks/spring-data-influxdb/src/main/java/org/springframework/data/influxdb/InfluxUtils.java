@@ -1,11 +1,10 @@
 package org.springframework.data.influxdb;
 
-import java.lang.ref.SoftReference;
 import java.lang.reflect.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 /**
@@ -18,7 +17,6 @@ public final class InfluxUtils {
 
 
     public static final String UTC = "yyyy-MM-dd'T'HH:mm:ss.SSSXXX";
-    private static final ThreadLocal<SoftReference<SimpleDateFormat>> SDF_CACHE = new ThreadLocal<>();
 
     /**
      * 解析UTC格式的时间
@@ -38,28 +36,14 @@ public final class InfluxUtils {
      * @return 返回解析后的Date
      */
     public static Date parseUTC(String utcTime, Date defaultValue) {
-        SimpleDateFormat utcSdf = null;
-        SoftReference<SimpleDateFormat> reference = SDF_CACHE.get();
-        if (reference != null) {
-            utcSdf = reference.get();
-            if (utcSdf == null) {
-                utcSdf = new SimpleDateFormat(UTC);
-                reference = null;
-            }
-        }
-
-        if (reference == null) {
-            utcSdf = (utcSdf != null ? utcSdf : new SimpleDateFormat(UTC));
-            reference = new SoftReference<>(utcSdf);
+        if (utcTime == null) {
+            return defaultValue;
         }
-        SDF_CACHE.set(reference);
-
         try {
-            return utcSdf.parse(utcTime);
-        } catch (ParseException e) {
-            e.printStackTrace();
+            return new Date(RFC3339Parser.parseMillis(utcTime));
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
         }
-        return defaultValue;
     }
 
     /**
@@ -602,6 +586,21 @@ public final class InfluxUtils {
         }
     }
 
+    /**
+     * 创建带名称前缀的守护线程工厂
+     *
+     * @param prefix 线程名前缀
+     * @return 返回线程工厂
+     */
+    public static ThreadFactory newThreadFactory(final String prefix) {
+        final AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
 
     private static final Predicate<Field> FIELD_INTERCEPTOR = field -> false;
     private static final Call<Class<?>, Field[]> FIELDS_CALL = Class::getDeclaredFields;
@@ -0,0 +1,79 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.dto.QueryResult;
+import org.springframework.data.influxdb.network.QueryResultReader;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 分块查询结果的游标
+ * <p>
+ * 每次只从响应体中读取并映射一块数据，内存占用与结果集的大小无关，
+ * 使用完毕或者提前结束时需要调用{@link #close()}释放连接
+ *
+ * @param <T> 对象类型
+ */
+public class QueryCursor<T> implements Iterator<T>, Closeable {
+
+    private final QueryResultReader reader;
+    /**
+     * 将一块数据映射成对象
+     */
+    private final Function<QueryResult, List<T>> mapper;
+    /**
+     * 当前块的数据
+     */
+    private Iterator<T> current = Collections.emptyIterator();
+
+    public QueryCursor(QueryResultReader reader, Function<QueryResult, List<T>> mapper) {
+        this.reader = reader;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            final QueryResult result;
+            try {
+                result = reader.next();
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
+            if (result == null) {
+                return false;
+            }
+            current = mapper.apply(result).iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        current = Collections.emptyIterator();
+        reader.close();
+    }
+
+    /**
+     * 转换成Stream，关闭Stream时关闭游标
+     *
+     * @return 返回顺序的Stream
+     */
+    public Stream<T> stream() {
+        final Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+}
@@ -0,0 +1,130 @@
+package org.springframework.data.influxdb;
+
+/**
+ * InfluxDB返回的RFC3339时间的解析
+ * <p>
+ * 手工解析 "yyyy-MM-ddTHH:mm:ss[.fffffffff](Z|±HH:mm)"，返回纳秒精度的epoch时间戳，
+ * 解析成功时不创建任何对象。与InfluxDB一致，支持的时间范围为1677-09-21到2262-04-11
+ */
+public final class RFC3339Parser {
+
+    private static final long NANOS_PER_SECOND = 1000_000_000L;
+    private static final long NANOS_PER_MILLI = 1000_000L;
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    private RFC3339Parser() {
+    }
+
+    /**
+     * 解析RFC3339格式的时间
+     *
+     * @param text 时间字符串
+     * @return 返回epoch纳秒
+     * @throws IllegalArgumentException 格式不正确时
+     */
+    public static long parseNanos(final CharSequence text) {
+        final int length = text.length();
+        if (length < 20
+                || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || (text.charAt(10) != 'T' && text.charAt(10) != 't' && text.charAt(10) != ' ')
+                || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            throw invalid(text);
+        }
+
+        final int year = digits(text, 0, 4);
+        final int month = digits(text, 5, 2);
+        final int day = digits(text, 8, 2);
+        final int hour = digits(text, 11, 2);
+        final int minute = digits(text, 14, 2);
+        final int second = digits(text, 17, 2);
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 60) {
+            throw invalid(text);
+        }
+
+        int pos = 19;
+        long nanos = 0;
+        if (text.charAt(pos) == '.') {
+            pos++;
+            int scale = 0;
+            while (pos < length) {
+                char c = text.charAt(pos);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (scale < 9) {
+                    nanos = nanos * 10 + (c - '0');
+                    scale++;
+                }
+                pos++;
+            }
+            if (scale == 0) {
+                throw invalid(text);
+            }
+            for (; scale < 9; scale++) {
+                nanos *= 10;
+            }
+        }
+
+        if (pos >= length) {
+            throw invalid(text);
+        }
+
+        int offsetSeconds = 0;
+        final char zone = text.charAt(pos);
+        if (zone == 'Z' || zone == 'z') {
+            pos++;
+        } else if ((zone == '+' || zone == '-') && pos + 6 == length && text.charAt(pos + 3) == ':') {
+            int offset = digits(text, pos + 1, 2) * 3600 + digits(text, pos + 4, 2) * 60;
+            offsetSeconds = zone == '+' ? offset : -offset;
+            pos += 6;
+        } else {
+            throw invalid(text);
+        }
+        if (pos != length) {
+            throw invalid(text);
+        }
+
+        final long epochSecond = epochDay(year, month, day) * SECONDS_PER_DAY
+                + hour * 3600L + minute * 60L + second - offsetSeconds;
+        return epochSecond * NANOS_PER_SECOND + nanos;
+    }
+
+    /**
+     * 解析RFC3339格式的时间
+     *
+     * @param text 时间字符串
+     * @return 返回epoch毫秒
+     */
+    public static long parseMillis(final CharSequence text) {
+        return Math.floorDiv(parseNanos(text), NANOS_PER_MILLI);
+    }
+
+    /**
+     * 1970-01-01到指定日期的天数(公历)
+     */
+    private static long epochDay(int year, int month, int day) {
+        // 以3月为一年的开始，闰日位于一年的最后
+        final long y = month <= 2 ? year - 1 : year;
+        final long era = Math.floorDiv(y, 400);
+        final long yoe = y - era * 400;
+        final long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static int digits(final CharSequence text, final int start, final int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw invalid(text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalid(CharSequence text) {
+        return new IllegalArgumentException("Unparseable RFC3339 date: \"" + text + "\"");
+    }
+}
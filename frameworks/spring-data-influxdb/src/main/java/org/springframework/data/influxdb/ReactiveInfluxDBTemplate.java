@@ -0,0 +1,193 @@
+package org.springframework.data.influxdb;
+
+import okhttp3.Response;
+import org.influxdb.InfluxDB;
+import org.influxdb.dto.Pong;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.springframework.data.influxdb.converter.LineProtocolBatch;
+import org.springframework.data.influxdb.network.InfluxDBHttpClient;
+import org.springframework.data.influxdb.network.QueryResultReader;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * 基于Reactor的InfluxDB操作
+ * <p>
+ * 写入和查询都通过OkHttp的异步请求发送，不占用调用线程；分块查询按下游的请求量逐块读取响应体，
+ * 未被请求的数据留在TCP缓冲区中，由此实现背压。读取响应体的阻塞操作在elastic线程池中执行。
+ * 序列化、写入选项和拆分规则与{@link InfluxDBTemplate}一致，但不经过异步批量写入的缓冲区和磁盘缓存
+ */
+public class ReactiveInfluxDBTemplate {
+
+    private final InfluxDBTemplate template;
+    private final InfluxDBHttpClient httpClient;
+
+    public ReactiveInfluxDBTemplate(final InfluxDBTemplate template) {
+        Assert.notNull(template, "InfluxDBTemplate is required");
+        this.template = template;
+        this.httpClient = template.getHttpClient();
+    }
+
+    /**
+     * 写入数据
+     *
+     * @param payload 数据
+     * @return 返回写入结果
+     */
+    public <T> Mono<WriteResult> write(final List<T> payload) {
+        return writeAll(payload, null);
+    }
+
+    /**
+     * 以指定的写入选项写入数据
+     *
+     * @param payload 数据
+     * @param options 写入选项
+     * @return 返回写入结果
+     */
+    public <T> Mono<WriteResult> write(final List<T> payload, final WriteOptions options) {
+        return writeAll(payload, options);
+    }
+
+    /**
+     * 以指定的写入选项写入多种类型的数据，拆分后的请求体并发写入
+     *
+     * @param payload 数据
+     * @param options 写入选项，可以为null
+     * @return 返回写入结果，包括写入失败的请求体
+     */
+    public Mono<WriteResult> writeAll(final Collection<?> payload, final WriteOptions options) {
+        if (payload == null || payload.isEmpty()) {
+            return Mono.just(new WriteResult(0, 0, null));
+        }
+        return Mono.fromCallable(() -> template.groupByOptions(payload, options))
+                .flatMapMany(groups -> Flux.fromIterable(groups.entrySet()))
+                .concatMap(this::writeGroup)
+                .collectList()
+                .map(WriteResult::merge);
+    }
+
+    private Mono<WriteResult> writeGroup(final Map.Entry<WriteOptions, List<Object>> group) {
+        final WriteOptions options = group.getKey();
+        final List<LineProtocolBatch> batches = template.getEncoder().encode(group.getValue(), options.getPrecision());
+        final String database = template.resolveDatabase(options);
+        final String retentionPolicy = template.resolveRetentionPolicy(options);
+        final InfluxDB.ConsistencyLevel consistency = InfluxDBTemplate.resolveConsistency(options);
+        final int concurrency = Math.max(1, template.getConnectionFactory().getProperties().getWrite().getConcurrency());
+
+        int points = 0;
+        for (LineProtocolBatch batch : batches) {
+            points += batch.getPoints();
+        }
+        final int total = points;
+        return Flux.range(0, batches.size())
+                .flatMap(i -> {
+                    final LineProtocolBatch batch = batches.get(i);
+                    return write(database, retentionPolicy, consistency, batch)
+                            .then(Mono.<WriteResult.Failure>empty())
+                            .onErrorResume(e -> Mono.just(new WriteResult.Failure(i, batch, options, e)));
+                }, concurrency)
+                .collectList()
+                .map(failures -> {
+                    template.evictCache(group.getValue());
+                    failures.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+                    return new WriteResult(batches.size(), total, new ArrayList<>(failures));
+                });
+    }
+
+    /**
+     * 写入一个请求体
+     */
+    private Mono<Void> write(final String database, final String retentionPolicy,
+                             final InfluxDB.ConsistencyLevel consistency, final LineProtocolBatch batch) {
+        return execute(() -> httpClient.executeAsync(httpClient.newWriteCall(database, retentionPolicy, consistency,
+                batch.getPrecision(), batch.getBody())))
+                .doOnNext(Response::close)
+                .then();
+    }
+
+    /**
+     * 分块查询，按下游的请求量逐块读取
+     *
+     * @param query     查询
+     * @param chunkSize 每一块的数据条数
+     * @return 返回每一块的查询结果
+     */
+    public Flux<QueryResult> query(final Query query, final int chunkSize) {
+        return execute(() -> httpClient.chunkedQueryAsync(query, chunkSize)).flatMapMany(reader -> Flux.using(() -> reader,
+                r -> Flux.<QueryResult>generate(sink -> {
+                    final QueryResult result = r.next();
+                    if (result == null) {
+                        sink.complete();
+                    } else {
+                        sink.next(result);
+                    }
+                }),
+                QueryResultReader::close)
+                .subscribeOn(Schedulers.elastic()));
+    }
+
+    /**
+     * 分块查询并转换成bean
+     *
+     * @param query     查询
+     * @param chunkSize 每一块的数据条数
+     * @param type      bean类型
+     * @return 返回转换后的bean
+     */
+    public <T> Flux<T> query(final Query query, final int chunkSize, final Class<T> type) {
+        return query(query, chunkSize)
+                .concatMapIterable(result -> template.getConverterFactory().mapperTo(result, type));
+    }
+
+    /**
+     * ping服务端
+     *
+     * @return 返回Pong
+     */
+    public Mono<Pong> ping() {
+        return Mono.defer(() -> {
+            final long start = System.currentTimeMillis();
+            return execute(() -> httpClient.executeAsync(httpClient.newPingCall())).map(response -> {
+                final Pong pong = new Pong();
+                pong.setVersion(response.header("X-Influxdb-Version", "unknown"));
+                pong.setResponseTime(System.currentTimeMillis() - start);
+                response.close();
+                return pong;
+            });
+        });
+    }
+
+    /**
+     * 异步执行请求，失败的响应转换成InfluxDBException，取消订阅时取消请求；
+     * 请求由{@link InfluxDBHttpClient}执行，配置了多个节点时在其他节点上重试
+     */
+    private static <T> Mono<T> execute(final Supplier<CompletableFuture<T>> supplier) {
+        return Mono.create(sink -> {
+            final CompletableFuture<T> future = supplier.get();
+            sink.onCancel(() -> future.cancel(true));
+            future.whenComplete((result, e) -> {
+                if (e != null) {
+                    sink.error(e instanceof CompletionException ? e.getCause() : e);
+                } else {
+                    sink.success(result);
+                }
+            });
+        });
+    }
+
+    public InfluxDBTemplate getTemplate() {
+        return template;
+    }
+}
@@ -0,0 +1,315 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.InfluxDBMapperException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.TypeVariable;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 针对(Series的列, 目标类型)编译出的映射计划
+ * <p>
+ * 每一列对应一个类型确定的{@link ColumnSetter}，只保存有对应字段的列的下标，
+ * 映射每一行数据时只访问这些列，不再查找字段，也不再逐个判断字段类型
+ *
+ * @param <T> 目标类型
+ */
+public class SeriesMapping<T> {
+
+    private static final long NANOS_PER_SECOND = 1000_000_000L;
+
+    /**
+     * 给对象的某个字段设置值
+     */
+    public interface ColumnSetter {
+        /**
+         * 设置值
+         *
+         * @param target 对象
+         * @param value  InfluxDB返回的值，不为null
+         */
+        void set(Object target, Object value) throws IllegalAccessException;
+    }
+
+    private final Class<T> type;
+    private final Constructor<T> constructor;
+    /**
+     * 有对应字段的列的下标，没有对应字段的列直接跳过
+     */
+    private final int[] indices;
+    /**
+     * 与indices一一对应的setter
+     */
+    private final ColumnSetter[] setters;
+    /**
+     * 有对应字段的列数
+     */
+    private final int mappedCount;
+    /**
+     * 列名对应的字段，用于GROUP BY返回的tag
+     */
+    private final Map<String, Field> fieldMap;
+    /**
+     * 数值时间戳的单位，即查询时指定的epoch
+     */
+    private final TimeUnit precision;
+
+    SeriesMapping(final Class<T> type,
+                  final List<String> columns,
+                  final Map<String, Field> fieldMap,
+                  final String timestamp) {
+        this(type, columns, fieldMap, timestamp, TimeUnit.MILLISECONDS);
+    }
+
+    SeriesMapping(final Class<T> type,
+                  final List<String> columns,
+                  final Map<String, Field> fieldMap,
+                  final String timestamp,
+                  final TimeUnit precision) {
+        this.type = type;
+        this.fieldMap = fieldMap;
+        this.precision = precision != null ? precision : TimeUnit.MILLISECONDS;
+        try {
+            this.constructor = type.getDeclaredConstructor();
+            InfluxUtils.setAccessible(constructor, true);
+        } catch (NoSuchMethodException e) {
+            throw new InfluxDBMapperException(e);
+        }
+
+        final int[] indices = new int[columns.size()];
+        final ColumnSetter[] setters = new ColumnSetter[columns.size()];
+        int count = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            Field field = fieldMap.get(columns.get(i));
+            if (field != null) {
+                indices[count] = i;
+                setters[count] = timestamp.equals(field.getName())
+                        ? timeSetter(field, this.precision) : createSetter(type, field);
+                count++;
+            }
+        }
+        this.indices = Arrays.copyOf(indices, count);
+        this.setters = Arrays.copyOf(setters, count);
+        this.mappedCount = count;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public TimeUnit getPrecision() {
+        return precision;
+    }
+
+    public int getMappedCount() {
+        return mappedCount;
+    }
+
+    /**
+     * 有对应字段的列的下标
+     */
+    public int[] getMappedIndices() {
+        return indices.clone();
+    }
+
+    /**
+     * 映射一行数据
+     *
+     * @param row  一行数据
+     * @param tags GROUP BY返回的tag，可以为null
+     * @return 返回映射的对象，没有任何列对应字段时返回null
+     */
+    public T mapRow(final List<Object> row, final Map<String, String> tags) {
+        if (mappedCount == 0) {
+            return null;
+        }
+        try {
+            final T object = constructor.newInstance();
+            final int[] indices = this.indices;
+            final ColumnSetter[] setters = this.setters;
+            for (int i = 0; i < indices.length; i++) {
+                final Object value = row.get(indices[i]);
+                if (value != null) {
+                    setters[i].set(object, value);
+                }
+            }
+            // When the "GROUP BY" clause is used, "tags" are returned as Map<String,String>
+            // and "tag" values are always String.
+            if (tags != null && !tags.isEmpty()) {
+                for (Map.Entry<String, String> entry : tags.entrySet()) {
+                    Field field = fieldMap.get(entry.getKey());
+                    if (field != null) {
+                        InfluxDBResultMapperPlus.setFieldValue(object, field, entry.getValue());
+                    }
+                }
+            }
+            return object;
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new InfluxDBMapperException(e);
+        } catch (ClassCastException e) {
+            throw new InfluxDBMapperException("Class '" + type.getName()
+                    + "' was defined with a different field type and caused a ClassCastException: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 时间戳字段：RFC3339字符串或者以precision为单位的epoch数值；long字段保存epoch毫秒
+     */
+    private static ColumnSetter timeSetter(final Field field, final TimeUnit precision) {
+        InfluxUtils.setAccessible(field, true);
+        final Class<?> fieldType = field.getType();
+        if (Date.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> {
+                long millis = toEpochMillis(v, precision);
+                if (millis != Long.MIN_VALUE) {
+                    field.set(o, new Date(millis));
+                }
+            };
+        }
+        if (Instant.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> {
+                if (v instanceof Number) {
+                    final long value = ((Number) v).longValue();
+                    final long seconds = precision.toSeconds(value);
+                    final long nanos = precision.toNanos(value - precision.convert(seconds, TimeUnit.SECONDS));
+                    field.set(o, Instant.ofEpochSecond(seconds, nanos));
+                    return;
+                }
+                try {
+                    long nanos = RFC3339Parser.parseNanos(v.toString());
+                    field.set(o, Instant.ofEpochSecond(Math.floorDiv(nanos, NANOS_PER_SECOND),
+                            Math.floorMod(nanos, NANOS_PER_SECOND)));
+                } catch (IllegalArgumentException e) {
+                    // ~ 忽略无法解析的时间戳
+                }
+            };
+        }
+        if (fieldType == long.class) {
+            return (o, v) -> {
+                long millis = toEpochMillis(v, precision);
+                if (millis != Long.MIN_VALUE) {
+                    field.setLong(o, millis);
+                }
+            };
+        }
+        return (o, v) -> {
+            long millis = toEpochMillis(v, precision);
+            if (millis != Long.MIN_VALUE) {
+                field.set(o, millis);
+            }
+        };
+    }
+
+    /**
+     * 转换成epoch毫秒，无法解析时返回Long.MIN_VALUE
+     *
+     * @param value     RFC3339字符串或者epoch数值
+     * @param precision epoch数值的单位
+     */
+    private static long toEpochMillis(Object value, TimeUnit precision) {
+        if (value instanceof Number) {
+            final long epoch = ((Number) value).longValue();
+            // 向下取整，与RFC3339的解析保持一致
+            return precision.compareTo(TimeUnit.MILLISECONDS) < 0
+                    ? Math.floorDiv(epoch, precision.convert(1, TimeUnit.MILLISECONDS))
+                    : precision.toMillis(epoch);
+        }
+        try {
+            return RFC3339Parser.parseMillis(value.toString());
+        } catch (IllegalArgumentException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * 根据字段类型创建setter，与{@link InfluxDBResultMapperPlus#setFieldValue(Object, Field, Object)}的转换规则一致
+     */
+    static ColumnSetter createSetter(final Class<?> type, final Field field) {
+        InfluxUtils.setAccessible(field, true);
+        final Class<?> fieldType = field.getGenericType() instanceof TypeVariable
+                ? InfluxUtils.getGenericSuperclassBounds(type) : field.getType();
+
+        if (String.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> field.set(o, String.valueOf(v));
+        }
+        if (Instant.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> InfluxDBResultMapperPlus.fieldValueModified(fieldType, field, o, v);
+        }
+
+        // 基本数据类型
+        if (fieldType == double.class) {
+            return (o, v) -> field.setDouble(o, number(field, v).doubleValue());
+        }
+        if (fieldType == float.class) {
+            return (o, v) -> field.setFloat(o, number(field, v).floatValue());
+        }
+        if (fieldType == long.class) {
+            return (o, v) -> field.setLong(o, number(field, v).longValue());
+        }
+        if (fieldType == int.class) {
+            return (o, v) -> field.setInt(o, number(field, v).intValue());
+        }
+        if (fieldType == short.class) {
+            return (o, v) -> field.setShort(o, number(field, v).shortValue());
+        }
+        if (fieldType == byte.class) {
+            return (o, v) -> field.setByte(o, number(field, v).byteValue());
+        }
+        if (fieldType == boolean.class) {
+            return (o, v) -> field.setBoolean(o, bool(v));
+        }
+
+        // 包装类型
+        if (Double.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> field.set(o, number(field, v).doubleValue());
+        }
+        if (Float.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> field.set(o, number(field, v).floatValue());
+        }
+        if (Long.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> field.set(o, number(field, v).longValue());
+        }
+        if (Integer.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> field.set(o, number(field, v).intValue());
+        }
+        if (Short.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> field.set(o, number(field, v).shortValue());
+        }
+        if (Byte.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> field.set(o, number(field, v).byteValue());
+        }
+        if (Boolean.class.isAssignableFrom(fieldType)) {
+            return (o, v) -> field.set(o, bool(v));
+        }
+
+        return (o, v) -> {
+            String msg = "Class '%s' field '%s' is from an unsupported type '%s'.";
+            throw new InfluxDBMapperException(
+                    String.format(msg, o.getClass().getName(), field.getName(), field.getType()));
+        };
+    }
+
+    private static Number number(Field field, Object value) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        String msg = "Class '%s' field '%s' was defined with a different field type. "
+                + "The correct type is '%s' (current field value: '%s').";
+        throw new InfluxDBMapperException(String.format(msg, field.getDeclaringClass().getName(),
+                field.getName(), value.getClass().getName(), value));
+    }
+
+    private static boolean bool(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return Boolean.parseBoolean(String.valueOf(value));
+    }
+}
@@ -0,0 +1,160 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.InfluxDB;
+import org.springframework.data.influxdb.annotations.InfluxWriteOptions;
+import org.springframework.util.StringUtils;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 写入选项，为null的属性使用measurement注解或者全局配置的默认值
+ */
+public final class WriteOptions {
+
+    /**
+     * 不指定任何选项
+     */
+    public static final WriteOptions DEFAULT = new WriteOptions(null, null, null, null);
+
+    private final String database;
+    private final String retentionPolicy;
+    private final InfluxDB.ConsistencyLevel consistency;
+    private final TimeUnit precision;
+
+    private WriteOptions(String database, String retentionPolicy,
+                         InfluxDB.ConsistencyLevel consistency, TimeUnit precision) {
+        this.database = database;
+        this.retentionPolicy = retentionPolicy;
+        this.consistency = consistency;
+        this.precision = precision;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 根据注解创建写入选项
+     *
+     * @param annotation 注解，可以为null
+     * @return 返回写入选项
+     */
+    public static WriteOptions of(final InfluxWriteOptions annotation) {
+        if (annotation == null) {
+            return DEFAULT;
+        }
+        return new WriteOptions(
+                StringUtils.hasText(annotation.database()) ? annotation.database() : null,
+                StringUtils.hasText(annotation.retentionPolicy()) ? annotation.retentionPolicy() : null,
+                annotation.consistency().length > 0 ? annotation.consistency()[0] : null,
+                annotation.precision().length > 0 ? annotation.precision()[0] : null);
+    }
+
+    /**
+     * 合并写入选项，当前为null的属性使用defaults中的值
+     *
+     * @param defaults 默认的写入选项
+     * @return 返回合并后的写入选项
+     */
+    public WriteOptions merge(final WriteOptions defaults) {
+        if (defaults == null || defaults.isDefault()) {
+            return this;
+        }
+        if (isDefault()) {
+            return defaults;
+        }
+        return new WriteOptions(
+                database != null ? database : defaults.database,
+                retentionPolicy != null ? retentionPolicy : defaults.retentionPolicy,
+                consistency != null ? consistency : defaults.consistency,
+                precision != null ? precision : defaults.precision);
+    }
+
+    /**
+     * 是否没有指定任何选项
+     */
+    public boolean isDefault() {
+        return database == null && retentionPolicy == null && consistency == null && precision == null;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public String getRetentionPolicy() {
+        return retentionPolicy;
+    }
+
+    public InfluxDB.ConsistencyLevel getConsistency() {
+        return consistency;
+    }
+
+    public TimeUnit getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        WriteOptions that = (WriteOptions) o;
+        return Objects.equals(database, that.database)
+                && Objects.equals(retentionPolicy, that.retentionPolicy)
+                && consistency == that.consistency
+                && precision == that.precision;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(database, retentionPolicy, consistency, precision);
+    }
+
+    @Override
+    public String toString() {
+        return "WriteOptions{" +
+                "database='" + database + '\'' +
+                ", retentionPolicy='" + retentionPolicy + '\'' +
+                ", consistency=" + consistency +
+                ", precision=" + precision +
+                '}';
+    }
+
+    public static final class Builder {
+        private String database;
+        private String retentionPolicy;
+        private InfluxDB.ConsistencyLevel consistency;
+        private TimeUnit precision;
+
+        private Builder() {
+        }
+
+        public Builder database(String database) {
+            this.database = database;
+            return this;
+        }
+
+        public Builder retentionPolicy(String retentionPolicy) {
+            this.retentionPolicy = retentionPolicy;
+            return this;
+        }
+
+        public Builder consistency(InfluxDB.ConsistencyLevel consistency) {
+            this.consistency = consistency;
+            return this;
+        }
+
+        public Builder precision(TimeUnit precision) {
+            this.precision = precision;
+            return this;
+        }
+
+        public WriteOptions build() {
+            return new WriteOptions(database, retentionPolicy, consistency, precision);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.springframework.data.influxdb;
+
+import org.springframework.data.influxdb.converter.LineProtocolBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分块写入的结果，记录失败的请求体，便于只重试失败的部分
+ */
+public class WriteResult {
+
+    /**
+     * 请求体的数量
+     */
+    private final int chunks;
+    /**
+     * 数据条数
+     */
+    private final int points;
+    private final List<Failure> failures;
+
+    public WriteResult(int chunks, int points, List<Failure> failures) {
+        this.chunks = chunks;
+        this.points = points;
+        this.failures = failures != null ? Collections.unmodifiableList(failures) : Collections.emptyList();
+    }
+
+    /**
+     * 合并多次写入的结果，失败请求体的序号按顺序累加
+     *
+     * @param results 写入结果
+     * @return 返回合并后的结果
+     */
+    public static WriteResult merge(final List<WriteResult> results) {
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        int chunks = 0;
+        int points = 0;
+        final List<Failure> failures = new ArrayList<>();
+        for (WriteResult result : results) {
+            for (Failure failure : result.failures) {
+                failures.add(new Failure(chunks + failure.index, failure.batch, failure.options, failure.error));
+            }
+            chunks += result.chunks;
+            points += result.points;
+        }
+        return new WriteResult(chunks, points, failures);
+    }
+
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * 写入失败的数据条数
+     */
+    public int getFailedPoints() {
+        int count = 0;
+        for (Failure failure : failures) {
+            count += failure.getBatch().getPoints();
+        }
+        return count;
+    }
+
+    /**
+     * 获取写入失败的请求体，用于重试
+     */
+    public List<LineProtocolBatch> getFailedBatches() {
+        final List<LineProtocolBatch> batches = new ArrayList<>(failures.size());
+        for (Failure failure : failures) {
+            batches.add(failure.getBatch());
+        }
+        return batches;
+    }
+
+    /**
+     * 存在写入失败的请求体时抛出异常
+     *
+     * @throws InfluxDBWriteException 写入失败
+     */
+    public void throwIfFailed() {
+        if (!isSuccess()) {
+            throw new InfluxDBWriteException(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WriteResult{" +
+                "chunks=" + chunks +
+                ", points=" + points +
+                ", failedChunks=" + failures.size() +
+                ", failedPoints=" + getFailedPoints() +
+                '}';
+    }
+
+    /**
+     * 写入失败的请求体
+     */
+    public static class Failure {
+        /**
+         * 请求体的序号
+         */
+        private final int index;
+        private final LineProtocolBatch batch;
+        /**
+         * 写入时使用的选项
+         */
+        private final WriteOptions options;
+        private final Throwable error;
+
+        public Failure(int index, LineProtocolBatch batch, WriteOptions options, Throwable error) {
+            this.index = index;
+            this.batch = batch;
+            this.options = options;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public LineProtocolBatch getBatch() {
+            return batch;
+        }
+
+        public WriteOptions getOptions() {
+            return options;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{" +
+                    "index=" + index +
+                    ", batch=" + batch +
+                    ", options=" + options +
+                    ", error=" + error +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.springframework.data.influxdb.aggregate;
+
+/**
+ * 预聚合的函数，只作用于数值字段
+ */
+public enum AggregateFunction {
+    /**
+     * 窗口内的数据条数
+     */
+    COUNT,
+    /**
+     * 求和
+     */
+    SUM,
+    /**
+     * 最小值
+     */
+    MIN,
+    /**
+     * 最大值
+     */
+    MAX,
+    /**
+     * 窗口内时间最大的值，时间相同时取后写入的值
+     */
+    LAST,
+    /**
+     * 平均值
+     */
+    MEAN;
+
+    /**
+     * 多个聚合函数时输出字段名的后缀
+     */
+    public String suffix() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,201 @@
+package org.springframework.data.influxdb.aggregate;
+
+import org.influxdb.dto.Point;
+import org.springframework.data.influxdb.converter.FieldAccessor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个序列在一个时间窗口内的聚合值，由所在分段的锁保护
+ */
+final class AggregateWindow {
+
+    private final AggregationSpec spec;
+    /**
+     * 窗口的开始时间(毫秒)
+     */
+    final long start;
+
+    private final long[] counts;
+    /**
+     * 整数字段使用long累加，避免大数值转换成double后丢失精度
+     */
+    private final long[] longSum;
+    private final long[] longMin;
+    private final long[] longMax;
+    private final long[] longLast;
+    private final double[] doubleSum;
+    private final double[] doubleMin;
+    private final double[] doubleMax;
+    private final double[] doubleLast;
+    private final long[] lastTime;
+
+    private final Object[] others;
+    private final long[] othersTime;
+
+    AggregateWindow(final AggregationSpec spec, final long start) {
+        this.spec = spec;
+        this.start = start;
+        final int n = spec.numeric.length;
+        this.counts = new long[n];
+        this.longSum = new long[n];
+        this.longMin = new long[n];
+        this.longMax = new long[n];
+        this.longLast = new long[n];
+        this.doubleSum = new double[n];
+        this.doubleMin = new double[n];
+        this.doubleMax = new double[n];
+        this.doubleLast = new double[n];
+        this.lastTime = new long[n];
+        this.others = new Object[spec.others.length];
+        this.othersTime = new long[spec.others.length];
+        Arrays.fill(othersTime, Long.MIN_VALUE);
+    }
+
+    /**
+     * 合并一条数据
+     *
+     * @param item 数据
+     * @param time 数据的时间戳(毫秒)
+     */
+    void add(final Object item, final long time) {
+        final FieldAccessor[] numeric = spec.numeric;
+        for (int i = 0; i < numeric.length; i++) {
+            final FieldAccessor accessor = numeric[i];
+            if (spec.integral[i]) {
+                final long value;
+                if (accessor.getKind() == FieldAccessor.Kind.LONG) {
+                    value = accessor.getLong(item);
+                } else {
+                    final Object boxed = accessor.get(item);
+                    if (boxed == null) {
+                        continue;
+                    }
+                    value = ((Number) boxed).longValue();
+                }
+                if (counts[i] == 0) {
+                    longMin[i] = value;
+                    longMax[i] = value;
+                } else {
+                    longMin[i] = Math.min(longMin[i], value);
+                    longMax[i] = Math.max(longMax[i], value);
+                }
+                longSum[i] += value;
+                if (counts[i] == 0 || time >= lastTime[i]) {
+                    longLast[i] = value;
+                    lastTime[i] = time;
+                }
+            } else {
+                final double value;
+                if (accessor.getKind() == FieldAccessor.Kind.DOUBLE) {
+                    value = accessor.getDouble(item);
+                } else {
+                    final Object boxed = accessor.get(item);
+                    if (boxed == null) {
+                        continue;
+                    }
+                    value = ((Number) boxed).doubleValue();
+                }
+                if (counts[i] == 0) {
+                    doubleMin[i] = value;
+                    doubleMax[i] = value;
+                } else {
+                    doubleMin[i] = Math.min(doubleMin[i], value);
+                    doubleMax[i] = Math.max(doubleMax[i], value);
+                }
+                doubleSum[i] += value;
+                if (counts[i] == 0 || time >= lastTime[i]) {
+                    doubleLast[i] = value;
+                    lastTime[i] = time;
+                }
+            }
+            counts[i]++;
+        }
+
+        final FieldAccessor[] accessors = spec.others;
+        for (int i = 0; i < accessors.length; i++) {
+            final Object value = accessors[i].get(item);
+            if (value != null && time >= othersTime[i]) {
+                others[i] = value;
+                othersTime[i] = time;
+            }
+        }
+    }
+
+    /**
+     * 转换成Point，时间戳为窗口的开始时间
+     *
+     * @param tagValues 序列的tag值
+     * @return 窗口内所有字段都为null时返回null
+     */
+    Point toPoint(final String[] tagValues) {
+        final Point.Builder builder = Point.measurement(spec.measurement)
+                .time(start, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < tagValues.length; i++) {
+            if (tagValues[i] != null) {
+                builder.tag(spec.tagNames[i], tagValues[i]);
+            }
+        }
+
+        boolean hasFields = false;
+        final AggregateFunction[] functions = spec.functions;
+        for (int i = 0; i < counts.length; i++) {
+            final long count = counts[i];
+            if (count == 0) {
+                continue;
+            }
+            hasFields = true;
+            final boolean integral = spec.integral[i];
+            for (int j = 0; j < functions.length; j++) {
+                final String name = spec.outputNames[i][j];
+                switch (functions[j]) {
+                    case COUNT:
+                        builder.addField(name, count);
+                        break;
+                    case SUM:
+                        addField(builder, name, integral, longSum[i], doubleSum[i]);
+                        break;
+                    case MIN:
+                        addField(builder, name, integral, longMin[i], doubleMin[i]);
+                        break;
+                    case MAX:
+                        addField(builder, name, integral, longMax[i], doubleMax[i]);
+                        break;
+                    case LAST:
+                        addField(builder, name, integral, longLast[i], doubleLast[i]);
+                        break;
+                    case MEAN:
+                    default:
+                        builder.addField(name, (integral ? (double) longSum[i] : doubleSum[i]) / count);
+                        break;
+                }
+            }
+        }
+
+        for (int i = 0; i < others.length; i++) {
+            final Object value = others[i];
+            if (value == null) {
+                continue;
+            }
+            hasFields = true;
+            if (value instanceof Boolean) {
+                builder.addField(spec.otherNames[i], (Boolean) value);
+            } else if (value instanceof String) {
+                builder.addField(spec.otherNames[i], (String) value);
+            } else {
+                builder.addField(spec.otherNames[i], String.valueOf(value));
+            }
+        }
+        return hasFields ? builder.build() : null;
+    }
+
+    private static void addField(final Point.Builder builder, final String name,
+                                 final boolean integral, final long longValue, final double doubleValue) {
+        if (integral) {
+            builder.addField(name, longValue);
+        } else {
+            builder.addField(name, doubleValue);
+        }
+    }
+}
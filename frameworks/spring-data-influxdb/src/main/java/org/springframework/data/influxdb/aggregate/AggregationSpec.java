@@ -0,0 +1,231 @@
+package org.springframework.data.influxdb.aggregate;
+
+import org.influxdb.dto.Point;
+import org.springframework.data.influxdb.annotations.InfluxAggregate;
+import org.springframework.data.influxdb.converter.DefaultPointConverter;
+import org.springframework.data.influxdb.converter.FieldAccessor;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * measurement类型的预聚合配置，以及读取tag、字段和时间戳的读取器
+ */
+final class AggregationSpec {
+
+    final Class<?> type;
+    final String measurement;
+    /**
+     * 迟到数据写入的measurement
+     */
+    final String lateMeasurement;
+    /**
+     * 时间窗口和等待时间(毫秒)
+     */
+    final long window;
+    final long grace;
+    final AggregateFunction[] functions;
+
+    /**
+     * 按名称排序的tag，保证相同tag集合的数据得到相同的序列
+     */
+    final String[] tagNames;
+    final FieldAccessor[] tags;
+    final boolean tagNull;
+
+    final FieldAccessor time;
+    final TimeUnit timeUnit;
+
+    /**
+     * 数值字段、字段名、是否为整数，以及每个聚合函数输出的字段名
+     */
+    final FieldAccessor[] numeric;
+    final String[] numericNames;
+    final boolean[] integral;
+    final String[][] outputNames;
+
+    /**
+     * 非数值字段，保留窗口内最后的值
+     */
+    final String[] otherNames;
+    final FieldAccessor[] others;
+
+    private AggregationSpec(final Class<?> type, final InfluxAggregate aggregate,
+                            final DefaultPointConverter<?> converter) {
+        if (aggregate.window() <= 0) {
+            throw new IllegalStateException("@InfluxAggregate的window必须大于0: " + type.getName());
+        }
+        if (aggregate.functions().length == 0) {
+            throw new IllegalStateException("@InfluxAggregate至少需要一个聚合函数: " + type.getName());
+        }
+        this.type = type;
+        this.measurement = converter.getMeasurement();
+        this.lateMeasurement = aggregate.lateMeasurement().isEmpty()
+                ? measurement + "_late" : aggregate.lateMeasurement();
+        this.window = aggregate.window();
+        this.grace = Math.max(0, aggregate.grace());
+        this.functions = aggregate.functions().clone();
+
+        final Map<String, Field> tagMap = new TreeMap<>(converter.getTags());
+        this.tagNames = tagMap.keySet().toArray(new String[0]);
+        this.tags = accessors(tagMap.values());
+        this.tagNull = converter.isTagNull();
+
+        this.time = converter.getTimeField() != null ? FieldAccessor.of(converter.getTimeField()) : null;
+        this.timeUnit = converter.getTimeUnit();
+
+        final List<FieldAccessor> numeric = new ArrayList<>();
+        final List<String> numericNames = new ArrayList<>();
+        final List<FieldAccessor> others = new ArrayList<>();
+        final List<String> otherNames = new ArrayList<>();
+        for (Map.Entry<String, Field> entry : new TreeMap<>(converter.getColumns()).entrySet()) {
+            final Class<?> fieldType = entry.getValue().getType();
+            if (isIntegral(fieldType) || isNumber(fieldType)) {
+                numeric.add(FieldAccessor.of(entry.getValue()));
+                numericNames.add(entry.getKey());
+            } else {
+                others.add(FieldAccessor.of(entry.getValue()));
+                otherNames.add(entry.getKey());
+            }
+        }
+        this.numeric = numeric.toArray(new FieldAccessor[0]);
+        this.numericNames = numericNames.toArray(new String[0]);
+        this.integral = new boolean[this.numeric.length];
+        this.outputNames = new String[this.numeric.length][functions.length];
+        for (int i = 0; i < this.numeric.length; i++) {
+            integral[i] = isIntegral(this.numeric[i].getField().getType());
+            // 始终加上函数名，聚合值的类型(例如整数的平均值)可能与原始字段不同
+            for (int j = 0; j < functions.length; j++) {
+                outputNames[i][j] = this.numericNames[i] + "_" + functions[j].suffix();
+            }
+        }
+        this.others = others.toArray(new FieldAccessor[0]);
+        this.otherNames = otherNames.toArray(new String[0]);
+    }
+
+    /**
+     * 创建类型的预聚合配置
+     *
+     * @param type      measurement类型
+     * @param converter 类型的转换器
+     * @return 类型上没有{@link InfluxAggregate}注解时返回null
+     */
+    static AggregationSpec of(final Class<?> type, final Object converter) {
+        final InfluxAggregate aggregate = type.getAnnotation(InfluxAggregate.class);
+        if (aggregate == null) {
+            return null;
+        }
+        if (!(converter instanceof DefaultPointConverter)) {
+            throw new IllegalStateException("@InfluxAggregate需要DefaultPointConverter, \""
+                    + type.getName() + "\"的转换器为\"" + converter + "\"");
+        }
+        return new AggregationSpec(type, aggregate, (DefaultPointConverter<?>) converter);
+    }
+
+    /**
+     * 读取数据的时间戳，与转换成Point时的规则相同，没有时间戳时使用当前时间
+     *
+     * @return 返回毫秒时间戳
+     */
+    long timestamp(final Object item, final long now) {
+        if (time == null) {
+            return now;
+        }
+        final Object value = time.get(item);
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return value != null ? timeUnit.toMillis(((Number) value).longValue()) : now;
+    }
+
+    String[] tagValues(final Object item) {
+        final String[] values = new String[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            final Object value = tags[i].get(item);
+            if (!tagNull && value == null) {
+                throw new NullPointerException("tag is null.");
+            }
+            values[i] = value != null ? String.valueOf(value) : null;
+        }
+        return values;
+    }
+
+    /**
+     * 将迟到的数据按原始字段转换成{@link #lateMeasurement}的Point，字段类型与{@link DefaultPointConverter}相同
+     *
+     * @param item      数据
+     * @param tagValues 数据的tag值
+     * @param time      数据的时间戳(毫秒)
+     * @return 所有字段都为null时返回null
+     */
+    Point toLatePoint(final Object item, final String[] tagValues, final long time) {
+        final Point.Builder builder = Point.measurement(lateMeasurement).time(time, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < tagValues.length; i++) {
+            if (tagValues[i] != null) {
+                builder.tag(tagNames[i], tagValues[i]);
+            }
+        }
+        boolean hasFields = false;
+        for (int i = 0; i < numeric.length; i++) {
+            hasFields |= addField(builder, numericNames[i], numeric[i].get(item));
+        }
+        for (int i = 0; i < others.length; i++) {
+            hasFields |= addField(builder, otherNames[i], others[i].get(item));
+        }
+        return hasFields ? builder.build() : null;
+    }
+
+    private static boolean addField(final Point.Builder builder, final String name, final Object value) {
+        if (value instanceof Long) {
+            builder.addField(name, (long) value);
+        } else if (value instanceof Double) {
+            builder.addField(name, (double) value);
+        } else if (value instanceof Number) {
+            builder.addField(name, (Number) value);
+        } else if (value instanceof Boolean) {
+            builder.addField(name, (Boolean) value);
+        } else if (value instanceof String) {
+            builder.addField(name, (String) value);
+        } else if (value != null) {
+            builder.addField(name, String.valueOf(value));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static FieldAccessor[] accessors(final Iterable<Field> fields) {
+        final List<FieldAccessor> accessors = new ArrayList<>();
+        for (Field field : fields) {
+            accessors.add(FieldAccessor.of(field));
+        }
+        return accessors.toArray(new FieldAccessor[0]);
+    }
+
+    private static boolean isIntegral(final Class<?> type) {
+        return type == long.class || type == int.class || type == short.class || type == byte.class
+                || type == Long.class || type == Integer.class || type == Short.class || type == Byte.class;
+    }
+
+    private static boolean isNumber(final Class<?> type) {
+        return type == double.class || type == float.class || Number.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public String toString() {
+        return "AggregationSpec{" +
+                "type=" + type.getName() +
+                ", measurement='" + measurement + '\'' +
+                ", window=" + window +
+                ", grace=" + grace +
+                ", lateMeasurement='" + lateMeasurement + '\'' +
+                ", functions=" + Arrays.toString(functions) +
+                '}';
+    }
+}
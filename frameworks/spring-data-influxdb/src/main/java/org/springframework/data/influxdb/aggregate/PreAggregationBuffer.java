@@ -0,0 +1,362 @@
+package org.springframework.data.influxdb.aggregate;
+
+import org.influxdb.dto.Point;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.influxdb.InfluxDBProperties;
+import org.springframework.data.influxdb.InfluxUtils;
+import org.springframework.data.influxdb.annotations.InfluxAggregate;
+import org.springframework.data.influxdb.converter.PointConverterFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * 写入前的预聚合缓冲区
+ * <p>
+ * 注解了{@link InfluxAggregate}的数据按measurement、tag集合和时间窗口合并成一个聚合值，
+ * 窗口结束并超过等待时间后由后台线程提交，每个窗口每个序列只写入一条；
+ * 聚合值保存在分段加锁的HashMap中，不同序列的写入线程很少竞争同一把锁。
+ * 窗口提交后才到达的数据按原始字段写入单独的measurement，与聚合值一起提交
+ */
+public class PreAggregationBuffer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(PreAggregationBuffer.class);
+
+    private final PointConverterFactory converterFactory;
+    /**
+     * 类型的预聚合配置，没有注解的类型保存为{@link Boolean#FALSE}
+     */
+    private final Map<Class<?>, Object> specs = new ConcurrentHashMap<>();
+    private final Stripe[] stripes;
+    /**
+     * 等待提交的迟到数据
+     */
+    private final ConcurrentLinkedQueue<LatePoint> latePoints = new ConcurrentLinkedQueue<>();
+    private final int mask;
+    /**
+     * 实际执行写入的回调，按类型提交
+     */
+    private final BiConsumer<Class<?>, List<Point>> writer;
+    /**
+     * 定时提交结束的窗口
+     */
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * 聚合的数据条数、提交的聚合值数量、迟到的数据条数、未提交的窗口数量
+     */
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong emitted = new AtomicLong();
+    private final AtomicLong late = new AtomicLong();
+    private final AtomicInteger windows = new AtomicInteger();
+
+    /**
+     * 提交失败的回调
+     */
+    private volatile BiConsumer<List<Point>, Throwable> exceptionHandler;
+
+    private volatile boolean closed = false;
+
+    public PreAggregationBuffer(final InfluxDBProperties.Aggregation options,
+                                final PointConverterFactory converterFactory,
+                                final BiConsumer<Class<?>, List<Point>> writer) {
+        if (writer == null) {
+            throw new NullPointerException("writer is null.");
+        }
+        this.converterFactory = converterFactory;
+        this.writer = writer;
+
+        // 分段数量取2的幂
+        int n = 1;
+        while (n < Math.max(1, options.getStripes())) {
+            n <<= 1;
+        }
+        this.stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = n - 1;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(InfluxUtils.newThreadFactory("influxdb-aggregation-timer"));
+        long interval = Math.max(1, options.getFlushInterval());
+        this.scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 类型是否需要预聚合
+     *
+     * @param type measurement类型
+     * @return 类型上注解了{@link InfluxAggregate}时返回true
+     */
+    public boolean isAggregated(final Class<?> type) {
+        return getSpec(type) != null;
+    }
+
+    /**
+     * 获取类型的预聚合配置
+     *
+     * @return 类型不需要预聚合时返回null
+     */
+    private AggregationSpec getSpec(final Class<?> type) {
+        final Object spec = specs.computeIfAbsent(type, k -> {
+            if (!k.isAnnotationPresent(InfluxAggregate.class)) {
+                return Boolean.FALSE;
+            }
+            final AggregationSpec created = AggregationSpec.of(k, converterFactory.getConverter(k));
+            logger.debug("Pre-aggregating {}", created);
+            return created;
+        });
+        return spec instanceof AggregationSpec ? (AggregationSpec) spec : null;
+    }
+
+    /**
+     * 获取迟到数据写入的measurement
+     *
+     * @param type measurement类型
+     * @return 类型不需要预聚合时返回null
+     */
+    public String getLateMeasurement(final Class<?> type) {
+        final AggregationSpec spec = getSpec(type);
+        return spec != null ? spec.lateMeasurement : null;
+    }
+
+    /**
+     * 合并一条数据，数据所在的窗口已经提交时(迟到的数据)按原始字段写入{@link InfluxAggregate#lateMeasurement()}
+     *
+     * @param item 数据
+     * @return 类型不需要预聚合时返回false，由调用方直接写入
+     */
+    public boolean add(final Object item) {
+        final AggregationSpec spec = getSpec(item.getClass());
+        if (spec == null) {
+            return false;
+        }
+        if (closed) {
+            throw new IllegalStateException("预聚合缓冲区已关闭");
+        }
+
+        final long time = spec.timestamp(item, System.currentTimeMillis());
+        final long start = Math.floorDiv(time, spec.window) * spec.window;
+        final SeriesKey key = new SeriesKey(spec, spec.tagValues(item), start);
+        final Stripe stripe = stripes[spread(key.hash) & mask];
+        synchronized (stripe) {
+            // 在锁内判断窗口是否已经提交，避免同一个窗口提交两次
+            if (!isReady(spec, start, System.currentTimeMillis())) {
+                AggregateWindow window = stripe.windows.get(key);
+                if (window == null) {
+                    window = new AggregateWindow(spec, start);
+                    stripe.windows.put(key, window);
+                    windows.incrementAndGet();
+                }
+                window.add(item, time);
+                received.incrementAndGet();
+                return true;
+            }
+        }
+        // 不能再合并到已提交的聚合值中，也不能和对齐窗口的聚合值写入同一个序列
+        late.incrementAndGet();
+        final Point point = spec.toLatePoint(item, key.tags, time);
+        if (point != null) {
+            latePoints.add(new LatePoint(spec.type, point));
+        }
+        return true;
+    }
+
+    /**
+     * 提交所有已经结束并超过等待时间的窗口
+     */
+    public void flush() {
+        try {
+            emit(false);
+        } catch (Throwable e) {
+            logger.error("提交预聚合数据失败", e);
+        }
+    }
+
+    /**
+     * 提交窗口
+     *
+     * @param all 是否提交所有窗口(包括未结束的窗口)
+     */
+    private void emit(final boolean all) {
+        final long now = System.currentTimeMillis();
+        final Map<Class<?>, List<Point>> points = new LinkedHashMap<>();
+        LatePoint latePoint;
+        while ((latePoint = latePoints.poll()) != null) {
+            points.computeIfAbsent(latePoint.type, k -> new ArrayList<>()).add(latePoint.point);
+        }
+        for (Stripe stripe : stripes) {
+            final List<Map.Entry<SeriesKey, AggregateWindow>> ready;
+            synchronized (stripe) {
+                if (stripe.windows.isEmpty()) {
+                    continue;
+                }
+                ready = new ArrayList<>();
+                final Iterator<Map.Entry<SeriesKey, AggregateWindow>> it = stripe.windows.entrySet().iterator();
+                while (it.hasNext()) {
+                    final Map.Entry<SeriesKey, AggregateWindow> entry = it.next();
+                    if (all || isReady(entry.getKey().spec, entry.getKey().start, now)) {
+                        ready.add(entry);
+                        it.remove();
+                    }
+                }
+            }
+            windows.addAndGet(-ready.size());
+            // 移出分段后不会再有写入线程修改窗口，在锁外转换成Point
+            for (Map.Entry<SeriesKey, AggregateWindow> entry : ready) {
+                final Point point = entry.getValue().toPoint(entry.getKey().tags);
+                if (point != null) {
+                    points.computeIfAbsent(entry.getKey().spec.type, k -> new ArrayList<>()).add(point);
+                }
+            }
+        }
+
+        for (Map.Entry<Class<?>, List<Point>> entry : points.entrySet()) {
+            send(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static boolean isReady(final AggregationSpec spec, final long start, final long now) {
+        return start + spec.window + spec.grace <= now;
+    }
+
+    private void send(final Class<?> type, final List<Point> batch) {
+        try {
+            writer.accept(type, batch);
+            emitted.addAndGet(batch.size());
+        } catch (Throwable e) {
+            BiConsumer<List<Point>, Throwable> handler = this.exceptionHandler;
+            if (handler != null) {
+                handler.accept(batch, e);
+            } else {
+                logger.error("InfluxDB预聚合数据写入失败, 丢失数据: " + batch.size() + "条", e);
+            }
+        }
+    }
+
+    /**
+     * 关闭缓冲区，并提交所有未结束的窗口
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        emit(true);
+    }
+
+    public void setExceptionHandler(BiConsumer<List<Point>, Throwable> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    /**
+     * 已合并的数据条数
+     */
+    public long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * 已提交的Point数量，包括迟到的数据
+     */
+    public long getEmitted() {
+        return emitted.get();
+    }
+
+    /**
+     * 窗口已提交后才到达，按原始字段写入单独measurement的数据条数
+     */
+    public long getLate() {
+        return late.get();
+    }
+
+    /**
+     * 未提交的窗口数量
+     */
+    public int getWindows() {
+        return windows.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private static int spread(final int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 一个分段，由自身的锁保护
+     */
+    private static final class Stripe {
+        final Map<SeriesKey, AggregateWindow> windows = new HashMap<>();
+    }
+
+    /**
+     * 迟到的数据
+     */
+    private static final class LatePoint {
+        final Class<?> type;
+        final Point point;
+
+        LatePoint(Class<?> type, Point point) {
+            this.type = type;
+            this.point = point;
+        }
+    }
+
+    /**
+     * 序列和时间窗口：measurement类型、tag值和窗口的开始时间
+     */
+    private static final class SeriesKey {
+        final AggregationSpec spec;
+        final String[] tags;
+        final long start;
+        final int hash;
+
+        SeriesKey(AggregationSpec spec, String[] tags, long start) {
+            this.spec = spec;
+            this.tags = tags;
+            this.start = start;
+            this.hash = 31 * (31 * spec.type.hashCode() + Arrays.hashCode(tags)) + Long.hashCode(start);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SeriesKey)) {
+                return false;
+            }
+            final SeriesKey that = (SeriesKey) o;
+            return start == that.start && spec == that.spec && Arrays.equals(tags, that.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.springframework.data.influxdb.annotations;
+
+import org.springframework.data.influxdb.aggregate.AggregateFunction;
+
+import java.lang.annotation.*;
+
+/**
+ * measurement的预聚合配置，开启influxdb.aggregation后，相同measurement和tag的数据按时间窗口聚合，每个窗口只写入一条
+ * <p>
+ * 数值字段输出的字段名为"字段名_函数名"，例如value_mean、value_max，不会与原始数据的字段冲突(例如整数字段的平均值为浮点数)；
+ * 非数值字段保留窗口内最后的值
+ */
+@Inherited
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface InfluxAggregate {
+
+    /**
+     * 时间窗口(毫秒)，聚合后的时间戳为窗口的开始时间
+     */
+    long window() default 1000;
+
+    /**
+     * 聚合函数
+     */
+    AggregateFunction[] functions() default {AggregateFunction.MEAN};
+
+    /**
+     * 窗口结束后继续等待迟到数据的时间(毫秒)，超过后窗口被提交，之后到达的该窗口的数据不再聚合，按原始数据写入{@link #lateMeasurement()}
+     */
+    long grace() default 1000;
+
+    /**
+     * 迟到数据写入的measurement，为空时为"measurement_late"，避免原始数据和对齐窗口的聚合值混在同一个序列中
+     */
+    String lateMeasurement() default "";
+}
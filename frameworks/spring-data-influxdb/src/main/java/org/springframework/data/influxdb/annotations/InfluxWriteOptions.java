@@ -0,0 +1,36 @@
+package org.springframework.data.influxdb.annotations;
+
+import org.influxdb.InfluxDB;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * measurement默认的写入选项，调用时指定的WriteOptions优先
+ */
+@Inherited
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface InfluxWriteOptions {
+
+    /**
+     * 数据库，为空时使用默认的数据库
+     */
+    String database() default "";
+
+    /**
+     * 存储策略，为空时使用默认的存储策略
+     */
+    String retentionPolicy() default "";
+
+    /**
+     * 一致性级别，为空时使用ALL
+     */
+    InfluxDB.ConsistencyLevel[] consistency() default {};
+
+    /**
+     * 写入的时间精度，为空时使用measurement的时间单位；精度越粗请求体越小，超出精度的部分被截断
+     */
+    TimeUnit[] precision() default {};
+}
@@ -0,0 +1,19 @@
+package org.springframework.data.influxdb.batch;
+
+/**
+ * 写入缓冲区已满时的处理策略
+ */
+public enum BackpressurePolicy {
+    /**
+     * 阻塞写入线程，直到缓冲区有空闲位置
+     */
+    BLOCK,
+    /**
+     * 丢弃缓冲区中最旧的数据
+     */
+    DROP_OLDEST,
+    /**
+     * 直接抛出异常
+     */
+    FAIL
+}
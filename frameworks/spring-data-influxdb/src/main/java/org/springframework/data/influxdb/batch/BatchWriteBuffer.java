@@ -0,0 +1,263 @@
+package org.springframework.data.influxdb.batch;
+
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.Point;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.influxdb.InfluxDBProperties;
+import org.springframework.data.influxdb.InfluxUtils;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 异步批量写入的缓冲区
+ * <p>
+ * 写入的Point先进入有界的环形缓冲区，缓冲区中的数据达到一批的数量或者超过刷新间隔时，
+ * 由后台线程批量提交，写入线程不需要等待网络请求
+ */
+public class BatchWriteBuffer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(BatchWriteBuffer.class);
+
+    /**
+     * 环形缓冲区
+     */
+    private final ArrayBlockingQueue<Point> buffer;
+    /**
+     * 每批提交的最大数量
+     */
+    private final int actions;
+    /**
+     * 同时提交的最大线程数
+     */
+    private final int parallelism;
+    /**
+     * 缓冲区已满时的处理策略
+     */
+    private final BackpressurePolicy backpressure;
+    /**
+     * 实际执行写入的回调
+     */
+    private final Consumer<List<Point>> writer;
+    /**
+     * 定时刷新
+     */
+    private final ScheduledExecutorService scheduler;
+    /**
+     * 提交数据的线程池
+     */
+    private final ExecutorService flushExecutor;
+    /**
+     * 正在提交的线程数
+     */
+    private final AtomicInteger flushing = new AtomicInteger();
+    /**
+     * 被丢弃的数据条数
+     */
+    private final AtomicLong dropped = new AtomicLong();
+    /**
+     * 提交失败的回调
+     */
+    private volatile BiConsumer<List<Point>, Throwable> exceptionHandler;
+
+    private volatile boolean closed = false;
+
+    public BatchWriteBuffer(final InfluxDBProperties.Batch options,
+                            final Consumer<List<Point>> writer) {
+        if (writer == null) {
+            throw new NullPointerException("writer is null.");
+        }
+        this.actions = Math.max(1, options.getActions());
+        this.parallelism = Math.max(1, options.getParallelism());
+        this.backpressure = options.getBackpressure() != null
+                ? options.getBackpressure() : BackpressurePolicy.BLOCK;
+        this.buffer = new ArrayBlockingQueue<>(Math.max(actions, options.getBufferLimit()));
+        this.writer = writer;
+
+        this.flushExecutor = Executors.newFixedThreadPool(parallelism, InfluxUtils.newThreadFactory("influxdb-batch-flush"));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(InfluxUtils.newThreadFactory("influxdb-batch-timer"));
+        long interval = Math.max(1, options.getFlushInterval());
+        this.scheduler.scheduleWithFixedDelay(() -> {
+            if (!buffer.isEmpty()) {
+                triggerFlush();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 添加数据到缓冲区
+     *
+     * @param point 数据
+     */
+    public void add(final Point point) {
+        if (closed) {
+            throw new IllegalStateException("写入缓冲区已关闭");
+        }
+
+        switch (backpressure) {
+            case DROP_OLDEST:
+                while (!buffer.offer(point)) {
+                    if (buffer.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                break;
+            case FAIL:
+                if (!buffer.offer(point)) {
+                    throw new IllegalStateException("写入缓冲区已满, 容量: " + capacity());
+                }
+                break;
+            case BLOCK:
+            default:
+                try {
+                    buffer.put(point);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InfluxDBException("等待写入缓冲区时被中断", e);
+                }
+                break;
+        }
+
+        if (closed) {
+            // 与close()并发时，数据可能在最后一次提交之后才进入缓冲区(包括被最后一次提交唤醒的BLOCK写入)，
+            // 由写入线程自己提交，避免丢失
+            flush();
+        } else if (buffer.size() >= actions) {
+            triggerFlush();
+        }
+    }
+
+    /**
+     * 添加数据到缓冲区
+     *
+     * @param points 数据
+     */
+    public void addAll(final Collection<Point> points) {
+        for (Point point : points) {
+            add(point);
+        }
+    }
+
+    /**
+     * 在不超过并行数的情况下，提交一个刷新任务
+     */
+    private void triggerFlush() {
+        int current;
+        do {
+            current = flushing.get();
+            if (current >= parallelism || closed) {
+                return;
+            }
+        } while (!flushing.compareAndSet(current, current + 1));
+
+        try {
+            flushExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            flushing.decrementAndGet();
+        }
+    }
+
+    /**
+     * 提交一批数据，如果缓冲区中的数据依然满一批，则继续提交
+     */
+    private void drain() {
+        try {
+            do {
+                List<Point> batch = new ArrayList<>(actions);
+                buffer.drainTo(batch, actions);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                send(batch);
+            } while (buffer.size() >= actions);
+        } finally {
+            flushing.decrementAndGet();
+        }
+
+        // 提交期间可能又写入了满一批的数据
+        if (buffer.size() >= actions) {
+            triggerFlush();
+        }
+    }
+
+    private void send(final List<Point> batch) {
+        try {
+            writer.accept(batch);
+        } catch (Throwable e) {
+            BiConsumer<List<Point>, Throwable> handler = this.exceptionHandler;
+            if (handler != null) {
+                handler.accept(batch, e);
+            } else {
+                logger.error("InfluxDB批量写入失败, 丢失数据: " + batch.size() + "条", e);
+            }
+        }
+    }
+
+    /**
+     * 在当前线程中提交缓冲区中的所有数据
+     */
+    public void flush() {
+        List<Point> batch = new ArrayList<>(actions);
+        while (buffer.drainTo(batch, actions) > 0) {
+            send(batch);
+            batch = new ArrayList<>(actions);
+        }
+    }
+
+    /**
+     * 关闭缓冲区，并提交剩余的数据
+     * <p>
+     * 关闭后的{@link #add(Point)}抛出异常；关闭时正在写入的数据由写入线程提交
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        scheduler.shutdownNow();
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public void setExceptionHandler(BiConsumer<List<Point>, Throwable> exceptionHandler) {
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    /**
+     * 缓冲区中等待提交的数据条数
+     */
+    public int size() {
+        return buffer.size();
+    }
+
+    /**
+     * 缓冲区的容量
+     */
+    public int capacity() {
+        return buffer.size() + buffer.remainingCapacity();
+    }
+
+    /**
+     * 因缓冲区已满被丢弃的数据条数
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+}
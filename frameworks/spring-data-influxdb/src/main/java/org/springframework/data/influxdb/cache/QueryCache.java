@@ -0,0 +1,323 @@
+package org.springframework.data.influxdb.cache;
+
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 查询结果缓存
+ * <p>
+ * 以(数据库, 查询语句, 时间单位)为键，按访问顺序淘汰最久未使用的结果，缓存时间由{@link QueryTtlPolicy}
+ * 根据查询的时间范围计算；写入某个measurement时淘汰查询了该measurement的结果。
+ * 查询期间发生了写入时，查询结果可能是写入前的数据，不放入缓存。
+ * 只缓存SELECT查询，返回的QueryResult是共享的，不要修改
+ */
+public class QueryCache {
+
+    private static final Pattern SELECT = Pattern.compile("^\\s*select\\b", Pattern.CASE_INSENSITIVE);
+    /**
+     * FROM子句中的measurement，支持"db"."rp"."measurement"形式(可以部分加引号)和多个measurement
+     */
+    private static final String NAME = "(?:/(?:[^/\\\\]|\\\\.)*/|(?:\"(?:[^\"\\\\]|\\\\.)*\"|[\\w.:-])+)";
+    private static final Pattern FROM = Pattern.compile(
+            "\\bfrom\\s+(" + NAME + "(?:\\s*,\\s*" + NAME + ")*)", Pattern.CASE_INSENSITIVE);
+    /**
+     * 无法确定measurement时(例如正则表达式)，任何写入都会淘汰
+     */
+    private static final String ANY = "*";
+
+    private final Map<QueryKey, CachedResult> entries;
+    private final QueryTtlPolicy ttlPolicy;
+    /**
+     * 每个measurement被淘汰的次数、所有淘汰的次数和清空的次数，由entries的锁保护
+     */
+    private final Map<String, Long> generations = new HashMap<>();
+    private long evictCount;
+    private long clearCount;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public QueryCache(final int maxEntries, final QueryTtlPolicy ttlPolicy) {
+        this.ttlPolicy = ttlPolicy;
+        this.entries = new LinkedHashMap<QueryKey, CachedResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QueryKey, CachedResult> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 是否可以缓存该查询
+     */
+    public static boolean isCacheable(final Query query) {
+        return query != null && SELECT.matcher(query.getCommand()).find();
+    }
+
+    /**
+     * 获取缓存的查询结果，不存在或者已过期时执行查询并缓存
+     *
+     * @param query    查询
+     * @param timeUnit 时间单位
+     * @param loader   执行查询
+     * @return 返回查询结果
+     */
+    public QueryResult get(final Query query, final TimeUnit timeUnit, final Supplier<QueryResult> loader) {
+        if (!isCacheable(query)) {
+            return loader.get();
+        }
+        final QueryKey key = new QueryKey(query, timeUnit);
+        final Set<String> measurements = measurements(query.getCommand());
+        final long now = System.currentTimeMillis();
+        final long generation;
+        synchronized (entries) {
+            final CachedResult entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return entry.result;
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+            generation = generation(measurements);
+        }
+        misses.increment();
+
+        final QueryResult result = loader.get();
+        final long ttl = ttlPolicy.ttl(query.getCommand());
+        if (ttl > 0 && result != null && !result.hasError() && !hasResultError(result)) {
+            final CachedResult entry = new CachedResult(result, now + ttl, measurements);
+            synchronized (entries) {
+                // 查询期间淘汰过相关的结果，查询结果可能不包含这次写入
+                if (generation == generation(measurements)) {
+                    entries.put(key, entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查询的measurement被淘汰的次数，任何相关的淘汰都会使其增加
+     */
+    private long generation(final Set<String> measurements) {
+        if (measurements.contains(ANY)) {
+            return clearCount + evictCount;
+        }
+        long generation = clearCount;
+        for (String measurement : measurements) {
+            final Long count = generations.get(measurement);
+            if (count != null) {
+                generation += count;
+            }
+        }
+        return generation;
+    }
+
+    private static boolean hasResultError(final QueryResult result) {
+        if (result.getResults() != null) {
+            for (QueryResult.Result r : result.getResults()) {
+                if (r.hasError()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 淘汰查询了指定measurement的结果，写入数据后调用
+     *
+     * @param measurement measurement名称，为null时淘汰所有结果
+     */
+    public void evict(final String measurement) {
+        if (measurement == null) {
+            clear();
+            return;
+        }
+        synchronized (entries) {
+            evictCount++;
+            generations.merge(measurement, 1L, Long::sum);
+            final Iterator<CachedResult> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                final Set<String> measurements = iterator.next().measurements;
+                if (measurements.contains(measurement) || measurements.contains(ANY)) {
+                    iterator.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 淘汰所有结果
+     */
+    public void clear() {
+        synchronized (entries) {
+            clearCount++;
+            evictions.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    /**
+     * 解析查询语句中的measurement
+     *
+     * @param command 查询语句
+     * @return 返回measurement名称，无法确定时(例如正则表达式)包含"*"
+     */
+    public static Set<String> measurements(final String command) {
+        final Set<String> measurements = new HashSet<>();
+        final Matcher matcher = FROM.matcher(command);
+        while (matcher.find()) {
+            for (String name : splitNames(matcher.group(1))) {
+                if (name.startsWith("/")) {
+                    measurements.add(ANY);
+                } else {
+                    measurements.add(name);
+                }
+            }
+        }
+        if (measurements.isEmpty()) {
+            measurements.add(ANY);
+        }
+        return measurements;
+    }
+
+    /**
+     * 解析Line Protocol数据中的measurement
+     *
+     * @param lines Line Protocol数据，每行一条
+     * @return 返回measurement名称
+     */
+    public static Set<String> lineMeasurements(final String lines) {
+        final Set<String> measurements = new HashSet<>();
+        final StringBuilder name = new StringBuilder();
+        int start = 0;
+        while (start < lines.length()) {
+            int end = lines.indexOf('\n', start);
+            if (end < 0) {
+                end = lines.length();
+            }
+            name.setLength(0);
+            for (int i = start; i < end; i++) {
+                final char c = lines.charAt(i);
+                if (c == '\\' && i + 1 < end) {
+                    name.append(lines.charAt(++i));
+                } else if (c == ',' || c == ' ') {
+                    break;
+                } else {
+                    name.append(c);
+                }
+            }
+            if (name.length() > 0) {
+                measurements.add(name.toString());
+            }
+            start = end + 1;
+        }
+        return measurements;
+    }
+
+    /**
+     * 拆分逗号分隔的measurement，并去掉数据库和存储策略前缀以及引号
+     */
+    private static List<String> splitNames(final String clause) {
+        final List<String> names = new ArrayList<>(1);
+        final StringBuilder segment = new StringBuilder();
+        boolean quoted = false;
+        boolean regex = false;
+        for (int i = 0; i < clause.length(); i++) {
+            final char c = clause.charAt(i);
+            if (c == '\\' && i + 1 < clause.length() && (quoted || regex)) {
+                segment.append(clause.charAt(++i));
+            } else if (c == '"' && !regex) {
+                quoted = !quoted;
+            } else if (c == '/' && !quoted) {
+                regex = !regex;
+                segment.append(c);
+            } else if (c == '.' && !quoted && !regex) {
+                // 前面的部分是数据库或者存储策略
+                segment.setLength(0);
+            } else if (c == ',' && !quoted && !regex) {
+                names.add(segment.toString().trim());
+                segment.setLength(0);
+            } else if (quoted || regex || !Character.isWhitespace(c)) {
+                segment.append(c);
+            }
+        }
+        names.add(segment.toString().trim());
+        return names;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * 命中率
+     */
+    public double getHitRate() {
+        final long h = hits.sum();
+        final long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public QueryTtlPolicy getTtlPolicy() {
+        return ttlPolicy;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCache{" +
+                "size=" + size() +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                '}';
+    }
+
+    private static final class CachedResult {
+        final QueryResult result;
+        final long expiresAt;
+        final Set<String> measurements;
+
+        CachedResult(QueryResult result, long expiresAt, Set<String> measurements) {
+            this.result = result;
+            this.expiresAt = expiresAt;
+            this.measurements = measurements;
+        }
+    }
+}
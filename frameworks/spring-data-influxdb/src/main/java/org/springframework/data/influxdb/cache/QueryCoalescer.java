@@ -0,0 +1,153 @@
+package org.springframework.data.influxdb.cache;
+
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 合并相同的并发查询
+ * <p>
+ * 同时刷新的多个面板往往发出完全相同的查询，只读查询(SELECT/SHOW)按{@link QueryKey}合并成一次HTTP请求。
+ * 结果被多个调用方共享时，每个调用方得到各自的不可修改视图：QueryResult/Result/Series是新对象，列表是只读的，
+ * 数据本身是共享的；没有被共享的结果原样返回
+ */
+public class QueryCoalescer {
+
+    private static final Pattern READ_ONLY = Pattern.compile("^\\s*(select|show)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final SingleFlight<QueryKey, QueryResult> flight = new SingleFlight<>();
+
+    /**
+     * 是否可以合并该查询，只合并只读的查询
+     */
+    public static boolean isCoalescable(final Query query) {
+        return query != null && READ_ONLY.matcher(query.getCommand()).find();
+    }
+
+    /**
+     * 执行查询，存在相同的查询正在执行时等待它的结果
+     *
+     * @param query    查询
+     * @param timeUnit 时间单位
+     * @param loader   执行查询
+     * @return 返回查询结果，被共享时返回不可修改视图
+     */
+    public QueryResult query(final Query query, final TimeUnit timeUnit, final Supplier<QueryResult> loader) {
+        if (!isCoalescable(query)) {
+            return loader.get();
+        }
+        return flight.execute(new QueryKey(query, timeUnit), loader, QueryCoalescer::immutableView);
+    }
+
+    /**
+     * 执行异步查询，存在相同的查询正在执行时共享它的结果
+     *
+     * @param query    查询
+     * @param timeUnit 时间单位
+     * @param loader   发起异步查询
+     * @return 返回查询结果，被共享时返回不可修改视图
+     */
+    public CompletableFuture<QueryResult> queryAsync(final Query query, final TimeUnit timeUnit,
+                                                     final Supplier<CompletableFuture<QueryResult>> loader) {
+        if (!isCoalescable(query)) {
+            return loader.get();
+        }
+        return flight.executeAsync(new QueryKey(query, timeUnit), loader, QueryCoalescer::immutableView);
+    }
+
+    /**
+     * 创建查询结果的不可修改视图
+     *
+     * @param result 查询结果
+     * @return 返回新的QueryResult，修改它不会影响共享同一结果的其他调用方
+     */
+    public static QueryResult immutableView(final QueryResult result) {
+        if (result == null) {
+            return null;
+        }
+        final QueryResult view = new QueryResult();
+        view.setError(result.getError());
+        if (result.getResults() != null) {
+            final List<QueryResult.Result> results = new ArrayList<>(result.getResults().size());
+            for (QueryResult.Result r : result.getResults()) {
+                results.add(immutableView(r));
+            }
+            view.setResults(Collections.unmodifiableList(results));
+        }
+        return view;
+    }
+
+    private static QueryResult.Result immutableView(final QueryResult.Result result) {
+        if (result == null) {
+            return null;
+        }
+        final QueryResult.Result view = new QueryResult.Result();
+        view.setError(result.getError());
+        if (result.getSeries() != null) {
+            final List<QueryResult.Series> series = new ArrayList<>(result.getSeries().size());
+            for (QueryResult.Series s : result.getSeries()) {
+                series.add(immutableView(s));
+            }
+            view.setSeries(Collections.unmodifiableList(series));
+        }
+        return view;
+    }
+
+    private static QueryResult.Series immutableView(final QueryResult.Series series) {
+        if (series == null) {
+            return null;
+        }
+        final QueryResult.Series view = new QueryResult.Series();
+        view.setName(series.getName());
+        final Map<String, String> tags = series.getTags();
+        view.setTags(tags != null ? Collections.unmodifiableMap(tags) : null);
+        view.setColumns(series.getColumns() != null ? Collections.unmodifiableList(series.getColumns()) : null);
+        final List<List<Object>> values = series.getValues();
+        if (values != null) {
+            final List<List<Object>> rows = new ArrayList<>(values.size());
+            for (List<Object> row : values) {
+                rows.add(row != null ? Collections.unmodifiableList(row) : null);
+            }
+            view.setValues(Collections.unmodifiableList(rows));
+        }
+        return view;
+    }
+
+    /**
+     * 正在执行的查询数量
+     */
+    public int getInFlight() {
+        return flight.getInFlight();
+    }
+
+    /**
+     * 真正发出的查询次数
+     */
+    public long getExecutions() {
+        return flight.getExecutions();
+    }
+
+    /**
+     * 共享了其他查询结果的次数
+     */
+    public long getShared() {
+        return flight.getShared();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCoalescer{" +
+                "inFlight=" + getInFlight() +
+                ", executions=" + getExecutions() +
+                ", shared=" + getShared() +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package org.springframework.data.influxdb.cache;
+
+import org.influxdb.dto.BoundParameterQuery;
+import org.influxdb.dto.Query;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询的键：数据库、查询语句、绑定参数和时间单位都相同的查询返回相同的结果
+ */
+public final class QueryKey {
+
+    private final String database;
+    private final String command;
+    private final String parameters;
+    private final TimeUnit timeUnit;
+
+    public QueryKey(Query query, TimeUnit timeUnit) {
+        this.database = query.getDatabase();
+        this.command = query.getCommand();
+        this.parameters = query instanceof BoundParameterQuery
+                ? ((BoundParameterQuery) query).getParameterJsonWithUrlEncoded() : null;
+        this.timeUnit = timeUnit;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public TimeUnit getTimeUnit() {
+        return timeUnit;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        QueryKey key = (QueryKey) o;
+        return Objects.equals(database, key.database)
+                && command.equals(key.command)
+                && Objects.equals(parameters, key.parameters)
+                && timeUnit == key.timeUnit;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(database, command, parameters, timeUnit);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryKey{" +
+                "database='" + database + '\'' +
+                ", command='" + command + '\'' +
+                ", timeUnit=" + timeUnit +
+                '}';
+    }
+}
@@ -0,0 +1,131 @@
+package org.springframework.data.influxdb.cache;
+
+import org.springframework.data.influxdb.RFC3339Parser;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 根据查询的时间范围计算缓存时间
+ * <p>
+ * 时间上限早于当前时间的查询(已经结束的历史窗口)结果不会再变化，缓存historicalTtl；
+ * 上限为now()或者没有上限的查询包含实时窗口，缓存liveTtl，并且不超过GROUP BY time()的间隔
+ */
+public class QueryTtlPolicy {
+
+    /**
+     * time的上限条件：time < xxx、time <= xxx
+     */
+    private static final Pattern UPPER_BOUND = Pattern.compile(
+            "\\btime\\s*<=?\\s*('[^']*'|now\\(\\)|-?\\d+(?:ns|u|µ|ms|s|m|h|d|w)?)",
+            Pattern.CASE_INSENSITIVE);
+    /**
+     * GROUP BY time(interval)
+     */
+    private static final Pattern GROUP_BY_TIME = Pattern.compile(
+            "\\bgroup\\s+by\\s+.*?\\btime\\s*\\(\\s*(\\d+)(ns|u|µ|ms|s|m|h|d|w)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final long liveTtl;
+    private final long historicalTtl;
+
+    /**
+     * @param liveTtl       包含实时窗口的查询的缓存时间(毫秒)
+     * @param historicalTtl 历史窗口的查询的缓存时间(毫秒)
+     */
+    public QueryTtlPolicy(final long liveTtl, final long historicalTtl) {
+        this.liveTtl = liveTtl;
+        this.historicalTtl = historicalTtl;
+    }
+
+    /**
+     * 计算查询结果的缓存时间
+     *
+     * @param command 查询语句
+     * @return 返回缓存时间(毫秒)，小于等于0时不缓存
+     */
+    public long ttl(final String command) {
+        final long upper = upperBound(command);
+        if (upper != Long.MAX_VALUE && upper <= System.currentTimeMillis()) {
+            return historicalTtl;
+        }
+        final Matcher matcher = GROUP_BY_TIME.matcher(command);
+        if (matcher.find()) {
+            final long interval = toMillis(Long.parseLong(matcher.group(1)), matcher.group(2));
+            if (interval > 0) {
+                return Math.min(liveTtl, interval);
+            }
+        }
+        return liveTtl;
+    }
+
+    /**
+     * 解析查询的时间上限(毫秒)，没有上限或者上限为now()时返回Long.MAX_VALUE
+     */
+    static long upperBound(final String command) {
+        final Matcher matcher = UPPER_BOUND.matcher(command);
+        long upper = Long.MAX_VALUE;
+        while (matcher.find()) {
+            final String value = matcher.group(1);
+            final long bound;
+            if (value.charAt(0) == '\'') {
+                try {
+                    bound = RFC3339Parser.parseMillis(value.substring(1, value.length() - 1));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+            } else if (value.regionMatches(true, 0, "now", 0, 3)) {
+                return Long.MAX_VALUE;
+            } else {
+                bound = parseDuration(value);
+            }
+            upper = Math.min(upper, bound);
+        }
+        return upper;
+    }
+
+    /**
+     * 解析带单位的整数时间戳，没有单位时为纳秒
+     */
+    private static long parseDuration(final String value) {
+        int i = value.length();
+        while (i > 0 && !Character.isDigit(value.charAt(i - 1))) {
+            i--;
+        }
+        final long number = Long.parseLong(value.substring(0, i));
+        return i == value.length() ? TimeUnit.NANOSECONDS.toMillis(number) : toMillis(number, value.substring(i));
+    }
+
+    private static long toMillis(final long value, final String unit) {
+        switch (unit) {
+            case "ns":
+                return TimeUnit.NANOSECONDS.toMillis(value);
+            case "u":
+            case "µ":
+                return TimeUnit.MICROSECONDS.toMillis(value);
+            case "ms":
+                return value;
+            case "s":
+                return TimeUnit.SECONDS.toMillis(value);
+            case "m":
+                return TimeUnit.MINUTES.toMillis(value);
+            case "h":
+                return TimeUnit.HOURS.toMillis(value);
+            case "d":
+                return TimeUnit.DAYS.toMillis(value);
+            case "w":
+                return TimeUnit.DAYS.toMillis(value * 7);
+            default:
+                return -1;
+        }
+    }
+
+    public long getLiveTtl() {
+        return liveTtl;
+    }
+
+    public long getHistoricalTtl() {
+        return historicalTtl;
+    }
+}
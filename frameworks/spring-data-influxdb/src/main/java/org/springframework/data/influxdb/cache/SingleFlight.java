@@ -0,0 +1,185 @@
+package org.springframework.data.influxdb.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 合并相同键的并发调用：同一时刻只有一个调用真正执行，其余调用等待并共享它的结果(或异常)。
+ * 调用结束后立即移除，不会缓存结果
+ *
+ * @param <K> 键
+ * @param <V> 结果
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * 执行调用，存在相同键的调用时等待它的结果
+     *
+     * @param key      键
+     * @param supplier 执行调用
+     * @return 返回结果
+     */
+    public V execute(final K key, final Supplier<V> supplier) {
+        return execute(key, supplier, null);
+    }
+
+    /**
+     * 执行调用，存在相同键的调用时等待它的结果
+     *
+     * @param key      键
+     * @param supplier 执行调用
+     * @param copier   结果被多个调用方共享时，为每个调用方创建副本；为null时直接共享
+     * @return 返回结果
+     */
+    public V execute(final K key, final Supplier<V> supplier, final UnaryOperator<V> copier) {
+        final Call<V> created = new Call<>();
+        final Call<V> call = join(key, created);
+        if (call != created) {
+            shared.increment();
+            return copy(join(call.future), copier);
+        }
+
+        executions.increment();
+        final V value;
+        try {
+            value = supplier.get();
+        } catch (RuntimeException | Error e) {
+            calls.remove(key, call);
+            call.future.completeExceptionally(e);
+            throw e;
+        }
+        // 移除后不会再有调用方加入，followers不再变化
+        calls.remove(key, call);
+        call.future.complete(value);
+        return call.followers > 0 ? copy(value, copier) : value;
+    }
+
+    /**
+     * 执行异步调用，存在相同键的调用时返回它的结果
+     *
+     * @param key      键
+     * @param supplier 发起异步调用
+     * @return 返回结果
+     */
+    public CompletableFuture<V> executeAsync(final K key, final Supplier<CompletableFuture<V>> supplier) {
+        return executeAsync(key, supplier, null);
+    }
+
+    /**
+     * 执行异步调用，存在相同键的调用时返回它的结果
+     *
+     * @param key      键
+     * @param supplier 发起异步调用
+     * @param copier   结果被多个调用方共享时，为每个调用方创建副本；为null时直接共享
+     * @return 返回结果
+     */
+    public CompletableFuture<V> executeAsync(final K key, final Supplier<CompletableFuture<V>> supplier,
+                                             final UnaryOperator<V> copier) {
+        final Call<V> created = new Call<>();
+        final Call<V> call = join(key, created);
+        if (call != created) {
+            shared.increment();
+            // 不把共享的future直接交给调用方，避免其中一个调用方cancel影响其他调用方
+            return call.future.thenApply(v -> copy(v, copier));
+        }
+
+        executions.increment();
+        final CompletableFuture<V> future;
+        try {
+            future = supplier.get();
+        } catch (RuntimeException | Error e) {
+            calls.remove(key, call);
+            call.future.completeExceptionally(e);
+            throw e;
+        }
+        future.whenComplete((v, e) -> {
+            calls.remove(key, call);
+            if (e != null) {
+                call.future.completeExceptionally(e);
+            } else {
+                call.future.complete(v);
+            }
+        });
+        return call.future.thenApply(v -> call.followers > 0 ? copy(v, copier) : v);
+    }
+
+    /**
+     * 加入相同键的调用，不存在时以created作为新的调用
+     */
+    private Call<V> join(final K key, final Call<V> created) {
+        return calls.compute(key, (k, call) -> {
+            if (call == null) {
+                return created;
+            }
+            call.followers++;
+            return call;
+        });
+    }
+
+    private static <V> V copy(final V value, final UnaryOperator<V> copier) {
+        return copier != null && value != null ? copier.apply(value) : value;
+    }
+
+    private static <V> V join(final CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 正在执行的调用数量
+     */
+    public int getInFlight() {
+        return calls.size();
+    }
+
+    /**
+     * 真正执行的调用次数
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * 共享了其他调用结果的次数
+     */
+    public long getShared() {
+        return shared.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "SingleFlight{" +
+                "inFlight=" + calls.size() +
+                ", executions=" + executions +
+                ", shared=" + shared +
+                '}';
+    }
+
+    private static final class Call<V> {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        /**
+         * 共享结果的其他调用方数量，只在compute中修改
+         */
+        volatile int followers;
+    }
+}
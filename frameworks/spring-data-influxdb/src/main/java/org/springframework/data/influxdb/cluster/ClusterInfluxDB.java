@@ -0,0 +1,259 @@
+package org.springframework.data.influxdb.cluster;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.influxdb.InfluxUtils;
+import org.springframework.data.influxdb.metrics.InfluxDBMetrics;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多个InfluxDB节点组成的连接
+ * <p>
+ * 通过{@link #getProxy()}得到的InfluxDB对象会按负载均衡策略把每次请求分发到一个健康的节点，
+ * 因网络原因失败的请求会在其他节点上重试；后台定时ping所有节点，剔除或者恢复节点
+ */
+public class ClusterInfluxDB implements InvocationHandler {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterInfluxDB.class);
+
+    /**
+     * 修改连接配置的方法，需要在所有节点上执行
+     */
+    private static final Set<String> BROADCAST_METHODS = new HashSet<>(Arrays.asList(
+            "setLogLevel", "enableGzip", "disableGzip", "enableBatch", "disableBatch",
+            "setConsistency", "setDatabase", "setRetentionPolicy", "flush", "close"));
+
+    /**
+     * 只读取连接配置的方法，在第一个节点上执行即可
+     */
+    private static final Set<String> LOCAL_METHODS = new HashSet<>(Arrays.asList(
+            "isGzipEnabled", "isBatchEnabled"));
+
+    private final List<InfluxEndpoint> endpoints;
+    private final LoadBalanceStrategy strategy;
+    /**
+     * 失败后最多在其他节点上重试的次数
+     */
+    private final int retries;
+    private final AtomicInteger counter = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+    private final InfluxDB proxy;
+    private volatile InfluxDBMetrics metrics = InfluxDBMetrics.NOOP;
+
+    public ClusterInfluxDB(final List<InfluxEndpoint> endpoints,
+                           final LoadBalanceStrategy strategy,
+                           final int retries,
+                           final long healthCheckInterval) {
+        if (endpoints == null || endpoints.isEmpty()) {
+            throw new IllegalArgumentException("endpoints is empty.");
+        }
+        this.endpoints = Collections.unmodifiableList(new ArrayList<>(endpoints));
+        this.strategy = strategy != null ? strategy : LoadBalanceStrategy.ROUND_ROBIN;
+        this.retries = Math.max(0, retries);
+        this.proxy = (InfluxDB) Proxy.newProxyInstance(
+                InfluxDB.class.getClassLoader(), new Class<?>[]{InfluxDB.class}, this);
+
+        if (healthCheckInterval > 0) {
+            this.healthChecker = Executors.newSingleThreadScheduledExecutor(
+                    InfluxUtils.newThreadFactory("influxdb-health-check"));
+            this.healthChecker.scheduleWithFixedDelay(this::checkHealth,
+                    healthCheckInterval, healthCheckInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.healthChecker = null;
+        }
+    }
+
+    /**
+     * 设置统计指标，记录在其他节点上的重试
+     */
+    public void setMetrics(final InfluxDBMetrics metrics) {
+        this.metrics = metrics != null ? metrics : InfluxDBMetrics.NOOP;
+    }
+
+    /**
+     * 获取分发请求的InfluxDB代理对象
+     */
+    public InfluxDB getProxy() {
+        return proxy;
+    }
+
+    public List<InfluxEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * ping所有节点，更新节点的健康状态
+     */
+    public void checkHealth() {
+        for (InfluxEndpoint endpoint : endpoints) {
+            boolean healthy;
+            try {
+                healthy = endpoint.getConnection().ping().isGood();
+            } catch (Exception e) {
+                healthy = false;
+            }
+            if (healthy != endpoint.isHealthy()) {
+                logger.warn("InfluxDB endpoint '{}' is {}", endpoint.getUrl(), healthy ? "up" : "down");
+            }
+            endpoint.setHealthy(healthy);
+        }
+    }
+
+    /**
+     * 按负载均衡策略选择一个健康的节点，所有节点都不健康时在所有节点中选择
+     *
+     * @param excluded 排除的节点
+     * @return 返回选择的节点，没有可选节点时返回null
+     */
+    public InfluxEndpoint select(final Collection<InfluxEndpoint> excluded) {
+        InfluxEndpoint endpoint = select(excluded, true);
+        return endpoint != null ? endpoint : select(excluded, false);
+    }
+
+    private InfluxEndpoint select(final Collection<InfluxEndpoint> excluded, final boolean healthyOnly) {
+        final int size = endpoints.size();
+        if (strategy == LoadBalanceStrategy.LEAST_OUTSTANDING) {
+            InfluxEndpoint best = null;
+            // 从轮询的位置开始比较，请求数相同时依然能够分散到各个节点
+            final int offset = Math.floorMod(counter.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                InfluxEndpoint e = endpoints.get((offset + i) % size);
+                if (isCandidate(e, excluded, healthyOnly)
+                        && (best == null || e.getOutstanding() < best.getOutstanding())) {
+                    best = e;
+                }
+            }
+            return best;
+        }
+
+        final int offset = Math.floorMod(counter.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            InfluxEndpoint e = endpoints.get((offset + i) % size);
+            if (isCandidate(e, excluded, healthyOnly)) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isCandidate(InfluxEndpoint e, Collection<InfluxEndpoint> excluded, boolean healthyOnly) {
+        return (!healthyOnly || e.isHealthy()) && (excluded == null || !excluded.contains(e));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        final String name = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return "ClusterInfluxDB" + endpoints;
+            }
+        }
+
+        if (BROADCAST_METHODS.contains(name)) {
+            for (InfluxEndpoint endpoint : endpoints) {
+                invoke(endpoint, method, args);
+            }
+            if ("close".equals(name) && healthChecker != null) {
+                healthChecker.shutdownNow();
+            }
+            return method.getReturnType() == InfluxDB.class ? proxy : null;
+        }
+
+        if (LOCAL_METHODS.contains(name)) {
+            return invoke(endpoints.get(0), method, args);
+        }
+
+        List<InfluxEndpoint> tried = null;
+        InfluxEndpoint next = select(null);
+        while (true) {
+            final InfluxEndpoint endpoint = next;
+            final long start = endpoint.begin();
+            boolean success = false;
+            try {
+                Object result = invoke(endpoint, method, args);
+                success = true;
+                return result;
+            } catch (InfluxDBException e) {
+                if (tried == null) {
+                    tried = new ArrayList<>(endpoints.size());
+                }
+                next = failover(endpoint, tried, name, e);
+                if (next == null) {
+                    throw e;
+                }
+            } finally {
+                endpoint.end(start, success);
+            }
+        }
+    }
+
+    /**
+     * 请求在节点上失败后选择重试的节点，网络错误时将节点标记为不健康
+     * <p>
+     * 代理对象和直接发送的HTTP请求({@link org.springframework.data.influxdb.network.InfluxDBHttpClient})使用相同的重试规则
+     *
+     * @param endpoint  失败的节点
+     * @param tried     已经尝试过的节点，失败的节点会加入其中
+     * @param operation 请求的名称，用于日志和统计
+     * @param e         失败的原因
+     * @return 返回重试的节点，不值得重试、超过重试次数或者没有其他节点时返回null
+     */
+    public InfluxEndpoint failover(final InfluxEndpoint endpoint, final List<InfluxEndpoint> tried,
+                                   final String operation, final InfluxDBException e) {
+        if (isNetworkFailure(e)) {
+            endpoint.setHealthy(false);
+        }
+        tried.add(endpoint);
+        if (!e.isRetryWorth() || tried.size() > retries || tried.size() >= endpoints.size()) {
+            return null;
+        }
+        logger.warn("InfluxDB request '{}' failed on '{}', retry on another endpoint: {}",
+                operation, endpoint.getUrl(), e.getMessage());
+        metrics.recordRetry(endpoint.getUrl(), operation);
+        return select(tried);
+    }
+
+    /**
+     * 按连接路径查找节点
+     *
+     * @param url 节点的连接路径
+     * @return 返回节点，不是集群中的节点时返回null
+     */
+    public InfluxEndpoint getEndpoint(final String url) {
+        for (InfluxEndpoint endpoint : endpoints) {
+            if (endpoint.getUrl().equals(url)) {
+                return endpoint;
+            }
+        }
+        return null;
+    }
+
+    private static Object invoke(InfluxEndpoint endpoint, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(endpoint.getConnection(), args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static boolean isNetworkFailure(InfluxDBException e) {
+        return e instanceof InfluxDBIOException || e.getCause() instanceof IOException;
+    }
+}
@@ -0,0 +1,160 @@
+package org.springframework.data.influxdb.cluster;
+
+import org.influxdb.InfluxDB;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * InfluxDB节点，以及节点的健康状态和延迟统计
+ */
+public class InfluxEndpoint {
+
+    /**
+     * 指数移动平均的权重
+     */
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final String url;
+    private final InfluxDB connection;
+
+    /**
+     * 正在处理的请求数
+     */
+    private final AtomicInteger outstanding = new AtomicInteger();
+    /**
+     * 请求总数
+     */
+    private final LongAdder requests = new LongAdder();
+    /**
+     * 失败的请求数
+     */
+    private final LongAdder failures = new LongAdder();
+    /**
+     * 总耗时(纳秒)
+     */
+    private final LongAdder totalLatency = new LongAdder();
+    /**
+     * 最大耗时(纳秒)
+     */
+    private final AtomicLong maxLatency = new AtomicLong();
+    /**
+     * 耗时的指数移动平均(纳秒)
+     */
+    private volatile double ewmaLatency = 0;
+
+    private volatile boolean healthy = true;
+    /**
+     * 最近一次健康检查的时间
+     */
+    private volatile long lastCheckTime;
+
+    public InfluxEndpoint(String url, InfluxDB connection) {
+        this.url = url;
+        this.connection = connection;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public InfluxDB getConnection() {
+        return connection;
+    }
+
+    /**
+     * 开始一次请求，由代理对象或直接发送HTTP请求的客户端调用
+     *
+     * @return 返回开始的时间
+     */
+    public long begin() {
+        outstanding.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束一次请求
+     *
+     * @param start   开始的时间
+     * @param success 是否成功
+     */
+    public void end(long start, boolean success) {
+        outstanding.decrementAndGet();
+        long latency = System.nanoTime() - start;
+        requests.increment();
+        totalLatency.add(latency);
+        if (!success) {
+            failures.increment();
+        }
+        long max;
+        while (latency > (max = maxLatency.get())) {
+            if (maxLatency.compareAndSet(max, latency)) {
+                break;
+            }
+        }
+        double ewma = ewmaLatency;
+        ewmaLatency = ewma == 0 ? latency : ewma + EWMA_ALPHA * (latency - ewma);
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * 平均耗时(毫秒)
+     */
+    public double getMeanLatency() {
+        long count = requests.sum();
+        return count > 0 ? totalLatency.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+    }
+
+    /**
+     * 最大耗时(毫秒)
+     */
+    public double getMaxLatency() {
+        return maxLatency.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 最近请求耗时的指数移动平均(毫秒)
+     */
+    public double getRecentLatency() {
+        return ewmaLatency / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+        this.lastCheckTime = System.currentTimeMillis();
+    }
+
+    public long getLastCheckTime() {
+        return lastCheckTime;
+    }
+
+    @Override
+    public String toString() {
+        return "InfluxEndpoint{" +
+                "url='" + url + '\'' +
+                ", healthy=" + healthy +
+                ", outstanding=" + getOutstanding() +
+                ", requests=" + getRequests() +
+                ", failures=" + getFailures() +
+                ", meanLatency=" + getMeanLatency() +
+                ", maxLatency=" + getMaxLatency() +
+                '}';
+    }
+}
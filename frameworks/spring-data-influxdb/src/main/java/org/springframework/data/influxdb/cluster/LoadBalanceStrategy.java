@@ -0,0 +1,15 @@
+package org.springframework.data.influxdb.cluster;
+
+/**
+ * 多个InfluxDB节点之间的负载均衡策略
+ */
+public enum LoadBalanceStrategy {
+    /**
+     * 轮询
+     */
+    ROUND_ROBIN,
+    /**
+     * 选择正在处理的请求数最少的节点
+     */
+    LEAST_OUTSTANDING
+}
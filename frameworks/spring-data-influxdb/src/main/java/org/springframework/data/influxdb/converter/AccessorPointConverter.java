@@ -0,0 +1,167 @@
+package org.springframework.data.influxdb.converter;
+
+import org.influxdb.dto.Point;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于{@link FieldAccessor}的Model与Point的转换
+ * <p>
+ * 在创建时为每个tag和column生成读取器，转换时按数组顺序直接读取字段，
+ * 不再通过反射逐个调用{@link Field#get(Object)}，基本类型的字段也不会被装箱
+ */
+public class AccessorPointConverter<T> extends DefaultPointConverter<T> {
+
+    private String[] tagNames;
+    private FieldAccessor[] tagAccessors;
+    private String[] columnNames;
+    private FieldAccessor[] columnAccessors;
+    private FieldAccessor timeAccessor;
+
+    protected AccessorPointConverter() {
+    }
+
+    public AccessorPointConverter(Class<T> type) {
+        this.initialize(type);
+    }
+
+    @Override
+    protected void initialize(Class<T> type) {
+        super.initialize(type);
+
+        final Map<String, Field> tags = getTags();
+        this.tagNames = new String[tags.size()];
+        this.tagAccessors = new FieldAccessor[tags.size()];
+        int i = 0;
+        for (Map.Entry<String, Field> entry : tags.entrySet()) {
+            tagNames[i] = entry.getKey();
+            tagAccessors[i] = FieldAccessor.of(entry.getValue());
+            i++;
+        }
+
+        final Map<String, Field> columns = getColumns();
+        this.columnNames = new String[columns.size()];
+        this.columnAccessors = new FieldAccessor[columns.size()];
+        i = 0;
+        for (Map.Entry<String, Field> entry : columns.entrySet()) {
+            columnNames[i] = entry.getKey();
+            columnAccessors[i] = FieldAccessor.of(entry.getValue());
+            i++;
+        }
+
+        final Field timeField = getTimeField();
+        this.timeAccessor = timeField != null ? FieldAccessor.of(timeField) : null;
+    }
+
+    @Override
+    public Point convert(final T item) {
+        if (item instanceof Point) {
+            return (Point) item;
+        }
+        return convert(item, getTimestamp(item));
+    }
+
+    /**
+     * 获取对象的时间戳，没有时间戳字段或值为null时返回当前时间
+     *
+     * @param item 对象
+     * @return 返回时间戳
+     */
+    protected long getTimestamp(final T item) {
+        final FieldAccessor accessor = this.timeAccessor;
+        if (accessor == null) {
+            return System.currentTimeMillis();
+        }
+        if (accessor.getKind() == FieldAccessor.Kind.LONG) {
+            return accessor.getLong(item);
+        }
+        Object value = accessor.get(item);
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return value != null ? ((Number) value).longValue() : System.currentTimeMillis();
+    }
+
+    @Override
+    public Point convert(final T item, long time, TimeUnit timeUnit) {
+        if (item instanceof Point) {
+            return (Point) item;
+        }
+
+        final Point.Builder builder = Point.measurement(getMeasurement());
+        builder.time(time, timeUnit);
+
+        final boolean tagNull = isTagNull();
+        for (int i = 0; i < tagAccessors.length; i++) {
+            Object value = tagAccessors[i].get(item);
+            // 检查是否允许tag为null，默认不允许
+            if (value == null) {
+                if (!tagNull) {
+                    throw new NullPointerException("tag is null.");
+                }
+                continue;
+            }
+            builder.tag(tagNames[i], String.valueOf(value));
+        }
+
+        for (int i = 0; i < columnAccessors.length; i++) {
+            final FieldAccessor accessor = columnAccessors[i];
+            final String name = columnNames[i];
+            switch (accessor.getKind()) {
+                case LONG:
+                    builder.addField(name, accessor.getLong(item));
+                    break;
+                case DOUBLE:
+                    builder.addField(name, accessor.getDouble(item));
+                    break;
+                case BOOLEAN:
+                    builder.addField(name, accessor.getBoolean(item));
+                    break;
+                default:
+                    addField(builder, name, accessor.get(item));
+                    break;
+            }
+        }
+        return builder.build();
+    }
+
+    private static void addField(Point.Builder builder, String name, Object value) {
+        if (value instanceof Long) {
+            builder.addField(name, (long) value);
+        } else if (value instanceof Double) {
+            builder.addField(name, (double) value);
+        } else if (value instanceof Number) {
+            builder.addField(name, (Number) value);
+        } else if (value instanceof Boolean) {
+            builder.addField(name, (Boolean) value);
+        } else if (value instanceof String) {
+            builder.addField(name, (String) value);
+        } else if (value != null) {
+            builder.addField(name, String.valueOf(value));
+        }
+        // ~ 忽略值为null的字段
+    }
+
+    public FieldAccessor getTimeAccessor() {
+        return timeAccessor;
+    }
+
+    public String[] getTagNames() {
+        return tagNames;
+    }
+
+    public FieldAccessor[] getTagAccessors() {
+        return tagAccessors;
+    }
+
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    public FieldAccessor[] getColumnAccessors() {
+        return columnAccessors;
+    }
+}
@@ -0,0 +1,15 @@
+package org.springframework.data.influxdb.converter;
+
+/**
+ * 使用{@link AccessorPointConverter}的Converter管理类
+ */
+public class AccessorPointConverterFactory extends DefaultPointConverterFactory {
+
+    public AccessorPointConverterFactory() {
+    }
+
+    @Override
+    public <T> PointConverter<T> createConverter(Class<T> type) {
+        return new AccessorPointConverter<>(type);
+    }
+}
@@ -0,0 +1,15 @@
+package org.springframework.data.influxdb.converter;
+
+/**
+ * PointConverter的实现方式
+ */
+public enum ConverterType {
+    /**
+     * 通过反射读取字段：{@link DefaultPointConverterFactory}
+     */
+    REFLECT,
+    /**
+     * 通过生成的字段读取器读取字段：{@link AccessorPointConverterFactory}
+     */
+    ACCESSOR
+}
@@ -27,6 +27,13 @@ public class DefaultPointConverterFactory implements PointConverterFactory {
 
     private final Function<Class<?>, PointConverter> funcConvert = this::createConverter;
 
+    /**
+     * LineProtocolWriter缓存
+     */
+    private final Map<Class<?>, LineProtocolWriter<?>> writerCache = new ConcurrentHashMap<>();
+
+    private final Function<Class<?>, LineProtocolWriter<?>> funcWriter = this::createLineProtocolWriter;
+
     public DefaultPointConverterFactory() {
     }
 
@@ -41,6 +48,27 @@ public class DefaultPointConverterFactory implements PointConverterFactory {
         return converterCache.computeIfAbsent(type, funcConvert);
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> LineProtocolWriter<T> getLineProtocolWriter(final Class<?> type) {
+        return (LineProtocolWriter<T>) writerCache.computeIfAbsent(type, funcWriter);
+    }
+
+    /**
+     * 创建Line Protocol序列化器，Point和自定义的转换器返回null，由调用方通过{@link #convert(Object)}序列化
+     */
+    protected LineProtocolWriter<?> createLineProtocolWriter(Class<?> type) {
+        if (Point.class.isAssignableFrom(type)) {
+            return null;
+        }
+        PointConverter<?> converter = getConverter(type);
+        // 子类可能重写了convert()，只有按字段转换的转换器才能直接序列化
+        if (converter.getClass() != DefaultPointConverter.class && converter.getClass() != AccessorPointConverter.class) {
+            return null;
+        }
+        return new LineProtocolWriter<>((DefaultPointConverter<?>) converter);
+    }
+
     @Override
     public <T> Point convert(T t) {
         if (t instanceof Point) {
@@ -63,5 +91,10 @@ public class DefaultPointConverterFactory implements PointConverterFactory {
         return resultMapper.toPOJO(result, type);
     }
 
+    @Override
+    public <T> List<T> mapperTo(QueryResult result, Class<T> type, TimeUnit precision) {
+        return resultMapper.toPOJO(result, type, precision);
+    }
+
 
 }
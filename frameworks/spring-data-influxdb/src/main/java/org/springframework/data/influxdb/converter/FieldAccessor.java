@@ -0,0 +1,160 @@
+package org.springframework.data.influxdb.converter;
+
+import org.springframework.data.influxdb.InfluxUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * 基于MethodHandle的字段读取器
+ * <p>
+ * 在第一次使用时为字段生成类型确定的MethodHandle，之后读取字段时不再进行访问检查，
+ * 基本类型的字段通过{@link #getLong(Object)}、{@link #getDouble(Object)}、
+ * {@link #getBoolean(Object)}直接读取，不需要装箱
+ */
+public final class FieldAccessor {
+
+    /**
+     * 字段值的类型
+     */
+    public enum Kind {
+        /**
+         * long、int、short、byte
+         */
+        LONG,
+        /**
+         * double
+         */
+        DOUBLE,
+        /**
+         * boolean
+         */
+        BOOLEAN,
+        /**
+         * 其他类型(包括float，避免转换成double后精度的变化)
+         */
+        OBJECT
+    }
+
+    private final Field field;
+    private final Kind kind;
+    /**
+     * (Object)long / (Object)double / (Object)boolean / (Object)Object
+     */
+    private final MethodHandle getter;
+
+    private FieldAccessor(Field field, Kind kind, MethodHandle getter) {
+        this.field = field;
+        this.kind = kind;
+        this.getter = getter;
+    }
+
+    /**
+     * 创建字段的读取器
+     *
+     * @param field 字段
+     * @return 返回读取器
+     */
+    public static FieldAccessor of(final Field field) {
+        InfluxUtils.setAccessible(field, true);
+        final MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflectGetter(field);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问字段: " + field, e);
+        }
+
+        final Class<?> type = field.getType();
+        final Kind kind;
+        final Class<?> returnType;
+        if (type == long.class || type == int.class || type == short.class || type == byte.class) {
+            kind = Kind.LONG;
+            returnType = long.class;
+        } else if (type == double.class) {
+            kind = Kind.DOUBLE;
+            returnType = double.class;
+        } else if (type == boolean.class) {
+            kind = Kind.BOOLEAN;
+            returnType = boolean.class;
+        } else {
+            kind = Kind.OBJECT;
+            returnType = Object.class;
+        }
+        return new FieldAccessor(field, kind, handle.asType(MethodType.methodType(returnType, Object.class)));
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getLong(final Object o) {
+        try {
+            return (long) getter.invokeExact(o);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public double getDouble(final Object o) {
+        try {
+            return (double) getter.invokeExact(o);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    public boolean getBoolean(final Object o) {
+        try {
+            return (boolean) getter.invokeExact(o);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * 读取字段的值，基本类型会被装箱
+     *
+     * @param o 对象
+     * @return 返回字段的值
+     */
+    public Object get(final Object o) {
+        switch (kind) {
+            case LONG:
+                return getLong(o);
+            case DOUBLE:
+                return getDouble(o);
+            case BOOLEAN:
+                return getBoolean(o);
+            default:
+                try {
+                    return (Object) getter.invokeExact(o);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+        }
+    }
+
+    private RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException("读取字段的值失败: " + field, e);
+    }
+
+    @Override
+    public String toString() {
+        return "FieldAccessor{" +
+                "field=" + field +
+                ", kind=" + kind +
+                '}';
+    }
+}
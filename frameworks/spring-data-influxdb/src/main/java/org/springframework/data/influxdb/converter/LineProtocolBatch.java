@@ -0,0 +1,88 @@
+package org.springframework.data.influxdb.converter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次HTTP写入请求的Line Protocol请求体
+ */
+public class LineProtocolBatch {
+
+    private final String body;
+    /**
+     * 请求体UTF-8编码后的字节数
+     */
+    private final int bytes;
+    /**
+     * 数据条数
+     */
+    private final int points;
+    private final TimeUnit precision;
+
+    public LineProtocolBatch(String body, int points, TimeUnit precision) {
+        this(body, utf8Length(body, 0, body.length()), points, precision);
+    }
+
+    LineProtocolBatch(String body, int bytes, int points, TimeUnit precision) {
+        this.body = body;
+        this.bytes = bytes;
+        this.points = points;
+        this.precision = precision;
+    }
+
+    /**
+     * 计算字符序列UTF-8编码后的字节数，不需要实际编码；
+     * 与String.getBytes和Okio的编码结果一致，不成对的代理字符编码成'?'
+     *
+     * @param s    字符序列
+     * @param from 开始位置(包含)
+     * @param to   结束位置(不包含)
+     * @return 返回字节数
+     */
+    public static int utf8Length(final CharSequence s, final int from, final int to) {
+        int n = to - from;
+        for (int i = from; i < to; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                n += 1;
+            } else if (!Character.isSurrogate(c)) {
+                n += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(s.charAt(i + 1))) {
+                // 代理对由两个字符组成，编码成4字节
+                n += 2;
+                i++;
+            }
+        }
+        return n;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * 请求体UTF-8编码后的字节数
+     */
+    public int getBytes() {
+        return bytes;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public TimeUnit getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public String toString() {
+        return "LineProtocolBatch{" +
+                "points=" + points +
+                ", bytes=" + bytes +
+                ", precision=" + precision +
+                '}';
+    }
+}
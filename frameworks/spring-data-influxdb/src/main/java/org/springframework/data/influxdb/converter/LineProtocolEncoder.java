@@ -0,0 +1,224 @@
+package org.springframework.data.influxdb.converter;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 将多种类型的bean序列化成Line Protocol请求体
+ * <p>
+ * 按类型分组后切分成多个片段，在ForkJoinPool上并行序列化，再按顺序合并成不超过maxPoints条、maxBytes字节的请求体；
+ * 所有类型使用其中最精细的时间精度，保证时间戳不丢失精度。请求体大小按UTF-8编码后的字节数计算
+ */
+public class LineProtocolEncoder {
+
+    /**
+     * 每个并行任务序列化的最大数据条数
+     */
+    private static final int SLICE_SIZE = 8192;
+
+    private final PointConverterFactory converterFactory;
+    /**
+     * 每个请求体的最大数据条数
+     */
+    private final int maxPoints;
+    /**
+     * 每个请求体UTF-8编码后的最大字节数
+     */
+    private final int maxBytes;
+    private final ForkJoinPool pool;
+
+    public LineProtocolEncoder(final PointConverterFactory converterFactory, final int maxPoints, final int maxBytes) {
+        this(converterFactory, maxPoints, maxBytes, ForkJoinPool.commonPool());
+    }
+
+    public LineProtocolEncoder(final PointConverterFactory converterFactory,
+                               final int maxPoints,
+                               final int maxBytes,
+                               final ForkJoinPool pool) {
+        this.converterFactory = converterFactory;
+        this.maxPoints = maxPoints > 0 ? maxPoints : Integer.MAX_VALUE;
+        this.maxBytes = maxBytes > 0 ? maxBytes : Integer.MAX_VALUE;
+        this.pool = pool;
+    }
+
+    /**
+     * 序列化数据
+     *
+     * @param payload 数据，可以包含多种类型的对象
+     * @return 返回按顺序排列的请求体
+     */
+    public List<LineProtocolBatch> encode(final Collection<?> payload) {
+        return encode(payload, null);
+    }
+
+    /**
+     * 以指定的时间精度序列化数据
+     *
+     * @param payload   数据，可以包含多种类型的对象
+     * @param precision 时间精度，为null时使用所有类型中最精细的时间精度
+     * @return 返回按顺序排列的请求体
+     */
+    public List<LineProtocolBatch> encode(final Collection<?> payload, final TimeUnit precision) {
+        final Map<Class<?>, List<Object>> groups = groupByType(payload);
+        if (groups.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 所有类型中最精细的时间精度
+        TimeUnit finest = null;
+        final List<Slice> slices = new ArrayList<>();
+        final int sliceSize = Math.min(SLICE_SIZE, maxPoints);
+        for (Map.Entry<Class<?>, List<Object>> entry : groups.entrySet()) {
+            final LineProtocolWriter<Object> writer = getWriter(entry.getKey());
+            // Point和自定义的转换器无法直接序列化，通过Point序列化，并使用纳秒精度避免丢失精度
+            final TimeUnit unit = writer != null ? writer.getTimeUnit() : TimeUnit.NANOSECONDS;
+            if (finest == null || unit.compareTo(finest) < 0) {
+                finest = unit;
+            }
+            final List<Object> items = entry.getValue();
+            for (int from = 0; from < items.size(); from += sliceSize) {
+                slices.add(new Slice(writer, items.subList(from, Math.min(items.size(), from + sliceSize))));
+            }
+        }
+
+        final TimeUnit unit = precision != null ? precision : finest;
+        final List<List<LineProtocolBatch>> pieces;
+        if (slices.size() == 1) {
+            pieces = Collections.singletonList(encode(slices.get(0), unit));
+        } else {
+            pieces = pool.submit(() -> slices.parallelStream()
+                    .map(slice -> encode(slice, unit))
+                    .collect(Collectors.toList()))
+                    .join();
+        }
+        return coalesce(pieces, unit);
+    }
+
+    /**
+     * 获取类型对应的Line Protocol序列化器
+     *
+     * @param type 类型
+     * @return 无法直接序列化时返回null，需要通过{@link PointConverterFactory#convert(Object)}转换后序列化
+     */
+    public <T> LineProtocolWriter<T> getWriter(final Class<?> type) {
+        return converterFactory.getLineProtocolWriter(type);
+    }
+
+    /**
+     * 按类型分组，保持类型第一次出现的顺序
+     */
+    private static Map<Class<?>, List<Object>> groupByType(final Collection<?> payload) {
+        final Map<Class<?>, List<Object>> groups = new LinkedHashMap<>();
+        for (Object item : payload) {
+            if (item == null) {
+                throw new NullPointerException("无法插入Null值");
+            }
+            groups.computeIfAbsent(item.getClass(), k -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    /**
+     * 序列化一个片段，超过maxBytes时拆分成多个请求体(片段的条数不超过maxPoints)
+     */
+    private List<LineProtocolBatch> encode(final Slice slice, final TimeUnit precision) {
+        final List<LineProtocolBatch> batches = new ArrayList<>(1);
+        StringBuilder sb = new StringBuilder(Math.min(maxBytes, slice.items.size() * 64));
+        int bytes = 0;
+        int points = 0;
+        for (Object item : slice.items) {
+            final int start = sb.length();
+            if (start > 0) {
+                sb.append('\n');
+            }
+            if (slice.writer != null) {
+                if (!slice.writer.write(sb, item, precision)) {
+                    sb.setLength(start);
+                    continue;
+                }
+            } else {
+                sb.append(converterFactory.convert(item).lineProtocol(precision));
+            }
+            // 包括换行符
+            final int lineBytes = LineProtocolBatch.utf8Length(sb, start, sb.length());
+            if (bytes + lineBytes > maxBytes && points > 0) {
+                // 当前行放入下一个请求体
+                final String line = sb.substring(start + 1);
+                sb.setLength(start);
+                batches.add(new LineProtocolBatch(sb.toString(), bytes, points, precision));
+                sb.setLength(0);
+                sb.append(line);
+                bytes = lineBytes - 1;
+                points = 0;
+            } else {
+                bytes += lineBytes;
+            }
+            points++;
+        }
+        if (points > 0) {
+            batches.add(new LineProtocolBatch(sb.toString(), bytes, points, precision));
+        }
+        return batches;
+    }
+
+    /**
+     * 按顺序合并相邻的请求体，合并后不超过maxPoints和maxBytes
+     */
+    private List<LineProtocolBatch> coalesce(final List<List<LineProtocolBatch>> pieces, final TimeUnit precision) {
+        final List<LineProtocolBatch> result = new ArrayList<>();
+        StringBuilder sb = null;
+        LineProtocolBatch pending = null;
+        int bytes = 0;
+        int points = 0;
+        for (List<LineProtocolBatch> list : pieces) {
+            for (LineProtocolBatch piece : list) {
+                if (pending == null) {
+                    pending = piece;
+                    bytes = piece.getBytes();
+                    points = piece.getPoints();
+                    continue;
+                }
+                if ((long) bytes + 1 + piece.getBytes() > maxBytes
+                        || points + piece.getPoints() > maxPoints) {
+                    result.add(sb != null ? new LineProtocolBatch(sb.toString(), bytes, points, precision) : pending);
+                    sb = null;
+                    pending = piece;
+                    bytes = piece.getBytes();
+                    points = piece.getPoints();
+                    continue;
+                }
+                if (sb == null) {
+                    sb = new StringBuilder((int) Math.min(maxBytes, pending.getBody().length() * 2L))
+                            .append(pending.getBody());
+                }
+                sb.append('\n').append(piece.getBody());
+                bytes += 1 + piece.getBytes();
+                points += piece.getPoints();
+            }
+        }
+        if (pending != null) {
+            result.add(sb != null ? new LineProtocolBatch(sb.toString(), bytes, points, precision) : pending);
+        }
+        return result;
+    }
+
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    private static final class Slice {
+        final LineProtocolWriter<Object> writer;
+        final List<Object> items;
+
+        Slice(LineProtocolWriter<Object> writer, List<Object> items) {
+            this.writer = writer;
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package org.springframework.data.influxdb.converter;
+
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将bean直接序列化成InfluxDB的Line Protocol
+ * <p>
+ * 复用{@link DefaultPointConverter}解析出的measurement、tag、column和时间戳字段，
+ * measurement和字段名在创建时预先转义，写入时直接追加到调用方提供的StringBuilder中，
+ * 不再创建Point.Builder、TreeMap和Point对象
+ *
+ * @param <T> bean类型
+ */
+public class LineProtocolWriter<T> {
+
+    private final Class<T> type;
+    /**
+     * 转义后的表名
+     */
+    private final String measurement;
+    /**
+     * bean中时间戳的单位
+     */
+    private final TimeUnit timeUnit;
+    /**
+     * 标签值是否允许为null
+     */
+    private final boolean tagNull;
+    /**
+     * ",tagKey=" 按tag名称排序
+     */
+    private final String[] tagPrefixes;
+    private final FieldAccessor[] tagAccessors;
+    /**
+     * "fieldKey="
+     */
+    private final String[] columnPrefixes;
+    private final FieldAccessor[] columnAccessors;
+    private final FieldAccessor timeAccessor;
+
+    public LineProtocolWriter(final DefaultPointConverter<T> converter) {
+        this.type = converter.getType();
+        this.timeUnit = converter.getTimeUnit();
+        this.tagNull = converter.isTagNull();
+
+        StringBuilder sb = new StringBuilder();
+        escapeMeasurement(sb, converter.getMeasurement());
+        this.measurement = sb.toString();
+
+        // 按照InfluxDB推荐的方式，tag按名称排序
+        final Map<String, Field> tags = new TreeMap<>(converter.getTags());
+        this.tagPrefixes = new String[tags.size()];
+        this.tagAccessors = new FieldAccessor[tags.size()];
+        int i = 0;
+        for (Map.Entry<String, Field> entry : tags.entrySet()) {
+            sb.setLength(0);
+            sb.append(',');
+            escapeKey(sb, entry.getKey());
+            sb.append('=');
+            tagPrefixes[i] = sb.toString();
+            tagAccessors[i] = FieldAccessor.of(entry.getValue());
+            i++;
+        }
+
+        final Map<String, Field> columns = new TreeMap<>(converter.getColumns());
+        this.columnPrefixes = new String[columns.size()];
+        this.columnAccessors = new FieldAccessor[columns.size()];
+        i = 0;
+        for (Map.Entry<String, Field> entry : columns.entrySet()) {
+            sb.setLength(0);
+            escapeKey(sb, entry.getKey());
+            sb.append('=');
+            columnPrefixes[i] = sb.toString();
+            columnAccessors[i] = FieldAccessor.of(entry.getValue());
+            i++;
+        }
+
+        final Field timeField = converter.getTimeField();
+        this.timeAccessor = timeField != null ? FieldAccessor.of(timeField) : null;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * bean中时间戳的单位，也是写入时默认的精度
+     */
+    public TimeUnit getTimeUnit() {
+        return timeUnit;
+    }
+
+    /**
+     * 将多个bean写入到StringBuilder中，每行之间以'\n'分隔
+     *
+     * @param sb        StringBuilder
+     * @param items     bean集合
+     * @param precision 时间戳的精度
+     * @return 返回写入的行数
+     */
+    public int write(final StringBuilder sb, final List<? extends T> items, final TimeUnit precision) {
+        int lines = 0;
+        for (T item : items) {
+            if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n') {
+                sb.append('\n');
+            }
+            if (write(sb, item, precision)) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 将bean写入到StringBuilder中
+     *
+     * @param sb        StringBuilder
+     * @param item      bean
+     * @param precision 时间戳的精度
+     * @return 如果bean的所有字段都为null，不写入任何数据并返回false
+     */
+    public boolean write(final StringBuilder sb, final T item, final TimeUnit precision) {
+        final int start = sb.length();
+        sb.append(measurement);
+
+        for (int i = 0; i < tagAccessors.length; i++) {
+            Object value = tagAccessors[i].get(item);
+            if (value == null) {
+                // 检查是否允许tag为null，默认不允许
+                if (!tagNull) {
+                    sb.setLength(start);
+                    throw new NullPointerException("tag is null.");
+                }
+                continue;
+            }
+            String tag = value.toString();
+            if (tag.isEmpty()) {
+                continue;
+            }
+            sb.append(tagPrefixes[i]);
+            escapeKey(sb, tag);
+        }
+
+        sb.append(' ');
+        final int fieldStart = sb.length();
+        for (int i = 0; i < columnAccessors.length; i++) {
+            final FieldAccessor accessor = columnAccessors[i];
+            final int mark = sb.length();
+            if (mark > fieldStart) {
+                sb.append(',');
+            }
+            sb.append(columnPrefixes[i]);
+            if (!appendFieldValue(sb, accessor, item)) {
+                // 忽略值为null的字段
+                sb.setLength(mark);
+            }
+        }
+
+        if (sb.length() == fieldStart) {
+            // 没有任何字段，不是合法的数据
+            sb.setLength(start);
+            return false;
+        }
+
+        sb.append(' ').append(precision.convert(getTimestamp(item), timeUnit));
+        return true;
+    }
+
+    /**
+     * 获取对象的时间戳，与{@link DefaultPointConverter#convert(Object)}一致
+     */
+    private long getTimestamp(final T item) {
+        if (timeAccessor == null) {
+            return System.currentTimeMillis();
+        }
+        if (timeAccessor.getKind() == FieldAccessor.Kind.LONG) {
+            return timeAccessor.getLong(item);
+        }
+        Object value = timeAccessor.get(item);
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return value != null ? ((Number) value).longValue() : System.currentTimeMillis();
+    }
+
+    private static boolean appendFieldValue(final StringBuilder sb, final FieldAccessor accessor, final Object item) {
+        switch (accessor.getKind()) {
+            case LONG:
+                sb.append(accessor.getLong(item)).append('i');
+                return true;
+            case DOUBLE:
+                return appendDouble(sb, accessor.getDouble(item));
+            case BOOLEAN:
+                sb.append(accessor.getBoolean(item));
+                return true;
+            default:
+                break;
+        }
+
+        final Object value = accessor.get(item);
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Double || value instanceof Float) {
+            return appendDouble(sb, ((Number) value).doubleValue());
+        }
+        if (value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte) {
+            sb.append(((Number) value).longValue()).append('i');
+            return true;
+        }
+        if (value instanceof Number) {
+            sb.append(value.toString());
+            return true;
+        }
+        if (value instanceof Boolean) {
+            sb.append(((Boolean) value).booleanValue());
+            return true;
+        }
+        sb.append('"');
+        escapeFieldValue(sb, value.toString());
+        sb.append('"');
+        return true;
+    }
+
+    /**
+     * InfluxDB不支持NaN和Infinity，这些值会被忽略
+     */
+    private static boolean appendDouble(final StringBuilder sb, final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+        sb.append(value);
+        return true;
+    }
+
+    /**
+     * 转义measurement：逗号和空格
+     */
+    public static void escapeMeasurement(final StringBuilder sb, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == ' ') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+
+    /**
+     * 转义tag的键、值以及field的键：逗号、等号和空格
+     */
+    public static void escapeKey(final StringBuilder sb, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '=' || c == ' ') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+
+    /**
+     * 转义字符串类型的field值：双引号和反斜杠
+     */
+    public static void escapeFieldValue(final StringBuilder sb, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+}
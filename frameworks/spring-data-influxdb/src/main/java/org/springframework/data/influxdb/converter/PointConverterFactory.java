@@ -29,6 +29,19 @@ public interface PointConverterFactory {
      */
     <T> PointConverter<T> getConverter(final Class<?> type);
 
+    /**
+     * 获取Bean对应的Line Protocol序列化器
+     * <p>
+     * 默认返回null，即通过{@link #convert(Object)}转换成Point后再序列化
+     *
+     * @param type bean类型
+     * @param <T>  泛型类型
+     * @return 返回LineProtocolWriter对象，Point或自定义的转换器无法直接序列化，返回null
+     */
+    default <T> LineProtocolWriter<T> getLineProtocolWriter(final Class<?> type) {
+        return null;
+    }
+
     /**
      * 将对象转换成Point
      *
@@ -66,4 +79,19 @@ public interface PointConverterFactory {
      * @return 返回解析的对象
      */
     <T> List<T> mapperTo(QueryResult result, Class<T> type);
+
+    /**
+     * 转换成bean对象，数值类型的时间戳按查询时指定的epoch单位解析
+     * <p>
+     * 默认忽略precision，直接调用{@link #mapperTo(QueryResult, Class)}
+     *
+     * @param result    查询的结果集
+     * @param type      bean类型
+     * @param precision 查询时指定的epoch单位，为null时返回的是RFC3339格式的时间
+     * @param <T>       泛型类型
+     * @return 返回解析的对象
+     */
+    default <T> List<T> mapperTo(QueryResult result, Class<T> type, TimeUnit precision) {
+        return mapperTo(result, type);
+    }
 }
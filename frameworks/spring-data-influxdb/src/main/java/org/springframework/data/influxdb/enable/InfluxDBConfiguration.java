@@ -15,18 +15,27 @@
  */
 package org.springframework.data.influxdb.enable;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import okhttp3.Interceptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.influxdb.InfluxDBConnectionFactory;
 import org.springframework.data.influxdb.InfluxDBProperties;
 import org.springframework.data.influxdb.InfluxDBTemplate;
+import org.springframework.data.influxdb.ReactiveInfluxDBTemplate;
+import org.springframework.data.influxdb.converter.AccessorPointConverterFactory;
+import org.springframework.data.influxdb.converter.ConverterType;
 import org.springframework.data.influxdb.converter.PointConverterFactory;
 import org.springframework.data.influxdb.converter.DefaultPointConverterFactory;
+import org.springframework.data.influxdb.metrics.InfluxDBMetrics;
+import org.springframework.data.influxdb.metrics.MicrometerInfluxDBMetrics;
+import org.springframework.data.influxdb.network.RequestEventReporter;
 
 @Configuration
 public class InfluxDBConfiguration {
@@ -36,8 +45,15 @@ public class InfluxDBConfiguration {
     @Bean
     @ConditionalOnMissingBean(InfluxDBConnectionFactory.class)
     public InfluxDBConnectionFactory connectionFactory(InfluxDBProperties properties,
-                                                       @Autowired(required = false) Interceptor requestInfo) {
-        return new InfluxDBConnectionFactory(properties, requestInfo);
+                                                       @Autowired(required = false) Interceptor requestInfo,
+                                                       @Autowired(required = false) InfluxDBMetrics metrics,
+                                                       @Autowired(required = false) RequestEventReporter eventReporter) {
+        InfluxDBConnectionFactory connectionFactory = new InfluxDBConnectionFactory(properties, requestInfo);
+        connectionFactory.setEventReporter(eventReporter);
+        if (metrics != null) {
+            connectionFactory.setMetrics(metrics);
+        }
+        return connectionFactory;
     }
 
     @Bean
@@ -49,8 +65,44 @@ public class InfluxDBConfiguration {
 
     @Bean
     @ConditionalOnMissingBean(PointConverterFactory.class)
-    public PointConverterFactory converterFactory() {
-        return new DefaultPointConverterFactory();
+    public PointConverterFactory converterFactory(InfluxDBProperties properties) {
+        if (properties.getConverter() == ConverterType.REFLECT) {
+            return new DefaultPointConverterFactory();
+        }
+        return new AccessorPointConverterFactory();
+    }
+
+    /**
+     * 存在Reactor时注入ReactiveInfluxDBTemplate
+     */
+    @Configuration
+    @ConditionalOnClass(name = "reactor.core.publisher.Flux")
+    static class ReactiveInfluxDBConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(ReactiveInfluxDBTemplate.class)
+        public ReactiveInfluxDBTemplate reactiveInfluxDBTemplate(InfluxDBTemplate influxDBTemplate) {
+            return new ReactiveInfluxDBTemplate(influxDBTemplate);
+        }
+    }
+
+    /**
+     * 存在Micrometer时，如果有MeterRegistry则注入基于Micrometer的统计指标
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MicrometerInfluxDBConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(InfluxDBMetrics.class)
+        public InfluxDBMetrics influxDBMetrics(ObjectProvider<MeterRegistry> registry) {
+            MeterRegistry meterRegistry = registry.getIfAvailable();
+            if (meterRegistry == null) {
+                logger.debug("No MeterRegistry found, InfluxDB metrics disabled");
+                return InfluxDBMetrics.NOOP;
+            }
+            return new MicrometerInfluxDBMetrics(meterRegistry);
+        }
     }
 
 //    /**
@@ -0,0 +1,80 @@
+package org.springframework.data.influxdb.metrics;
+
+import org.springframework.data.influxdb.InfluxDBConnectionFactory;
+
+/**
+ * 客户端的统计指标
+ * <p>
+ * InfluxDBTemplate和InfluxDBConnectionFactory只依赖这个接口，不直接依赖Micrometer；
+ * 存在MeterRegistry时由{@link MicrometerInfluxDBMetrics}实现
+ */
+public interface InfluxDBMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    InfluxDBMetrics NOOP = new InfluxDBMetrics() {
+    };
+
+    /**
+     * 无法确定measurement时使用的标签值，例如一个请求中包含多个measurement
+     */
+    String MULTIPLE = "multiple";
+
+    /**
+     * 无法确定measurement时使用的标签值
+     */
+    String UNKNOWN = "unknown";
+
+    /**
+     * 记录一次写入请求
+     *
+     * @param database    数据库
+     * @param measurement measurement名称
+     * @param points      请求中的数据条数
+     * @param bytes       请求体UTF-8编码后的字节数
+     * @param nanos       耗时(纳秒)
+     * @param error       写入失败时的异常，成功时为null
+     */
+    default void recordWrite(String database, String measurement, int points, long bytes, long nanos, Throwable error) {
+    }
+
+    /**
+     * 记录一次查询请求的网络耗时(不包括结果映射)
+     *
+     * @param database    数据库
+     * @param measurement measurement名称
+     * @param nanos       耗时(纳秒)
+     * @param error       查询失败时的异常，成功时为null
+     */
+    default void recordQuery(String database, String measurement, long nanos, Throwable error) {
+    }
+
+    /**
+     * 记录一次查询结果的映射
+     *
+     * @param database    数据库
+     * @param measurement measurement名称
+     * @param rows        映射的行数
+     * @param nanos       耗时(纳秒)
+     */
+    default void recordMapping(String database, String measurement, int rows, long nanos) {
+    }
+
+    /**
+     * 记录一次在其他节点上的重试
+     *
+     * @param endpoint 失败的节点
+     * @param method   重试的方法
+     */
+    default void recordRetry(String endpoint, String method) {
+    }
+
+    /**
+     * 注册连接工厂的指标，例如连接池和调度器的状态
+     *
+     * @param connectionFactory 连接工厂
+     */
+    default void bind(InfluxDBConnectionFactory connectionFactory) {
+    }
+}
@@ -0,0 +1,202 @@
+package org.springframework.data.influxdb.metrics;
+
+import io.micrometer.core.instrument.*;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.data.influxdb.InfluxDBConnectionFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 基于Micrometer的统计指标
+ * <ul>
+ * <li>influxdb.write.points: 写入的数据条数</li>
+ * <li>influxdb.write.batch.size: 每个写入请求的数据条数</li>
+ * <li>influxdb.write.bytes: 每个写入请求UTF-8编码后的字节数</li>
+ * <li>influxdb.write.latency: 写入请求的耗时</li>
+ * <li>influxdb.write.failures: 写入失败的次数</li>
+ * <li>influxdb.query.latency: 查询请求的网络耗时</li>
+ * <li>influxdb.query.mapping: 查询结果的映射耗时</li>
+ * <li>influxdb.query.rows: 映射的行数，其速率即每秒映射的行数</li>
+ * <li>influxdb.retries: 在其他节点上重试的次数</li>
+ * <li>influxdb.http.connections / influxdb.http.calls: 连接池和调度器的状态</li>
+ * </ul>
+ * 除连接工厂的指标外，都带有database和measurement标签
+ */
+public class MicrometerInfluxDBMetrics implements InfluxDBMetrics {
+
+    private final MeterRegistry registry;
+    /**
+     * 已注册的指标，避免每次记录都重新构建
+     */
+    private final ConcurrentMap<MeterKey, Meter> meters = new ConcurrentHashMap<>();
+
+    public MicrometerInfluxDBMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        if (registry == null) {
+            throw new NullPointerException("registry is null.");
+        }
+    }
+
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public void recordWrite(String database, String measurement, int points, long bytes, long nanos, Throwable error) {
+        final String db = tag(database);
+        final String m = tag(measurement);
+        final String result = error == null ? "success" : "failure";
+        counter("influxdb.write.points", "Points written to InfluxDB", "points",
+                "database", db, "measurement", m, "result", result).increment(points);
+        summary("influxdb.write.batch.size", "Points per write request", "points",
+                "database", db, "measurement", m).record(points);
+        summary("influxdb.write.bytes", "Serialized bytes per write request", "bytes",
+                "database", db, "measurement", m).record(bytes);
+        timer("influxdb.write.latency", "Write request latency",
+                "database", db, "measurement", m, "result", result).record(nanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            counter("influxdb.write.failures", "Failed write requests", null,
+                    "database", db, "measurement", m, "exception", error.getClass().getSimpleName()).increment();
+        }
+    }
+
+    @Override
+    public void recordQuery(String database, String measurement, long nanos, Throwable error) {
+        final String result = error == null ? "success" : "failure";
+        timer("influxdb.query.latency", "Query request latency, excluding result mapping",
+                "database", tag(database), "measurement", tag(measurement), "result", result)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordMapping(String database, String measurement, int rows, long nanos) {
+        final String db = tag(database);
+        final String m = tag(measurement);
+        timer("influxdb.query.mapping", "Time spent mapping query results to beans",
+                "database", db, "measurement", m).record(nanos, TimeUnit.NANOSECONDS);
+        counter("influxdb.query.rows", "Rows mapped to beans", "rows",
+                "database", db, "measurement", m).increment(rows);
+    }
+
+    @Override
+    public void recordRetry(String endpoint, String method) {
+        counter("influxdb.retries", "Requests retried on another endpoint", null,
+                "endpoint", tag(endpoint), "method", tag(method)).increment();
+    }
+
+    @Override
+    public void bind(final InfluxDBConnectionFactory connectionFactory) {
+        gauge("influxdb.http.connections", connectionFactory,
+                f -> pool(f, ConnectionPool::connectionCount), "state", "total");
+        gauge("influxdb.http.connections", connectionFactory,
+                f -> pool(f, ConnectionPool::idleConnectionCount), "state", "idle");
+        gauge("influxdb.http.calls", connectionFactory,
+                f -> dispatcher(f, Dispatcher::runningCallsCount), "state", "running");
+        gauge("influxdb.http.calls", connectionFactory,
+                f -> dispatcher(f, Dispatcher::queuedCallsCount), "state", "queued");
+    }
+
+    private static double pool(InfluxDBConnectionFactory factory, ToDoubleFunction<ConnectionPool> fn) {
+        final OkHttpClient client = client(factory);
+        return client != null ? fn.applyAsDouble(client.connectionPool()) : Double.NaN;
+    }
+
+    private static double dispatcher(InfluxDBConnectionFactory factory, ToDoubleFunction<Dispatcher> fn) {
+        final OkHttpClient client = client(factory);
+        return client != null ? fn.applyAsDouble(client.dispatcher()) : Double.NaN;
+    }
+
+    private static OkHttpClient client(InfluxDBConnectionFactory factory) {
+        try {
+            return factory.getHttpClient();
+        } catch (IllegalStateException e) {
+            // 连接工厂已经销毁
+            return null;
+        }
+    }
+
+    private Counter counter(String name, String description, String unit, String... tags) {
+        return meter(name, tags, key -> Counter.builder(name)
+                .description(description)
+                .baseUnit(unit)
+                .tags(tags)
+                .register(registry));
+    }
+
+    private Timer timer(String name, String description, String... tags) {
+        return meter(name, tags, key -> Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private DistributionSummary summary(String name, String description, String unit, String... tags) {
+        return meter(name, tags, key -> DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(unit)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private <T> void gauge(String name, T obj, ToDoubleFunction<T> fn, String... tags) {
+        Gauge.builder(name, obj, fn).tags(tags).register(registry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M extends Meter> M meter(String name, String[] tags, Function<MeterKey, M> factory) {
+        return (M) meters.computeIfAbsent(new MeterKey(name, tags), factory);
+    }
+
+    private static String tag(String value) {
+        return value != null ? value : UNKNOWN;
+    }
+
+    @Override
+    public String toString() {
+        return "MicrometerInfluxDBMetrics{" +
+                "registry=" + registry +
+                ", meters=" + meters.size() +
+                '}';
+    }
+
+    /**
+     * 指标的键：名称和标签
+     */
+    private static final class MeterKey {
+        private final String name;
+        private final String[] tags;
+        private final int hash;
+
+        MeterKey(String name, String[] tags) {
+            this.name = name;
+            this.tags = tags;
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(tags);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MeterKey)) {
+                return false;
+            }
+            MeterKey that = (MeterKey) o;
+            return name.equals(that.name) && Arrays.equals(tags, that.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package org.springframework.data.influxdb.network;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Sink;
+import okio.Timeout;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * 按请求体大小压缩写入请求的拦截器
+ * <p>
+ * 只压缩/write请求，小于阈值的请求体不压缩(压缩小请求体浪费CPU，节省的字节也很少)；
+ * 原始请求体写入的数据按Okio的分段交给Deflater，边压缩边写入，使用{@link DeflaterPool}中的Deflater和缓冲区，
+ * 不会为每个请求创建Deflater。{@link InfluxDBHttpClient}创建的请求体分段编码，压缩时不会在内存中保留完整的原始请求体；
+ * influxdb-java创建的请求体是一次写入的字节数组，仍会在Okio的缓冲区中暂存一份
+ */
+public class AdaptiveGzipInterceptor implements Interceptor, Closeable {
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    /**
+     * gzip头：魔数、deflate、无标志位、无时间戳、无额外标志、未知系统，与GZIPOutputStream相同
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final long threshold;
+    private final DeflaterPool pool;
+
+    private final LongAdder compressedRequests = new LongAdder();
+    private final LongAdder skippedRequests = new LongAdder();
+    private final LongAdder rawBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+
+    /**
+     * 创建拦截器
+     *
+     * @param threshold 压缩的最小字节数
+     * @param pool      Deflater对象池
+     */
+    public AdaptiveGzipInterceptor(long threshold, DeflaterPool pool) {
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        final RequestBody body = request.body();
+        if (body == null || request.header(CONTENT_ENCODING) != null
+                || !request.url().encodedPath().endsWith("/write")) {
+            return chain.proceed(request);
+        }
+        final long length = body.contentLength();
+        if (length >= 0 && length < threshold) {
+            skippedRequests.increment();
+            return chain.proceed(request);
+        }
+        compressedRequests.increment();
+        return chain.proceed(request.newBuilder()
+                .header(CONTENT_ENCODING, "gzip")
+                .method(request.method(), new GzipRequestBody(body))
+                .build());
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public int getLevel() {
+        return pool.getLevel();
+    }
+
+    public long getCompressedRequests() {
+        return compressedRequests.sum();
+    }
+
+    public long getSkippedRequests() {
+        return skippedRequests.sum();
+    }
+
+    /**
+     * 压缩前的字节数(只统计压缩的请求)
+     */
+    public long getRawBytes() {
+        return rawBytes.sum();
+    }
+
+    /**
+     * 压缩后的字节数
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * 压缩率：压缩后的字节数 / 压缩前的字节数
+     */
+    public double getCompressionRatio() {
+        final long raw = rawBytes.sum();
+        return raw > 0 ? (double) compressedBytes.sum() / raw : 1;
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveGzipInterceptor{" +
+                "threshold=" + threshold +
+                ", level=" + pool.getLevel() +
+                ", compressedRequests=" + compressedRequests +
+                ", skippedRequests=" + skippedRequests +
+                ", rawBytes=" + rawBytes +
+                ", compressedBytes=" + compressedBytes +
+                '}';
+    }
+
+    /**
+     * 写入时压缩的请求体，长度未知，以分块传输的方式发送
+     */
+    private final class GzipRequestBody extends RequestBody {
+
+        private final RequestBody body;
+
+        GzipRequestBody(RequestBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            final DeflaterPool.Compressor compressor = pool.acquire();
+            try {
+                sink.write(GZIP_HEADER);
+                final DeflaterSink deflater = new DeflaterSink(compressor, sink);
+                // 原始请求体经过Okio的分段缓冲交给Deflater，不在内存中保留完整的请求体
+                final BufferedSink buffered = Okio.buffer(deflater);
+                body.writeTo(buffered);
+                buffered.emit();
+                deflater.finish();
+
+                rawBytes.add(deflater.raw);
+                compressedBytes.add(GZIP_HEADER.length + deflater.written);
+            } finally {
+                pool.release(compressor);
+            }
+        }
+    }
+
+    /**
+     * 将写入的数据压缩后写入下游，不关闭下游
+     */
+    private static final class DeflaterSink implements Sink {
+
+        private final DeflaterPool.Compressor compressor;
+        private final BufferedSink sink;
+        /**
+         * 压缩前的字节数、写入下游的字节数(不包括gzip头)
+         */
+        long raw;
+        long written;
+
+        DeflaterSink(DeflaterPool.Compressor compressor, BufferedSink sink) {
+            this.compressor = compressor;
+            this.sink = sink;
+        }
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            final Deflater deflater = compressor.deflater;
+            final byte[] input = compressor.input;
+            long remaining = byteCount;
+            while (remaining > 0) {
+                final int n = source.read(input, 0, (int) Math.min(input.length, remaining));
+                compressor.crc.update(input, 0, n);
+                deflater.setInput(input, 0, n);
+                while (!deflater.needsInput()) {
+                    deflate();
+                }
+                remaining -= n;
+                raw += n;
+            }
+        }
+
+        /**
+         * 结束压缩，写入剩余的压缩数据和gzip尾
+         */
+        void finish() throws IOException {
+            final Deflater deflater = compressor.deflater;
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            // gzip尾：CRC32和原始长度，小端
+            sink.writeIntLe((int) compressor.crc.getValue());
+            sink.writeIntLe((int) raw);
+            written += 8;
+        }
+
+        private void deflate() throws IOException {
+            final byte[] output = compressor.output;
+            final int m = compressor.deflater.deflate(output, 0, output.length);
+            sink.write(output, 0, m);
+            written += m;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            sink.flush();
+        }
+
+        @Override
+        public Timeout timeout() {
+            return sink.timeout();
+        }
+
+        @Override
+        public void close() {
+            // 由调用方结束压缩，下游由OkHttp关闭
+        }
+    }
+}
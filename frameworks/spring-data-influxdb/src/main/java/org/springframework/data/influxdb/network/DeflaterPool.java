@@ -0,0 +1,95 @@
+package org.springframework.data.influxdb.network;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Deflater和压缩缓冲区的对象池
+ * <p>
+ * Deflater持有本地内存，每个请求创建一个并且依赖finalize释放代价很高；
+ * 池中的对象用完后reset放回，池满时直接end释放
+ */
+public class DeflaterPool implements Closeable {
+
+    /**
+     * 输入和输出缓冲区的大小
+     */
+    static final int BUFFER_SIZE = 8192;
+
+    private final int level;
+    private final BlockingQueue<Compressor> pool;
+    private volatile boolean closed;
+
+    /**
+     * 创建对象池
+     *
+     * @param level    压缩级别，0~9，-1为默认级别
+     * @param capacity 池中最多保留的对象数量
+     */
+    public DeflaterPool(int level, int capacity) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("level must be between -1 and 9.");
+        }
+        this.level = level;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * 获取压缩器，池中没有时创建
+     */
+    Compressor acquire() {
+        final Compressor compressor = pool.poll();
+        return compressor != null ? compressor : new Compressor(new Deflater(level, true));
+    }
+
+    /**
+     * 归还压缩器
+     */
+    void release(final Compressor compressor) {
+        compressor.deflater.reset();
+        compressor.crc.reset();
+        if (closed || !pool.offer(compressor)) {
+            compressor.deflater.end();
+        }
+    }
+
+    /**
+     * 池中空闲的对象数量
+     */
+    public int getIdle() {
+        return pool.size();
+    }
+
+    /**
+     * 释放池中所有的Deflater
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Compressor compressor;
+        while ((compressor = pool.poll()) != null) {
+            compressor.deflater.end();
+        }
+    }
+
+    /**
+     * Deflater(不带zlib头)、CRC32和缓冲区
+     */
+    static final class Compressor {
+        final Deflater deflater;
+        final CRC32 crc = new CRC32();
+        final byte[] input = new byte[BUFFER_SIZE];
+        final byte[] output = new byte[BUFFER_SIZE];
+
+        Compressor(Deflater deflater) {
+            this.deflater = deflater;
+        }
+    }
+}
@@ -0,0 +1,503 @@
+package org.springframework.data.influxdb.network;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import okhttp3.*;
+import okio.BufferedSink;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBIOException;
+import org.influxdb.dto.BoundParameterQuery;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.springframework.data.influxdb.InfluxDBConnectionFactory;
+import org.springframework.data.influxdb.InfluxDBProperties;
+import org.springframework.data.influxdb.cluster.ClusterInfluxDB;
+import org.springframework.data.influxdb.cluster.InfluxEndpoint;
+import org.springframework.data.influxdb.converter.LineProtocolBatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 直接通过OkHttp访问InfluxDB的HTTP接口
+ * <p>
+ * influxdb-java的分块查询只能通过回调消费结果，无法取消也无法感知结束，
+ * 这里直接构造请求，由调用方控制响应体的读取和关闭。
+ * 配置了多个节点时，通过{@link #execute(Call)}和{@link #executeAsync(Call)}执行的请求与集群代理对象一样
+ * 更新节点的健康状态和延迟统计，网络错误和5xx响应在其他节点上重试
+ */
+public class InfluxDBHttpClient {
+
+    /**
+     * QueryResult的JSON解析器，线程安全
+     */
+    static final JsonAdapter<QueryResult> ADAPTER = new Moshi.Builder().build().adapter(QueryResult.class);
+
+    private static final MediaType TEXT_PLAIN = MediaType.parse("text/plain; charset=utf-8");
+
+    private final InfluxDBConnectionFactory connectionFactory;
+
+    public InfluxDBHttpClient(InfluxDBConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public InfluxDBConnectionFactory getConnectionFactory() {
+        return connectionFactory;
+    }
+
+    /**
+     * 创建分块查询的请求
+     *
+     * @param query     查询
+     * @param chunkSize 每一块的数据条数
+     * @return 返回未执行的Call
+     */
+    public Call newChunkedQueryCall(final Query query, final int chunkSize) {
+        final String endpoint = connectionFactory.selectUrl();
+        final HttpUrl.Builder url = baseUrl(endpoint, "query");
+        url.addQueryParameter("chunked", "true");
+        url.addQueryParameter("chunk_size", String.valueOf(chunkSize));
+        return newQueryCall(query, endpoint, url);
+    }
+
+    /**
+     * 创建查询的请求
+     *
+     * @param query    查询
+     * @param timeUnit 返回的时间戳的单位，为null时返回RFC3339格式的时间
+     * @return 返回未执行的Call
+     */
+    public Call newQueryCall(final Query query, final TimeUnit timeUnit) {
+        final String endpoint = connectionFactory.selectUrl();
+        final HttpUrl.Builder url = baseUrl(endpoint, "query");
+        if (timeUnit != null) {
+            url.addQueryParameter("epoch", toTimePrecision(timeUnit));
+        }
+        return newQueryCall(query, endpoint, url);
+    }
+
+    private Call newQueryCall(final Query query, final String endpoint, final HttpUrl.Builder url) {
+        if (query.getDatabase() != null) {
+            url.addQueryParameter("db", query.getDatabase());
+        }
+        if (query instanceof BoundParameterQuery) {
+            url.addEncodedQueryParameter("params", ((BoundParameterQuery) query).getParameterJsonWithUrlEncoded());
+        }
+
+        // 记录请求发送到的节点，失败时在其他节点上重试
+        final Request.Builder request = new Request.Builder().tag(endpoint);
+        if (query.requiresPost()) {
+            request.post(new FormBody.Builder().add("q", query.getCommand()).build());
+        } else {
+            url.addQueryParameter("q", query.getCommand());
+            request.get();
+        }
+        authenticate(url, connectionFactory.getProperties());
+        return connectionFactory.getHttpClient().newCall(request.url(url.build()).build());
+    }
+
+    /**
+     * 同步执行请求，配置了多个节点时网络错误和5xx响应在其他节点上重试
+     *
+     * @param call 请求
+     * @return 返回最后一次请求的响应，使用完毕后需要关闭
+     * @throws IOException 最后一次请求无法连接
+     */
+    public Response execute(final Call call) throws IOException {
+        return execute(call, new AtomicReference<>());
+    }
+
+    /**
+     * 同步执行请求
+     *
+     * @param call    请求
+     * @param retried 保存最后一次执行的请求，重试后是发送到其他节点的请求
+     */
+    private Response execute(final Call call, final AtomicReference<Call> retried) throws IOException {
+        final ClusterInfluxDB cluster = connectionFactory.getCluster();
+        Call current = call;
+        List<InfluxEndpoint> tried = null;
+        while (true) {
+            retried.set(current);
+            final InfluxEndpoint endpoint = endpointOf(cluster, current);
+            if (endpoint == null) {
+                return current.execute();
+            }
+            final long start = endpoint.begin();
+            final Response response;
+            try {
+                response = current.execute();
+            } catch (IOException e) {
+                endpoint.end(start, false);
+                if (tried == null) {
+                    tried = new ArrayList<>();
+                }
+                final InfluxEndpoint next = current.isCanceled() ? null
+                        : cluster.failover(endpoint, tried, operationOf(current), new InfluxDBIOException(e));
+                if (next == null) {
+                    throw e;
+                }
+                current = retarget(current, next);
+                continue;
+            }
+            endpoint.end(start, response.code() < 500);
+            if (response.code() < 500) {
+                return response;
+            }
+            if (tried == null) {
+                tried = new ArrayList<>();
+            }
+            final InfluxEndpoint next = cluster.failover(endpoint, tried, operationOf(current),
+                    new InfluxDBException(response.code() + " " + response.message()));
+            if (next == null) {
+                return response;
+            }
+            response.close();
+            current = retarget(current, next);
+        }
+    }
+
+    /**
+     * 通过OkHttp的调度器异步执行请求，失败的响应转换成InfluxDBException；取消返回的Future时取消请求
+     * <p>
+     * 配置了多个节点时网络错误和5xx响应在其他节点上重试
+     *
+     * @param call 请求
+     * @return 返回成功的响应，使用完毕后需要关闭
+     */
+    public CompletableFuture<Response> executeAsync(final Call call) {
+        return executeAsync(call, new AtomicReference<>());
+    }
+
+    /**
+     * 异步执行请求
+     *
+     * @param call    请求
+     * @param current 保存正在执行的请求，重试后是发送到其他节点的请求
+     */
+    private CompletableFuture<Response> executeAsync(final Call call, final AtomicReference<Call> current) {
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        current.set(call);
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled()) {
+                current.get().cancel();
+            }
+        });
+        enqueue(call, connectionFactory.getCluster(), new ArrayList<>(), current, future);
+        return future;
+    }
+
+    private void enqueue(final Call call, final ClusterInfluxDB cluster, final List<InfluxEndpoint> tried,
+                         final AtomicReference<Call> current, final CompletableFuture<Response> future) {
+        final InfluxEndpoint endpoint = endpointOf(cluster, call);
+        final long start = endpoint != null ? endpoint.begin() : 0;
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                if (endpoint != null) {
+                    endpoint.end(start, false);
+                }
+                final InfluxDBIOException error = new InfluxDBIOException(e);
+                if (!retry(c, cluster, endpoint, tried, error, current, future)) {
+                    future.completeExceptionally(error);
+                }
+            }
+
+            @Override
+            public void onResponse(Call c, Response response) {
+                if (endpoint != null) {
+                    endpoint.end(start, response.code() < 500);
+                }
+                if (response.isSuccessful()) {
+                    if (!future.complete(response)) {
+                        // 已经被取消
+                        response.close();
+                    }
+                    return;
+                }
+                if (response.code() >= 500 && retry(c, cluster, endpoint, tried,
+                        new InfluxDBException(response.code() + " " + response.message()), current, future)) {
+                    response.close();
+                    return;
+                }
+                future.completeExceptionally(toException(response));
+            }
+        });
+    }
+
+    /**
+     * 在其他节点上重试失败的请求
+     *
+     * @return 已经在其他节点上重试时返回true
+     */
+    private boolean retry(final Call failed, final ClusterInfluxDB cluster, final InfluxEndpoint endpoint,
+                          final List<InfluxEndpoint> tried, final InfluxDBException e,
+                          final AtomicReference<Call> current, final CompletableFuture<Response> future) {
+        if (endpoint == null || failed.isCanceled() || future.isDone()) {
+            return false;
+        }
+        final InfluxEndpoint next = cluster.failover(endpoint, tried, operationOf(failed), e);
+        if (next == null) {
+            return false;
+        }
+        final Call call = retarget(failed, next);
+        current.set(call);
+        // 设置current之前被取消时，重试的请求不会被取消，不再发送
+        if (!future.isCancelled()) {
+            enqueue(call, cluster, tried, current, future);
+        }
+        return true;
+    }
+
+    /**
+     * 请求发送到的节点
+     *
+     * @return 只配置了一个节点，或者请求不是由当前客户端创建时返回null
+     */
+    private static InfluxEndpoint endpointOf(final ClusterInfluxDB cluster, final Call call) {
+        final Object tag = call.request().tag();
+        return cluster != null && tag instanceof String ? cluster.getEndpoint((String) tag) : null;
+    }
+
+    /**
+     * 请求的名称(write、query或ping)
+     */
+    private static String operationOf(final Call call) {
+        final List<String> segments = call.request().url().pathSegments();
+        return segments.get(segments.size() - 1);
+    }
+
+    /**
+     * 将请求发送到其他节点，请求的方法、参数和请求体不变
+     */
+    private Call retarget(final Call call, final InfluxEndpoint endpoint) {
+        final Request request = call.request();
+        final HttpUrl url = baseUrl(endpoint.getUrl(), operationOf(call))
+                .encodedQuery(request.url().encodedQuery())
+                .build();
+        return connectionFactory.getHttpClient().newCall(request.newBuilder().url(url).tag(endpoint.getUrl()).build());
+    }
+
+    /**
+     * 解析查询的响应体，查询出错时抛出异常
+     *
+     * @param response 成功的响应
+     * @return 返回查询结果
+     */
+    public static QueryResult readQueryResult(final Response response) {
+        try (ResponseBody body = response.body()) {
+            final QueryResult result = body != null ? ADAPTER.fromJson(body.source()) : null;
+            if (result == null) {
+                throw new InfluxDBException("Empty response body");
+            }
+            if (result.getError() != null) {
+                throw InfluxDBException.buildExceptionForErrorState(result.getError());
+            }
+            return result;
+        } catch (IOException e) {
+            throw new InfluxDBIOException(e);
+        }
+    }
+
+    /**
+     * 执行分块查询，返回按块读取结果的读取器
+     *
+     * @param query     查询
+     * @param chunkSize 每一块的数据条数
+     * @return 返回读取器，使用完毕后需要关闭
+     */
+    public QueryResultReader chunkedQuery(final Query query, final int chunkSize) {
+        final AtomicReference<Call> call = new AtomicReference<>();
+        final Response response;
+        try {
+            response = execute(newChunkedQueryCall(query, chunkSize), call);
+        } catch (IOException e) {
+            throw new InfluxDBException(e);
+        }
+        return QueryResultReader.of(call.get(), response);
+    }
+
+    /**
+     * 异步执行分块查询，返回按块读取结果的读取器
+     *
+     * @param query     查询
+     * @param chunkSize 每一块的数据条数
+     * @return 返回读取器，使用完毕后需要关闭；取消返回的Future时取消请求
+     */
+    public CompletableFuture<QueryResultReader> chunkedQueryAsync(final Query query, final int chunkSize) {
+        final AtomicReference<Call> current = new AtomicReference<>();
+        final CompletableFuture<Response> response = executeAsync(newChunkedQueryCall(query, chunkSize), current);
+        final CompletableFuture<QueryResultReader> reader = response
+                .thenApply(r -> QueryResultReader.of(current.get(), r));
+        reader.whenComplete((r, e) -> {
+            if (reader.isCancelled()) {
+                response.cancel(true);
+            }
+        });
+        return reader;
+    }
+
+    /**
+     * 创建写入Line Protocol数据的请求
+     *
+     * @param database        数据库
+     * @param retentionPolicy 存储策略
+     * @param consistency     一致性级别
+     * @param precision       时间精度
+     * @param lines           Line Protocol数据
+     * @return 返回未执行的Call
+     */
+    public Call newWriteCall(final String database, final String retentionPolicy,
+                             final InfluxDB.ConsistencyLevel consistency,
+                             final TimeUnit precision, final String lines) {
+        final String endpoint = connectionFactory.selectUrl();
+        final HttpUrl.Builder url = baseUrl(endpoint, "write");
+        url.addQueryParameter("db", database);
+        if (retentionPolicy != null) {
+            url.addQueryParameter("rp", retentionPolicy);
+        }
+        url.addQueryParameter("precision", toTimePrecision(precision));
+        url.addQueryParameter("consistency", consistency.value());
+        authenticate(url, connectionFactory.getProperties());
+        final Request request = new Request.Builder()
+                .url(url.build())
+                .tag(endpoint)
+                .post(new LineProtocolBody(lines))
+                .build();
+        return connectionFactory.getHttpClient().newCall(request);
+    }
+
+    /**
+     * 创建ping请求
+     *
+     * @return 返回未执行的Call
+     */
+    public Call newPingCall() {
+        final String endpoint = connectionFactory.selectUrl();
+        final Request request = new Request.Builder()
+                .url(baseUrl(endpoint, "ping").build())
+                .tag(endpoint)
+                .get()
+                .build();
+        return connectionFactory.getHttpClient().newCall(request);
+    }
+
+    /**
+     * 根据失败的响应创建异常，响应体中的错误信息与influxdb-java的处理方式一致
+     *
+     * @param response 失败的响应
+     * @return 返回异常
+     */
+    public static InfluxDBException toException(final Response response) {
+        String error = null;
+        try {
+            final ResponseBody body = response.body();
+            final String content = body != null ? body.string() : null;
+            if (content != null && !content.isEmpty()) {
+                try {
+                    final QueryResult result = ADAPTER.fromJson(content);
+                    error = result != null ? result.getError() : null;
+                } catch (IOException | RuntimeException e) {
+                    error = content;
+                }
+            }
+        } catch (IOException e) {
+            // ignore
+        } finally {
+            response.close();
+        }
+        return InfluxDBException.buildExceptionForErrorState(
+                error != null ? error : response.code() + " " + response.message());
+    }
+
+    /**
+     * 时间精度对应的参数
+     */
+    public static String toTimePrecision(final TimeUnit precision) {
+        switch (precision) {
+            case HOURS:
+                return "h";
+            case MINUTES:
+                return "m";
+            case SECONDS:
+                return "s";
+            case MILLISECONDS:
+                return "ms";
+            case MICROSECONDS:
+                return "u";
+            case NANOSECONDS:
+                return "n";
+            default:
+                throw new IllegalArgumentException("Time precision must be one of: "
+                        + "HOURS, MINUTES, SECONDS, MILLISECONDS, MICROSECONDS, NANOSECONDS");
+        }
+    }
+
+    private static HttpUrl.Builder baseUrl(final String url, final String path) {
+        final HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            throw new IllegalArgumentException("Unable to parse url: " + url);
+        }
+        return httpUrl.newBuilder().addPathSegment(path);
+    }
+
+    /**
+     * Line Protocol请求体，按片段编码写入，不需要先把完整的请求体编码成字节数组；
+     * 经过{@link AdaptiveGzipInterceptor}时边编码边压缩
+     */
+    private static final class LineProtocolBody extends RequestBody {
+
+        /**
+         * 每次编码的字符数
+         */
+        private static final int SLICE = 8192;
+
+        private final String lines;
+        private final long length;
+
+        LineProtocolBody(String lines) {
+            this.lines = lines;
+            this.length = LineProtocolBatch.utf8Length(lines, 0, lines.length());
+        }
+
+        @Override
+        public MediaType contentType() {
+            return TEXT_PLAIN;
+        }
+
+        @Override
+        public long contentLength() {
+            return length;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            final int n = lines.length();
+            int from = 0;
+            while (from < n) {
+                int to = Math.min(n, from + SLICE);
+                if (to < n && Character.isHighSurrogate(lines.charAt(to - 1))) {
+                    // 不拆开代理对
+                    to--;
+                }
+                sink.writeUtf8(lines, from, to);
+                sink.emitCompleteSegments();
+                from = to;
+            }
+        }
+    }
+
+    private static void authenticate(final HttpUrl.Builder url, final InfluxDBProperties properties) {
+        if (properties.getUsername() != null) {
+            url.addQueryParameter("u", properties.getUsername());
+        }
+        if (properties.getPassword() != null) {
+            url.addQueryParameter("p", properties.getPassword());
+        }
+    }
+}
@@ -16,6 +16,8 @@ import java.util.Map;
 
 /**
  * 网络请求的拦截器
+ * <p>
+ * 每个请求都会解析请求头和查询参数，只需要请求的大小和耗时时使用{@link SamplingInterceptor}
  */
 public class NetworkInterceptor implements Interceptor {
 
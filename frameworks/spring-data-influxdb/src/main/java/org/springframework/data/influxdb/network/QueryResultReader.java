@@ -0,0 +1,103 @@
+package org.springframework.data.influxdb.network;
+
+import okhttp3.Call;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.QueryResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 按块读取分块查询的响应体，每次只解析一块数据
+ */
+public class QueryResultReader implements Closeable {
+
+    private final Call call;
+    private final ResponseBody body;
+    private final BufferedSource source;
+    private volatile boolean closed = false;
+
+    private QueryResultReader(Call call, ResponseBody body) {
+        this.call = call;
+        this.body = body;
+        this.source = body.source();
+    }
+
+    /**
+     * 创建读取器，响应失败时抛出异常
+     *
+     * @param call     请求
+     * @param response 响应
+     * @return 返回读取器
+     */
+    public static QueryResultReader of(final Call call, final Response response) {
+        final ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            String error;
+            try {
+                error = body != null ? body.string() : response.message();
+            } catch (IOException e) {
+                error = response.message();
+            } finally {
+                response.close();
+            }
+            throw new InfluxDBException(error);
+        }
+        return new QueryResultReader(call, body);
+    }
+
+    /**
+     * 读取下一块数据
+     *
+     * @return 返回下一块数据，没有更多数据时返回null
+     */
+    public QueryResult next() {
+        if (closed) {
+            return null;
+        }
+        try {
+            // 跳过块之间的换行符
+            while (source.request(1)) {
+                byte b = source.buffer().getByte(0);
+                if (b == '\n' || b == '\r' || b == ' ' || b == '\t') {
+                    source.skip(1);
+                } else {
+                    break;
+                }
+            }
+            if (source.exhausted()) {
+                close();
+                return null;
+            }
+            final QueryResult result = InfluxDBHttpClient.ADAPTER.fromJson(source);
+            if (result != null && result.getError() != null) {
+                close();
+                throw new InfluxDBException(result.getError());
+            }
+            return result;
+        } catch (IOException e) {
+            close();
+            throw new InfluxDBException(e);
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭响应体，未读取完毕时取消请求
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        body.close();
+        call.cancel();
+    }
+}
@@ -0,0 +1,139 @@
+package org.springframework.data.influxdb.network;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 采样的请求事件
+ * <p>
+ * 只保存HttpUrl和Headers的引用(两者都是不可变的)，请求头和查询参数在需要时才解析，
+ * 不保存请求体和响应体
+ */
+public final class RequestEvent {
+
+    private final long timestamp;
+    private final String method;
+    private final HttpUrl url;
+    private final Headers headers;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final int code;
+    private final long durationNanos;
+    private final boolean failed;
+
+    RequestEvent(long timestamp, String method, HttpUrl url, Headers headers, long requestBytes,
+                 long responseBytes, int code, long durationNanos, boolean failed) {
+        this.timestamp = timestamp;
+        this.method = method;
+        this.url = url;
+        this.headers = headers;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.code = code;
+        this.durationNanos = durationNanos;
+        this.failed = failed;
+    }
+
+    /**
+     * 请求开始的时间(毫秒)
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public HttpUrl getUrl() {
+        return url;
+    }
+
+    /**
+     * 请求路径，例如: /write、/query
+     */
+    public String getPath() {
+        return url.encodedPath();
+    }
+
+    /**
+     * 请求体的字节数，未知时为-1
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * 响应体的字节数，未知时(例如分块传输)为-1
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * 响应码，请求失败(没有响应)时为-1
+     */
+    public int getCode() {
+        return code;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * 获取请求头
+     */
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    /**
+     * 获取所有请求头，调用时才解析
+     */
+    public Map<String, String> getHeaders() {
+        final Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            map.put(headers.name(i), headers.value(i));
+        }
+        return map;
+    }
+
+    /**
+     * 获取查询参数
+     */
+    public String getQueryParameter(String name) {
+        return url.queryParameter(name);
+    }
+
+    /**
+     * 获取所有查询参数，调用时才解析
+     */
+    public Map<String, String> getQueries() {
+        final Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < url.querySize(); i++) {
+            map.put(url.queryParameterName(i), url.queryParameterValue(i));
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestEvent{" +
+                "method=" + method +
+                ", path=" + getPath() +
+                ", code=" + code +
+                ", requestBytes=" + requestBytes +
+                ", responseBytes=" + responseBytes +
+                ", durationMillis=" + durationNanos / 1000_000 +
+                (failed ? ", failed" : "") +
+                '}';
+    }
+}
@@ -0,0 +1,17 @@
+package org.springframework.data.influxdb.network;
+
+import java.util.List;
+
+/**
+ * 处理采样的请求事件，在后台线程中定期调用
+ */
+public interface RequestEventReporter {
+
+    /**
+     * 报告一批请求事件
+     *
+     * @param events  请求事件，按请求的结束顺序排列
+     * @param dropped 上次报告以来因缓冲区已满被覆盖的事件数量
+     */
+    void report(List<RequestEvent> events, long dropped);
+}
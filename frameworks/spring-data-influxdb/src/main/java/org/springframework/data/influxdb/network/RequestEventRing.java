@@ -0,0 +1,142 @@
+package org.springframework.data.influxdb.network;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 无锁的请求事件环形缓冲区：多个线程写入，单个线程读取
+ * <p>
+ * 槽位在创建时分配，写入时只修改槽位的字段，不创建对象；写入者通过原子递增的序号获得槽位，
+ * 写完后发布序号。读取者追不上写入者时，被覆盖的事件计入丢弃数量，不会阻塞写入者
+ */
+public class RequestEventRing {
+
+    private static final AtomicLongFieldUpdater<Slot> PUBLISHED =
+            AtomicLongFieldUpdater.newUpdater(Slot.class, "published");
+
+    private final Slot[] slots;
+    private final int mask;
+    /**
+     * 下一个写入的序号
+     */
+    private final AtomicLong sequence = new AtomicLong();
+    /**
+     * 下一个读取的序号，只在drain中访问
+     */
+    private long cursor = 0;
+    private long dropped = 0;
+
+    /**
+     * 创建缓冲区
+     *
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public RequestEventRing(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1.");
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = size - 1;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * 写入一个事件
+     */
+    void publish(long timestamp, String method, HttpUrl url, Headers headers, long requestBytes,
+                 long responseBytes, int code, long durationNanos, boolean failed) {
+        final long seq = sequence.getAndIncrement();
+        final Slot slot = slots[(int) (seq & mask)];
+        // 写入期间标记为不可读；getAndSet保证后面的写入不会重排到标记之前
+        PUBLISHED.getAndSet(slot, -1);
+        slot.timestamp = timestamp;
+        slot.method = method;
+        slot.url = url;
+        slot.headers = headers;
+        slot.requestBytes = requestBytes;
+        slot.responseBytes = responseBytes;
+        slot.code = code;
+        slot.durationNanos = durationNanos;
+        slot.failed = failed;
+        slot.published = seq;
+    }
+
+    /**
+     * 读取所有已发布的事件，多个线程调用时串行执行
+     *
+     * @param maxEvents 最多读取的数量
+     * @return 返回读取的事件
+     */
+    public synchronized List<RequestEvent> drain(int maxEvents) {
+        final long end = sequence.get();
+        if (end - cursor > slots.length) {
+            // 被写入者追上，跳过已经被覆盖的事件
+            dropped += end - cursor - slots.length;
+            cursor = end - slots.length;
+        }
+        final List<RequestEvent> events = new ArrayList<>((int) Math.min(end - cursor, maxEvents));
+        while (cursor < end && events.size() < maxEvents) {
+            final Slot slot = slots[(int) (cursor & mask)];
+            final long published = slot.published;
+            if (published < cursor) {
+                // 尚未写完，下次再读
+                break;
+            }
+            final RequestEvent event = new RequestEvent(slot.timestamp, slot.method, slot.url, slot.headers,
+                    slot.requestBytes, slot.responseBytes, slot.code, slot.durationNanos, slot.failed);
+            // compareAndSet保证前面的读取不会重排到检查之后
+            if (!PUBLISHED.compareAndSet(slot, cursor, cursor)) {
+                // 读取期间被覆盖
+                dropped++;
+            } else {
+                events.add(event);
+            }
+            cursor++;
+        }
+        return events;
+    }
+
+    /**
+     * 获取并清零丢弃的事件数量
+     */
+    public synchronized long takeDropped() {
+        final long result = dropped;
+        dropped = 0;
+        return result;
+    }
+
+    /**
+     * 已写入的事件总数
+     */
+    public long getPublished() {
+        return sequence.get();
+    }
+
+    /**
+     * 缓冲区的槽位，字段由写入者修改，published为volatile保证读取者看到完整的写入
+     */
+    private static final class Slot {
+        volatile long published = -1;
+        long timestamp;
+        String method;
+        HttpUrl url;
+        Headers headers;
+        long requestBytes;
+        long responseBytes;
+        int code;
+        long durationNanos;
+        boolean failed;
+    }
+}
@@ -0,0 +1,228 @@
+package org.springframework.data.influxdb.network;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.influxdb.InfluxUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 采样的网络请求拦截器，替代{@link NetworkInterceptor}用于记录请求
+ * <p>
+ * 未被采样的请求直接放行；被采样的请求只记录方法、URL和请求头的引用、请求和响应的字节数、响应码和耗时，
+ * 写入无锁的环形缓冲区，不遍历请求头和查询参数，由后台线程定期读取并交给{@link RequestEventReporter}。
+ * 长度未知的请求体(例如边写入边压缩的请求体)在写入时计数，记录的是实际发送的字节数
+ */
+public class SamplingInterceptor implements Interceptor, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SamplingInterceptor.class);
+
+    /**
+     * 每次最多读取的事件数量
+     */
+    private static final int DRAIN_BATCH = 4096;
+
+    private final double sampleRate;
+    private final RequestEventRing ring;
+    private volatile ScheduledExecutorService reporterExecutor;
+
+    /**
+     * 创建拦截器
+     *
+     * @param sampleRate 采样率，0~1，1表示记录所有请求
+     * @param capacity   环形缓冲区的容量
+     */
+    public SamplingInterceptor(double sampleRate, int capacity) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1.");
+        }
+        this.sampleRate = sampleRate;
+        this.ring = new RequestEventRing(capacity);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        final Request request = chain.request();
+        if (!isSampled()) {
+            return chain.proceed(request);
+        }
+
+        final long timestamp = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        final RequestBody body = request.body();
+        final long contentLength = body != null ? body.contentLength() : 0;
+        final CountingRequestBody counting = contentLength < 0 ? new CountingRequestBody(body) : null;
+        final Response response;
+        try {
+            response = chain.proceed(counting != null
+                    ? request.newBuilder().method(request.method(), counting).build() : request);
+        } catch (IOException | RuntimeException e) {
+            ring.publish(timestamp, request.method(), request.url(), request.headers(),
+                    counting != null ? counting.written : contentLength, -1, -1, System.nanoTime() - start, true);
+            throw e;
+        }
+        final long requestBytes = counting != null ? counting.written : contentLength;
+        final ResponseBody responseBody = response.body();
+        ring.publish(timestamp, request.method(), request.url(), request.headers(), requestBytes,
+                responseBody != null ? responseBody.contentLength() : -1, response.code(),
+                System.nanoTime() - start, !response.isSuccessful());
+        return response;
+    }
+
+    private boolean isSampled() {
+        return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * 启动后台线程，定期将缓冲区中的事件交给reporter
+     *
+     * @param reporter 处理事件
+     * @param interval 间隔(毫秒)
+     * @return 返回当前对象
+     */
+    public synchronized SamplingInterceptor startReporter(final RequestEventReporter reporter, final long interval) {
+        if (reporterExecutor != null) {
+            throw new IllegalStateException("reporter already started");
+        }
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+                InfluxUtils.newThreadFactory("influxdb-request-reporter"));
+        executor.scheduleWithFixedDelay(() -> report(reporter), interval, interval, TimeUnit.MILLISECONDS);
+        this.reporterExecutor = executor;
+        return this;
+    }
+
+    /**
+     * 读取缓冲区中的事件并交给reporter
+     *
+     * @param reporter 处理事件
+     */
+    public void report(final RequestEventReporter reporter) {
+        try {
+            List<RequestEvent> events;
+            do {
+                events = ring.drain(DRAIN_BATCH);
+                final long dropped = ring.takeDropped();
+                if (!events.isEmpty() || dropped > 0) {
+                    reporter.report(events, dropped);
+                }
+            } while (events.size() == DRAIN_BATCH);
+        } catch (Throwable e) {
+            // 不能让异常结束定时任务
+            logger.warn("Report request events failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取缓冲区中的事件，未启动后台线程时由调用方自行读取
+     *
+     * @param maxEvents 最多读取的数量
+     * @return 返回事件
+     */
+    public List<RequestEvent> drain(final int maxEvents) {
+        return ring.drain(maxEvents);
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public RequestEventRing getRing() {
+        return ring;
+    }
+
+    /**
+     * 停止后台线程
+     */
+    @Override
+    public synchronized void close() {
+        final ScheduledExecutorService executor = this.reporterExecutor;
+        if (executor != null) {
+            this.reporterExecutor = null;
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 统计实际写入字节数的请求体，用于长度未知的请求体
+     */
+    private static final class CountingRequestBody extends RequestBody {
+
+        private final RequestBody body;
+        private long written;
+
+        CountingRequestBody(RequestBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return body.contentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            // 重试时重新计数
+            written = 0;
+            final BufferedSink counted = Okio.buffer(new ForwardingSink(sink) {
+                @Override
+                public void write(Buffer source, long byteCount) throws IOException {
+                    super.write(source, byteCount);
+                    written += byteCount;
+                }
+            });
+            body.writeTo(counted);
+            counted.emit();
+        }
+    }
+
+    /**
+     * 以debug级别打印汇总信息的reporter
+     */
+    public static class LoggingReporter implements RequestEventReporter {
+
+        private static final Logger logger = LoggerFactory.getLogger("InfluxDB");
+
+        @Override
+        public void report(List<RequestEvent> events, long dropped) {
+            if (!logger.isDebugEnabled() || events.isEmpty()) {
+                return;
+            }
+            long totalNanos = 0;
+            long maxNanos = 0;
+            long requestBytes = 0;
+            long responseBytes = 0;
+            int failures = 0;
+            for (RequestEvent event : events) {
+                totalNanos += event.getDurationNanos();
+                maxNanos = Math.max(maxNanos, event.getDurationNanos());
+                requestBytes += Math.max(0, event.getRequestBytes());
+                responseBytes += Math.max(0, event.getResponseBytes());
+                failures += event.isFailed() ? 1 : 0;
+            }
+            logger.debug("Sampled {} InfluxDB requests (dropped {}, failed {}): avg {}ms, max {}ms, sent {} bytes, received {} bytes",
+                    events.size(), dropped, failures, totalNanos / events.size() / 1000_000, maxNanos / 1000_000,
+                    requestBytes, responseBytes);
+        }
+    }
+}
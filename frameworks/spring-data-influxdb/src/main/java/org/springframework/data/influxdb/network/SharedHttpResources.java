@@ -0,0 +1,74 @@
+package org.springframework.data.influxdb.network;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import org.springframework.data.influxdb.InfluxDBProperties;
+import org.springframework.data.influxdb.InfluxUtils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个InfluxDBConnectionFactory共用的连接池和调度器
+ * <p>
+ * 按第一次获取时的配置创建，之后的配置不再生效，进程内只存在一份
+ */
+public final class SharedHttpResources {
+
+    private static ConnectionPool connectionPool;
+    private static Dispatcher dispatcher;
+
+    private SharedHttpResources() {
+    }
+
+    /**
+     * 获取共用的连接池
+     *
+     * @param http HTTP配置
+     * @return 返回连接池
+     */
+    public static synchronized ConnectionPool getConnectionPool(final InfluxDBProperties.Http http) {
+        if (connectionPool == null) {
+            connectionPool = newConnectionPool(http);
+        }
+        return connectionPool;
+    }
+
+    /**
+     * 获取共用的调度器
+     *
+     * @param http HTTP配置
+     * @return 返回调度器
+     */
+    public static synchronized Dispatcher getDispatcher(final InfluxDBProperties.Http http) {
+        if (dispatcher == null) {
+            dispatcher = newDispatcher(http);
+        }
+        return dispatcher;
+    }
+
+    /**
+     * 按配置创建连接池
+     */
+    public static ConnectionPool newConnectionPool(final InfluxDBProperties.Http http) {
+        return new ConnectionPool(http.getMaxIdleConnections(), http.getKeepAlive(), TimeUnit.SECONDS);
+    }
+
+    /**
+     * 按配置创建调度器，dispatcherThreads小于等于0时使用OkHttp默认的线程池
+     */
+    public static Dispatcher newDispatcher(final InfluxDBProperties.Http http) {
+        final Dispatcher dispatcher;
+        if (http.getDispatcherThreads() > 0) {
+            ExecutorService executor = Executors.newFixedThreadPool(
+                    http.getDispatcherThreads(), InfluxUtils.newThreadFactory("influxdb-http"));
+            dispatcher = new Dispatcher(executor);
+        } else {
+            dispatcher = new Dispatcher();
+        }
+        dispatcher.setMaxRequests(http.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(http.getMaxRequestsPerHost());
+        return dispatcher;
+    }
+}
@@ -0,0 +1,195 @@
+package org.springframework.data.influxdb.query;
+
+import org.influxdb.dto.QueryResult;
+import org.springframework.data.influxdb.network.QueryResultReader;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 分块查询的流水线：网络读取 -&gt; 有界的预读队列 -&gt; 并行映射 -&gt; 消费
+ * <p>
+ * 读取线程只负责从响应体中解析QueryResult，解析后交给映射线程池，并按读取顺序放入预读队列；
+ * 消费线程按顺序等待每一块的映射结果再交给consumer，因此consumer收到的数据顺序与服务端返回的顺序一致。
+ * 预读队列已满时读取线程阻塞，不再从socket读取数据，慢的consumer不会导致内存无限增长
+ *
+ * @param <T> 对象类型
+ */
+public class ChunkedQueryPipeline<T> {
+
+    /**
+     * 数据读取完毕的标记
+     */
+    private static final Object END = new Object();
+
+    private final QueryResultReader reader;
+    private final Function<QueryResult, List<T>> mapper;
+    private final Consumer<List<T>> consumer;
+    private final Executor mappingExecutor;
+    private final Executor stageExecutor;
+    private final BlockingQueue<Object> prefetch;
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private final CompletableFuture<PipelineMetrics> completion = new CompletableFuture<>();
+
+    private volatile boolean closed = false;
+
+    /**
+     * 创建流水线
+     *
+     * @param reader          分块查询的响应
+     * @param mapper          将一块数据映射成对象，在映射线程池中执行
+     * @param consumer        消费映射后的数据，在消费线程中按顺序执行
+     * @param prefetch        预读的块数
+     * @param mappingExecutor 映射线程池
+     * @param stageExecutor   执行读取和消费阶段的线程池，每个流水线占用两个线程
+     */
+    public ChunkedQueryPipeline(QueryResultReader reader,
+                                Function<QueryResult, List<T>> mapper,
+                                Consumer<List<T>> consumer,
+                                int prefetch,
+                                Executor mappingExecutor,
+                                Executor stageExecutor) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("prefetch must be >= 1.");
+        }
+        this.reader = reader;
+        this.mapper = mapper;
+        this.consumer = consumer;
+        this.mappingExecutor = mappingExecutor;
+        this.stageExecutor = stageExecutor;
+        this.prefetch = new ArrayBlockingQueue<>(prefetch);
+    }
+
+    /**
+     * 启动流水线
+     *
+     * @return 所有数据消费完毕后返回各个阶段的统计，读取、映射或者消费失败时异常结束
+     */
+    public CompletableFuture<PipelineMetrics> start() {
+        try {
+            stageExecutor.execute(this::read);
+            stageExecutor.execute(this::consume);
+        } catch (RejectedExecutionException e) {
+            fail(e);
+        }
+        return completion;
+    }
+
+    /**
+     * 提前结束，关闭响应并丢弃预读的数据
+     */
+    public void cancel() {
+        fail(new CancellationException("pipeline cancelled"));
+    }
+
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void read() {
+        try {
+            while (!closed) {
+                long start = System.nanoTime();
+                final QueryResult result = reader.next();
+                if (result == null) {
+                    break;
+                }
+                metrics.getRead().record(rows(result), System.nanoTime() - start);
+                put(CompletableFuture.supplyAsync(() -> map(result), mappingExecutor));
+            }
+            put(END);
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private List<T> map(final QueryResult result) {
+        final long start = System.nanoTime();
+        final List<T> list = mapper.apply(result);
+        metrics.getMap().record(list.size(), System.nanoTime() - start);
+        return list;
+    }
+
+    /**
+     * 放入预读队列，队列已满时等待
+     */
+    private void put(final Object item) throws InterruptedException {
+        if (prefetch.offer(item)) {
+            return;
+        }
+        final long start = System.nanoTime();
+        while (!closed && !prefetch.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            // ~ 等待消费
+        }
+        metrics.recordBackpressure(System.nanoTime() - start);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void consume() {
+        try {
+            while (!closed) {
+                final Object item = prefetch.poll(100, TimeUnit.MILLISECONDS);
+                if (item == null) {
+                    continue;
+                }
+                if (item == END) {
+                    reader.close();
+                    completion.complete(metrics);
+                    return;
+                }
+                final List<T> list = join((CompletableFuture<List<T>>) item);
+                final long start = System.nanoTime();
+                consumer.accept(list);
+                metrics.getConsume().record(list.size(), System.nanoTime() - start);
+            }
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private static <V> V join(final CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void fail(final Throwable e) {
+        // 先结束，保证调用方看到的是最初的异常，而不是关闭响应后读取线程的异常
+        completion.completeExceptionally(e);
+        closed = true;
+        reader.close();
+        Object item;
+        while ((item = prefetch.poll()) != null) {
+            if (item instanceof CompletableFuture) {
+                ((CompletableFuture<?>) item).cancel(false);
+            }
+        }
+    }
+
+    private static int rows(final QueryResult result) {
+        int rows = 0;
+        if (result.getResults() != null) {
+            for (QueryResult.Result r : result.getResults()) {
+                if (r != null && r.getSeries() != null) {
+                    for (QueryResult.Series series : r.getSeries()) {
+                        if (series.getValues() != null) {
+                            rows += series.getValues().size();
+                        }
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+}
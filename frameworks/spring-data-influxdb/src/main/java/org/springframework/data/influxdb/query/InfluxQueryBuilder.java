@@ -0,0 +1,258 @@
+package org.springframework.data.influxdb.query;
+
+import org.influxdb.annotation.Column;
+import org.springframework.data.influxdb.converter.DefaultPointConverter;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 根据@Measurement和@Column注解生成查询语句
+ * <p>
+ * SELECT的字段来自bean的映射(只包括结果映射会用到的字段，也可以只选择其中一部分)，条件中的值全部使用参数($name)，
+ * 生成的{@link PreparedInfluxQuery}可以重复使用，每次调用只需要绑定参数的值
+ * <pre>
+ * PreparedInfluxQuery&lt;Cpu&gt; query = template.prepare(Cpu.class)
+ *         .whereEquals("host")
+ *         .whereTimeBetween()
+ *         .orderByTimeDesc()
+ *         .limit(100)
+ *         .build();
+ * List&lt;Cpu&gt; list = template.query(query, "host", "h1", "start", start, "end", end);
+ * </pre>
+ *
+ * @param <T> 查询结果映射的类型
+ */
+public class InfluxQueryBuilder<T> {
+
+    /**
+     * 条件中的参数
+     */
+    private static final Pattern PARAMETER = Pattern.compile("\\$([A-Za-z_][A-Za-z0-9_]*)");
+    /**
+     * 开始时间的参数名
+     */
+    public static final String START = "start";
+    /**
+     * 结束时间的参数名
+     */
+    public static final String END = "end";
+
+    private final DefaultPointConverter<T> converter;
+    private String database;
+    private String retentionPolicy;
+    private final Set<String> fields = new LinkedHashSet<>();
+    private final List<String> conditions = new ArrayList<>();
+    private final Set<String> parameterNames = new LinkedHashSet<>();
+    private final List<String> groupBy = new ArrayList<>();
+    private boolean descending = false;
+    private int limit = 0;
+    private TimeUnit epoch;
+
+    public InfluxQueryBuilder(DefaultPointConverter<T> converter) {
+        this.converter = converter;
+        if (converter == null) {
+            throw new NullPointerException("converter is null.");
+        }
+    }
+
+    /**
+     * 根据bean的注解创建
+     *
+     * @param type bean类型
+     * @return 返回新的InfluxQueryBuilder
+     */
+    public static <T> InfluxQueryBuilder<T> select(Class<T> type) {
+        return new InfluxQueryBuilder<>(new DefaultPointConverter<>(type));
+    }
+
+    public InfluxQueryBuilder<T> database(String database) {
+        this.database = database;
+        return this;
+    }
+
+    public InfluxQueryBuilder<T> retentionPolicy(String retentionPolicy) {
+        this.retentionPolicy = retentionPolicy;
+        return this;
+    }
+
+    /**
+     * 只查询指定的字段(tag或者field)，默认查询bean映射的所有字段
+     *
+     * @param names 字段名，即@Column的name
+     * @return 返回当前对象
+     */
+    public InfluxQueryBuilder<T> fields(String... names) {
+        for (String name : names) {
+            if (!isMapped(name)) {
+                throw new IllegalArgumentException("\"" + name + "\"不是" + converter.getType().getName() + "映射的字段");
+            }
+            fields.add(name);
+        }
+        return this;
+    }
+
+    /**
+     * 添加条件：字段等于同名的参数，例如 "host" = $host
+     *
+     * @param column 字段名
+     * @return 返回当前对象
+     */
+    public InfluxQueryBuilder<T> whereEquals(String column) {
+        return whereEquals(column, column);
+    }
+
+    /**
+     * 添加条件：字段等于参数，例如 "host" = $host
+     *
+     * @param column    字段名
+     * @param parameter 参数名
+     * @return 返回当前对象
+     */
+    public InfluxQueryBuilder<T> whereEquals(String column, String parameter) {
+        if (!isMapped(column)) {
+            throw new IllegalArgumentException("\"" + column + "\"不是" + converter.getType().getName() + "映射的字段");
+        }
+        return where(quote(column) + " = $" + parameter);
+    }
+
+    /**
+     * 添加时间范围的条件：time &gt;= $start AND time &lt; $end
+     *
+     * @return 返回当前对象
+     */
+    public InfluxQueryBuilder<T> whereTimeBetween() {
+        return where("time >= $" + START + " AND time < $" + END);
+    }
+
+    /**
+     * 添加条件，多个条件之间为AND，条件中的值需要使用参数($name)
+     *
+     * @param condition 条件，例如: "v" &gt; $min
+     * @return 返回当前对象
+     */
+    public InfluxQueryBuilder<T> where(String condition) {
+        final Matcher matcher = PARAMETER.matcher(condition);
+        while (matcher.find()) {
+            parameterNames.add(matcher.group(1));
+        }
+        conditions.add(condition);
+        return this;
+    }
+
+    /**
+     * 按tag分组
+     *
+     * @param tags tag名称
+     * @return 返回当前对象
+     */
+    public InfluxQueryBuilder<T> groupBy(String... tags) {
+        for (String tag : tags) {
+            if (!converter.getTags().containsKey(tag)) {
+                throw new IllegalArgumentException("\"" + tag + "\"不是" + converter.getType().getName() + "的tag");
+            }
+            groupBy.add(tag);
+        }
+        return this;
+    }
+
+    public InfluxQueryBuilder<T> orderByTimeDesc() {
+        this.descending = true;
+        return this;
+    }
+
+    public InfluxQueryBuilder<T> limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must be >= 0.");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * 查询结果的时间格式，默认为RFC3339格式的时间
+     */
+    public InfluxQueryBuilder<T> epoch(TimeUnit epoch) {
+        this.epoch = epoch;
+        return this;
+    }
+
+    /**
+     * 生成预编译的查询
+     *
+     * @return 返回PreparedInfluxQuery
+     */
+    public PreparedInfluxQuery<T> build() {
+        final Collection<String> projection = fields.isEmpty() ? defaultFields() : fields;
+        boolean hasField = false;
+        for (String name : projection) {
+            hasField |= converter.getColumns().containsKey(name);
+        }
+        if (!hasField) {
+            // InfluxDB不会返回只查询了tag的结果
+            throw new IllegalStateException("至少需要查询一个field: " + projection);
+        }
+
+        final StringBuilder sb = new StringBuilder(128).append("SELECT ");
+        int i = 0;
+        for (String name : projection) {
+            if (i++ > 0) {
+                sb.append(',');
+            }
+            sb.append(quote(name));
+        }
+        sb.append(" FROM ");
+        if (retentionPolicy != null) {
+            sb.append(quote(retentionPolicy)).append('.');
+        }
+        sb.append(quote(converter.getMeasurement()));
+        for (int j = 0; j < conditions.size(); j++) {
+            sb.append(j == 0 ? " WHERE " : " AND ");
+            sb.append(conditions.size() > 1 ? "(" + conditions.get(j) + ")" : conditions.get(j));
+        }
+        for (int j = 0; j < groupBy.size(); j++) {
+            sb.append(j == 0 ? " GROUP BY " : ",").append(quote(groupBy.get(j)));
+        }
+        if (descending) {
+            sb.append(" ORDER BY time DESC");
+        }
+        if (limit > 0) {
+            sb.append(" LIMIT ").append(limit);
+        }
+        return new PreparedInfluxQuery<>(converter.getType(), database, sb.toString(), parameterNames, epoch);
+    }
+
+    /**
+     * 默认的SELECT字段：结果映射只处理@Column注解的字段，没有注解的字段不需要从服务端返回；
+     * 所有field都没有注解时查询全部字段
+     */
+    private Collection<String> defaultFields() {
+        // 排序保证生成的语句稳定
+        final Set<String> names = new TreeSet<>(converter.getTags().keySet());
+        boolean annotated = false;
+        for (Map.Entry<String, Field> entry : converter.getColumns().entrySet()) {
+            if (entry.getValue().isAnnotationPresent(Column.class)) {
+                names.add(entry.getKey());
+                annotated = true;
+            }
+        }
+        if (!annotated) {
+            names.addAll(converter.getColumns().keySet());
+        }
+        return names;
+    }
+
+    private boolean isMapped(String name) {
+        return converter.getTags().containsKey(name) || converter.getColumns().containsKey(name);
+    }
+
+    /**
+     * 标识符加双引号
+     */
+    static String quote(String identifier) {
+        return '"' + identifier.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
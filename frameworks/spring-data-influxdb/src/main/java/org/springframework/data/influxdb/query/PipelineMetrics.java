@@ -0,0 +1,122 @@
+package org.springframework.data.influxdb.query;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 分块查询流水线各个阶段的吞吐量：读取(网络)、映射、消费
+ */
+public class PipelineMetrics {
+
+    private final Stage read = new Stage("read");
+    private final Stage map = new Stage("map");
+    private final Stage consume = new Stage("consume");
+    /**
+     * 读取阶段因为预读队列已满而等待的时间
+     */
+    private final LongAdder backpressureNanos = new LongAdder();
+
+    public Stage getRead() {
+        return read;
+    }
+
+    public Stage getMap() {
+        return map;
+    }
+
+    public Stage getConsume() {
+        return consume;
+    }
+
+    public long getBackpressureMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(backpressureNanos.sum());
+    }
+
+    void recordBackpressure(long nanos) {
+        backpressureNanos.add(nanos);
+    }
+
+    /**
+     * 累加另一个流水线的统计
+     *
+     * @param other 其他流水线的统计
+     */
+    public void add(final PipelineMetrics other) {
+        read.add(other.read);
+        map.add(other.map);
+        consume.add(other.consume);
+        backpressureNanos.add(other.backpressureNanos.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineMetrics{" +
+                read +
+                ", " + map +
+                ", " + consume +
+                ", backpressureMillis=" + getBackpressureMillis() +
+                '}';
+    }
+
+    /**
+     * 一个阶段的统计：处理的块数、行数和耗时
+     */
+    public static final class Stage {
+        private final String name;
+        private final LongAdder chunks = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        void record(int rows, long nanos) {
+            this.chunks.increment();
+            this.rows.add(rows);
+            this.nanos.add(nanos);
+        }
+
+        void add(Stage other) {
+            chunks.add(other.chunks.sum());
+            rows.add(other.rows.sum());
+            nanos.add(other.nanos.sum());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getChunks() {
+            return chunks.sum();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        /**
+         * 该阶段的累计耗时(毫秒)，映射阶段为所有线程耗时之和
+         */
+        public long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos.sum());
+        }
+
+        /**
+         * 吞吐量：每秒处理的行数
+         */
+        public double getRowsPerSecond() {
+            final long n = nanos.sum();
+            return n > 0 ? rows.sum() * 1e9 / n : 0;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{chunks=" + getChunks() +
+                    ", rows=" + getRows() +
+                    ", millis=" + getMillis() +
+                    ", rowsPerSecond=" + (long) getRowsPerSecond() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.springframework.data.influxdb.query;
+
+import org.influxdb.dto.BoundParameterQuery;
+import org.influxdb.dto.Query;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预编译的查询：查询语句只生成一次，每次调用只绑定参数的值，参数通过InfluxDB的params发送，不会拼接到语句中
+ * <p>
+ * 实例是不可变的，可以在多个线程之间共享
+ *
+ * @param <T> 查询结果映射的类型
+ */
+public final class PreparedInfluxQuery<T> {
+
+    private final Class<T> type;
+    private final String database;
+    private final String command;
+    private final Set<String> parameterNames;
+    private final TimeUnit epoch;
+
+    PreparedInfluxQuery(Class<T> type, String database, String command,
+                        Set<String> parameterNames, TimeUnit epoch) {
+        this.type = type;
+        this.database = database;
+        this.command = command;
+        this.parameterNames = Collections.unmodifiableSet(new LinkedHashSet<>(parameterNames));
+        this.epoch = epoch;
+    }
+
+    /**
+     * 绑定参数，创建本次调用的查询
+     *
+     * @param parameters 参数名和参数值
+     * @return 返回绑定了参数的查询
+     */
+    public Query bind(final Map<String, ?> parameters) {
+        final Map<String, ?> values = parameters != null ? parameters : Collections.emptyMap();
+        for (String name : values.keySet()) {
+            if (!parameterNames.contains(name)) {
+                throw new IllegalArgumentException("未知的参数\"" + name + "\", 查询语句: " + command);
+            }
+        }
+        if (parameterNames.isEmpty()) {
+            return new Query(command, database);
+        }
+
+        final BoundParameterQuery.QueryBuilder builder = BoundParameterQuery.QueryBuilder
+                .newQuery(command)
+                .forDatabase(database);
+        for (String name : parameterNames) {
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("缺少参数\"" + name + "\", 查询语句: " + command);
+            }
+            builder.bind(name, toParameterValue(values.get(name)));
+        }
+        return builder.create();
+    }
+
+    /**
+     * 绑定参数，创建本次调用的查询
+     *
+     * @param nameAndValues 依次为参数名和参数值，例如: bind("host", "h1", "start", start)
+     * @return 返回绑定了参数的查询
+     */
+    public Query bind(final Object... nameAndValues) {
+        if (nameAndValues.length % 2 != 0) {
+            throw new IllegalArgumentException("参数名和参数值需要成对出现");
+        }
+        final Map<String, Object> values = new LinkedHashMap<>(nameAndValues.length);
+        for (int i = 0; i < nameAndValues.length; i += 2) {
+            values.put(String.valueOf(nameAndValues[i]), nameAndValues[i + 1]);
+        }
+        return bind(values);
+    }
+
+    /**
+     * 转换成InfluxDB支持的参数类型：字符串、数值和布尔值，时间转换成RFC3339格式的字符串
+     */
+    static Object toParameterValue(final Object value) {
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Instant) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant().toString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return String.valueOf(value);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public Set<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * 查询结果的时间格式，为null时返回RFC3339格式的时间
+     */
+    public TimeUnit getEpoch() {
+        return epoch;
+    }
+
+    @Override
+    public String toString() {
+        return "PreparedInfluxQuery{" +
+                "type=" + type.getName() +
+                ", database='" + database + '\'' +
+                ", command='" + command + '\'' +
+                ", parameterNames=" + parameterNames +
+                ", epoch=" + epoch +
+                '}';
+    }
+}
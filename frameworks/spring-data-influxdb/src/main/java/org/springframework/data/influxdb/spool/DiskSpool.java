@@ -0,0 +1,347 @@
+package org.springframework.data.influxdb.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.influxdb.InfluxDBProperties;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * 写入失败时使用的磁盘缓存(预写日志)
+ * <p>
+ * 数据按顺序追加到内存映射的分段文件中，消费位置记录在checkpoint文件里，JVM重启后从checkpoint继续补发；
+ * 分段文件数量超过上限时丢弃最旧的分段。补发为至少一次语义，InfluxDB中相同时间戳的数据会被覆盖，重复写入无副作用
+ */
+public class DiskSpool implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(DiskSpool.class);
+
+    private static final String CHECKPOINT = "checkpoint";
+    /**
+     * checkpoint格式：segment(8) + position(8) + crc32(4)
+     */
+    private static final int CHECKPOINT_SIZE = 20;
+
+    private final File directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    /**
+     * 按顺序排列的分段文件，第一个为读取的分段，最后一个为写入的分段
+     */
+    private final Deque<SpoolSegment> segments = new ArrayDeque<>();
+    private final MappedByteBuffer checkpoint;
+    /**
+     * 读取分段中下一条记录的位置
+     */
+    private int readPosition;
+    /**
+     * 上一次peek的记录占用的字节数，commit时跳过
+     */
+    private int peekedSize;
+
+    private long pendingRecords;
+    private long pendingBytes;
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    public DiskSpool(final InfluxDBProperties.Spool config) throws IOException {
+        this(new File(config.getDirectory()), config.getSegmentSize(), config.getMaxDiskUsage());
+    }
+
+    public DiskSpool(final File directory, final int segmentSize, final long maxDiskUsage) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create spool directory: " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(2, maxDiskUsage / segmentSize);
+
+        try (RandomAccessFile raf = new RandomAccessFile(new File(directory, CHECKPOINT), "rw");
+             FileChannel channel = raf.getChannel()) {
+            this.checkpoint = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHECKPOINT_SIZE);
+        }
+        recover();
+    }
+
+    /**
+     * 打开已有的分段文件，按checkpoint恢复读取位置并统计待补发的数据
+     */
+    private void recover() throws IOException {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(SpoolSegment.SUFFIX));
+        final TreeMap<Long, File> sorted = new TreeMap<>();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                try {
+                    sorted.put(Long.parseLong(name.substring(0, name.length() - SpoolSegment.SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignore unknown spool file '{}'", file);
+                }
+            }
+        }
+
+        long checkpointSegment = -1;
+        long checkpointPosition = 0;
+        if (crc(checkpoint) == checkpoint.getInt(16)) {
+            checkpointSegment = checkpoint.getLong(0);
+            checkpointPosition = checkpoint.getLong(8);
+        }
+
+        for (Map.Entry<Long, File> entry : sorted.entrySet()) {
+            if (entry.getKey() < checkpointSegment) {
+                // 已经补发完成的分段
+                if (!entry.getValue().delete()) {
+                    logger.warn("Unable to delete spool file '{}'", entry.getValue());
+                }
+                continue;
+            }
+            segments.addLast(SpoolSegment.open(entry.getValue(), entry.getKey()));
+        }
+
+        if (segments.isEmpty()) {
+            segments.addLast(SpoolSegment.create(directory, Math.max(0, checkpointSegment + 1), segmentSize));
+        }
+        final SpoolSegment head = segments.getFirst();
+        readPosition = head.getSequence() == checkpointSegment
+                ? (int) Math.min(checkpointPosition, head.getWritePosition()) : 0;
+
+        for (SpoolSegment segment : segments) {
+            int position = segment == head ? readPosition : 0;
+            ByteBuffer payload;
+            while ((payload = segment.read(position)) != null) {
+                pendingRecords++;
+                pendingBytes += payload.capacity();
+                position += SpoolSegment.HEADER_SIZE + payload.capacity();
+            }
+        }
+        if (pendingRecords > 0) {
+            logger.info("Recovered {} spooled records ({} bytes) from '{}'", pendingRecords, pendingBytes, directory);
+        }
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @param record 记录
+     * @return 记录超过分段大小或者缓存已关闭时返回false
+     */
+    public boolean append(final SpoolRecord record) {
+        final byte[] payload = record.encode();
+        if (payload.length + SpoolSegment.HEADER_SIZE > segmentSize) {
+            logger.warn("Spool record is larger than segment size: {} > {}", payload.length, segmentSize);
+            dropped.increment();
+            return false;
+        }
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            SpoolSegment tail = segments.getLast();
+            if (!tail.append(payload)) {
+                tail.force();
+                if (segments.size() >= maxSegments) {
+                    dropHead();
+                }
+                try {
+                    tail = SpoolSegment.create(directory, tail.getSequence() + 1, segmentSize);
+                } catch (IOException e) {
+                    logger.error("Unable to create spool segment in '{}'", directory, e);
+                    dropped.increment();
+                    return false;
+                }
+                segments.addLast(tail);
+                tail.append(payload);
+            }
+            pendingRecords++;
+            pendingBytes += payload.length;
+            appended.increment();
+            return true;
+        }
+    }
+
+    /**
+     * 磁盘空间达到上限，丢弃最旧的分段
+     */
+    private void dropHead() {
+        final SpoolSegment head = segments.removeFirst();
+        int position = readPosition;
+        ByteBuffer payload;
+        long lost = 0;
+        while ((payload = head.read(position)) != null) {
+            lost++;
+            pendingRecords--;
+            pendingBytes -= payload.capacity();
+            position += SpoolSegment.HEADER_SIZE + payload.capacity();
+        }
+        dropped.add(lost);
+        logger.warn("Spool disk usage limit reached, dropped {} records in {}", lost, head);
+        head.delete();
+        readPosition = 0;
+        peekedSize = 0;
+        saveCheckpoint();
+    }
+
+    /**
+     * 读取最旧的一条记录，但不移除，补发成功后调用{@link #commit()}
+     *
+     * @return 没有待补发的数据时返回null
+     */
+    public synchronized SpoolRecord peek() {
+        while (!closed) {
+            final SpoolSegment head = segments.getFirst();
+            final ByteBuffer payload = head.read(readPosition);
+            if (payload != null) {
+                peekedSize = SpoolSegment.HEADER_SIZE + payload.capacity();
+                return SpoolRecord.decode(payload);
+            }
+            if (head == segments.getLast()) {
+                return null;
+            }
+            if (readPosition < head.getWritePosition()) {
+                logger.warn("Corrupted spool record in {} at {}, skip the rest of the segment", head, readPosition);
+            }
+            // 当前分段已经读完，切换到下一个分段
+            segments.removeFirst();
+            head.delete();
+            readPosition = 0;
+            saveCheckpoint();
+        }
+        return null;
+    }
+
+    /**
+     * 移除上一次peek的记录
+     */
+    public synchronized void commit() {
+        if (remove()) {
+            replayed.increment();
+        }
+    }
+
+    /**
+     * 丢弃上一次peek的记录(例如服务端拒绝的数据)
+     */
+    public synchronized void skip() {
+        if (remove()) {
+            dropped.increment();
+        }
+    }
+
+    private boolean remove() {
+        if (peekedSize <= 0) {
+            return false;
+        }
+        readPosition += peekedSize;
+        pendingRecords--;
+        pendingBytes -= peekedSize - SpoolSegment.HEADER_SIZE;
+        peekedSize = 0;
+        saveCheckpoint();
+        return true;
+    }
+
+    private void saveCheckpoint() {
+        checkpoint.putLong(0, segments.getFirst().getSequence());
+        checkpoint.putLong(8, readPosition);
+        checkpoint.putInt(16, crc(checkpoint));
+    }
+
+    private static int crc(final MappedByteBuffer checkpoint) {
+        final ByteBuffer b = checkpoint.duplicate();
+        b.position(0);
+        b.limit(16);
+        final CRC32 crc32 = new CRC32();
+        crc32.update(b);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * 是否存在待补发的数据
+     */
+    public synchronized boolean hasPending() {
+        return pendingRecords > 0;
+    }
+
+    /**
+     * 待补发的记录数
+     */
+    public synchronized long getPendingRecords() {
+        return pendingRecords;
+    }
+
+    /**
+     * 待补发的数据字节数
+     */
+    public synchronized long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * 补发的延迟：最旧的待补发记录写入缓存至今的时间(毫秒)，没有待补发的数据时为0
+     */
+    public synchronized long getLag() {
+        if (pendingRecords <= 0 || closed) {
+            return 0;
+        }
+        final ByteBuffer payload = segments.getFirst().read(readPosition);
+        return payload != null ? Math.max(0, System.currentTimeMillis() - payload.getLong(0)) : 0;
+    }
+
+    /**
+     * 分段文件占用的磁盘空间
+     */
+    public synchronized long getDiskUsage() {
+        return (long) segments.size() * segmentSize;
+    }
+
+    public long getAppended() {
+        return appended.sum();
+    }
+
+    public long getReplayed() {
+        return replayed.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segments.getLast().force();
+        checkpoint.force();
+    }
+
+    @Override
+    public String toString() {
+        return "DiskSpool{" +
+                "directory=" + directory +
+                ", segments=" + segments.size() +
+                ", pendingRecords=" + pendingRecords +
+                ", pendingBytes=" + pendingBytes +
+                ", dropped=" + dropped +
+                '}';
+    }
+}
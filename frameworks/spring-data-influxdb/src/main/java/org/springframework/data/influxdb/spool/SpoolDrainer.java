@@ -0,0 +1,195 @@
+package org.springframework.data.influxdb.spool;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.influxdb.InfluxUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 后台补发磁盘缓存中的数据：定时ping服务端，可用时按顺序补发，失败后等待下一次
+ * <p>
+ * 写入失败后标记服务端不可用，期间新的写入直接进入磁盘缓存；ping成功后恢复直接写入，
+ * 缓存中只剩积压的数据，补发不会被新的写入追赶。
+ * 只有网络错误和服务端的临时错误(5xx)会重试，同一条记录重试maxAttempts次后丢弃，不会一直阻塞后面的记录
+ */
+public class SpoolDrainer implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(SpoolDrainer.class);
+
+    /**
+     * 默认每条记录最多补发的次数
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+    /**
+     * 网关返回的5xx错误信息，例如"502 Bad Gateway"
+     */
+    private static final Pattern SERVER_ERROR = Pattern.compile("(^|\\D)5\\d\\d [A-Z]");
+
+    private final DiskSpool spool;
+    private final Supplier<InfluxDB> connection;
+    private final ScheduledExecutorService scheduler;
+    private final int maxAttempts;
+    /**
+     * 服务端是否可用，写入失败时设置为false，ping成功后恢复
+     */
+    private volatile boolean available = true;
+    /**
+     * 补发失败的记录，以及已经补发的次数
+     */
+    private SpoolRecord failed;
+    private int attempts;
+
+    public SpoolDrainer(final DiskSpool spool, final Supplier<InfluxDB> connection, final long interval) {
+        this(spool, connection, interval, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public SpoolDrainer(final DiskSpool spool, final Supplier<InfluxDB> connection, final long interval,
+                        final int maxAttempts) {
+        this.spool = spool;
+        this.connection = connection;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                InfluxUtils.newThreadFactory("influxdb-spool-drainer"));
+        this.scheduler.scheduleWithFixedDelay(this::drainQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (Exception e) {
+            logger.warn("Failed to drain InfluxDB spool: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 补发磁盘缓存中的数据
+     *
+     * @return 返回补发成功的记录数
+     */
+    public synchronized int drain() {
+        if (!spool.hasPending()) {
+            available = true;
+            return 0;
+        }
+        final InfluxDB influxDB = connection.get();
+        try {
+            if (!influxDB.ping().isGood()) {
+                available = false;
+                return 0;
+            }
+        } catch (Exception e) {
+            logger.debug("InfluxDB is still unavailable: {}", e.getMessage());
+            available = false;
+            return 0;
+        }
+        available = true;
+
+        int count = 0;
+        SpoolRecord record;
+        while ((record = spool.peek()) != null) {
+            try {
+                influxDB.write(record.getDatabase(), record.getRetentionPolicy(),
+                        record.getConsistency(), record.getPrecision(), record.getLines());
+                spool.commit();
+                failed = null;
+                count++;
+            } catch (InfluxDBException e) {
+                if (isNetworkFailure(e)) {
+                    // 网络错误不计入重试次数，等待服务端恢复
+                    logger.warn("Replay spooled record failed, retry later: {}", e.getMessage());
+                    available = false;
+                    break;
+                }
+                if (isTransient(e) && retry(record)) {
+                    logger.warn("Replay spooled record failed ({}/{}), retry later: {}",
+                            attempts, maxAttempts, e.getMessage());
+                    break;
+                }
+                // 服务端拒绝的数据，或者重试次数已用完
+                logger.error("Drop spooled record {}: {}", record, e.getMessage());
+                spool.skip();
+                failed = null;
+            }
+        }
+        if (count > 0) {
+            logger.info("Replayed {} spooled records, {} pending", count, spool.getPendingRecords());
+        }
+        return count;
+    }
+
+    /**
+     * 记录一次补发失败
+     *
+     * @return 还可以重试时返回true
+     */
+    private boolean retry(final SpoolRecord record) {
+        if (failed == null || failed.getTimestamp() != record.getTimestamp()
+                || !failed.getLines().equals(record.getLines())) {
+            failed = record;
+            attempts = 0;
+        }
+        return ++attempts < maxAttempts;
+    }
+
+    /**
+     * 是否为网络错误
+     */
+    public static boolean isNetworkFailure(final Throwable e) {
+        return e instanceof InfluxDBIOException || e.getCause() instanceof IOException;
+    }
+
+    /**
+     * 是否为值得重试的临时错误：网络错误，或者服务端的5xx错误(写入超时、hinted handoff队列未清空、缓存已满)
+     * <p>
+     * influxdb-java不提供响应的状态码，只能根据错误信息判断：InfluxDB的5xx错误只有上面几种，
+     * 网关返回的5xx错误没有响应体，或者包含"5xx 原因"。influxdb-java对无法识别的错误
+     * (例如max-series-per-database limit exceeded)也认为值得重试，这类数据重试也不会成功，不能写入磁盘缓存
+     */
+    public static boolean isTransient(final Throwable e) {
+        if (isNetworkFailure(e)) {
+            return true;
+        }
+        if (e instanceof InfluxDBException.HintedHandOffQueueNotEmptyException
+                || e instanceof InfluxDBException.CacheMaxMemorySizeExceededException) {
+            return true;
+        }
+        if (!(e instanceof InfluxDBException)) {
+            return false;
+        }
+        final String message = e.getMessage();
+        return message == null || message.trim().isEmpty()
+                || message.contains("timeout")
+                || message.contains("hinted handoff queue not empty")
+                || message.contains("cache-max-memory-size exceeded")
+                || SERVER_ERROR.matcher(message).find();
+    }
+
+    /**
+     * 服务端是否可用；不可用时写入应直接进入磁盘缓存，避免请求线程等待超时
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * 写入失败时标记服务端不可用，直到下一次ping成功
+     */
+    public void markUnavailable() {
+        available = false;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,137 @@
+package org.springframework.data.influxdb.spool;
+
+import org.influxdb.InfluxDB;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 磁盘缓存中的一条记录，对应一次写入请求的Line Protocol数据
+ */
+public class SpoolRecord {
+
+    private static final TimeUnit[] UNITS = TimeUnit.values();
+    private static final InfluxDB.ConsistencyLevel[] LEVELS = InfluxDB.ConsistencyLevel.values();
+
+    private final String database;
+    private final String retentionPolicy;
+    private final InfluxDB.ConsistencyLevel consistency;
+    private final TimeUnit precision;
+    private final String lines;
+    /**
+     * 写入缓存的时间(毫秒)
+     */
+    private final long timestamp;
+
+    public SpoolRecord(String database, String retentionPolicy, TimeUnit precision, String lines) {
+        this(database, retentionPolicy, InfluxDB.ConsistencyLevel.ALL, precision, lines);
+    }
+
+    public SpoolRecord(String database, String retentionPolicy, InfluxDB.ConsistencyLevel consistency,
+                       TimeUnit precision, String lines) {
+        this(database, retentionPolicy, consistency, precision, lines, System.currentTimeMillis());
+    }
+
+    public SpoolRecord(String database, String retentionPolicy, InfluxDB.ConsistencyLevel consistency,
+                       TimeUnit precision, String lines, long timestamp) {
+        this.database = database;
+        this.retentionPolicy = retentionPolicy;
+        this.consistency = consistency != null ? consistency : InfluxDB.ConsistencyLevel.ALL;
+        this.precision = precision != null ? precision : TimeUnit.NANOSECONDS;
+        this.lines = lines;
+        this.timestamp = timestamp;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public String getRetentionPolicy() {
+        return retentionPolicy;
+    }
+
+    public InfluxDB.ConsistencyLevel getConsistency() {
+        return consistency;
+    }
+
+    public TimeUnit getPrecision() {
+        return precision;
+    }
+
+    public String getLines() {
+        return lines;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * 序列化：timestamp(8) + flags(1) + database + retentionPolicy + lines，字符串为长度(4) + UTF-8字节，null的长度为-1
+     * <p>
+     * flags的低4位为precision，高4位为consistency；ALL的序号为0，因此没有记录consistency的旧数据按ALL补发
+     */
+    byte[] encode() {
+        final byte[] db = bytes(database);
+        final byte[] rp = bytes(retentionPolicy);
+        final byte[] body = bytes(lines);
+        final ByteBuffer buffer = ByteBuffer.allocate(8 + 1 + 12 + length(db) + length(rp) + length(body));
+        buffer.putLong(timestamp);
+        buffer.put((byte) (precision.ordinal() | consistency.ordinal() << 4));
+        put(buffer, db);
+        put(buffer, rp);
+        put(buffer, body);
+        return buffer.array();
+    }
+
+    static SpoolRecord decode(final ByteBuffer buffer) {
+        final long timestamp = buffer.getLong();
+        final int flags = buffer.get();
+        final TimeUnit precision = UNITS[flags & 0x0F];
+        final InfluxDB.ConsistencyLevel consistency = LEVELS[(flags >> 4) & 0x0F];
+        final String database = get(buffer);
+        final String retentionPolicy = get(buffer);
+        final String lines = get(buffer);
+        return new SpoolRecord(database, retentionPolicy, consistency, precision, lines, timestamp);
+    }
+
+    private static byte[] bytes(String s) {
+        return s != null ? s.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] b) {
+        return b != null ? b.length : 0;
+    }
+
+    private static void put(ByteBuffer buffer, byte[] b) {
+        if (b == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(b.length);
+            buffer.put(b);
+        }
+    }
+
+    private static String get(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+
+    @Override
+    public String toString() {
+        return "SpoolRecord{" +
+                "database='" + database + '\'' +
+                ", retentionPolicy='" + retentionPolicy + '\'' +
+                ", consistency=" + consistency +
+                ", precision=" + precision +
+                ", timestamp=" + timestamp +
+                ", length=" + (lines != null ? lines.length() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,157 @@
+package org.springframework.data.influxdb.spool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * 磁盘缓存的分段文件，整个文件映射到内存
+ * <p>
+ * 记录格式：length(4) + crc32(4) + payload，先写入crc和payload，最后写入length，
+ * 因此length为0或者crc校验失败的位置即为文件中有效数据的结尾
+ */
+final class SpoolSegment {
+
+    static final int HEADER_SIZE = 8;
+    static final String SUFFIX = ".seg";
+
+    private final long sequence;
+    private final File file;
+    private final MappedByteBuffer buffer;
+    /**
+     * 下一条记录的写入位置
+     */
+    private int writePosition;
+
+    private SpoolSegment(long sequence, File file, MappedByteBuffer buffer) {
+        this.sequence = sequence;
+        this.file = file;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 创建新的分段文件
+     */
+    static SpoolSegment create(final File directory, final long sequence, final int size) throws IOException {
+        final File file = new File(directory, String.format("%020d%s", sequence, SUFFIX));
+        final SpoolSegment segment = new SpoolSegment(sequence, file, map(file, size));
+        segment.writePosition = 0;
+        return segment;
+    }
+
+    /**
+     * 打开已存在的分段文件，扫描得到写入位置
+     */
+    static SpoolSegment open(final File file, final long sequence) throws IOException {
+        final SpoolSegment segment = new SpoolSegment(sequence, file, map(file, (int) file.length()));
+        int position = 0;
+        int length;
+        while ((length = segment.validLength(position)) > 0) {
+            position += HEADER_SIZE + length;
+        }
+        segment.writePosition = position;
+        return segment;
+    }
+
+    private static MappedByteBuffer map(final File file, final int size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            if (raf.length() < size) {
+                raf.setLength(size);
+            }
+            // 映射在channel关闭后依然有效
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 剩余空间不足时返回false
+     */
+    boolean append(final byte[] payload) {
+        final int position = writePosition;
+        if (position + HEADER_SIZE + payload.length > buffer.capacity()) {
+            return false;
+        }
+        final ByteBuffer b = buffer.duplicate();
+        b.position(position + 4);
+        b.putInt(crc(payload, 0, payload.length));
+        b.put(payload);
+        buffer.putInt(position, payload.length);
+        writePosition = position + HEADER_SIZE + payload.length;
+        return true;
+    }
+
+    /**
+     * 读取指定位置的记录
+     *
+     * @return 没有有效记录时返回null
+     */
+    ByteBuffer read(final int position) {
+        final int length = validLength(position);
+        if (length <= 0) {
+            return null;
+        }
+        final byte[] payload = new byte[length];
+        final ByteBuffer b = buffer.duplicate();
+        b.position(position + HEADER_SIZE);
+        b.get(payload);
+        return ByteBuffer.wrap(payload);
+    }
+
+    /**
+     * 校验指定位置的记录，返回payload的长度，没有有效记录时返回0
+     */
+    private int validLength(final int position) {
+        if (position + HEADER_SIZE > buffer.capacity()) {
+            return 0;
+        }
+        final int length = buffer.getInt(position);
+        if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+            return 0;
+        }
+        final int crc = buffer.getInt(position + 4);
+        final CRC32 crc32 = new CRC32();
+        final ByteBuffer b = buffer.duplicate();
+        b.position(position + HEADER_SIZE);
+        b.limit(position + HEADER_SIZE + length);
+        crc32.update(b);
+        return (int) crc32.getValue() == crc ? length : 0;
+    }
+
+    private static int crc(byte[] data, int offset, int length) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(data, offset, length);
+        return (int) crc32.getValue();
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    int getCapacity() {
+        return buffer.capacity();
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    boolean delete() {
+        return file.delete();
+    }
+
+    @Override
+    public String toString() {
+        return file.getName() + "@" + writePosition;
+    }
+}
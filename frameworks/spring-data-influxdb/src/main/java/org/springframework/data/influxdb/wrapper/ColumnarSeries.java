@@ -0,0 +1,388 @@
+package org.springframework.data.influxdb.wrapper;
+
+import org.influxdb.dto.QueryResult;
+import org.springframework.data.influxdb.RFC3339Parser;
+
+import java.util.*;
+
+/**
+ * 按列存储的Series
+ * <p>
+ * 时间戳存储为long[]，数值列存储为double[](null存储为NaN)，其他类型的列按字典编码存储为int[]，
+ * 与{@link SeriesWrapper#getData()}相比没有装箱和每行一个Map的开销，适合对大量数据做聚合计算
+ */
+public class ColumnarSeries {
+
+    /**
+     * 聚合函数
+     */
+    public enum Aggregation {
+        COUNT, SUM, MEAN, MIN, MAX, FIRST, LAST
+    }
+
+    private static final String TIME = "time";
+
+    /**
+     * 表名
+     */
+    private final String name;
+    /**
+     * 标签
+     */
+    private final Map<String, String> tags;
+    /**
+     * 行数
+     */
+    private final int size;
+    /**
+     * 时间戳：RFC3339格式的时间为epoch纳秒，查询时指定了epoch的数值原样保存
+     */
+    private final long[] time;
+    /**
+     * 除时间戳以外的列
+     */
+    private final Map<String, Column> columns;
+
+    public ColumnarSeries(String name, Map<String, String> tags, long[] time, Map<String, Column> columns) {
+        this.name = name;
+        this.tags = tags != null ? tags : Collections.emptyMap();
+        this.time = time;
+        this.size = time.length;
+        this.columns = columns;
+    }
+
+    /**
+     * 转换QueryResult中所有的Series
+     *
+     * @param result 查询结果
+     * @return 返回按列存储的Series
+     */
+    public static List<ColumnarSeries> of(final QueryResult result) {
+        final List<ColumnarSeries> list = new ArrayList<>();
+        if (result.getResults() != null) {
+            for (QueryResult.Result r : result.getResults()) {
+                if (r != null && r.getSeries() != null) {
+                    for (QueryResult.Series series : r.getSeries()) {
+                        list.add(of(series));
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 转换Series
+     *
+     * @param series Series
+     * @return 返回按列存储的Series
+     */
+    public static ColumnarSeries of(final QueryResult.Series series) {
+        final List<String> names = series.getColumns();
+        final List<List<Object>> values = series.getValues() != null
+                ? series.getValues() : Collections.emptyList();
+        final int rows = values.size();
+
+        final long[] time = new long[rows];
+        final Map<String, Column> columns = new LinkedHashMap<>();
+        for (int c = 0; c < names.size(); c++) {
+            final String column = names.get(c);
+            if (TIME.equals(column)) {
+                for (int r = 0; r < rows; r++) {
+                    Object value = values.get(r).get(c);
+                    time[r] = value instanceof Number
+                            ? ((Number) value).longValue() : RFC3339Parser.parseNanos(String.valueOf(value));
+                }
+            } else if (isNumeric(values, c)) {
+                final double[] data = new double[rows];
+                for (int r = 0; r < rows; r++) {
+                    Object value = values.get(r).get(c);
+                    data[r] = value != null ? ((Number) value).doubleValue() : Double.NaN;
+                }
+                columns.put(column, new NumericColumn(column, data));
+            } else {
+                final int[] codes = new int[rows];
+                final Map<String, Integer> dictionary = new HashMap<>();
+                final List<String> words = new ArrayList<>();
+                for (int r = 0; r < rows; r++) {
+                    Object value = values.get(r).get(c);
+                    if (value == null) {
+                        codes[r] = -1;
+                        continue;
+                    }
+                    String word = String.valueOf(value);
+                    Integer code = dictionary.get(word);
+                    if (code == null) {
+                        code = words.size();
+                        dictionary.put(word, code);
+                        words.add(word);
+                    }
+                    codes[r] = code;
+                }
+                columns.put(column, new DictionaryColumn(column, codes, words.toArray(new String[0])));
+            }
+        }
+        return new ColumnarSeries(series.getName(), series.getTags(), time, columns);
+    }
+
+    private static boolean isNumeric(List<List<Object>> values, int column) {
+        boolean numeric = false;
+        for (List<Object> row : values) {
+            Object value = row.get(column);
+            if (value == null) {
+                continue;
+            }
+            if (!(value instanceof Number)) {
+                return false;
+            }
+            numeric = true;
+        }
+        return numeric;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long[] getTime() {
+        return time;
+    }
+
+    public Set<String> getColumnNames() {
+        return columns.keySet();
+    }
+
+    public Column getColumn(String column) {
+        return columns.get(column);
+    }
+
+    /**
+     * 获取数值列的数据
+     *
+     * @param column 列名
+     * @return 返回数值数组，null值为NaN
+     */
+    public double[] getDoubles(String column) {
+        Column c = columns.get(column);
+        if (!(c instanceof NumericColumn)) {
+            throw new IllegalArgumentException("\"" + column + "\"不是数值列");
+        }
+        return ((NumericColumn) c).getValues();
+    }
+
+    public double min(String column) {
+        return aggregate(getDoubles(column), 0, size, Aggregation.MIN);
+    }
+
+    public double max(String column) {
+        return aggregate(getDoubles(column), 0, size, Aggregation.MAX);
+    }
+
+    public double sum(String column) {
+        return aggregate(getDoubles(column), 0, size, Aggregation.SUM);
+    }
+
+    public double mean(String column) {
+        return aggregate(getDoubles(column), 0, size, Aggregation.MEAN);
+    }
+
+    public long count(String column) {
+        return (long) aggregate(getDoubles(column), 0, size, Aggregation.COUNT);
+    }
+
+    /**
+     * 按时间窗口降采样，要求时间戳按升序排列(InfluxDB默认的返回顺序)
+     *
+     * @param column      数值列的列名
+     * @param interval    时间窗口的长度，单位与时间戳相同
+     * @param aggregation 聚合函数
+     * @return 返回新的Series，时间戳为窗口的起始时间，只包含聚合后的列
+     */
+    public ColumnarSeries downsample(String column, long interval, Aggregation aggregation) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive.");
+        }
+        final double[] values = getDoubles(column);
+
+        // 第一遍统计窗口数量
+        int buckets = 0;
+        long bucket = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            long start = Math.floorDiv(time[i], interval) * interval;
+            if (start != bucket) {
+                bucket = start;
+                buckets++;
+            }
+        }
+
+        final long[] bucketTime = new long[buckets];
+        final double[] bucketValues = new double[buckets];
+        int b = -1;
+        int from = 0;
+        bucket = Long.MIN_VALUE;
+        for (int i = 0; i <= size; i++) {
+            long start = i < size ? Math.floorDiv(time[i], interval) * interval : Long.MAX_VALUE;
+            if (start != bucket) {
+                if (b >= 0) {
+                    bucketValues[b] = aggregate(values, from, i, aggregation);
+                }
+                if (i < size) {
+                    b++;
+                    bucketTime[b] = start;
+                    bucket = start;
+                    from = i;
+                }
+            }
+        }
+
+        final Map<String, Column> result = new LinkedHashMap<>();
+        result.put(column, new NumericColumn(column, bucketValues));
+        return new ColumnarSeries(name, tags, bucketTime, result);
+    }
+
+    /**
+     * 对[from, to)范围内的数据做聚合，忽略NaN
+     */
+    public static double aggregate(final double[] values, final int from, final int to, final Aggregation aggregation) {
+        switch (aggregation) {
+            case FIRST:
+                for (int i = from; i < to; i++) {
+                    if (!Double.isNaN(values[i])) {
+                        return values[i];
+                    }
+                }
+                return Double.NaN;
+            case LAST:
+                for (int i = to - 1; i >= from; i--) {
+                    if (!Double.isNaN(values[i])) {
+                        return values[i];
+                    }
+                }
+                return Double.NaN;
+            case MIN: {
+                double min = Double.POSITIVE_INFINITY;
+                boolean found = false;
+                for (int i = from; i < to; i++) {
+                    double v = values[i];
+                    if (v < min) {
+                        min = v;
+                    }
+                    found |= !Double.isNaN(v);
+                }
+                return found ? min : Double.NaN;
+            }
+            case MAX: {
+                double max = Double.NEGATIVE_INFINITY;
+                boolean found = false;
+                for (int i = from; i < to; i++) {
+                    double v = values[i];
+                    if (v > max) {
+                        max = v;
+                    }
+                    found |= !Double.isNaN(v);
+                }
+                return found ? max : Double.NaN;
+            }
+            default: {
+                double sum = 0;
+                int count = 0;
+                for (int i = from; i < to; i++) {
+                    double v = values[i];
+                    if (v == v) {
+                        sum += v;
+                        count++;
+                    }
+                }
+                if (aggregation == Aggregation.COUNT) {
+                    return count;
+                }
+                if (aggregation == Aggregation.SUM) {
+                    return sum;
+                }
+                return count > 0 ? sum / count : Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * 列
+     */
+    public abstract static class Column {
+        private final String name;
+
+        protected Column(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 获取某一行的值(会装箱)
+         */
+        public abstract Object get(int row);
+    }
+
+    /**
+     * 数值列，null存储为NaN
+     */
+    public static class NumericColumn extends Column {
+        private final double[] values;
+
+        public NumericColumn(String name, double[] values) {
+            super(name);
+            this.values = values;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        public double getDouble(int row) {
+            return values[row];
+        }
+
+        @Override
+        public Object get(int row) {
+            double v = values[row];
+            return Double.isNaN(v) ? null : v;
+        }
+    }
+
+    /**
+     * 字典编码的列，null的编码为-1
+     */
+    public static class DictionaryColumn extends Column {
+        private final int[] codes;
+        private final String[] dictionary;
+
+        public DictionaryColumn(String name, int[] codes, String[] dictionary) {
+            super(name);
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        public int[] getCodes() {
+            return codes;
+        }
+
+        public String[] getDictionary() {
+            return dictionary;
+        }
+
+        @Override
+        public String get(int row) {
+            int code = codes[row];
+            return code >= 0 ? dictionary[code] : null;
+        }
+    }
+}
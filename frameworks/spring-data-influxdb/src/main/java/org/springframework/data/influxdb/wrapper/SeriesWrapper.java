@@ -2,6 +2,7 @@ package org.springframework.data.influxdb.wrapper;
 
 import org.influxdb.dto.QueryResult;
 import org.springframework.data.influxdb.InfluxUtils;
+import org.springframework.data.influxdb.RFC3339Parser;
 import org.springframework.data.influxdb.annotations.InfluxIgnore;
 
 import java.lang.reflect.Field;
@@ -183,6 +184,24 @@ public class SeriesWrapper<T> {
         return values;
     }
 
+    /**
+     * 获取某一行的时间戳
+     *
+     * @param row 行的下标
+     * @return RFC3339格式的时间返回epoch纳秒，查询时指定了epoch的数值原样返回
+     */
+    public long getTime(int row) {
+        int index = columns.indexOf("time");
+        if (index < 0) {
+            throw new IllegalStateException("Series中没有time列");
+        }
+        Object value = values.get(row).get(index);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return RFC3339Parser.parseNanos(String.valueOf(value));
+    }
+
     public List<Map<String, Object>> getData() {
         if (lazyInit) {
             requiredInitializeData();
@@ -0,0 +1,109 @@
+package org.springframework.data.influxdb;
+
+import okhttp3.OkHttpClient;
+import org.influxdb.InfluxDB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class InfluxDBConnectionFactoryTest {
+
+    private static final int THREADS = 32;
+    private static final int ROUNDS = 50;
+
+    private MockInfluxServer server;
+    private InfluxDBConnectionFactory factory;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockInfluxServer();
+        InfluxDBProperties properties = new InfluxDBProperties();
+        properties.setUrl(server.getUrl());
+        properties.setDatabase("db");
+        properties.setUsername("user");
+        properties.setPassword("password");
+        factory = new InfluxDBConnectionFactory(properties);
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        factory.destroy();
+        server.close();
+    }
+
+    /**
+     * 所有线程同时调用，返回各自拿到的不同实例
+     */
+    private <T> Set<T> race(final Callable<T> task) throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        final List<Future<T>> futures = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                barrier.await(5, TimeUnit.SECONDS);
+                return task.call();
+            }));
+        }
+        final Set<T> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<T> future : futures) {
+            instances.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return instances;
+    }
+
+    @Test
+    public void concurrentGetConnectionCreatesSingleInstance() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            final Set<InfluxDB> connections = race(factory::getConnection);
+            assertEquals(1, connections.size());
+            assertSame(factory.getConnection(), connections.iterator().next());
+            // 关闭后下一轮重新竞争创建
+            factory.close();
+        }
+    }
+
+    @Test
+    public void concurrentGetHttpClientCreatesSingleInstance() throws Exception {
+        final Set<OkHttpClient> clients = race(factory::getHttpClient);
+        assertEquals(1, clients.size());
+        assertSame(factory.getHttpClient(), clients.iterator().next());
+    }
+
+    @Test
+    public void concurrentMixedAccessSharesHttpClient() throws Exception {
+        final Set<Object> instances = race(() -> {
+            factory.getConnection();
+            return factory.getHttpClient();
+        });
+        assertEquals(1, instances.size());
+    }
+
+    @Test
+    public void reconnectReplacesConnectionButKeepsHttpClient() throws Exception {
+        final InfluxDB first = factory.getConnection();
+        final OkHttpClient client = factory.getHttpClient();
+        final InfluxDB second = factory.reconnect();
+        assertNotSame(first, second);
+        assertSame(second, factory.getConnection());
+        assertSame(client, factory.getHttpClient());
+    }
+}
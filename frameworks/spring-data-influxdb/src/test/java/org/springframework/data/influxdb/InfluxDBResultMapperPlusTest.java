@@ -0,0 +1,92 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.QueryResult;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class InfluxDBResultMapperPlusTest {
+
+    @Measurement(name = "cpu")
+    public static class InstantCpu {
+        @Column(name = "time")
+        private Instant time;
+        @Column(name = "value")
+        private double value;
+    }
+
+    @Measurement(name = "cpu")
+    public static class DateCpu {
+        @Column(name = "time")
+        private Date time;
+    }
+
+    @Measurement(name = "cpu")
+    public static class LongCpu {
+        @Column(name = "time")
+        private long time;
+    }
+
+    private static final Instant TIME = Instant.parse("2018-07-01T08:30:15.123456789Z");
+
+    private static QueryResult result(final Object time) {
+        final QueryResult.Series series = new QueryResult.Series();
+        series.setName("cpu");
+        series.setColumns(Arrays.asList("time", "value"));
+        series.setValues(Collections.singletonList(Arrays.asList(time, 1.5)));
+        final QueryResult.Result result = new QueryResult.Result();
+        result.setSeries(Collections.singletonList(series));
+        final QueryResult queryResult = new QueryResult();
+        queryResult.setResults(Collections.singletonList(result));
+        return queryResult;
+    }
+
+    private static long epoch(final TimeUnit unit) {
+        return unit.convert(TIME.getEpochSecond(), TimeUnit.SECONDS)
+                + unit.convert(TIME.getNano(), TimeUnit.NANOSECONDS);
+    }
+
+    @Test
+    public void mapsNumericTimeByQueryPrecision() {
+        final InfluxDBResultMapperPlus mapper = new InfluxDBResultMapperPlus();
+        for (TimeUnit unit : new TimeUnit[]{TimeUnit.NANOSECONDS, TimeUnit.MICROSECONDS,
+                TimeUnit.MILLISECONDS, TimeUnit.SECONDS}) {
+            final long epoch = epoch(unit);
+            final Instant expected = Instant.ofEpochSecond(TIME.getEpochSecond(),
+                    TimeUnit.NANOSECONDS.convert(unit.convert(TIME.getNano(), TimeUnit.NANOSECONDS), unit));
+
+            final List<InstantCpu> instants = mapper.toPOJO(result(epoch), InstantCpu.class, unit);
+            assertEquals(unit.toString(), expected, instants.get(0).time);
+            assertEquals(1.5, instants.get(0).value, 0);
+
+            final long millis = expected.toEpochMilli();
+            assertEquals(unit.toString(), millis, mapper.toPOJO(result(epoch), DateCpu.class, unit).get(0).time.getTime());
+            assertEquals(unit.toString(), millis, mapper.toPOJO(result(epoch), LongCpu.class, unit).get(0).time);
+        }
+    }
+
+    @Test
+    public void mapsRfc3339TimeRegardlessOfPrecision() {
+        final InfluxDBResultMapperPlus mapper = new InfluxDBResultMapperPlus();
+        final QueryResult result = result("2018-07-01T08:30:15.123456789Z");
+        assertEquals(TIME, mapper.toPOJO(result, InstantCpu.class).get(0).time);
+        assertEquals(TIME.toEpochMilli(), mapper.toPOJO(result, LongCpu.class, TimeUnit.SECONDS).get(0).time);
+    }
+
+    @Test
+    public void defaultsToMilliseconds() {
+        final InfluxDBResultMapperPlus mapper = new InfluxDBResultMapperPlus();
+        final long millis = TIME.toEpochMilli();
+        assertEquals(millis, mapper.toPOJO(result(millis), DateCpu.class).get(0).time.getTime());
+        assertEquals(millis, mapper.toPOJO(result((double) millis), LongCpu.class).get(0).time);
+    }
+}
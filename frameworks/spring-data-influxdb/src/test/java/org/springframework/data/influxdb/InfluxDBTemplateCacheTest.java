@@ -0,0 +1,93 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.Query;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.influxdb.converter.DefaultPointConverterFactory;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InfluxDBTemplateCacheTest {
+
+    @Measurement(name = "cpu")
+    public static class Cpu {
+        @Column(name = "host", tag = true)
+        private String host = "a";
+        @Column(name = "value")
+        private double value = 1;
+    }
+
+    private static final Query QUERY = new Query("SELECT * FROM cpu WHERE time > now() - 1h", "db");
+
+    private MockInfluxServer server;
+    private InfluxDBConnectionFactory connectionFactory;
+    private InfluxDBTemplate template;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockInfluxServer();
+        final InfluxDBProperties properties = new InfluxDBProperties();
+        properties.setUrl(server.getUrl());
+        properties.setUsername("user");
+        properties.setPassword("password");
+        properties.setDatabase("db");
+        properties.getCache().setEnabled(true);
+        properties.getBatch().setEnabled(true);
+        // 不依赖定时任务，由测试调用flush
+        properties.getBatch().setFlushInterval(TimeUnit.HOURS.toMillis(1));
+        properties.getBatch().setActions(1000);
+        connectionFactory = new InfluxDBConnectionFactory(properties);
+        template = new InfluxDBTemplate(connectionFactory, new DefaultPointConverterFactory());
+        template.afterPropertiesSet();
+        server.clear();
+    }
+
+    @After
+    public void tearDown() {
+        template.destroy();
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    private int queries() {
+        return server.getRequests("/query").size();
+    }
+
+    @Test
+    public void evictAfterBufferedPointsAreFlushed() {
+        template.query(QUERY, TimeUnit.MILLISECONDS);
+        template.query(QUERY, TimeUnit.MILLISECONDS);
+        assertEquals(1, queries());
+
+        template.writeAll(Collections.singletonList(new Cpu()));
+        assertEquals(0, server.getRequests("/write").size());
+        // 数据还在缓冲区中，查询结果不包含这次写入
+        template.query(QUERY, TimeUnit.MILLISECONDS);
+        assertEquals(2, queries());
+
+        template.flush();
+        assertEquals(1, server.getRequests("/write").size());
+        template.query(QUERY, TimeUnit.MILLISECONDS);
+        assertEquals(3, queries());
+    }
+
+    @Test
+    public void evictAfterReactiveWrite() {
+        template.query(QUERY, TimeUnit.MILLISECONDS);
+        assertEquals(1, queries());
+
+        final WriteResult result = new ReactiveInfluxDBTemplate(template)
+                .writeAll(Collections.singletonList(new Cpu()), null)
+                .block();
+        assertTrue(result.isSuccess());
+        template.query(QUERY, TimeUnit.MILLISECONDS);
+        assertEquals(2, queries());
+    }
+}
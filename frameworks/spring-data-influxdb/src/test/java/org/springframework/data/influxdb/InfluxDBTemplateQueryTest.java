@@ -0,0 +1,174 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.junit.After;
+import org.junit.Before;
+import org.influxdb.dto.Point;
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.junit.Test;
+import org.springframework.data.influxdb.converter.DefaultPointConverterFactory;
+import org.springframework.data.influxdb.converter.PointConverter;
+import org.springframework.data.influxdb.converter.PointConverterFactory;
+import org.springframework.data.influxdb.metrics.InfluxDBMetrics;
+import org.springframework.data.influxdb.query.PreparedInfluxQuery;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class InfluxDBTemplateQueryTest {
+
+    @Measurement(name = "cpu")
+    public static class Cpu {
+        @Column(name = "time")
+        private Instant time;
+        @Column(name = "host", tag = true)
+        private String host;
+        @Column(name = "value")
+        private double value;
+    }
+
+    /**
+     * 只实现了必需方法的自定义PointConverterFactory
+     */
+    static class CustomFactory implements PointConverterFactory {
+        private final DefaultPointConverterFactory delegate = new DefaultPointConverterFactory();
+
+        @Override
+        public <T> PointConverter createConverter(Class<T> type) {
+            return delegate.createConverter(type);
+        }
+
+        @Override
+        public <T> PointConverter<T> getConverter(Class<?> type) {
+            return delegate.getConverter(type);
+        }
+
+        @Override
+        public <T> Point convert(T t) {
+            return delegate.convert(t);
+        }
+
+        @Override
+        public <T> Point convert(T t, long timestamp) {
+            return delegate.convert(t, timestamp);
+        }
+
+        @Override
+        public <T> Point convert(T t, long timestamp, TimeUnit timeUnit) {
+            return delegate.convert(t, timestamp, timeUnit);
+        }
+
+        @Override
+        public <T> List<T> mapperTo(QueryResult result, Class<T> type) {
+            return delegate.mapperTo(result, type);
+        }
+    }
+
+    private static final Instant TIME = Instant.parse("2018-07-01T08:30:15.123Z");
+
+    private MockInfluxServer server;
+    private InfluxDBConnectionFactory connectionFactory;
+    private InfluxDBTemplate template;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockInfluxServer();
+        final InfluxDBProperties properties = new InfluxDBProperties();
+        properties.setUrl(server.getUrl());
+        properties.setUsername("user");
+        properties.setPassword("password");
+        properties.setDatabase("db");
+        connectionFactory = new InfluxDBConnectionFactory(properties);
+        template = new InfluxDBTemplate(connectionFactory, new DefaultPointConverterFactory());
+        template.afterPropertiesSet();
+        server.clear();
+    }
+
+    @After
+    public void tearDown() {
+        template.destroy();
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    private static String response(final Object time) {
+        return "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"columns\":[\"time\",\"host\",\"value\"],"
+                + "\"values\":[[" + time + ",\"h1\",1.5]]}]}]}";
+    }
+
+    @Test
+    public void preparedQueryWithoutEpoch() {
+        server.setQueryResponse(response("\"" + TIME + "\""));
+        final PreparedInfluxQuery<Cpu> query = template.prepare(Cpu.class).whereEquals("host").build();
+
+        final List<Cpu> list = template.query(query, "host", "h1");
+        assertEquals(1, list.size());
+        assertEquals(TIME, list.get(0).time);
+        assertEquals("h1", list.get(0).host);
+        assertEquals(1.5, list.get(0).value, 0);
+
+        final MockInfluxServer.Request request = server.getRequests("/query").get(0);
+        assertNull(request.param("epoch"));
+        assertEquals("db", request.param("db"));
+    }
+
+    @Test
+    public void preparedQueryWithEpoch() {
+        server.setQueryResponse(response(TIME.getEpochSecond()));
+        final PreparedInfluxQuery<Cpu> query = template.prepare(Cpu.class)
+                .whereEquals("host")
+                .epoch(TimeUnit.SECONDS)
+                .build();
+
+        final List<Cpu> list = template.query(query, "host", "h1");
+        assertEquals(1, list.size());
+        assertEquals(Instant.ofEpochSecond(TIME.getEpochSecond()), list.get(0).time);
+        assertEquals("s", server.getRequests("/query").get(0).param("epoch"));
+    }
+
+    @Test
+    public void customFactoryQueriesWithAnyPrecision() throws Exception {
+        final InfluxDBTemplate custom = new InfluxDBTemplate(connectionFactory, new CustomFactory());
+        custom.afterPropertiesSet();
+        server.setQueryResponse(response(TIME.toEpochMilli()));
+        final Query query = new Query("SELECT * FROM cpu", "db");
+
+        try {
+            assertEquals(1, custom.query(query, TimeUnit.SECONDS, Cpu.class).size());
+            assertEquals(1, custom.queryAsync(query, TimeUnit.NANOSECONDS, Cpu.class).get().size());
+            assertEquals(1, custom.query(query, TimeUnit.MILLISECONDS, Cpu.class).size());
+        } finally {
+            custom.destroy();
+        }
+    }
+
+    @Test
+    public void recordMappingWithDatabase() throws Exception {
+        final List<String> mappings = new ArrayList<>();
+        connectionFactory.setMetrics(new InfluxDBMetrics() {
+            @Override
+            public void recordMapping(String database, String measurement, int rows, long nanos) {
+                synchronized (mappings) {
+                    mappings.add(database + "/" + measurement + "/" + rows);
+                }
+            }
+        });
+        server.setQueryResponse(response(TIME.toEpochMilli()));
+        final Query query = new Query("SELECT * FROM cpu", "other");
+
+        template.query(query, TimeUnit.MILLISECONDS, Cpu.class);
+        template.queryAsync(query, TimeUnit.MILLISECONDS, Cpu.class).get();
+        synchronized (mappings) {
+            assertEquals(2, mappings.size());
+            assertEquals("other/cpu/1", mappings.get(0));
+            assertEquals("other/cpu/1", mappings.get(1));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.InfluxDB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.influxdb.converter.DefaultPointConverterFactory;
+import org.springframework.data.influxdb.spool.SpoolRecord;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InfluxDBTemplateSpoolTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private MockInfluxServer server;
+    private InfluxDBConnectionFactory connectionFactory;
+    private InfluxDBTemplate template;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockInfluxServer();
+        final InfluxDBProperties properties = new InfluxDBProperties();
+        properties.setUrl(server.getUrl());
+        properties.setUsername("user");
+        properties.setPassword("password");
+        properties.setDatabase("db");
+        properties.getSpool().setEnabled(true);
+        properties.getSpool().setDirectory(folder.getRoot().getPath());
+        properties.getSpool().setSegmentSize(4096);
+        // 不依赖定时任务，由测试调用drain
+        properties.getSpool().setDrainInterval(TimeUnit.HOURS.toMillis(1));
+        connectionFactory = new InfluxDBConnectionFactory(properties);
+        template = new InfluxDBTemplate(connectionFactory, new DefaultPointConverterFactory());
+        template.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        template.destroy();
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    private void write(final String lines) {
+        template.writeLines("db", "autogen", InfluxDB.ConsistencyLevel.ONE, TimeUnit.MILLISECONDS, lines);
+    }
+
+    @Test
+    public void divertWritesOnlyWhileServerIsUnavailable() {
+        server.setDown(true);
+        write("cpu value=1 1");
+        assertFalse(template.getSpoolDrainer().isAvailable());
+        assertEquals(1, template.getSpool().getPendingRecords());
+
+        // 标记不可用期间不再请求服务端
+        server.setDown(false);
+        write("cpu value=2 2");
+        assertEquals(0, server.getRequests("/write").size());
+        assertEquals(2, template.getSpool().getPendingRecords());
+
+        assertEquals(2, template.getSpoolDrainer().drain());
+        assertTrue(template.getSpoolDrainer().isAvailable());
+        assertEquals("one", server.getRequests("/write").get(0).param("consistency"));
+        server.clear();
+
+        write("cpu value=3 3");
+        assertEquals(1, server.getRequests("/write").size());
+        assertFalse(template.getSpool().hasPending());
+    }
+
+    @Test
+    public void writeDirectlyWhileBacklogIsReplayed() {
+        server.setDown(true);
+        write("cpu value=1 1");
+        server.setDown(false);
+        // 恢复后仍有积压，新的写入不再进入磁盘缓存
+        template.getSpoolDrainer().drain();
+        template.getSpool().append(new SpoolRecord("db", "autogen", TimeUnit.MILLISECONDS, "cpu value=0 0"));
+        server.clear();
+
+        write("cpu value=2 2");
+        assertEquals(1, server.getRequests("/write").size());
+        assertEquals(1, template.getSpool().getPendingRecords());
+    }
+}
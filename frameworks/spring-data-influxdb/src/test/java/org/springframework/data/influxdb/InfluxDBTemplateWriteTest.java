@@ -0,0 +1,269 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.Point;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.influxdb.annotations.InfluxWriteOptions;
+import org.springframework.data.influxdb.converter.DefaultPointConverterFactory;
+import org.springframework.data.influxdb.converter.PointConverter;
+import org.springframework.data.influxdb.metrics.InfluxDBMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InfluxDBTemplateWriteTest {
+
+    private MockInfluxServer server;
+    private InfluxDBConnectionFactory connectionFactory;
+    private InfluxDBTemplate template;
+
+    /**
+     * 不继承DefaultPointConverter的自定义转换器
+     */
+    static class CustomConverter implements PointConverter<Object> {
+        @Override
+        public Point convert(Object item) {
+            return convert(item, 7, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public Point convert(Object item, long time) {
+            return convert(item, time, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public Point convert(Object item, long time, TimeUnit timeUnit) {
+            return Point.measurement("custom").addField("value", item.toString()).time(time, timeUnit).build();
+        }
+
+        @Override
+        public List<Point> convert(List<Object> items) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    static class Sample {
+        @Override
+        public String toString() {
+            return "x";
+        }
+    }
+
+    @Measurement(name = "disk", timeUnit = TimeUnit.MILLISECONDS)
+    @InfluxWriteOptions(database = "metrics", retentionPolicy = "week",
+            consistency = InfluxDB.ConsistencyLevel.ONE, precision = TimeUnit.SECONDS)
+    public static class Disk {
+        @Column(name = "host", tag = true)
+        private String host;
+        @Column(name = "used")
+        private long used;
+        private Long time;
+
+        public Disk() {
+        }
+
+        Disk(String host, long used, long time) {
+            this.host = host;
+            this.used = used;
+            this.time = time;
+        }
+    }
+
+    /**
+     * 继承父类上的{@link InfluxWriteOptions}
+     */
+    public static class RootDisk extends Disk {
+        public RootDisk() {
+        }
+
+        RootDisk(String host, long used, long time) {
+            super(host, used, time);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockInfluxServer();
+        final InfluxDBProperties properties = new InfluxDBProperties();
+        properties.setUrl(server.getUrl());
+        properties.setUsername("user");
+        properties.setPassword("password");
+        properties.setDatabase("db");
+        connectionFactory = new InfluxDBConnectionFactory(properties);
+        template = new InfluxDBTemplate(connectionFactory, new DefaultPointConverterFactory() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> PointConverter<T> createConverter(Class<T> type) {
+                return type == Sample.class ? (PointConverter<T>) new CustomConverter() : super.createConverter(type);
+            }
+        });
+        template.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        template.destroy();
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    private static Point point(final String host, final double value, final long seconds) {
+        return Point.measurement("cpu")
+                .tag("host", host)
+                .addField("value", value)
+                .time(seconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    private String body() {
+        final List<MockInfluxServer.Request> writes = server.getRequests("/write");
+        assertEquals(1, writes.size());
+        assertEquals("n", writes.get(0).param("precision"));
+        return writes.get(0).body.trim();
+    }
+
+    @Test
+    public void writePoint() {
+        template.write(point("a", 1.5, 1));
+        assertEquals("cpu,host=a value=1.5 1000000000", body());
+    }
+
+    @Test
+    public void writeRawPoints() {
+        template.writeRaw(Arrays.asList(point("a", 1.5, 1), point("b", 2, 2)));
+        assertEquals("cpu,host=a value=1.5 1000000000\ncpu,host=b value=2.0 2000000000", body());
+    }
+
+    @Test
+    public void writeAllPoints() {
+        final WriteResult result = template.writeAll(Collections.singletonList(point("a", 1.5, 1)));
+        assertTrue(result.isSuccess());
+        assertEquals("cpu,host=a value=1.5 1000000000", body());
+    }
+
+    @Test
+    public void writeAsyncPoints() {
+        final WriteResult result = template.writeAsync(Collections.singletonList(point("a", 1.5, 1))).join();
+        assertTrue(result.isSuccess());
+        assertEquals("cpu,host=a value=1.5 1000000000", body());
+    }
+
+    @Test
+    public void writeReactivePoints() {
+        final WriteResult result = new ReactiveInfluxDBTemplate(template)
+                .write(Collections.singletonList(point("a", 1.5, 1))).block();
+        assertTrue(result.isSuccess());
+        assertEquals("cpu,host=a value=1.5 1000000000", body());
+    }
+
+    @Test
+    public void recordWriteBytesInUtf8() {
+        final List<Long> bytes = new ArrayList<>();
+        connectionFactory.setMetrics(new InfluxDBMetrics() {
+            @Override
+            public void recordWrite(String database, String measurement, int points, long size, long nanos,
+                                    Throwable error) {
+                synchronized (bytes) {
+                    bytes.add(size);
+                }
+            }
+        });
+        template.write(point("主机", 1.5, 1));
+        template.writeAsync(Collections.singletonList(point("主机", 1.5, 1))).join();
+
+        final List<MockInfluxServer.Request> writes = server.getRequests("/write");
+        assertEquals(2, writes.size());
+        synchronized (bytes) {
+            assertEquals(2, bytes.size());
+            assertEquals(writes.get(0).wireBytes, (long) bytes.get(0));
+            assertEquals(writes.get(1).wireBytes, (long) bytes.get(1));
+        }
+    }
+
+    @Test
+    public void resolveAnnotatedWriteOptions() {
+        final WriteOptions options = template.getWriteOptions(Disk.class);
+        assertEquals("metrics", options.getDatabase());
+        assertEquals("week", options.getRetentionPolicy());
+        assertEquals(InfluxDB.ConsistencyLevel.ONE, options.getConsistency());
+        assertEquals(TimeUnit.SECONDS, options.getPrecision());
+        assertEquals(options, template.getWriteOptions(RootDisk.class));
+        assertSame(WriteOptions.DEFAULT, template.getWriteOptions(Point.class));
+    }
+
+    @Test
+    public void writeWithAnnotatedOptions() {
+        template.write(new Disk("a", 10, 1500));
+        final MockInfluxServer.Request request = server.getRequests("/write").get(0);
+        assertEquals("metrics", request.param("db"));
+        assertEquals("week", request.param("rp"));
+        assertEquals("one", request.param("consistency"));
+        assertEquals("s", request.param("precision"));
+        assertEquals("disk,host=a used=10i 1", request.body.trim());
+    }
+
+    @Test
+    public void callOptionsOverrideAnnotation() {
+        final WriteResult result = template.write(Collections.singletonList(new Disk("a", 10, 1500)),
+                WriteOptions.builder().database("override").precision(TimeUnit.MILLISECONDS).build());
+        assertTrue(result.isSuccess());
+        final MockInfluxServer.Request request = server.getRequests("/write").get(0);
+        assertEquals("override", request.param("db"));
+        assertEquals("week", request.param("rp"));
+        assertEquals("one", request.param("consistency"));
+        assertEquals("ms", request.param("precision"));
+        assertEquals("disk,host=a used=10i 1500", request.body.trim());
+    }
+
+    @Test
+    public void groupByResolvedOptions() {
+        final List<Object> payload = Arrays.asList(new Disk("a", 1, 1000), point("a", 1.5, 1),
+                new RootDisk("b", 2, 2000), point("b", 2, 2));
+        final Map<WriteOptions, List<Object>> groups = template.groupByOptions(payload, null);
+        assertEquals(2, groups.size());
+        assertEquals(Arrays.asList(payload.get(0), payload.get(2)), groups.get(template.getWriteOptions(Disk.class)));
+        assertEquals(Arrays.asList(payload.get(1), payload.get(3)), groups.get(WriteOptions.DEFAULT));
+
+        // 调用时指定的选项与注解合并后，Point和Disk依然分属不同的组
+        final WriteOptions call = WriteOptions.builder().database("override").build();
+        final Map<WriteOptions, List<Object>> merged = template.groupByOptions(payload, call);
+        assertEquals(2, merged.size());
+        assertEquals(2, merged.get(call).size());
+        assertEquals(2, merged.get(call.merge(template.getWriteOptions(Disk.class))).size());
+    }
+
+    @Test
+    public void writeAllSplitsByOptions() {
+        final WriteResult result = template.writeAll(Arrays.asList(new Disk("a", 1, 1000), point("a", 1.5, 1),
+                new Disk("b", 2, 2000)));
+        assertTrue(result.isSuccess());
+        final List<MockInfluxServer.Request> writes = server.getRequests("/write");
+        assertEquals(2, writes.size());
+        MockInfluxServer.Request disk = "metrics".equals(writes.get(0).param("db")) ? writes.get(0) : writes.get(1);
+        MockInfluxServer.Request cpu = disk == writes.get(0) ? writes.get(1) : writes.get(0);
+        assertEquals("disk,host=a used=1i 1\ndisk,host=b used=2i 2", disk.body.trim());
+        assertEquals("db", cpu.param("db"));
+        assertEquals("cpu,host=a value=1.5 1000000000", cpu.body.trim());
+    }
+
+    @Test
+    public void writeWithCustomConverter() {
+        template.write(new Sample());
+        assertEquals("custom value=\"x\" 7000000000", body());
+        server.clear();
+        template.writeRaw(Collections.singletonList(new Sample()));
+        assertEquals("custom value=\"x\" 7000000000", body());
+    }
+}
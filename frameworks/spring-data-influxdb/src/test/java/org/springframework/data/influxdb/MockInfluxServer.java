@@ -0,0 +1,202 @@
+package org.springframework.data.influxdb;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 测试用的InfluxDB HTTP服务，记录收到的请求，可以模拟节点宕机和返回错误
+ */
+public class MockInfluxServer implements Closeable {
+
+    /**
+     * 收到的请求
+     */
+    public static final class Request {
+        public final String method;
+        public final String path;
+        public final String query;
+        public final String contentEncoding;
+        /**
+         * 请求体，gzip压缩的请求体已经解压
+         */
+        public final String body;
+        public final long wireBytes;
+
+        Request(String method, String path, String query, String contentEncoding, String body, long wireBytes) {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.contentEncoding = contentEncoding;
+            this.body = body;
+            this.wireBytes = wireBytes;
+        }
+
+        /**
+         * 获取URL参数的值
+         */
+        public String param(final String name) {
+            if (query == null) {
+                return null;
+            }
+            for (String pair : query.split("&")) {
+                final int eq = pair.indexOf('=');
+                if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                    return pair.substring(eq + 1);
+                }
+            }
+            return null;
+        }
+    }
+
+    private final HttpServer server;
+    private final List<Request> requests = new ArrayList<>();
+
+    /**
+     * 宕机时直接断开连接，不返回响应
+     */
+    private volatile boolean down;
+    private volatile int writeStatus = 204;
+    private volatile String writeError;
+    private volatile long delayMillis;
+    private volatile String queryResponse = "{\"results\":[{\"statement_id\":0}]}";
+
+    public MockInfluxServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "mock-influxdb");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            final String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            final byte[] raw = readAll(exchange.getRequestBody());
+            final byte[] body = "gzip".equals(encoding)
+                    ? readAll(new GZIPInputStream(new ByteArrayInputStream(raw))) : raw;
+            final String path = exchange.getRequestURI().getPath();
+            if (down) {
+                return;
+            }
+            synchronized (requests) {
+                requests.add(new Request(exchange.getRequestMethod(), path, exchange.getRequestURI().getRawQuery(),
+                        encoding, new String(body, StandardCharsets.UTF_8), raw.length));
+            }
+            if (delayMillis > 0) {
+                Thread.sleep(delayMillis);
+            }
+            exchange.getResponseHeaders().add("X-Influxdb-Version", "1.6.0");
+            if ("/ping".equals(path)) {
+                exchange.sendResponseHeaders(204, -1);
+            } else if ("/write".equals(path)) {
+                if (writeError != null) {
+                    respond(exchange, writeStatus, "{\"error\":\"" + writeError + "\"}");
+                } else {
+                    exchange.sendResponseHeaders(writeStatus, -1);
+                }
+            } else if ("/query".equals(path)) {
+                respond(exchange, 200, queryResponse);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String json) throws IOException {
+        final byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 模拟宕机或恢复
+     */
+    public void setDown(boolean down) {
+        this.down = down;
+    }
+
+    /**
+     * 设置写入请求的响应状态和错误信息，error为null时只返回状态码
+     */
+    public void setWriteResponse(int status, String error) {
+        this.writeStatus = status;
+        this.writeError = error;
+    }
+
+    public void setDelay(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    public void setQueryResponse(String queryResponse) {
+        this.queryResponse = queryResponse;
+    }
+
+    public List<Request> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+
+    /**
+     * 指定路径的请求
+     */
+    public List<Request> getRequests(final String path) {
+        final List<Request> result = new ArrayList<>();
+        for (Request request : getRequests()) {
+            if (request.path.equals(path)) {
+                result.add(request);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        synchronized (requests) {
+            requests.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+}
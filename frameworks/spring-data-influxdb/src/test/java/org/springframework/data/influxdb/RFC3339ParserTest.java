@@ -0,0 +1,81 @@
+package org.springframework.data.influxdb;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RFC3339ParserTest {
+
+    private static long nanos(final Instant instant) {
+        return instant.getEpochSecond() * 1000_000_000L + instant.getNano();
+    }
+
+    @Test
+    public void parsesUtcWithVariableFraction() {
+        assertEquals(0L, RFC3339Parser.parseNanos("1970-01-01T00:00:00Z"));
+        assertEquals(nanos(Instant.parse("2018-07-01T08:30:15Z")),
+                RFC3339Parser.parseNanos("2018-07-01T08:30:15Z"));
+        assertEquals(nanos(Instant.parse("2018-07-01T08:30:15.100Z")),
+                RFC3339Parser.parseNanos("2018-07-01T08:30:15.1Z"));
+        assertEquals(nanos(Instant.parse("2018-07-01T08:30:15.123456789Z")),
+                RFC3339Parser.parseNanos("2018-07-01T08:30:15.123456789Z"));
+        // 超过纳秒的部分被截断
+        assertEquals(nanos(Instant.parse("2018-07-01T08:30:15.123456789Z")),
+                RFC3339Parser.parseNanos("2018-07-01T08:30:15.1234567891Z"));
+    }
+
+    @Test
+    public void parsesOffsetsAndLowercase() {
+        assertEquals(nanos(OffsetDateTime.parse("2018-07-01T08:30:15.5+08:00").toInstant()),
+                RFC3339Parser.parseNanos("2018-07-01T08:30:15.5+08:00"));
+        assertEquals(nanos(OffsetDateTime.parse("2018-07-01T08:30:15-05:30").toInstant()),
+                RFC3339Parser.parseNanos("2018-07-01T08:30:15-05:30"));
+        assertEquals(RFC3339Parser.parseNanos("2018-07-01T08:30:15Z"),
+                RFC3339Parser.parseNanos("2018-07-01t08:30:15z"));
+    }
+
+    @Test
+    public void parsesLeapDaysAndPreEpochDates() {
+        assertEquals(nanos(Instant.parse("2016-02-29T23:59:59Z")),
+                RFC3339Parser.parseNanos("2016-02-29T23:59:59Z"));
+        assertEquals(nanos(Instant.parse("2000-03-01T00:00:00Z")),
+                RFC3339Parser.parseNanos("2000-03-01T00:00:00Z"));
+        assertEquals(nanos(Instant.parse("1969-12-31T23:59:59.999Z")),
+                RFC3339Parser.parseNanos("1969-12-31T23:59:59.999Z"));
+        // 毫秒向下取整
+        assertEquals(-1L, RFC3339Parser.parseMillis("1969-12-31T23:59:59.9995Z"));
+    }
+
+    @Test
+    public void matchesJavaTimeForRandomInstants() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < 10000; i++) {
+            final Instant instant = Instant.ofEpochSecond(random.nextLong(-9_000_000_000L, 9_000_000_000L),
+                    random.nextInt(1000_000_000));
+            assertEquals(instant.toString(), nanos(instant), RFC3339Parser.parseNanos(instant.toString()));
+            assertEquals(instant.toString(), instant.toEpochMilli(), RFC3339Parser.parseMillis(instant.toString()));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        final String[] invalid = {
+                "", "2018-07-01", "2018-07-01T08:30:15", "2018-07-01T08:30:15.Z", "2018-13-01T08:30:15Z",
+                "2018-07-01T24:30:15Z", "2018-07-01T08:30:15+0800", "2018-07-01T08:30:15ZZ", "2018/07/01T08:30:15Z",
+                "2018-07-0aT08:30:15Z"
+        };
+        for (String text : invalid) {
+            try {
+                RFC3339Parser.parseNanos(text);
+                fail("expected failure for \"" + text + "\"");
+            } catch (IllegalArgumentException e) {
+                // ~
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.springframework.data.influxdb;
+
+import org.influxdb.InfluxDB;
+import org.junit.Test;
+import org.springframework.data.influxdb.annotations.InfluxWriteOptions;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WriteOptionsTest {
+
+    @InfluxWriteOptions(database = "metrics", retentionPolicy = "week",
+            consistency = InfluxDB.ConsistencyLevel.ONE, precision = TimeUnit.SECONDS)
+    static class Annotated {
+    }
+
+    @InfluxWriteOptions(retentionPolicy = "week")
+    static class Partial {
+    }
+
+    @InfluxWriteOptions
+    static class Empty {
+    }
+
+    private static WriteOptions of(final Class<?> type) {
+        return WriteOptions.of(type.getAnnotation(InfluxWriteOptions.class));
+    }
+
+    @Test
+    public void ofAnnotation() {
+        final WriteOptions options = of(Annotated.class);
+        assertEquals("metrics", options.getDatabase());
+        assertEquals("week", options.getRetentionPolicy());
+        assertEquals(InfluxDB.ConsistencyLevel.ONE, options.getConsistency());
+        assertEquals(TimeUnit.SECONDS, options.getPrecision());
+        assertFalse(options.isDefault());
+    }
+
+    @Test
+    public void emptyAttributesAreUnset() {
+        final WriteOptions options = of(Partial.class);
+        assertNull(options.getDatabase());
+        assertEquals("week", options.getRetentionPolicy());
+        assertNull(options.getConsistency());
+        assertNull(options.getPrecision());
+
+        assertTrue(of(Empty.class).isDefault());
+        assertSame(WriteOptions.DEFAULT, WriteOptions.of(null));
+    }
+
+    @Test
+    public void mergePrefersCallOptions() {
+        final WriteOptions call = WriteOptions.builder()
+                .database("override")
+                .precision(TimeUnit.MILLISECONDS)
+                .build();
+        final WriteOptions merged = call.merge(of(Annotated.class));
+        assertEquals("override", merged.getDatabase());
+        assertEquals("week", merged.getRetentionPolicy());
+        assertEquals(InfluxDB.ConsistencyLevel.ONE, merged.getConsistency());
+        assertEquals(TimeUnit.MILLISECONDS, merged.getPrecision());
+    }
+
+    @Test
+    public void mergeWithDefault() {
+        final WriteOptions call = WriteOptions.builder().database("override").build();
+        final WriteOptions annotated = of(Annotated.class);
+        assertSame(call, call.merge(null));
+        assertSame(call, call.merge(WriteOptions.DEFAULT));
+        assertSame(annotated, WriteOptions.DEFAULT.merge(annotated));
+    }
+
+    @Test
+    public void equalOptionsShareKey() {
+        final WriteOptions built = WriteOptions.builder()
+                .database("metrics")
+                .retentionPolicy("week")
+                .consistency(InfluxDB.ConsistencyLevel.ONE)
+                .precision(TimeUnit.SECONDS)
+                .build();
+        assertEquals(of(Annotated.class), built);
+        assertEquals(of(Annotated.class).hashCode(), built.hashCode());
+        assertEquals(WriteOptions.DEFAULT, WriteOptions.builder().build());
+        assertFalse(built.equals(of(Partial.class)));
+    }
+}
@@ -0,0 +1,144 @@
+package org.springframework.data.influxdb.aggregate;
+
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.Point;
+import org.junit.Test;
+import org.springframework.data.influxdb.annotations.InfluxAggregate;
+import org.springframework.data.influxdb.converter.DefaultPointConverter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AggregateWindowTest {
+
+    @Measurement(name = "req", timeUnit = TimeUnit.MILLISECONDS)
+    @InfluxAggregate(functions = {AggregateFunction.COUNT, AggregateFunction.SUM, AggregateFunction.MIN,
+            AggregateFunction.MAX, AggregateFunction.LAST, AggregateFunction.MEAN})
+    public static class Request {
+        @Column(name = "host", tag = true)
+        private String host;
+        @Column(name = "bytes")
+        private Long bytes;
+        @Column(name = "latency")
+        private double latency;
+        @Column(name = "status")
+        private String status;
+        private Long time;
+
+        public Request() {
+        }
+
+        Request(String host, Long bytes, double latency, String status, long time) {
+            this.host = host;
+            this.bytes = bytes;
+            this.latency = latency;
+            this.status = status;
+            this.time = time;
+        }
+    }
+
+    @Measurement(name = "cpu", timeUnit = TimeUnit.SECONDS)
+    @InfluxAggregate
+    public static class Cpu {
+        @Column(name = "host", tag = true)
+        private String host;
+        @Column(name = "value")
+        private Double value;
+        private Long time;
+
+        public Cpu() {
+        }
+
+        Cpu(Double value, long time) {
+            this.host = "a";
+            this.value = value;
+            this.time = time;
+        }
+    }
+
+    private static AggregationSpec spec(final Class<?> type) {
+        return AggregationSpec.of(type, new DefaultPointConverter<>(type));
+    }
+
+    private static void add(final AggregationSpec spec, final AggregateWindow window, final Object item) {
+        window.add(item, spec.timestamp(item, 0));
+    }
+
+    private static String lineProtocol(final Point point) {
+        return point.lineProtocol(TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void aggregateAllFunctions() {
+        final AggregationSpec spec = spec(Request.class);
+        final AggregateWindow window = new AggregateWindow(spec, 1000);
+        add(spec, window, new Request("a", 10L, 1.0, "ok", 1100));
+        add(spec, window, new Request("a", 30L, 3.0, "err", 1500));
+        // 乱序到达，LAST取时间最大的值
+        add(spec, window, new Request("a", 20L, 2.0, "slow", 1300));
+
+        assertEquals("req,host=a bytes_count=3i,bytes_last=30i,bytes_max=30i,bytes_mean=20.0,bytes_min=10i,"
+                        + "bytes_sum=60i,latency_count=3i,latency_last=3.0,latency_max=3.0,latency_mean=2.0,"
+                        + "latency_min=1.0,latency_sum=6.0,status=\"err\" 1000",
+                lineProtocol(window.toPoint(spec.tagValues(new Request("a", 0L, 0, null, 0)))));
+    }
+
+    @Test
+    public void singleFunctionIsSuffixed() {
+        final AggregationSpec spec = spec(Cpu.class);
+        final AggregateWindow window = new AggregateWindow(spec, 2000);
+        add(spec, window, new Cpu(1.0, 2));
+        add(spec, window, new Cpu(2.0, 2));
+        assertEquals("cpu,host=a value_mean=1.5 2000", lineProtocol(window.toPoint(new String[]{"a"})));
+    }
+
+    @Test
+    public void timestampUsesAnnotatedTimeUnit() {
+        final AggregationSpec spec = spec(Cpu.class);
+        assertEquals(3000, spec.timestamp(new Cpu(1.0, 3), 0));
+        final Cpu withoutTime = new Cpu(1.0, 0);
+        withoutTime.time = null;
+        assertEquals(42, spec.timestamp(withoutTime, 42));
+    }
+
+    @Test
+    public void integralSumKeepsLongPrecision() {
+        final AggregationSpec spec = spec(Request.class);
+        final AggregateWindow window = new AggregateWindow(spec, 0);
+        final long large = (1L << 53) + 1;
+        add(spec, window, new Request("a", large, 0, null, 1));
+        add(spec, window, new Request("a", large, 0, null, 2));
+        final String line = lineProtocol(window.toPoint(new String[]{"a"}));
+        assertEquals(true, line.contains("bytes_sum=" + (2 * large) + "i"));
+        assertEquals(true, line.contains("bytes_max=" + large + "i"));
+    }
+
+    @Test
+    public void skipNullValues() {
+        final AggregationSpec spec = spec(Request.class);
+        final AggregateWindow window = new AggregateWindow(spec, 0);
+        add(spec, window, new Request("a", null, 1.0, null, 1));
+        add(spec, window, new Request("a", 4L, 3.0, null, 2));
+        final String line = lineProtocol(window.toPoint(new String[]{"a"}));
+        assertEquals(true, line.contains("bytes_count=1i"));
+        assertEquals(true, line.contains("bytes_mean=4.0"));
+        assertEquals(true, line.contains("latency_count=2i"));
+        assertEquals(false, line.contains("status="));
+    }
+
+    @Test
+    public void emptyWindowHasNoPoint() {
+        final AggregationSpec spec = spec(Cpu.class);
+        final AggregateWindow window = new AggregateWindow(spec, 0);
+        add(spec, window, new Cpu(null, 1));
+        assertNull(window.toPoint(new String[]{"a"}));
+    }
+
+    @Test
+    public void typesWithoutAnnotationAreNotAggregated() {
+        assertNull(AggregationSpec.of(String.class, new DefaultPointConverter<>(String.class)));
+    }
+}
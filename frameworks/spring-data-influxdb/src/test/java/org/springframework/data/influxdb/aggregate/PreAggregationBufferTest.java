@@ -0,0 +1,166 @@
+package org.springframework.data.influxdb.aggregate;
+
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.Point;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.influxdb.InfluxDBProperties;
+import org.springframework.data.influxdb.annotations.InfluxAggregate;
+import org.springframework.data.influxdb.converter.DefaultPointConverterFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PreAggregationBufferTest {
+
+    @Measurement(name = "cpu", timeUnit = TimeUnit.MILLISECONDS)
+    @InfluxAggregate(window = 1000, grace = 0)
+    public static class Cpu {
+        @Column(name = "host", tag = true)
+        private String host;
+        @Column(name = "value")
+        private double value;
+        private Long time;
+
+        public Cpu() {
+        }
+
+        Cpu(String host, double value, long time) {
+            this.host = host;
+            this.value = value;
+            this.time = time;
+        }
+    }
+
+    @Measurement(name = "counter", timeUnit = TimeUnit.MILLISECONDS)
+    @InfluxAggregate(window = 1000, grace = 0)
+    public static class Counter {
+        @Column(name = "host", tag = true)
+        private String host;
+        @Column(name = "requests")
+        private int requests;
+        private Long time;
+
+        public Counter() {
+        }
+
+        Counter(int requests, long time) {
+            this.host = "a";
+            this.requests = requests;
+            this.time = time;
+        }
+    }
+
+    private final List<Point> written = new ArrayList<>();
+    private PreAggregationBuffer buffer;
+
+    @Before
+    public void setUp() {
+        final InfluxDBProperties.Aggregation options = new InfluxDBProperties.Aggregation();
+        // 不依赖定时任务，由测试调用flush
+        options.setFlushInterval(TimeUnit.HOURS.toMillis(1));
+        buffer = new PreAggregationBuffer(options, new DefaultPointConverterFactory(), (type, points) -> {
+            synchronized (written) {
+                written.addAll(points);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        buffer.close();
+    }
+
+    @Test
+    public void ignoreTypesWithoutAnnotation() {
+        assertFalse(buffer.isAggregated(String.class));
+        assertFalse(buffer.add("not aggregated"));
+        assertEquals(0, buffer.getReceived());
+    }
+
+    @Test
+    public void aggregateSeriesPerWindow() {
+        final long start = System.currentTimeMillis() / 1000 * 1000 + 60_000;
+        assertTrue(buffer.add(new Cpu("a", 1, start + 10)));
+        assertTrue(buffer.add(new Cpu("a", 3, start + 20)));
+        assertTrue(buffer.add(new Cpu("b", 5, start + 30)));
+        assertTrue(buffer.add(new Cpu("a", 7, start + 1010)));
+        assertEquals(4, buffer.getReceived());
+        assertEquals(3, buffer.getWindows());
+
+        // 窗口尚未结束
+        buffer.flush();
+        assertTrue(written.isEmpty());
+
+        buffer.close();
+        assertEquals(3, written.size());
+        assertEquals(3, buffer.getEmitted());
+        assertEquals(0, buffer.getWindows());
+        final List<String> lines = new ArrayList<>();
+        written.forEach(p -> lines.add(p.lineProtocol(TimeUnit.MILLISECONDS)));
+        assertTrue(lines.toString(), lines.contains("cpu,host=a value_mean=2.0 " + start));
+        assertTrue(lines.toString(), lines.contains("cpu,host=b value_mean=5.0 " + start));
+        assertTrue(lines.toString(), lines.contains("cpu,host=a value_mean=7.0 " + (start + 1000)));
+    }
+
+    @Test
+    public void flushFinishedWindows() {
+        final long past = System.currentTimeMillis() - 5_000;
+        final long future = System.currentTimeMillis() + 60_000;
+        // 窗口在add之后才结束
+        assertTrue(buffer.add(new Cpu("a", 1, future)));
+        buffer.flush();
+        assertTrue(written.isEmpty());
+        assertEquals(1, buffer.getWindows());
+
+        // 已经结束的窗口不再接收数据
+        assertTrue(buffer.add(new Cpu("a", 1, past)));
+        assertEquals(1, buffer.getWindows());
+        assertEquals(1, buffer.getLate());
+    }
+
+    @Test
+    public void lateItemsGoToLateMeasurement() {
+        final long late = System.currentTimeMillis() - 10_000;
+        assertTrue(buffer.add(new Cpu("a", 1, late)));
+        assertEquals(1, buffer.getLate());
+        assertEquals(0, buffer.getReceived());
+        assertEquals(0, buffer.getWindows());
+        assertEquals("cpu_late", buffer.getLateMeasurement(Cpu.class));
+
+        buffer.flush();
+        assertEquals(1, written.size());
+        assertEquals("cpu_late,host=a value=1.0 " + late, written.get(0).lineProtocol(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void aggregatedFieldTypesDoNotConflictWithRawFields() {
+        final long start = System.currentTimeMillis() / 1000 * 1000 + 60_000;
+        final long late = System.currentTimeMillis() - 10_000;
+        assertTrue(buffer.add(new Counter(1, start)));
+        assertTrue(buffer.add(new Counter(2, start + 1)));
+        assertTrue(buffer.add(new Counter(3, late)));
+        buffer.close();
+
+        final List<String> lines = new ArrayList<>();
+        written.forEach(p -> lines.add(p.lineProtocol(TimeUnit.MILLISECONDS)));
+        // 整数字段的平均值是浮点数，使用单独的字段名；迟到的原始数据保持整数，写入单独的measurement
+        assertTrue(lines.toString(), lines.contains("counter,host=a requests_mean=1.5 " + start));
+        assertTrue(lines.toString(), lines.contains("counter_late,host=a requests=3i " + late));
+        assertEquals("counter,host=a requests=3i " + late, new DefaultPointConverterFactory()
+                .convert(new Counter(3, late)).lineProtocol(TimeUnit.MILLISECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectAfterClose() {
+        buffer.close();
+        buffer.add(new Cpu("a", 1, System.currentTimeMillis()));
+    }
+}
@@ -0,0 +1,235 @@
+package org.springframework.data.influxdb.batch;
+
+import org.influxdb.dto.Point;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.data.influxdb.InfluxDBProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchWriteBufferTest {
+
+    private final List<List<Point>> batches = new ArrayList<>();
+    /**
+     * 第一批数据开始提交
+     */
+    private final CountDownLatch started = new CountDownLatch(1);
+    /**
+     * 放行被阻塞的提交
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BatchWriteBuffer buffer;
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    private BatchWriteBuffer create(int actions, int bufferLimit, long flushInterval,
+                                    BackpressurePolicy backpressure, boolean blocking) {
+        final InfluxDBProperties.Batch options = new InfluxDBProperties.Batch();
+        options.setActions(actions);
+        options.setBufferLimit(bufferLimit);
+        options.setFlushInterval(flushInterval);
+        options.setBackpressure(backpressure);
+        buffer = new BatchWriteBuffer(options, batch -> {
+            started.countDown();
+            if (blocking) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (batches) {
+                batches.add(batch);
+                batches.notifyAll();
+            }
+        });
+        return buffer;
+    }
+
+    private static Point point(int i) {
+        return Point.measurement("cpu").addField("i", i).time(i, TimeUnit.MILLISECONDS).build();
+    }
+
+    private void awaitWritten(int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        synchronized (batches) {
+            while (written().size() < count) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    fail("expected " + count + " points, written " + written().size());
+                }
+                batches.wait(remaining);
+            }
+        }
+    }
+
+    /**
+     * 已提交的数据的字段值
+     */
+    private List<Long> written() {
+        final List<Long> values = new ArrayList<>();
+        synchronized (batches) {
+            for (List<Point> batch : batches) {
+                for (Point point : batch) {
+                    String line = point.lineProtocol();
+                    values.add(Long.parseLong(line.substring(line.indexOf("i=") + 2, line.indexOf('i', line.indexOf("i=") + 2))));
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 缓冲区占满并阻塞提交线程：前actions条正在提交，缓冲区中还有capacity条
+     */
+    private void fill(int actions, int capacity) throws InterruptedException {
+        for (int i = 0; i < actions; i++) {
+            buffer.add(point(i));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = actions; i < actions + capacity; i++) {
+            buffer.add(point(i));
+        }
+        assertEquals(capacity, buffer.size());
+    }
+
+    @Test
+    public void flushWhenBatchIsFull() throws Exception {
+        create(5, 100, TimeUnit.HOURS.toMillis(1), BackpressurePolicy.BLOCK, false);
+        for (int i = 0; i < 12; i++) {
+            buffer.add(point(i));
+        }
+        awaitWritten(10);
+        synchronized (batches) {
+            assertEquals(2, batches.size());
+            assertEquals(5, batches.get(0).size());
+            assertEquals(5, batches.get(1).size());
+        }
+        assertEquals(2, buffer.size());
+    }
+
+    @Test
+    public void flushOnInterval() throws Exception {
+        create(100, 100, 50, BackpressurePolicy.BLOCK, false);
+        for (int i = 0; i < 3; i++) {
+            buffer.add(point(i));
+        }
+        awaitWritten(3);
+        synchronized (batches) {
+            assertEquals(1, batches.size());
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void dropOldestWhenFull() throws Exception {
+        create(4, 4, TimeUnit.HOURS.toMillis(1), BackpressurePolicy.DROP_OLDEST, true);
+        fill(4, 4);
+        buffer.add(point(8));
+        buffer.add(point(9));
+        assertEquals(2, buffer.getDropped());
+        assertEquals(4, buffer.size());
+
+        release.countDown();
+        buffer.close();
+        List<Long> values = written();
+        assertEquals(8, values.size());
+        assertFalse(values.contains(4L));
+        assertFalse(values.contains(5L));
+        assertTrue(values.contains(8L));
+        assertTrue(values.contains(9L));
+    }
+
+    @Test
+    public void failWhenFull() throws Exception {
+        create(4, 4, TimeUnit.HOURS.toMillis(1), BackpressurePolicy.FAIL, true);
+        fill(4, 4);
+        try {
+            buffer.add(point(8));
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(0, buffer.getDropped());
+
+        release.countDown();
+        buffer.close();
+        assertEquals(8, written().size());
+    }
+
+    @Test
+    public void blockWhenFull() throws Exception {
+        create(4, 4, TimeUnit.HOURS.toMillis(1), BackpressurePolicy.BLOCK, true);
+        fill(4, 4);
+        final CountDownLatch added = new CountDownLatch(1);
+        final Thread producer = new Thread(() -> {
+            buffer.add(point(8));
+            added.countDown();
+        });
+        producer.start();
+        assertFalse(added.await(100, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        assertTrue(added.await(5, TimeUnit.SECONDS));
+        awaitWritten(8);
+        buffer.close();
+        assertEquals(9, written().size());
+    }
+
+    @Test
+    public void closeFlushesPointsAddedConcurrently() throws Exception {
+        create(4, 4, TimeUnit.HOURS.toMillis(1), BackpressurePolicy.BLOCK, true);
+        fill(4, 4);
+        // 被阻塞的写入线程，只能在close()开始提交之后才能进入缓冲区
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final List<Thread> producers = new ArrayList<>();
+        for (int i = 8; i < 12; i++) {
+            final int value = i;
+            final Thread producer = new Thread(() -> {
+                try {
+                    buffer.add(point(value));
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        final Thread closer = new Thread(buffer::close);
+        closer.start();
+        while (!buffer.isClosed()) {
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+        closer.join(10000);
+        for (Thread producer : producers) {
+            producer.join(10000);
+        }
+        assertEquals(null, error.get());
+        assertEquals(12, written().size());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addAfterClose() {
+        create(4, 4, TimeUnit.HOURS.toMillis(1), BackpressurePolicy.BLOCK, false);
+        buffer.close();
+        buffer.add(point(0));
+    }
+}
@@ -0,0 +1,55 @@
+package org.springframework.data.influxdb.benchmark;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * 简单的微基准测试工具，在main方法中运行，不参与单元测试
+ * <p>
+ * 每轮执行固定次数的操作，预热后取多轮耗时的中位数；操作的返回值写入volatile字段，避免被JIT消除
+ */
+public final class Bench {
+
+    private static volatile Object sink;
+
+    private Bench() {
+    }
+
+    /**
+     * 运行一项测试并打印每次操作的纳秒数
+     *
+     * @param name       测试名称
+     * @param operations 每轮的操作次数
+     * @param op         操作，参数为本轮中的序号
+     * @return 返回每次操作的纳秒数(中位数)
+     */
+    public static double run(final String name, final int operations, final IntFunction<Object> op) {
+        return run(name, 5, 10, operations, op);
+    }
+
+    public static double run(final String name, final int warmups, final int rounds,
+                             final int operations, final IntFunction<Object> op) {
+        for (int r = 0; r < warmups; r++) {
+            round(operations, op);
+        }
+        final double[] results = new double[rounds];
+        for (int r = 0; r < rounds; r++) {
+            results[r] = (double) round(operations, op) / operations;
+        }
+        Arrays.sort(results);
+        final double median = results[rounds / 2];
+        System.out.printf("%-48s %12.1f ns/op%n", name, median);
+        return median;
+    }
+
+    private static long round(final int operations, final IntFunction<Object> op) {
+        Object last = null;
+        final long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            last = op.apply(i);
+        }
+        final long elapsed = System.nanoTime() - start;
+        sink = last;
+        return elapsed;
+    }
+}
@@ -0,0 +1,97 @@
+package org.springframework.data.influxdb.benchmark;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.springframework.data.influxdb.network.AdaptiveGzipInterceptor;
+import org.springframework.data.influxdb.network.DeflaterPool;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 写入请求压缩的矩阵：批量大小 × 压缩级别，对比压缩耗时(CPU)和发送的字节数
+ * <p>
+ * 请求经过{@link AdaptiveGzipInterceptor}后由本地的拦截器写入内存，不发送到网络
+ */
+public class GzipBenchmark {
+
+    private static final int[] BATCH_SIZES = {100, 1000, 5000, 20000};
+    private static final int[] LEVELS = {1, 3, 6, 9};
+    private static final MediaType TEXT = MediaType.parse("text/plain; charset=utf-8");
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %-6s %12s %12s %8s %12s%n", "batch", "level", "raw", "compressed", "ratio", "MB/s");
+        for (int batchSize : BATCH_SIZES) {
+            final String body = lines(batchSize);
+            measure(batchSize, 0, body);
+            for (int level : LEVELS) {
+                measure(batchSize, level, body);
+            }
+        }
+    }
+
+    private static void measure(final int batchSize, final int level, final String body) {
+        final Buffer sent = new Buffer();
+        final OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        AdaptiveGzipInterceptor gzip = null;
+        if (level > 0) {
+            gzip = new AdaptiveGzipInterceptor(0, new DeflaterPool(level, 1));
+            builder.addInterceptor(gzip);
+        }
+        // 把请求体写入内存并直接返回204
+        builder.addInterceptor(chain -> {
+            final Request request = chain.request();
+            sent.clear();
+            request.body().writeTo(sent);
+            return new Response.Builder()
+                    .request(request)
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(204)
+                    .message("No Content")
+                    .body(ResponseBody.create(TEXT, ""))
+                    .build();
+        });
+        final OkHttpClient client = builder.build();
+        final Request request = new Request.Builder()
+                .url("http://localhost:8086/write?db=test&precision=ms")
+                .post(RequestBody.create(TEXT, body))
+                .build();
+
+        final int operations = Math.max(5, 200_000 / batchSize);
+        final double nanos = Bench.run(String.format("batch=%d level=%d", batchSize, level), 2, 5, operations, i -> {
+            try (Response response = client.newCall(request).execute()) {
+                return response.code();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        final long raw = body.length();
+        final long compressed = sent.size();
+        System.out.printf("%-10d %-6d %12d %12d %8.3f %12.1f%n", batchSize, level, raw, compressed,
+                (double) compressed / raw, raw / nanos * 1000_000_000 / 1024 / 1024);
+        if (gzip != null) {
+            gzip.close();
+        }
+    }
+
+    /**
+     * 典型的监控数据：少量tag组合，数值和时间戳递增
+     */
+    private static String lines(final int count) {
+        final StringBuilder sb = new StringBuilder(count * 80);
+        final long time = 1_500_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            sb.append("cpu,host=server").append(i % 32).append(",region=cn-north-").append(i % 3)
+                    .append(" usage_user=").append(i % 100).append('.').append(i % 7)
+                    .append(",usage_system=").append(i % 13).append(".5")
+                    .append(' ').append(time + i * 1000L).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package org.springframework.data.influxdb.benchmark;
+
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.springframework.data.influxdb.converter.AccessorPointConverter;
+import org.springframework.data.influxdb.converter.DefaultPointConverter;
+import org.springframework.data.influxdb.converter.FieldAccessor;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccessorPointConverter}与基于反射的{@link DefaultPointConverter}的对比
+ * <p>
+ * 分别测试单个字段的读取和整个bean转换成Point的耗时
+ */
+public class PointConverterBenchmark {
+
+    @Measurement(name = "cpu", timeUnit = TimeUnit.MILLISECONDS)
+    public static class Cpu {
+        @Column(name = "host", tag = true)
+        private String host;
+        @Column(name = "region", tag = true)
+        private String region;
+        @Column(name = "idle")
+        private double idle;
+        @Column(name = "user")
+        private double user;
+        @Column(name = "system")
+        private long system;
+        @Column(name = "cores")
+        private int cores;
+        @Column(name = "online")
+        private boolean online;
+        private Long time;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Cpu[] items = new Cpu[1024];
+        for (int i = 0; i < items.length; i++) {
+            Cpu cpu = new Cpu();
+            cpu.host = "host-" + (i % 16);
+            cpu.region = "cn-" + (i % 4);
+            cpu.idle = i * 0.5;
+            cpu.user = i * 0.25;
+            cpu.system = i;
+            cpu.cores = 8;
+            cpu.online = true;
+            cpu.time = 1_500_000_000_000L + i;
+            items[i] = cpu;
+        }
+        final int mask = items.length - 1;
+        final int operations = 200_000;
+
+        final Field field = Cpu.class.getDeclaredField("idle");
+        field.setAccessible(true);
+        final FieldAccessor accessor = FieldAccessor.of(field);
+        Bench.run("field read: Field.get", operations, i -> {
+            try {
+                return field.get(items[i & mask]);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Bench.run("field read: FieldAccessor.get", operations, i -> accessor.get(items[i & mask]));
+        Bench.run("field read: FieldAccessor.getDouble", operations, i -> accessor.getDouble(items[i & mask]));
+
+        final DefaultPointConverter<Cpu> reflection = new DefaultPointConverter<>(Cpu.class);
+        final AccessorPointConverter<Cpu> handles = new AccessorPointConverter<>(Cpu.class);
+        Bench.run("convert: DefaultPointConverter", operations, i -> reflection.convert(items[i & mask]));
+        Bench.run("convert: AccessorPointConverter", operations, i -> handles.convert(items[i & mask]));
+    }
+}
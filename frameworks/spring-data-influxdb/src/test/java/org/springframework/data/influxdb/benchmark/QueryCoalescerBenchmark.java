@@ -0,0 +1,99 @@
+package org.springframework.data.influxdb.benchmark;
+
+import org.influxdb.dto.Query;
+import org.springframework.data.influxdb.InfluxDBConnectionFactory;
+import org.springframework.data.influxdb.InfluxDBProperties;
+import org.springframework.data.influxdb.InfluxDBTemplate;
+import org.springframework.data.influxdb.MockInfluxServer;
+import org.springframework.data.influxdb.converter.DefaultPointConverterFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 合并相同的并发查询({@link org.springframework.data.influxdb.cache.QueryCoalescer})开启前后的对比
+ * <p>
+ * 多个线程同时向本地的模拟服务发出查询(模拟多个面板同时刷新)，服务端每个请求延迟固定时间；
+ * 比较总耗时、平均延迟和服务端实际收到的请求数。不开启查询缓存，只测试合并的效果
+ */
+public class QueryCoalescerBenchmark {
+
+    private static final int THREADS = 64;
+    private static final int ROUNDS = 20;
+    private static final long SERVER_DELAY = 20;
+    /**
+     * 不同查询语句的数量，1表示所有线程发出相同的查询
+     */
+    private static final int[] DISTINCT = {1, 8, THREADS};
+
+    public static void main(String[] args) throws Exception {
+        try (MockInfluxServer server = new MockInfluxServer()) {
+            server.setQueryResponse("{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\","
+                    + "\"columns\":[\"time\",\"value\"],\"values\":[[1,1.5],[2,2.5]]}]}]}");
+            server.setDelay(SERVER_DELAY);
+            // 预热
+            run(server, false, 1, false);
+            run(server, true, 1, false);
+
+            System.out.printf("%-10s %-9s %10s %12s %14s %10s%n",
+                    "coalesce", "distinct", "queries", "elapsed(ms)", "latency(ms)", "requests");
+            for (int distinct : DISTINCT) {
+                run(server, false, distinct, true);
+                run(server, true, distinct, true);
+            }
+        }
+    }
+
+    private static void run(final MockInfluxServer server, final boolean coalesce, final int distinct,
+                            final boolean print) throws Exception {
+        final InfluxDBProperties properties = new InfluxDBProperties();
+        properties.setUrl(server.getUrl());
+        properties.setUsername("user");
+        properties.setPassword("password");
+        properties.setDatabase("db");
+        properties.getCache().setCoalesce(coalesce);
+        final InfluxDBConnectionFactory connectionFactory = new InfluxDBConnectionFactory(properties);
+        final InfluxDBTemplate template = new InfluxDBTemplate(connectionFactory, new DefaultPointConverterFactory());
+        template.afterPropertiesSet();
+        server.clear();
+
+        final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        final AtomicLong latency = new AtomicLong();
+        final List<Thread> threads = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final Query query = new Query("SELECT value FROM cpu WHERE host = 'h" + (t % distinct)
+                    + "' AND time > now() - 1h", "db");
+            final Thread thread = new Thread(() -> {
+                try {
+                    for (int r = 0; r < ROUNDS; r++) {
+                        // 每一轮所有线程同时发出查询
+                        barrier.await();
+                        final long start = System.nanoTime();
+                        template.query(query, TimeUnit.MILLISECONDS);
+                        latency.addAndGet(System.nanoTime() - start);
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            threads.add(thread);
+        }
+        final long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final long elapsed = System.nanoTime() - start;
+        final int queries = THREADS * ROUNDS;
+        if (print) {
+            System.out.printf("%-10s %-9d %10d %12d %14.1f %10d%n",
+                    coalesce ? "on" : "off", distinct, queries, elapsed / 1000_000,
+                    latency.get() / (double) queries / 1000_000, server.getRequests("/query").size());
+        }
+        template.destroy();
+        connectionFactory.destroy();
+    }
+}
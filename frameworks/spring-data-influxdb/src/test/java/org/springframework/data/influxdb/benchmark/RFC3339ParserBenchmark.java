@@ -0,0 +1,42 @@
+package org.springframework.data.influxdb.benchmark;
+
+import org.springframework.data.influxdb.InfluxUtils;
+import org.springframework.data.influxdb.RFC3339Parser;
+
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.TimeZone;
+
+/**
+ * {@link RFC3339Parser}与SimpleDateFormat、java.time的对比
+ */
+public class RFC3339ParserBenchmark {
+
+    public static void main(String[] args) {
+        final String[] values = new String[1024];
+        final String[] millisValues = new String[values.length];
+        final SimpleDateFormat utc = new SimpleDateFormat(InfluxUtils.UTC);
+        utc.setTimeZone(TimeZone.getTimeZone("UTC"));
+        for (int i = 0; i < values.length; i++) {
+            Instant instant = Instant.ofEpochSecond(1_500_000_000L + i * 37L, i * 1_234_567L);
+            values[i] = instant.toString();
+            millisValues[i] = utc.format(new java.util.Date(instant.toEpochMilli()));
+        }
+        final int mask = values.length - 1;
+        final int operations = 200_000;
+
+        final SimpleDateFormat format = new SimpleDateFormat(InfluxUtils.UTC);
+        Bench.run("SimpleDateFormat.parse (millis)", operations, i -> {
+            try {
+                return format.parse(millisValues[i & mask]);
+            } catch (java.text.ParseException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Bench.run("OffsetDateTime.parse", operations, i -> OffsetDateTime.parse(values[i & mask]));
+        Bench.run("Instant.parse", operations, i -> Instant.parse(values[i & mask]));
+        Bench.run("RFC3339Parser.parseNanos", operations, i -> RFC3339Parser.parseNanos(values[i & mask]));
+        Bench.run("RFC3339Parser.parseMillis", operations, i -> RFC3339Parser.parseMillis(values[i & mask]));
+    }
+}
@@ -0,0 +1,104 @@
+package org.springframework.data.influxdb.benchmark;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.springframework.data.influxdb.InfluxDBConnectionFactory;
+import org.springframework.data.influxdb.InfluxDBProperties;
+import org.springframework.data.influxdb.MockInfluxServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 多个InfluxDBConnectionFactory各自创建连接池和调度器，与共用{@link org.springframework.data.influxdb.network.SharedHttpResources}的对比
+ * <p>
+ * 每个工厂并发发送相同数量的写入请求，比较总耗时、连接数和调度线程数
+ */
+public class SharedHttpResourcesBenchmark {
+
+    private static final int FACTORIES = 8;
+    private static final int REQUESTS = 500;
+
+    public static void main(String[] args) throws Exception {
+        try (MockInfluxServer server = new MockInfluxServer()) {
+            // 预热
+            run(server, false, false);
+            run(server, true, false);
+            run(server, false, true);
+            run(server, true, true);
+        }
+    }
+
+    private static void run(final MockInfluxServer server, final boolean shared, final boolean print) throws Exception {
+        final List<InfluxDBConnectionFactory> factories = new ArrayList<>();
+        final List<OkHttpClient> clients = new ArrayList<>();
+        for (int i = 0; i < FACTORIES; i++) {
+            InfluxDBProperties properties = new InfluxDBProperties();
+            properties.setUrl(server.getUrl());
+            properties.setDatabase("db");
+            properties.getHttp().setShared(shared);
+            properties.getHttp().setDispatcherThreads(8);
+            properties.getHttp().setHttp2(false);
+            InfluxDBConnectionFactory factory = new InfluxDBConnectionFactory(properties);
+            factories.add(factory);
+            clients.add(factory.getHttpClient());
+        }
+
+        final CountDownLatch latch = new CountDownLatch(FACTORIES * REQUESTS);
+        final long start = System.nanoTime();
+        for (OkHttpClient client : clients) {
+            for (int i = 0; i < REQUESTS; i++) {
+                Request request = new Request.Builder()
+                        .url(server.getUrl() + "/write?db=db")
+                        .post(RequestBody.create(MediaType.parse("text/plain"), "cpu value=" + i + " " + i))
+                        .build();
+                client.newCall(request).enqueue(new Callback() {
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onResponse(Call call, Response response) {
+                        response.close();
+                        latch.countDown();
+                    }
+                });
+            }
+        }
+        latch.await();
+        final long elapsed = System.nanoTime() - start;
+
+        final Map<Object, Boolean> pools = new IdentityHashMap<>();
+        int connections = 0;
+        for (OkHttpClient client : clients) {
+            if (pools.put(client.connectionPool(), Boolean.TRUE) == null) {
+                connections += client.connectionPool().connectionCount();
+            }
+        }
+        int threads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("influxdb-http")) {
+                threads++;
+            }
+        }
+        if (print) {
+            System.out.printf("%-10s factories=%d requests=%d elapsed=%dms pools=%d connections=%d dispatcherThreads=%d%n",
+                    shared ? "shared" : "dedicated", FACTORIES, FACTORIES * REQUESTS, elapsed / 1000_000,
+                    pools.size(), connections, threads);
+        }
+        for (InfluxDBConnectionFactory factory : factories) {
+            factory.destroy();
+        }
+        Thread.sleep(200);
+    }
+}
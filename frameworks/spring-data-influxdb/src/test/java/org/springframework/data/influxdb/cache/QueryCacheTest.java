@@ -0,0 +1,205 @@
+package org.springframework.data.influxdb.cache;
+
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class QueryCacheTest {
+
+    private static final String CPU = "SELECT * FROM cpu WHERE time > now() - 1h";
+    private static final String MEM = "SELECT * FROM mem WHERE time > now() - 1h";
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Supplier<QueryResult> loader = () -> {
+        loads.incrementAndGet();
+        return result(null);
+    };
+
+    private static QueryResult result(final String error) {
+        final QueryResult result = new QueryResult();
+        final QueryResult.Result r = new QueryResult.Result();
+        r.setError(error);
+        result.setResults(Collections.singletonList(r));
+        return result;
+    }
+
+    private static QueryCache cache(final int maxEntries) {
+        return new QueryCache(maxEntries, new QueryTtlPolicy(60_000, 600_000));
+    }
+
+    private static Query query(final String command) {
+        return new Query(command, "db");
+    }
+
+    @Test
+    public void cacheSelectQueries() {
+        final QueryCache cache = cache(10);
+        final QueryResult first = cache.get(query(CPU), TimeUnit.MILLISECONDS, loader);
+        assertSame(first, cache.get(query(CPU), TimeUnit.MILLISECONDS, loader));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void keyIncludesDatabaseAndTimeUnit() {
+        final QueryCache cache = cache(10);
+        cache.get(query(CPU), TimeUnit.MILLISECONDS, loader);
+        cache.get(query(CPU), TimeUnit.SECONDS, loader);
+        cache.get(new Query(CPU, "other"), TimeUnit.MILLISECONDS, loader);
+        assertEquals(3, loads.get());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void bypassNonSelectQueries() {
+        final QueryCache cache = cache(10);
+        assertFalse(QueryCache.isCacheable(query("SHOW DATABASES")));
+        assertFalse(QueryCache.isCacheable(query("DROP MEASUREMENT cpu")));
+        assertTrue(QueryCache.isCacheable(query("  select value from cpu")));
+
+        cache.get(query("SHOW DATABASES"), null, loader);
+        cache.get(query("SHOW DATABASES"), null, loader);
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void doNotCacheErrors() {
+        final QueryCache cache = cache(10);
+        final Supplier<QueryResult> failing = () -> {
+            loads.incrementAndGet();
+            return result("measurement not found");
+        };
+        cache.get(query(CPU), null, failing);
+        cache.get(query(CPU), null, failing);
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void expireByTtl() throws InterruptedException {
+        final QueryCache cache = new QueryCache(10, new QueryTtlPolicy(20, 20));
+        cache.get(query(CPU), null, loader);
+        Thread.sleep(50);
+        cache.get(query(CPU), null, loader);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getExpirations());
+    }
+
+    @Test
+    public void doNotCacheWhenTtlIsZero() {
+        final QueryCache cache = new QueryCache(10, new QueryTtlPolicy(0, 0));
+        cache.get(query(CPU), null, loader);
+        cache.get(query(CPU), null, loader);
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        final QueryCache cache = cache(2);
+        cache.get(query(CPU), null, loader);
+        cache.get(query(MEM), null, loader);
+        // 访问cpu后，mem成为最久未使用的结果
+        cache.get(query(CPU), null, loader);
+        cache.get(query("SELECT * FROM disk"), null, loader);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        loads.set(0);
+        cache.get(query(CPU), null, loader);
+        assertEquals(0, loads.get());
+        cache.get(query(MEM), null, loader);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void evictByMeasurement() {
+        final QueryCache cache = cache(10);
+        final QueryResult cpu = cache.get(query(CPU), null, loader);
+        cache.get(query(MEM), null, loader);
+        cache.get(query("SELECT * FROM /^disk.*/"), null, loader);
+
+        cache.evict("cpu");
+        // 正则表达式的查询无法确定measurement，任何写入都会淘汰
+        assertEquals(1, cache.size());
+        assertNotSame(cpu, cache.get(query(CPU), null, loader));
+        assertSame(cache.get(query(MEM), null, loader), cache.get(query(MEM), null, loader));
+
+        cache.evict(null);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void parseMeasurements() {
+        assertEquals(Collections.singleton("cpu"), QueryCache.measurements("SELECT * FROM cpu"));
+        assertEquals(Collections.singleton("cpu"),
+                QueryCache.measurements("SELECT * FROM \"db\".\"autogen\".\"cpu\" WHERE host = 'a'"));
+        assertEquals(Collections.singleton("host load"),
+                QueryCache.measurements("SELECT * FROM db.\"autogen\".\"host load\""));
+        assertEquals(Collections.singleton("cpu.load"), QueryCache.measurements("SELECT * FROM \"cpu.load\""));
+        assertEquals(Collections.singleton("cpu"), QueryCache.measurements("select * from db..cpu"));
+        assertEquals(new HashSet<>(Arrays.asList("cpu", "mem")),
+                QueryCache.measurements("SELECT * FROM cpu, \"mem\" LIMIT 1"));
+        assertEquals(new HashSet<>(Arrays.asList("cpu", "mem")),
+                QueryCache.measurements("SELECT * FROM cpu; SELECT * FROM mem"));
+        assertEquals(Collections.singleton("*"), QueryCache.measurements("SELECT * FROM /cpu.*/"));
+        assertEquals(Collections.singleton("*"), QueryCache.measurements("SHOW DATABASES"));
+    }
+
+    @Test
+    public void skipResultLoadedDuringEviction() {
+        final QueryCache cache = cache(10);
+        // 查询期间写入了cpu，结果可能是写入前的数据
+        cache.get(query(CPU), TimeUnit.MILLISECONDS, () -> {
+            cache.evict("cpu");
+            return loader.get();
+        });
+        assertEquals(0, cache.size());
+
+        // 写入其他measurement不影响
+        cache.get(query(CPU), TimeUnit.MILLISECONDS, () -> {
+            cache.evict("mem");
+            return loader.get();
+        });
+        assertEquals(1, cache.size());
+        cache.clear();
+
+        final String regex = "SELECT * FROM /c.*/ WHERE time > now() - 1h";
+        cache.get(query(regex), TimeUnit.MILLISECONDS, () -> {
+            cache.evict("mem");
+            return loader.get();
+        });
+        assertEquals(0, cache.size());
+
+        cache.get(query(MEM), TimeUnit.MILLISECONDS, () -> {
+            cache.clear();
+            return loader.get();
+        });
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void parseLineProtocolMeasurements() {
+        assertEquals(new HashSet<>(Arrays.asList("cpu", "disk usage", "a,b")), QueryCache.lineMeasurements(
+                "cpu,host=a value=1 1\ncpu value=2 2\ndisk\\ usage free=1i\na\\,b value=1\n"));
+        assertTrue(QueryCache.lineMeasurements("").isEmpty());
+    }
+}
@@ -0,0 +1,133 @@
+package org.springframework.data.influxdb.cache;
+
+import org.influxdb.dto.Query;
+import org.influxdb.dto.QueryResult;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class QueryCoalescerTest {
+
+    private static final Query QUERY = new Query("SELECT * FROM cpu", "db");
+
+    private final QueryCoalescer coalescer = new QueryCoalescer();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static QueryResult result() {
+        final QueryResult.Series series = new QueryResult.Series();
+        series.setName("cpu");
+        series.setColumns(new ArrayList<>(Arrays.asList("time", "value")));
+        final List<List<Object>> values = new ArrayList<>();
+        values.add(new ArrayList<>(Arrays.asList("2018-01-01T00:00:00Z", 1.0)));
+        series.setValues(values);
+        final QueryResult.Result r = new QueryResult.Result();
+        r.setSeries(new ArrayList<>(Collections.singletonList(series)));
+        final QueryResult result = new QueryResult();
+        result.setResults(new ArrayList<>(Collections.singletonList(r)));
+        return result;
+    }
+
+    private static List<List<Object>> values(final QueryResult result) {
+        return result.getResults().get(0).getSeries().get(0).getValues();
+    }
+
+    @Test
+    public void returnUnsharedResultAsIs() {
+        final QueryResult result = result();
+        assertSame(result, coalescer.query(QUERY, null, () -> result));
+        // 没有被共享的结果可以修改
+        values(coalescer.query(QUERY, null, QueryCoalescerTest::result)).add(Collections.emptyList());
+        assertSame(result, coalescer.queryAsync(QUERY, null, () -> CompletableFuture.completedFuture(result)).join());
+        assertEquals(0, coalescer.getShared());
+    }
+
+    @Test
+    public void shareConcurrentQueriesAsImmutableViews() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executions = new AtomicInteger();
+        final QueryResult result = result();
+
+        final Future<QueryResult> leader = executor.submit(() -> coalescer.query(QUERY, null, () -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final Future<QueryResult> follower = executor.submit(() -> coalescer.query(QUERY, null, () -> {
+            executions.incrementAndGet();
+            return result();
+        }));
+        while (coalescer.getShared() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        final QueryResult first = leader.get(5, TimeUnit.SECONDS);
+        final QueryResult second = follower.get(5, TimeUnit.SECONDS);
+        assertEquals(1, executions.get());
+        assertNotSame(result, first);
+        assertNotSame(first, second);
+        assertEquals(values(result), values(first));
+        assertEquals(values(result), values(second));
+        try {
+            values(first).add(Collections.emptyList());
+            fail("Shared results must be read-only");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(1, values(second).size());
+    }
+
+    @Test
+    public void shareConcurrentAsyncQueries() {
+        final CompletableFuture<QueryResult> pending = new CompletableFuture<>();
+        final QueryResult result = result();
+        final CompletableFuture<QueryResult> first = coalescer.queryAsync(QUERY, null, () -> pending);
+        final CompletableFuture<QueryResult> second = coalescer.queryAsync(QUERY, null, () -> {
+            throw new AssertionError("Query should be coalesced");
+        });
+        pending.complete(result);
+
+        assertEquals(1, coalescer.getExecutions());
+        assertEquals(1, coalescer.getShared());
+        assertNotSame(result, first.join());
+        assertNotSame(result, second.join());
+        assertEquals(values(result), values(second.join()));
+    }
+
+    @Test
+    public void doNotCoalesceWrites() {
+        final Query drop = new Query("DROP MEASUREMENT cpu", "db");
+        final QueryResult result = result();
+        assertSame(result, coalescer.query(drop, null, () -> result));
+        assertEquals(0, coalescer.getExecutions());
+    }
+}
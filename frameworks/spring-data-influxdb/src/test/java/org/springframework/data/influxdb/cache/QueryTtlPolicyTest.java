@@ -0,0 +1,48 @@
+package org.springframework.data.influxdb.cache;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class QueryTtlPolicyTest {
+
+    private final QueryTtlPolicy policy = new QueryTtlPolicy(10_000, 600_000);
+
+    @Test
+    public void historicalWindow() {
+        assertEquals(600_000, policy.ttl("SELECT * FROM cpu WHERE time >= '2018-01-01T00:00:00Z' "
+                + "AND time < '2018-01-02T00:00:00Z'"));
+        assertEquals(600_000, policy.ttl("SELECT * FROM cpu WHERE time <= 1514764800000ms"));
+        assertEquals(600_000, policy.ttl("SELECT * FROM cpu WHERE time < 1514764800s"));
+        assertEquals(600_000, policy.ttl("SELECT * FROM cpu WHERE time < 1514764800000000000"));
+    }
+
+    @Test
+    public void liveWindow() {
+        assertEquals(10_000, policy.ttl("SELECT * FROM cpu"));
+        assertEquals(10_000, policy.ttl("SELECT * FROM cpu WHERE time > now() - 1h"));
+        assertEquals(10_000, policy.ttl("SELECT * FROM cpu WHERE time > now() - 1h AND time <= now()"));
+        final String future = Instant.now().plusSeconds(3600).toString();
+        assertEquals(10_000, policy.ttl("SELECT * FROM cpu WHERE time < '" + future + "'"));
+    }
+
+    @Test
+    public void liveWindowLimitedByGroupByInterval() {
+        assertEquals(5_000, policy.ttl("SELECT mean(value) FROM cpu WHERE time > now() - 1h GROUP BY time(5s)"));
+        assertEquals(10_000, policy.ttl("SELECT mean(value) FROM cpu WHERE time > now() - 1h GROUP BY time(1m)"));
+        assertEquals(500, policy.ttl("SELECT mean(value) FROM cpu GROUP BY host, time(500ms) fill(none)"));
+    }
+
+    @Test
+    public void upperBound() {
+        assertEquals(Long.MAX_VALUE, QueryTtlPolicy.upperBound("SELECT * FROM cpu WHERE time > 0"));
+        assertEquals(Long.MAX_VALUE, QueryTtlPolicy.upperBound("SELECT * FROM cpu WHERE time < now()"));
+        assertEquals(TimeUnit.HOURS.toMillis(1), QueryTtlPolicy.upperBound("SELECT * FROM cpu WHERE time < 1h"));
+        // 多个上限取最小值，无法解析的时间忽略
+        assertEquals(2000, QueryTtlPolicy.upperBound("SELECT * FROM cpu WHERE time < 5s AND time <= 2000ms"));
+        assertEquals(Long.MAX_VALUE, QueryTtlPolicy.upperBound("SELECT * FROM cpu WHERE time < 'yesterday'"));
+    }
+}
@@ -0,0 +1,168 @@
+package org.springframework.data.influxdb.cluster;
+
+import okhttp3.OkHttpClient;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.influxdb.MockInfluxServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClusterInfluxDBTest {
+
+    private final List<MockInfluxServer> servers = new ArrayList<>();
+    private ClusterInfluxDB cluster;
+    private InfluxDB influxDB;
+
+    @Before
+    public void setUp() throws Exception {
+        final List<InfluxEndpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            MockInfluxServer server = new MockInfluxServer();
+            servers.add(server);
+            OkHttpClient.Builder client = new OkHttpClient.Builder()
+                    .connectTimeout(1, TimeUnit.SECONDS)
+                    .readTimeout(1, TimeUnit.SECONDS)
+                    .retryOnConnectionFailure(false);
+            endpoints.add(new InfluxEndpoint(server.getUrl(),
+                    InfluxDBFactory.connect(server.getUrl(), "user", "password", client)));
+        }
+        // 不启动后台健康检查，由测试调用checkHealth
+        cluster = new ClusterInfluxDB(endpoints, LoadBalanceStrategy.ROUND_ROBIN, 1, 0);
+        influxDB = cluster.getProxy();
+    }
+
+    @After
+    public void tearDown() {
+        influxDB.close();
+        servers.forEach(MockInfluxServer::close);
+    }
+
+    private void write(final String line) {
+        influxDB.write("db", "autogen", InfluxDB.ConsistencyLevel.ALL, TimeUnit.MILLISECONDS, line);
+    }
+
+    private InfluxEndpoint endpoint(final int index) {
+        return cluster.getEndpoints().get(index);
+    }
+
+    @Test
+    public void distributesRequestsAcrossEndpoints() {
+        for (int i = 0; i < 10; i++) {
+            write("cpu value=" + i + " " + i);
+        }
+        assertEquals(5, servers.get(0).getRequests("/write").size());
+        assertEquals(5, servers.get(1).getRequests("/write").size());
+    }
+
+    @Test
+    public void failsOverWhenEndpointIsDown() {
+        servers.get(0).setDown(true);
+        for (int i = 0; i < 10; i++) {
+            write("cpu value=" + i + " " + i);
+        }
+        // 第一次请求在第一个节点上失败后重试，之后第一个节点被剔除
+        assertEquals(10, servers.get(1).getRequests("/write").size());
+        assertFalse(endpoint(0).isHealthy());
+        assertTrue(endpoint(1).isHealthy());
+        assertEquals(1, endpoint(0).getFailures());
+    }
+
+    @Test
+    public void retriesServerErrorsOnAnotherEndpoint() {
+        servers.get(0).setWriteResponse(500, "timeout");
+        servers.get(1).setWriteResponse(500, "timeout");
+        try {
+            write("cpu value=1 1");
+            fail("expected InfluxDBException");
+        } catch (InfluxDBException e) {
+            assertTrue(e.isRetryWorth());
+        }
+        // 两个节点各尝试一次，服务端错误不会剔除节点
+        assertEquals(1, servers.get(0).getRequests("/write").size());
+        assertEquals(1, servers.get(1).getRequests("/write").size());
+        assertTrue(endpoint(0).isHealthy());
+        assertTrue(endpoint(1).isHealthy());
+    }
+
+    @Test
+    public void doesNotRetryRequestsThatAreNotRetryWorth() {
+        for (String error : new String[]{"unable to parse 'cpu value=': missing field value",
+                "database not found: \\\"db\\\"", "partial write: field type conflict"}) {
+            servers.forEach(MockInfluxServer::clear);
+            servers.forEach(server -> server.setWriteResponse(400, error));
+            try {
+                write("cpu value=");
+                fail("expected InfluxDBException");
+            } catch (InfluxDBException e) {
+                assertFalse(error, e.isRetryWorth());
+            }
+            assertEquals(error, 1, servers.get(0).getRequests("/write").size()
+                    + servers.get(1).getRequests("/write").size());
+        }
+    }
+
+    @Test
+    public void recoversEndpointAfterHealthCheck() {
+        servers.get(0).setDown(true);
+        write("cpu value=1 1");
+        assertFalse(endpoint(0).isHealthy());
+
+        cluster.checkHealth();
+        assertFalse(endpoint(0).isHealthy());
+
+        servers.get(0).setDown(false);
+        cluster.checkHealth();
+        assertTrue(endpoint(0).isHealthy());
+
+        servers.forEach(MockInfluxServer::clear);
+        for (int i = 0; i < 4; i++) {
+            write("cpu value=" + i + " " + i);
+        }
+        assertEquals(2, servers.get(0).getRequests("/write").size());
+        assertEquals(2, servers.get(1).getRequests("/write").size());
+    }
+
+    @Test
+    public void fallsBackToUnhealthyEndpointsWhenAllAreDown() {
+        servers.forEach(server -> server.setDown(true));
+        try {
+            write("cpu value=1 1");
+            fail("expected InfluxDBException");
+        } catch (InfluxDBException e) {
+            assertTrue(e.isRetryWorth());
+        }
+        assertFalse(endpoint(0).isHealthy());
+        assertFalse(endpoint(1).isHealthy());
+
+        // 所有节点都不健康时依然尝试发送，节点恢复后请求成功
+        servers.forEach(server -> server.setDown(false));
+        write("cpu value=2 2");
+        assertEquals(1, servers.get(0).getRequests("/write").size() + servers.get(1).getRequests("/write").size());
+    }
+
+    @Test
+    public void leastOutstandingPrefersIdleEndpoint() {
+        final ClusterInfluxDB least = new ClusterInfluxDB(cluster.getEndpoints(),
+                LoadBalanceStrategy.LEAST_OUTSTANDING, 1, 0);
+        final long start = endpoint(0).begin();
+        try {
+            for (int i = 0; i < 4; i++) {
+                assertSame(endpoint(1), least.select(null));
+            }
+        } finally {
+            endpoint(0).end(start, true);
+        }
+    }
+}
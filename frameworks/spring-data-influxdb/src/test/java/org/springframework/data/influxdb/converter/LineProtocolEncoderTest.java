@@ -0,0 +1,219 @@
+package org.springframework.data.influxdb.converter;
+
+import org.influxdb.annotation.Column;
+import org.influxdb.annotation.Measurement;
+import org.influxdb.dto.Point;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LineProtocolEncoderTest {
+
+    @Measurement(name = "cpu", timeUnit = TimeUnit.MILLISECONDS)
+    public static class Cpu {
+        @Column(name = "host", tag = true)
+        private String host;
+        @Column(name = "value")
+        private Double value;
+        private Long time;
+
+        public Cpu() {
+        }
+
+        Cpu(String host, double value, long time) {
+            this.host = host;
+            this.value = value;
+            this.time = time;
+        }
+    }
+
+    /**
+     * 重写了convert()的转换器，不能按字段直接序列化
+     */
+    static class TaggingConverter<T> extends DefaultPointConverter<T> {
+        TaggingConverter(Class<T> type) {
+            super(type);
+        }
+
+        @Override
+        public Point convert(T item) {
+            final Cpu cpu = (Cpu) item;
+            return Point.measurement("cpu")
+                    .tag("host", cpu.host)
+                    .tag("source", "custom")
+                    .addField("value", cpu.value)
+                    .time(cpu.time, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+    }
+
+    private static LineProtocolEncoder encoder(final int maxPoints, final int maxBytes) {
+        return new LineProtocolEncoder(new DefaultPointConverterFactory(), maxPoints, maxBytes);
+    }
+
+    private static List<Cpu> cpus(final int count) {
+        final List<Cpu> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new Cpu("h" + i, i, 1000L + i));
+        }
+        return items;
+    }
+
+    @Test
+    public void encodeBeansWithAnnotatedTimeUnit() {
+        final List<LineProtocolBatch> batches = encoder(0, 0)
+                .encode(Arrays.asList(new Cpu("a", 1.5, 1000), new Cpu("b", 2, 2000)));
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).getPoints());
+        assertEquals(TimeUnit.MILLISECONDS, batches.get(0).getPrecision());
+        assertEquals("cpu,host=a value=1.5 1000\ncpu,host=b value=2.0 2000", batches.get(0).getBody());
+    }
+
+    @Test
+    public void encodeWithExplicitPrecision() {
+        final List<LineProtocolBatch> batches = encoder(0, 0)
+                .encode(Collections.singletonList(new Cpu("a", 1.5, 3000)), TimeUnit.SECONDS);
+        assertEquals(TimeUnit.SECONDS, batches.get(0).getPrecision());
+        assertEquals("cpu,host=a value=1.5 3", batches.get(0).getBody());
+    }
+
+    @Test
+    public void encodePointsThroughLineProtocol() {
+        final Point point = Point.measurement("cpu")
+                .tag("host", "a")
+                .addField("value", 1.5)
+                .time(1, TimeUnit.SECONDS)
+                .build();
+        final LineProtocolEncoder encoder = encoder(0, 0);
+        assertNull(encoder.getWriter(Point.class));
+
+        final List<LineProtocolBatch> batches = encoder.encode(Collections.singletonList(point));
+        assertEquals(1, batches.size());
+        assertEquals(TimeUnit.NANOSECONDS, batches.get(0).getPrecision());
+        assertEquals(point.lineProtocol(TimeUnit.NANOSECONDS), batches.get(0).getBody());
+    }
+
+    @Test
+    public void mixedTypesUseFinestPrecision() {
+        final Point point = Point.measurement("mem")
+                .addField("used", 1L)
+                .time(5, TimeUnit.MILLISECONDS)
+                .build();
+        final List<LineProtocolBatch> batches = encoder(0, 0)
+                .encode(Arrays.asList(new Cpu("a", 1, 1000), point));
+        assertEquals(1, batches.size());
+        assertEquals(TimeUnit.NANOSECONDS, batches.get(0).getPrecision());
+        assertEquals("cpu,host=a value=1.0 1000000000\nmem used=1i 5000000", batches.get(0).getBody());
+    }
+
+    @Test
+    public void convertersOverridingConvertAreNotBypassed() {
+        final DefaultPointConverterFactory factory = new DefaultPointConverterFactory() {
+            @Override
+            public <T> PointConverter<T> createConverter(Class<T> type) {
+                return new TaggingConverter<>(type);
+            }
+        };
+        final LineProtocolEncoder encoder = new LineProtocolEncoder(factory, 0, 0);
+        assertNull(encoder.getWriter(Cpu.class));
+        assertNotNull(encoder(0, 0).getWriter(Cpu.class));
+        assertNotNull(new LineProtocolEncoder(new AccessorPointConverterFactory(), 0, 0).getWriter(Cpu.class));
+
+        final List<LineProtocolBatch> batches = encoder.encode(Collections.singletonList(new Cpu("a", 1, 1000)),
+                TimeUnit.MILLISECONDS);
+        assertEquals("cpu,host=a,source=custom value=1.0 1000", batches.get(0).getBody());
+    }
+
+    @Test
+    public void splitByMaxPoints() {
+        final List<LineProtocolBatch> batches = encoder(3, 0).encode(cpus(10));
+        assertEquals(4, batches.size());
+        int total = 0;
+        for (LineProtocolBatch batch : batches) {
+            assertTrue(batch.getPoints() <= 3);
+            assertEquals(batch.getPoints(), batch.getBody().split("\n").length);
+            total += batch.getPoints();
+        }
+        assertEquals(10, total);
+        assertTrue(batches.get(0).getBody().startsWith("cpu,host=h0 "));
+        assertTrue(batches.get(3).getBody().startsWith("cpu,host=h9 "));
+    }
+
+    @Test
+    public void splitByMaxBytes() {
+        final List<LineProtocolBatch> batches = encoder(0, 60).encode(cpus(10));
+        assertTrue(batches.size() > 1);
+        final StringBuilder joined = new StringBuilder();
+        for (LineProtocolBatch batch : batches) {
+            assertTrue(batch.getBody().length() <= 60);
+            if (joined.length() > 0) {
+                joined.append('\n');
+            }
+            joined.append(batch.getBody());
+        }
+        assertEquals(encoder(0, 0).encode(cpus(10)).get(0).getBody(), joined.toString());
+    }
+
+    @Test
+    public void splitByUtf8Bytes() {
+        final List<Cpu> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(new Cpu("主机" + i + "号\uD83D\uDE00", i, 1000L + i));
+        }
+        final List<LineProtocolBatch> batches = encoder(0, 100).encode(items);
+        assertTrue(batches.size() > 1);
+        int total = 0;
+        for (LineProtocolBatch batch : batches) {
+            final int bytes = batch.getBody().getBytes(StandardCharsets.UTF_8).length;
+            assertEquals(bytes, batch.getBytes());
+            assertTrue(bytes <= 100);
+            total += batch.getPoints();
+        }
+        assertEquals(20, total);
+    }
+
+    @Test
+    public void utf8Length() {
+        final String s = "cpu,host=a\u00e9\u4e3b\uD83D\uDE00 value=1";
+        assertEquals(s.getBytes(StandardCharsets.UTF_8).length, LineProtocolBatch.utf8Length(s, 0, s.length()));
+        assertEquals(s.getBytes(StandardCharsets.UTF_8).length, new LineProtocolBatch(s, 1, TimeUnit.SECONDS).getBytes());
+        // 不成对的代理字符
+        final String lone = "a\uD83D b\uDE00c\uD83D";
+        assertEquals(lone.getBytes(StandardCharsets.UTF_8).length, LineProtocolBatch.utf8Length(lone, 0, lone.length()));
+    }
+
+    @Test
+    public void parallelSlicesKeepOrder() {
+        final List<Cpu> items = cpus(20000);
+        final List<LineProtocolBatch> batches = encoder(5000, 0).encode(items);
+        assertEquals(4, batches.size());
+        int index = 0;
+        for (LineProtocolBatch batch : batches) {
+            for (String line : batch.getBody().split("\n")) {
+                assertTrue(line, line.startsWith("cpu,host=h" + index + " "));
+                index++;
+            }
+        }
+        assertEquals(20000, index);
+    }
+
+    @Test
+    public void emptyPayload() {
+        assertTrue(encoder(0, 0).encode(Collections.emptyList()).isEmpty());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void rejectNullItems() {
+        encoder(0, 0).encode(Arrays.asList(new Cpu("a", 1, 1), null));
+    }
+}
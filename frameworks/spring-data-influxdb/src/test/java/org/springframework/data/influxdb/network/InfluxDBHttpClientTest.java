@@ -0,0 +1,173 @@
+package org.springframework.data.influxdb.network;
+
+import okhttp3.Call;
+import okhttp3.Response;
+import org.influxdb.InfluxDB;
+import org.influxdb.dto.Query;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.influxdb.InfluxDBConnectionFactory;
+import org.springframework.data.influxdb.InfluxDBProperties;
+import org.springframework.data.influxdb.MockInfluxServer;
+import org.springframework.data.influxdb.cluster.InfluxEndpoint;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class InfluxDBHttpClientTest {
+
+    private final List<MockInfluxServer> servers = new ArrayList<>();
+    private InfluxDBConnectionFactory connectionFactory;
+    private InfluxDBHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            servers.add(new MockInfluxServer());
+        }
+        final InfluxDBProperties properties = new InfluxDBProperties();
+        properties.setUsername("user");
+        properties.setPassword("password");
+        properties.setDatabase("db");
+        properties.getCluster().setUrls(Arrays.asList(servers.get(0).getUrl(), servers.get(1).getUrl()));
+        // 不启动后台健康检查
+        properties.getCluster().setHealthCheckInterval(0);
+        connectionFactory = new InfluxDBConnectionFactory(properties);
+        client = new InfluxDBHttpClient(connectionFactory);
+    }
+
+    @After
+    public void tearDown() {
+        connectionFactory.destroy();
+        servers.forEach(MockInfluxServer::close);
+    }
+
+    private InfluxEndpoint endpoint(final int index) {
+        return connectionFactory.getEndpoints().get(index);
+    }
+
+    private Call write(final int i) {
+        return client.newWriteCall("db", null, InfluxDB.ConsistencyLevel.ONE, TimeUnit.MILLISECONDS,
+                "cpu value=" + i + " " + i);
+    }
+
+    @Test
+    public void executeAsyncFailsOverWhenEndpointIsDown() {
+        servers.get(0).setDown(true);
+        for (int i = 0; i < 4; i++) {
+            client.executeAsync(write(i)).join().close();
+        }
+        assertEquals(4, servers.get(1).getRequests("/write").size());
+        assertFalse(endpoint(0).isHealthy());
+        assertTrue(endpoint(1).isHealthy());
+        assertEquals(1, endpoint(0).getFailures());
+        assertEquals(4, endpoint(1).getRequests());
+    }
+
+    @Test
+    public void executeFailsOverOnServerError() throws Exception {
+        servers.get(0).setWriteResponse(503, "overloaded");
+        for (int i = 0; i < 4; i++) {
+            try (Response response = client.execute(write(i))) {
+                assertEquals(204, response.code());
+            }
+        }
+        assertEquals(4, servers.get(1).getRequests("/write").size());
+        final int failed = servers.get(0).getRequests("/write").size();
+        assertTrue(failed > 0);
+        // 5xx不是网络错误，节点依然健康
+        assertTrue(endpoint(0).isHealthy());
+        assertEquals(failed, endpoint(0).getFailures());
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() {
+        servers.get(0).setWriteResponse(400, "unable to parse");
+        int failures = 0;
+        for (int i = 0; i < 4; i++) {
+            try {
+                client.executeAsync(write(i)).join().close();
+            } catch (CompletionException e) {
+                failures++;
+            }
+        }
+        assertEquals(servers.get(0).getRequests("/write").size(), failures);
+        assertEquals(4, servers.get(0).getRequests("/write").size() + servers.get(1).getRequests("/write").size());
+        assertTrue(endpoint(0).isHealthy());
+    }
+
+    /**
+     * 超过一个编码片段、包含多字节字符和代理对的请求体
+     */
+    private static String largeBody() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("cpu,host=主机").append(i % 10).append(" note=\"\uD83D\uDE00\" ").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void writeLargeBody(final boolean gzip) throws Exception {
+        final InfluxDBProperties properties = new InfluxDBProperties();
+        properties.setUrl(servers.get(0).getUrl());
+        properties.setUsername("user");
+        properties.setPassword("password");
+        properties.setDatabase("db");
+        properties.getCompression().setEnabled(gzip);
+        properties.getCompression().setThreshold(0);
+        final InfluxDBConnectionFactory factory = new InfluxDBConnectionFactory(properties);
+        try {
+            final InfluxDBHttpClient single = new InfluxDBHttpClient(factory);
+            final String body = largeBody();
+            try (Response response = single.execute(single.newWriteCall("db", null, InfluxDB.ConsistencyLevel.ONE,
+                    TimeUnit.MILLISECONDS, body))) {
+                assertEquals(204, response.code());
+            }
+            final MockInfluxServer.Request request = servers.get(0).getRequests("/write").get(0);
+            assertEquals(body, request.body);
+            assertEquals(gzip ? "gzip" : null, request.contentEncoding);
+            if (!gzip) {
+                assertEquals(body.getBytes(StandardCharsets.UTF_8).length, request.wireBytes);
+            }
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    @Test
+    public void writeLargeBodyWithGzip() throws Exception {
+        writeLargeBody(true);
+    }
+
+    @Test
+    public void writeLargeBodyWithoutGzip() throws Exception {
+        writeLargeBody(false);
+    }
+
+    @Test
+    public void chunkedQueryFailsOverWhenEndpointIsDown() throws Exception {
+        servers.get(1).setQueryResponse("{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\","
+                + "\"columns\":[\"time\",\"value\"],\"values\":[[1,1.5]]}]}]}");
+        servers.get(0).setDown(true);
+        for (int i = 0; i < 2; i++) {
+            try (QueryResultReader reader = client.chunkedQuery(new Query("SELECT * FROM cpu", "db"), 100)) {
+                assertNotNull(reader.next());
+            }
+            try (QueryResultReader reader = client.chunkedQueryAsync(new Query("SELECT * FROM cpu", "db"), 100).join()) {
+                assertNotNull(reader.next());
+            }
+        }
+        assertEquals(4, servers.get(1).getRequests("/query").size());
+        assertFalse(endpoint(0).isHealthy());
+    }
+}
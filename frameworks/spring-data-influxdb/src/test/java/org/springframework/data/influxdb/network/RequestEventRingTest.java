@@ -0,0 +1,146 @@
+package org.springframework.data.influxdb.network;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestEventRingTest {
+
+    private static final HttpUrl URL = HttpUrl.parse("http://localhost:8086/write?db=test&precision=ms");
+
+    private static void publish(final RequestEventRing ring, final long id) {
+        ring.publish(id, "POST", URL, Headers.of("Content-Encoding", "gzip"), id, 0, 204, 1000, false);
+    }
+
+    @Test
+    public void roundCapacityUpToPowerOfTwo() {
+        assertEquals(1, new RequestEventRing(1).getCapacity());
+        assertEquals(8, new RequestEventRing(5).getCapacity());
+        assertEquals(16, new RequestEventRing(16).getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectZeroCapacity() {
+        new RequestEventRing(0);
+    }
+
+    @Test
+    public void drainPublishedEventsInOrder() {
+        final RequestEventRing ring = new RequestEventRing(8);
+        assertTrue(ring.drain(10).isEmpty());
+        ring.publish(1, "POST", URL, Headers.of("Content-Encoding", "gzip"), 100, 0, 204, 5000, false);
+        ring.publish(2, "GET", URL, Headers.of(), 0, 200, 500, 7000, true);
+
+        final List<RequestEvent> events = ring.drain(10);
+        assertEquals(2, events.size());
+        final RequestEvent first = events.get(0);
+        assertEquals(1, first.getTimestamp());
+        assertEquals("POST", first.getMethod());
+        assertEquals("/write", first.getPath());
+        assertEquals("test", first.getQueryParameter("db"));
+        assertEquals("gzip", first.getHeader("Content-Encoding"));
+        assertEquals(100, first.getRequestBytes());
+        assertEquals(204, first.getCode());
+        assertEquals(5000, first.getDurationNanos());
+        assertFalse(first.isFailed());
+        final RequestEvent second = events.get(1);
+        assertEquals("GET", second.getMethod());
+        assertEquals(200, second.getResponseBytes());
+        assertEquals(500, second.getCode());
+        assertTrue(second.isFailed());
+
+        assertTrue(ring.drain(10).isEmpty());
+        assertEquals(2, ring.getPublished());
+        assertEquals(0, ring.takeDropped());
+    }
+
+    @Test
+    public void drainAtMostMaxEvents() {
+        final RequestEventRing ring = new RequestEventRing(8);
+        for (int i = 0; i < 5; i++) {
+            publish(ring, i);
+        }
+        assertEquals(3, ring.drain(3).size());
+        final List<RequestEvent> rest = ring.drain(3);
+        assertEquals(2, rest.size());
+        assertEquals(3, rest.get(0).getTimestamp());
+    }
+
+    @Test
+    public void countOverwrittenEventsAsDropped() {
+        final RequestEventRing ring = new RequestEventRing(4);
+        for (int i = 0; i < 10; i++) {
+            publish(ring, i);
+        }
+        final List<RequestEvent> events = ring.drain(100);
+        // 只保留最新的4个事件
+        assertEquals(4, events.size());
+        assertEquals(6, events.get(0).getTimestamp());
+        assertEquals(9, events.get(3).getTimestamp());
+        assertEquals(6, ring.takeDropped());
+        assertEquals(0, ring.takeDropped());
+
+        publish(ring, 10);
+        assertEquals(10, ring.drain(100).get(0).getTimestamp());
+    }
+
+    @Test
+    public void concurrentWritersNeverLoseOrDuplicateEvents() throws Exception {
+        final int writers = 4;
+        final int perWriter = 50_000;
+        final RequestEventRing ring = new RequestEventRing(1024);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(writers);
+        final AtomicBoolean failed = new AtomicBoolean();
+        for (int w = 0; w < writers; w++) {
+            final long base = (long) w * perWriter;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        // requestBytes与timestamp相同，用于检查读取到的事件是否完整
+                        publish(ring, base + i);
+                    }
+                } catch (InterruptedException e) {
+                    failed.set(true);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        final Set<Long> seen = new HashSet<>();
+        long drained = 0;
+        long dropped = 0;
+        start.countDown();
+        while (true) {
+            final List<RequestEvent> events = ring.drain(256);
+            for (RequestEvent event : events) {
+                assertEquals(event.getTimestamp(), event.getRequestBytes());
+                assertTrue("duplicated event " + event.getTimestamp(), seen.add(event.getTimestamp()));
+                drained++;
+            }
+            dropped += ring.takeDropped();
+            if (done.await(0, TimeUnit.MILLISECONDS) && drained + dropped == ring.getPublished()) {
+                break;
+            }
+            if (events.isEmpty()) {
+                Thread.yield();
+            }
+        }
+        assertFalse(failed.get());
+        assertEquals((long) writers * perWriter, ring.getPublished());
+        assertTrue(drained > 0);
+    }
+}
@@ -0,0 +1,93 @@
+package org.springframework.data.influxdb.network;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.influxdb.MockInfluxServer;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SamplingInterceptorTest {
+
+    private static final MediaType TEXT = MediaType.parse("text/plain");
+
+    private MockInfluxServer server;
+    private SamplingInterceptor sampling;
+    private AdaptiveGzipInterceptor gzip;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockInfluxServer();
+        sampling = new SamplingInterceptor(1, 16);
+        gzip = new AdaptiveGzipInterceptor(1024, new DeflaterPool(1, 2));
+        client = new OkHttpClient.Builder()
+                .addInterceptor(gzip)
+                .addNetworkInterceptor(sampling)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        sampling.close();
+        gzip.close();
+        server.close();
+    }
+
+    private static String lines(final int count) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("cpu,host=server").append(i % 10).append(" value=").append(i).append(' ').append(i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void post(final String path, final String body) throws IOException {
+        try (Response response = client.newCall(new Request.Builder()
+                .url(server.getUrl() + path)
+                .post(RequestBody.create(TEXT, body))
+                .build()).execute()) {
+            assertTrue(response.isSuccessful());
+        }
+    }
+
+    @Test
+    public void recordCompressedBytesActuallySent() throws IOException {
+        final String body = lines(1000);
+        post("/write?db=test", body);
+
+        final List<RequestEvent> events = sampling.drain(16);
+        assertEquals(1, events.size());
+        final MockInfluxServer.Request request = server.getRequests("/write").get(0);
+        assertEquals("gzip", request.contentEncoding);
+        assertEquals(body, request.body);
+        assertEquals(request.wireBytes, events.get(0).getRequestBytes());
+        assertTrue(events.get(0).getRequestBytes() < body.length());
+        assertEquals(gzip.getCompressedBytes(), events.get(0).getRequestBytes());
+        assertEquals(204, events.get(0).getCode());
+        assertFalse(events.get(0).isFailed());
+    }
+
+    @Test
+    public void recordContentLengthOfUncompressedBodies() throws IOException {
+        final String body = lines(2);
+        post("/write?db=test", body);
+        post("/query?q=SHOW+DATABASES", "");
+
+        final List<RequestEvent> events = sampling.drain(16);
+        assertEquals(2, events.size());
+        assertEquals(body.length(), events.get(0).getRequestBytes());
+        assertEquals(0, events.get(1).getRequestBytes());
+        assertEquals(1, gzip.getSkippedRequests());
+    }
+}
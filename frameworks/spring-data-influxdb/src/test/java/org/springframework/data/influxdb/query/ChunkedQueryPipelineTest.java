@@ -0,0 +1,279 @@
+package org.springframework.data.influxdb.query;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+import org.influxdb.InfluxDBException;
+import org.influxdb.dto.QueryResult;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.data.influxdb.network.QueryResultReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChunkedQueryPipelineTest {
+
+    private final ExecutorService stageExecutor = Executors.newCachedThreadPool();
+    private final ExecutorService mappingExecutor = Executors.newFixedThreadPool(8);
+
+    @After
+    public void tearDown() {
+        stageExecutor.shutdownNow();
+        mappingExecutor.shutdownNow();
+    }
+
+    /**
+     * 按脚本返回分块查询的响应体，每次读取返回一块
+     */
+    static class ScriptedSource implements Source {
+        private final List<String> chunks;
+        private int next;
+        private volatile boolean closed;
+
+        ScriptedSource(List<String> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public long read(Buffer sink, long byteCount) {
+            if (next >= chunks.size()) {
+                return -1;
+            }
+            final long before = sink.size();
+            sink.writeUtf8(chunks.get(next++)).writeByte('\n');
+            return sink.size() - before;
+        }
+
+        @Override
+        public Timeout timeout() {
+            return Timeout.NONE;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static String chunk(final int i) {
+        return "{\"results\":[{\"statement_id\":0,\"series\":[{\"name\":\"cpu\",\"columns\":[\"time\",\"value\"],"
+                + "\"values\":[[" + i + "," + i + "]]}]}]}";
+    }
+
+    private static List<String> chunks(final int count) {
+        final List<String> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            chunks.add(chunk(i));
+        }
+        return chunks;
+    }
+
+    private static QueryResultReader reader(final Source source) {
+        final Request request = new Request.Builder().url("http://localhost:8086/query").build();
+        final Call call = new OkHttpClient().newCall(request);
+        final Response response = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(MediaType.parse("application/json"), -1, Okio.buffer(source)))
+                .build();
+        return QueryResultReader.of(call, response);
+    }
+
+    /**
+     * 取出每一块中的value
+     */
+    private static List<Integer> values(final QueryResult result) {
+        final List<Integer> values = new ArrayList<>();
+        for (List<Object> row : result.getResults().get(0).getSeries().get(0).getValues()) {
+            values.add(((Number) row.get(1)).intValue());
+        }
+        return values;
+    }
+
+    private ChunkedQueryPipeline<Integer> pipeline(final QueryResultReader reader,
+                                                   final Function<QueryResult, List<Integer>> mapper,
+                                                   final Consumer<List<Integer>> consumer,
+                                                   final int prefetch) {
+        return new ChunkedQueryPipeline<>(reader, mapper, consumer, prefetch, mappingExecutor, stageExecutor);
+    }
+
+    private static Throwable failure(final CompletableFuture<?> future) {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("expected failure");
+            return null;
+        } catch (Exception e) {
+            return e instanceof ExecutionException ? e.getCause() : e;
+        }
+    }
+
+    /**
+     * 流水线先结束Future再关闭响应，失败后等待读取器被关闭
+     */
+    private static void awaitClosed(final QueryResultReader reader) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (!reader.isClosed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(reader.isClosed());
+    }
+
+    @Test
+    public void keepOrderWithParallelMapping() throws Exception {
+        final List<Integer> consumed = new ArrayList<>();
+        final QueryResultReader reader = reader(new ScriptedSource(chunks(100)));
+        final PipelineMetrics metrics = pipeline(reader, result -> {
+            // 映射耗时随机，后读取的块可能先映射完成
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return values(result);
+        }, consumed::addAll, 8).start().get(10, TimeUnit.SECONDS);
+
+        assertEquals(100, consumed.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) consumed.get(i));
+        }
+        assertEquals(100, metrics.getRead().getChunks());
+        assertEquals(100, metrics.getMap().getRows());
+        assertEquals(100, metrics.getConsume().getRows());
+        assertTrue(reader.isClosed());
+    }
+
+    @Test
+    public void prefetchBlocksReader() throws Exception {
+        final int prefetch = 2;
+        final AtomicInteger mapped = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> consumed = new ArrayList<>();
+        final CompletableFuture<PipelineMetrics> completion = pipeline(reader(new ScriptedSource(chunks(50))),
+                result -> {
+                    mapped.incrementAndGet();
+                    return values(result);
+                },
+                list -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    consumed.addAll(list);
+                }, prefetch).start();
+
+        Thread.sleep(300);
+        // 消费线程持有一块，预读队列中prefetch块，读取线程阻塞时持有一块
+        assertTrue("mapped " + mapped.get(), mapped.get() <= prefetch + 2);
+        assertEquals(0, consumed.size());
+
+        release.countDown();
+        final PipelineMetrics metrics = completion.get(10, TimeUnit.SECONDS);
+        assertEquals(50, consumed.size());
+        assertEquals(50, mapped.get());
+        assertTrue(metrics.getBackpressureMillis() >= 200);
+    }
+
+    @Test
+    public void cancelClosesReader() throws Exception {
+        final CountDownLatch consuming = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ScriptedSource source = new ScriptedSource(chunks(50));
+        final QueryResultReader reader = reader(source);
+        final ChunkedQueryPipeline<Integer> pipeline = pipeline(reader, ChunkedQueryPipelineTest::values, list -> {
+            consuming.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 2);
+        final CompletableFuture<PipelineMetrics> completion = pipeline.start();
+        assertTrue(consuming.await(5, TimeUnit.SECONDS));
+
+        pipeline.cancel();
+        release.countDown();
+        try {
+            completion.join();
+            fail("expected CancellationException");
+        } catch (CancellationException e) {
+            // expected
+        }
+        awaitClosed(reader);
+        assertTrue(source.closed);
+    }
+
+    @Test
+    public void propagateMappingError() throws Exception {
+        final QueryResultReader reader = reader(new ScriptedSource(chunks(20)));
+        final List<Integer> consumed = new ArrayList<>();
+        final CompletableFuture<PipelineMetrics> completion = pipeline(reader, result -> {
+            final List<Integer> values = values(result);
+            if (values.get(0) == 5) {
+                throw new IllegalStateException("mapping failed");
+            }
+            return values;
+        }, consumed::addAll, 4).start();
+
+        final Throwable e = failure(completion);
+        assertTrue(String.valueOf(e), e instanceof IllegalStateException);
+        assertEquals("mapping failed", e.getMessage());
+        // 出错的块之前的数据已经按顺序消费
+        assertEquals(5, consumed.size());
+        awaitClosed(reader);
+    }
+
+    @Test
+    public void propagateReadError() throws Exception {
+        final List<String> chunks = chunks(3);
+        chunks.add("{\"error\":\"query interrupted\"}");
+        final QueryResultReader reader = reader(new ScriptedSource(chunks));
+        final CompletableFuture<PipelineMetrics> completion = pipeline(reader, ChunkedQueryPipelineTest::values,
+                list -> {
+                }, 4).start();
+
+        final Throwable e = failure(completion);
+        assertTrue(String.valueOf(e), e instanceof InfluxDBException);
+        assertEquals("query interrupted", e.getMessage());
+        awaitClosed(reader);
+    }
+
+    @Test
+    public void propagateConsumerError() throws Exception {
+        final QueryResultReader reader = reader(new ScriptedSource(chunks(20)));
+        final CompletableFuture<PipelineMetrics> completion = pipeline(reader, ChunkedQueryPipelineTest::values,
+                list -> {
+                    throw new IllegalArgumentException("consumer failed");
+                }, 4).start();
+
+        final Throwable e = failure(completion);
+        assertTrue(String.valueOf(e), e instanceof IllegalArgumentException);
+        awaitClosed(reader);
+    }
+}
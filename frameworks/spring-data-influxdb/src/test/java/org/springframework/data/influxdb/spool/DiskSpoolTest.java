@@ -0,0 +1,194 @@
+package org.springframework.data.influxdb.spool;
+
+import org.influxdb.InfluxDB;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DiskSpoolTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private DiskSpool spool;
+
+    @After
+    public void tearDown() {
+        if (spool != null) {
+            spool.close();
+        }
+    }
+
+    private DiskSpool open() throws IOException {
+        return open(SEGMENT_SIZE, 16 * SEGMENT_SIZE);
+    }
+
+    private DiskSpool open(final int segmentSize, final long maxDiskUsage) throws IOException {
+        if (spool != null) {
+            spool.close();
+        }
+        spool = new DiskSpool(folder.getRoot(), segmentSize, maxDiskUsage);
+        return spool;
+    }
+
+    private static SpoolRecord record(final int i) {
+        return new SpoolRecord("db", "autogen", InfluxDB.ConsistencyLevel.ONE, TimeUnit.MILLISECONDS,
+                "cpu,host=a value=" + i + " " + i);
+    }
+
+    private static File segment(final long sequence) {
+        return new File(String.format("%020d%s", sequence, SpoolSegment.SUFFIX));
+    }
+
+    @Test
+    public void appendPeekAndCommitInOrder() throws IOException {
+        open();
+        assertFalse(spool.hasPending());
+        assertNull(spool.peek());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(spool.append(record(i)));
+        }
+        assertEquals(3, spool.getPendingRecords());
+
+        // 未commit时peek返回同一条记录
+        assertEquals(record(0).getLines(), spool.peek().getLines());
+        assertEquals(record(0).getLines(), spool.peek().getLines());
+        spool.commit();
+        final SpoolRecord second = spool.peek();
+        assertEquals(record(1).getLines(), second.getLines());
+        assertEquals(InfluxDB.ConsistencyLevel.ONE, second.getConsistency());
+        spool.skip();
+        assertEquals(record(2).getLines(), spool.peek().getLines());
+        spool.commit();
+
+        assertNull(spool.peek());
+        assertFalse(spool.hasPending());
+        assertEquals(3, spool.getAppended());
+        assertEquals(2, spool.getReplayed());
+        assertEquals(1, spool.getDropped());
+    }
+
+    @Test
+    public void recoverFromCheckpointAfterRestart() throws IOException {
+        open();
+        for (int i = 0; i < 5; i++) {
+            spool.append(record(i));
+        }
+        spool.peek();
+        spool.commit();
+        spool.peek();
+        spool.commit();
+
+        open();
+        assertEquals(3, spool.getPendingRecords());
+        for (int i = 2; i < 5; i++) {
+            assertEquals(record(i).getLines(), spool.peek().getLines());
+            spool.commit();
+        }
+        assertNull(spool.peek());
+
+        // 重启后追加的数据接在已有数据之后
+        spool.append(record(5));
+        open();
+        assertEquals(1, spool.getPendingRecords());
+        assertEquals(record(5).getLines(), spool.peek().getLines());
+    }
+
+    @Test
+    public void corruptedRecordTruncatesSegment() throws IOException {
+        open();
+        for (int i = 0; i < 3; i++) {
+            spool.append(record(i));
+        }
+        spool.close();
+
+        // 修改第二条记录的payload，crc校验失败
+        try (RandomAccessFile raf = new RandomAccessFile(new File(folder.getRoot(), segment(0).getPath()), "rw")) {
+            final int first = raf.readInt();
+            raf.seek(SpoolSegment.HEADER_SIZE + first + SpoolSegment.HEADER_SIZE + 10);
+            final int b = raf.read();
+            raf.seek(SpoolSegment.HEADER_SIZE + first + SpoolSegment.HEADER_SIZE + 10);
+            raf.write(b ^ 0xFF);
+        }
+
+        open();
+        assertEquals(1, spool.getPendingRecords());
+        assertEquals(record(0).getLines(), spool.peek().getLines());
+        spool.commit();
+        assertNull(spool.peek());
+
+        // 损坏位置之后的空间可以继续写入
+        assertTrue(spool.append(record(3)));
+        assertEquals(record(3).getLines(), spool.peek().getLines());
+    }
+
+    @Test
+    public void corruptedCheckpointReplaysFromStart() throws IOException {
+        open();
+        for (int i = 0; i < 3; i++) {
+            spool.append(record(i));
+        }
+        spool.peek();
+        spool.commit();
+        spool.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(new File(folder.getRoot(), "checkpoint"), "rw")) {
+            raf.seek(8);
+            raf.writeLong(12345);
+        }
+
+        // 至少一次语义：checkpoint无效时从头补发
+        open();
+        assertEquals(3, spool.getPendingRecords());
+        assertEquals(record(0).getLines(), spool.peek().getLines());
+    }
+
+    @Test
+    public void rollOverSegmentsAndDropOldestWhenFull() throws IOException {
+        open(256, 512);
+        int appended = 0;
+        for (int i = 0; i < 20; i++) {
+            if (spool.append(record(i))) {
+                appended++;
+            }
+        }
+        assertEquals(20, appended);
+        assertTrue(spool.getDropped() > 0);
+        assertEquals(20 - spool.getDropped(), spool.getPendingRecords());
+        assertTrue(spool.getDiskUsage() <= 512);
+
+        // 剩余的是最新的数据，顺序不变
+        long expected = spool.getDropped();
+        SpoolRecord record;
+        while ((record = spool.peek()) != null) {
+            assertEquals(record((int) expected++).getLines(), record.getLines());
+            spool.commit();
+        }
+        assertEquals(20, expected);
+    }
+
+    @Test
+    public void rejectRecordLargerThanSegment() throws IOException {
+        open(256, 512);
+        final StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            lines.append("cpu value=").append(i).append('\n');
+        }
+        assertFalse(spool.append(new SpoolRecord("db", null, TimeUnit.NANOSECONDS, lines.toString())));
+        assertEquals(1, spool.getDropped());
+        assertFalse(spool.hasPending());
+    }
+}
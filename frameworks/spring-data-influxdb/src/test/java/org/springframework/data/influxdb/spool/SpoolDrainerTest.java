@@ -0,0 +1,161 @@
+package org.springframework.data.influxdb.spool;
+
+import okhttp3.OkHttpClient;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBException;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.InfluxDBIOException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.influxdb.MockInfluxServer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpoolDrainerTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private MockInfluxServer server;
+    private InfluxDB influxDB;
+    private DiskSpool spool;
+    private SpoolDrainer drainer;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockInfluxServer();
+        influxDB = InfluxDBFactory.connect(server.getUrl(), "user", "password", new OkHttpClient.Builder()
+                .readTimeout(1, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(false));
+        spool = new DiskSpool(folder.getRoot(), 4096, 8 * 4096);
+        // 不依赖定时任务，由测试调用drain
+        drainer = new SpoolDrainer(spool, () -> influxDB, TimeUnit.HOURS.toMillis(1));
+    }
+
+    @After
+    public void tearDown() {
+        drainer.close();
+        spool.close();
+        influxDB.close();
+        server.close();
+    }
+
+    @Test
+    public void replayWithRecordedConsistencyAndPrecision() {
+        spool.append(new SpoolRecord("db", "autogen", InfluxDB.ConsistencyLevel.QUORUM,
+                TimeUnit.SECONDS, "cpu value=1 1"));
+        spool.append(new SpoolRecord("db", "autogen", InfluxDB.ConsistencyLevel.ONE,
+                TimeUnit.MILLISECONDS, "cpu value=2 2"));
+
+        assertEquals(2, drainer.drain());
+        assertFalse(spool.hasPending());
+
+        final List<MockInfluxServer.Request> writes = server.getRequests("/write");
+        assertEquals(2, writes.size());
+        assertEquals("quorum", writes.get(0).param("consistency"));
+        assertEquals("s", writes.get(0).param("precision"));
+        assertEquals("cpu value=1 1", writes.get(0).body.trim());
+        assertEquals("one", writes.get(1).param("consistency"));
+        assertEquals("ms", writes.get(1).param("precision"));
+    }
+
+    @Test
+    public void keepRecordsWhileServerIsDown() {
+        spool.append(new SpoolRecord("db", null, TimeUnit.NANOSECONDS, "cpu value=1"));
+        server.setDown(true);
+
+        assertEquals(0, drainer.drain());
+        assertFalse(drainer.isAvailable());
+        assertEquals(1, spool.getPendingRecords());
+
+        server.setDown(false);
+        assertEquals(1, drainer.drain());
+        assertTrue(drainer.isAvailable());
+        assertFalse(spool.hasPending());
+    }
+
+    @Test
+    public void stopOnServerErrorAndDropRejectedRecords() {
+        spool.append(new SpoolRecord("db", null, TimeUnit.NANOSECONDS, "cpu value=1"));
+        spool.append(new SpoolRecord("db", null, TimeUnit.NANOSECONDS, "cpu value=2"));
+
+        server.setWriteResponse(500, "timeout");
+        assertEquals(0, drainer.drain());
+        // 服务端有响应，新的写入不需要进入磁盘缓存
+        assertTrue(drainer.isAvailable());
+        assertEquals(2, spool.getPendingRecords());
+
+        // 服务端拒绝的数据丢弃，不阻塞后面的记录
+        server.setWriteResponse(400, "unable to parse 'cpu value=1'");
+        assertEquals(0, drainer.drain());
+        assertFalse(spool.hasPending());
+        assertEquals(2, spool.getDropped());
+    }
+
+    @Test
+    public void dropRecordsRejectedWithUnknownErrors() {
+        spool.append(new SpoolRecord("db", null, TimeUnit.NANOSECONDS, "cpu value=1"));
+        spool.append(new SpoolRecord("db", null, TimeUnit.NANOSECONDS, "cpu value=2"));
+
+        // influxdb-java认为无法识别的错误值得重试，但重试也不会成功
+        server.setWriteResponse(422, "max-series-per-database limit exceeded: (1000000)");
+        assertEquals(0, drainer.drain());
+        assertTrue(drainer.isAvailable());
+        assertFalse(spool.hasPending());
+        assertEquals(2, spool.getDropped());
+    }
+
+    @Test
+    public void dropRecordAfterMaxAttempts() {
+        drainer.close();
+        drainer = new SpoolDrainer(spool, () -> influxDB, TimeUnit.HOURS.toMillis(1), 3);
+        spool.append(new SpoolRecord("db", null, TimeUnit.NANOSECONDS, "cpu value=1"));
+        spool.append(new SpoolRecord("db", null, TimeUnit.NANOSECONDS, "cpu value=2"));
+
+        server.setWriteResponse(503, null);
+        assertEquals(0, drainer.drain());
+        assertEquals(0, drainer.drain());
+        assertEquals(2, spool.getPendingRecords());
+        // 第三次失败后丢弃第一条记录，第二条记录重新计数
+        assertEquals(0, drainer.drain());
+        assertEquals(1, spool.getPendingRecords());
+        assertEquals(1, spool.getDropped());
+
+        server.setWriteResponse(204, null);
+        assertEquals(1, drainer.drain());
+        assertFalse(spool.hasPending());
+        assertEquals("cpu value=2", server.getRequests("/write").get(3).body.trim());
+    }
+
+    @Test
+    public void classifyTransientErrors() {
+        assertTrue(SpoolDrainer.isTransient(new InfluxDBIOException(new IOException("connection refused"))));
+        assertTrue(SpoolDrainer.isTransient(InfluxDBException.buildExceptionForErrorState("timeout")));
+        assertTrue(SpoolDrainer.isTransient(InfluxDBException.buildExceptionForErrorState("503 Service Unavailable")));
+        assertTrue(SpoolDrainer.isTransient(InfluxDBException.buildExceptionForErrorState(
+                "<html><head><title>502 Bad Gateway</title></head></html>")));
+        assertTrue(SpoolDrainer.isTransient(InfluxDBException.buildExceptionForErrorState("")));
+        assertTrue(SpoolDrainer.isTransient(InfluxDBException.buildExceptionForErrorState(
+                "engine: cache-max-memory-size exceeded: (1024/512)")));
+        assertFalse(SpoolDrainer.isTransient(InfluxDBException.buildExceptionForErrorState(
+                "max-series-per-database limit exceeded: (1000000)")));
+        assertFalse(SpoolDrainer.isTransient(InfluxDBException.buildExceptionForErrorState(
+                "partial write: field type conflict")));
+    }
+
+    @Test
+    public void becomeAvailableWhenNothingPending() {
+        drainer.markUnavailable();
+        assertEquals(0, drainer.drain());
+        assertTrue(drainer.isAvailable());
+    }
+}
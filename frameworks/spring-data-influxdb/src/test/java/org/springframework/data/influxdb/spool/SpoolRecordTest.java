@@ -0,0 +1,46 @@
+package org.springframework.data.influxdb.spool;
+
+import org.influxdb.InfluxDB;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SpoolRecordTest {
+
+    @Test
+    public void encodeAndDecode() {
+        final SpoolRecord record = new SpoolRecord("db", "autogen", InfluxDB.ConsistencyLevel.QUORUM,
+                TimeUnit.MILLISECONDS, "cpu,host=a value=1 1000", 123L);
+        final SpoolRecord decoded = SpoolRecord.decode(ByteBuffer.wrap(record.encode()));
+        assertEquals("db", decoded.getDatabase());
+        assertEquals("autogen", decoded.getRetentionPolicy());
+        assertEquals(InfluxDB.ConsistencyLevel.QUORUM, decoded.getConsistency());
+        assertEquals(TimeUnit.MILLISECONDS, decoded.getPrecision());
+        assertEquals("cpu,host=a value=1 1000", decoded.getLines());
+        assertEquals(123L, decoded.getTimestamp());
+    }
+
+    @Test
+    public void encodeNullRetentionPolicy() {
+        final SpoolRecord record = new SpoolRecord("db", null, InfluxDB.ConsistencyLevel.ONE,
+                TimeUnit.NANOSECONDS, "cpu value=1");
+        final SpoolRecord decoded = SpoolRecord.decode(ByteBuffer.wrap(record.encode()));
+        assertNull(decoded.getRetentionPolicy());
+        assertEquals(InfluxDB.ConsistencyLevel.ONE, decoded.getConsistency());
+        assertEquals(TimeUnit.NANOSECONDS, decoded.getPrecision());
+    }
+
+    @Test
+    public void decodeRecordWithoutConsistencyAsAll() {
+        // 旧格式只记录precision的序号
+        final byte[] payload = new SpoolRecord("db", "rp", TimeUnit.SECONDS, "cpu value=1").encode();
+        payload[8] = (byte) TimeUnit.SECONDS.ordinal();
+        final SpoolRecord decoded = SpoolRecord.decode(ByteBuffer.wrap(payload));
+        assertEquals(InfluxDB.ConsistencyLevel.ALL, decoded.getConsistency());
+        assertEquals(TimeUnit.SECONDS, decoded.getPrecision());
+    }
+}